@@ -0,0 +1,159 @@
+package com.gustavo.rpg.carga;
+
+import com.gustavo.rpg.metrics.LatencyHistogram;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Carga para o TelnetServer: abre muitas conexoes numa thread so (Selector),
+ * todas fazem login; as ociosas ficam paradas e as ativas mandam um
+ * comando, esperam a resposta e mandam outro depois de 'intervalo' ms.
+ * Mede a latencia do envio ate o primeiro byte da resposta.
+ *
+ * Nao e um benchmark JMH: roda contra um servidor de verdade, em outro
+ * processo, e fica no jar de benchmarks so para nao ir no jar do jogo.
+ *
+ * Uso: java -cp benchmarks.jar com.gustavo.rpg.carga.TelnetLoadClient
+ *      [host] [porta] [ociosas] [ativas] [segundos] [intervaloMs]
+ *      (padrao: localhost 4000 10000 1000 30 100)
+ * Precisa de um limite de arquivos abertos maior que ociosas + ativas (ulimit -n),
+ * dos dois lados.
+ */
+public final class TelnetLoadClient {
+
+    private static final String[] COMANDOS = { "olhar", "status", "ajuda", "inventario" };
+
+    private TelnetLoadClient() {}
+
+    /** Uma conexao; 'proximo' = quando mandar o proximo comando (so ativas). */
+    private static final class Cliente {
+        final SocketChannel canal;
+        final boolean ativo;
+        long enviadoEm;     // 0 = nao esta esperando resposta
+        long proximo;
+        int comando;
+
+        Cliente(SocketChannel canal, boolean ativo) {
+            this.canal = canal;
+            this.ativo = ativo;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int porta = args.length > 1 ? Integer.parseInt(args[1]) : 4000;
+        int ociosas = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+        int ativas = args.length > 3 ? Integer.parseInt(args[3]) : 1_000;
+        int segundos = args.length > 4 ? Integer.parseInt(args[4]) : 30;
+        long intervalo = (args.length > 5 ? Long.parseLong(args[5]) : 100) * 1_000_000L;
+
+        InetSocketAddress endereco = new InetSocketAddress(host, porta);
+        Selector selector = Selector.open();
+        Cliente[] clientes = new Cliente[ociosas + ativas];
+        ByteBuffer login = ByteBuffer.wrap("Carga\r\nguerreiro\r\n".getBytes(StandardCharsets.US_ASCII));
+
+        long t0 = System.nanoTime();
+        int abertas = 0, falhas = 0;
+        for (int i = 0; i < clientes.length; i++) {
+            try {
+                SocketChannel canal = SocketChannel.open(endereco);
+                canal.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                canal.write(login.duplicate());
+                canal.configureBlocking(false);
+                Cliente c = new Cliente(canal, i >= ociosas);
+                canal.register(selector, SelectionKey.OP_READ, c);
+                clientes[i] = c;
+                abertas++;
+            } catch (IOException e) {
+                if (falhas++ == 0) System.out.println("Falha conectando: " + e.getMessage());
+            }
+            if (i % 1000 == 999) selector.selectNow(k -> ler(k, null, 0)); // nao deixa as respostas acumularem
+        }
+        System.out.printf("%d conexoes abertas em %d ms (%d falhas)%n",
+                abertas, (System.nanoTime() - t0) / 1_000_000, falhas);
+
+        LatencyHistogram latencias = new LatencyHistogram();
+        ByteBuffer comando = ByteBuffer.allocate(64);
+        long inicio = System.nanoTime();
+        long fim = inicio + segundos * 1_000_000_000L;
+        Cliente[] ativos = new Cliente[ativas];
+        int n = 0;
+        for (Cliente c : clientes) {
+            if (c != null && c.ativo) {
+                c.proximo = inicio + (long) (Math.random() * intervalo); // espalha os primeiros envios
+                ativos[n++] = c;
+            }
+        }
+
+        long[] fechadas = { 0 };
+        while (System.nanoTime() < fim) {
+            selector.select(k -> {
+                if (!ler(k, latencias, intervalo)) fechadas[0]++;
+            }, 1);
+            long agora = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                Cliente c = ativos[i];
+                if (c.enviadoEm != 0 || agora < c.proximo || !c.canal.isOpen()) continue;
+                comando.clear();
+                comando.put(COMANDOS[c.comando++ % COMANDOS.length].getBytes(StandardCharsets.US_ASCII));
+                comando.put((byte) '\r').put((byte) '\n').flip();
+                try {
+                    c.canal.write(comando);
+                    c.enviadoEm = agora;
+                } catch (IOException e) {
+                    fechadas[0]++;
+                    c.canal.close();
+                }
+            }
+        }
+        double duracao = (System.nanoTime() - inicio) / 1e9;
+
+        System.out.printf("%d ociosas + %d ativas, %.0f s: %d comandos (%.0f/s), %d conexoes caidas%n",
+                ociosas, ativas, duracao, latencias.getTotal(), latencias.getTotal() / duracao, fechadas[0]);
+        System.out.printf("latencia: media %.2f ms, p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                latencias.getMedia() / 1e6, latencias.percentil(0.50) / 1e6,
+                latencias.percentil(0.99) / 1e6, latencias.getMaximo() / 1e6);
+
+        for (Cliente c : clientes) {
+            if (c != null) c.canal.close();
+        }
+        selector.close();
+    }
+
+    private static final ByteBuffer LEITURA = ByteBuffer.allocateDirect(64 * 1024);
+
+    /** Le o que chegou; a primeira leitura depois de um envio fecha a medida. false = conexao caiu. */
+    private static boolean ler(SelectionKey chave, LatencyHistogram latencias, long intervalo) {
+        Cliente c = (Cliente) chave.attachment();
+        try {
+            int total = 0, n;
+            do {
+                LEITURA.clear();
+                n = c.canal.read(LEITURA);
+                if (n > 0) total += n;
+            } while (n > 0);
+            if (total > 0 && c.enviadoEm != 0 && latencias != null) {
+                long agora = System.nanoTime();
+                latencias.gravar(agora - c.enviadoEm);
+                c.enviadoEm = 0;
+                c.proximo = agora + intervalo;
+            }
+            if (n < 0) {
+                chave.cancel();
+                c.canal.close();
+                return false;
+            }
+        } catch (IOException e) {
+            chave.cancel();
+            return false;
+        }
+        return true;
+    }
+}
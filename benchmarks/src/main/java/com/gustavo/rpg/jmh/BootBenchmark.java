@@ -0,0 +1,41 @@
+package com.gustavo.rpg.jmh;
+
+import com.gustavo.rpg.core.Game;
+import com.gustavo.rpg.core.NullOutput;
+import com.gustavo.rpg.core.WorldTemplate;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Criar uma partida e rodar boot() (via start()). 'mundo' e o mapa padrao
+ * ou um gerado (ver Mundos): o World de uma partida e O(1) no tamanho.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BootBenchmark {
+
+    @Param({ "guerreiro", "mago", "arqueiro" })
+    public String classe;
+
+    @Param({ Mundos.PADRAO, "100x100", "1000x1000" })
+    public String mundo;
+
+    private WorldTemplate mapa;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        mapa = Mundos.template(mundo);
+    }
+
+    @Benchmark
+    public Game boot() {
+        Game game = new Game("Bench", classe, NullOutput.INSTANCE, mapa);
+        game.start();
+        return game;
+    }
+}
@@ -0,0 +1,220 @@
+package com.gustavo.rpg.jmh;
+
+import com.gustavo.rpg.core.Game;
+import com.gustavo.rpg.core.NullOutput;
+import com.gustavo.rpg.save.BinarySaveCodec;
+import com.gustavo.rpg.save.CommandJournal;
+import com.gustavo.rpg.utils.RandomSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Diario de comandos (CommandJournal):
+ *
+ * - recuperar: partidas jogam comandos aleatorios com diario, o diario e
+ *   fechado (como numa queda) e o tempo medido e reabrir e recuperar todas
+ *   (foto + cauda refeita). Cada partida tem que sair igual ao fim do seu
+ *   ultimo comando registrado, senao o benchmark falha
+ *   (IllegalStateException);
+ * - comando: varias sessoes em varias threads, cada comando esperando o
+ *   disco: diario (um append por comando, fsync em grupo) contra
+ *   reescrever o save inteiro com fsync a cada comando.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandJournalBenchmark {
+
+    private static final String[] CLASSES = { "guerreiro", "mago", "arqueiro" };
+    private static final String[] COMANDOS = {
+        "n", "s", "l", "o", "atacar", "atacar", "atacar", "olhar", "status", "inventario",
+        "pegar Espada curta", "pegar Pocao de cura", "pegar Espada longa", "pegar Cajado arcano",
+        "largar Espada curta", "equipar Espada curta", "equipar Espada longa", "beber Pocao de cura",
+        "viajar Torre", "viajar Vila", "ir para Ruinas",
+    };
+
+    // -------------------------------------------------------------------------
+    // RECUPERACAO
+    // -------------------------------------------------------------------------
+
+    /** Um diario "caido" novo para cada recuperacao medida. */
+    @State(Scope.Benchmark)
+    public static class Queda {
+        @Param({ "30" })
+        public int partidas;
+
+        @Param({ "600" })
+        public int comandos;
+
+        Path dir;
+        byte[][] esperado;
+
+        @Setup(Level.Invocation)
+        public void jogar() throws IOException {
+            dir = Files.createTempDirectory("rpg-diario");
+            Game[] jogos = new Game[partidas];
+            esperado = new byte[partidas][];
+            try (CommandJournal diario = new CommandJournal(dir, false)) {
+                for (int i = 0; i < partidas; i++) {
+                    jogos[i] = new Game("Jogador " + i, CLASSES[i % CLASSES.length], NullOutput.INSTANCE);
+                    jogos[i].setDiario(diario);
+                    jogos[i].start();
+                }
+                RandomSource rng = new RandomSource(42);
+                for (int c = 0; c < comandos; c++) {
+                    for (int i = 0; i < partidas; i++) {
+                        String linha = COMANDOS[rng.nextInt(COMANDOS.length)];
+                        jogos[i].handleCommand(linha);
+                        if (mudaEstado(linha)) esperado[i] = BinarySaveCodec.encode(jogos[i].criarSaveData());
+                    }
+                }
+            } // "queda": o processo some depois do ultimo lote
+        }
+
+        @TearDown(Level.Invocation)
+        public void apagarDiario() throws IOException {
+            apagar(dir);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 5)
+    public int recuperar(Queda queda) throws IOException {
+        int refeitos = 0;
+        try (CommandJournal diario = new CommandJournal(queda.dir, false)) {
+            for (int i = 0; i < queda.partidas; i++) {
+                Game recuperado = Game.recuperar(diario, "Jogador " + i, NullOutput.INSTANCE);
+                if (recuperado == null) {
+                    throw new IllegalStateException("partida " + i + " nao encontrada no diario");
+                }
+                recuperado.start();
+                byte[] obtido = BinarySaveCodec.encode(recuperado.criarSaveData());
+                if (!Arrays.equals(queda.esperado[i], obtido) || recuperado.getDivergenciasDoDiario() != 0) {
+                    throw new IllegalStateException("partida " + i + " diferente depois da recuperacao ("
+                            + recuperado.getDivergenciasDoDiario() + " divergencias)");
+                }
+                refeitos++;
+            }
+        }
+        return refeitos;
+    }
+
+    // -------------------------------------------------------------------------
+    // CUSTO DA DURABILIDADE
+    // -------------------------------------------------------------------------
+
+    @State(Scope.Benchmark)
+    public static class Disco {
+        /** diario = CommandJournal esperando o fsync; save = save inteiro + fsync por comando. */
+        @Param({ "diario", "save" })
+        public String modo;
+
+        Path dir;
+        CommandJournal diario;
+        final AtomicInteger sessoes = new AtomicInteger();
+        final LongAdder fsyncs = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            dir = Files.createTempDirectory("rpg-carga");
+            diario = modo.equals("diario") ? new CommandJournal(dir, true) : null;
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            if (diario != null) {
+                diario.close();
+                System.out.printf("%n%d registros em %d fsyncs (%.1f por fsync, max %d), %.0f bytes/registro%n",
+                        diario.getRegistros(), diario.getLotes(), diario.getRegistrosPorLote(),
+                        diario.getMaiorLote(), diario.getBytes() / (double) Math.max(1, diario.getRegistros()));
+            } else {
+                System.out.printf("%n%d fsyncs (1 por comando), %.0f bytes/comando%n",
+                        fsyncs.sum(), bytes.sum() / (double) Math.max(1, fsyncs.sum()));
+            }
+            apagar(dir);
+        }
+    }
+
+    /** Uma sessao por thread, todas no mesmo diario. */
+    @State(Scope.Thread)
+    public static class Sessao {
+        Game jogo;
+        RandomSource rng;
+        ByteBuffer buffer;
+        Path save;
+
+        @Setup(Level.Trial)
+        public void setup(Disco disco) {
+            int i = disco.sessoes.getAndIncrement();
+            jogo = new Game("Sessao " + i, CLASSES[i % CLASSES.length], NullOutput.INSTANCE);
+            if (disco.diario != null) jogo.setDiario(disco.diario);
+            jogo.start();
+            rng = new RandomSource(i);
+            buffer = ByteBuffer.allocate(64 * 1024);
+            save = disco.dir.resolve(i + ".sav");
+        }
+    }
+
+    @Benchmark
+    @Threads(16)
+    public boolean comando(Disco disco, Sessao sessao) {
+        String linha = COMANDOS[sessao.rng.nextInt(COMANDOS.length)];
+        boolean vivo = sessao.jogo.handleCommand(linha);
+        if (disco.diario == null && mudaEstado(linha)) {
+            disco.bytes.add(reescrever(sessao.save, sessao.jogo, sessao.buffer));
+            disco.fsyncs.increment();
+        }
+        return vivo;
+    }
+
+    // -------------------------------------------------------------------------
+    // AUXILIARES
+    // -------------------------------------------------------------------------
+
+    /** Comandos que vao para o diario (o tempo de olhar/status so iria no proximo registro). */
+    private static boolean mudaEstado(String linha) {
+        return !(linha.equals("olhar") || linha.equals("status") || linha.equals("inventario"));
+    }
+
+    /** O jeito antigo de ser duravel: save inteiro num .tmp, fsync e rename. */
+    private static int reescrever(Path destino, Game jogo, ByteBuffer buffer) {
+        byte[] dados = BinarySaveCodec.encode(jogo.criarSaveData());
+        Path temp = destino.resolveSibling(destino.getFileName() + ".tmp");
+        try (FileChannel canal = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            buffer.clear();
+            buffer.put(dados).flip();
+            while (buffer.hasRemaining()) canal.write(buffer);
+            canal.force(true);
+            Files.move(temp, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return dados.length;
+    }
+
+    private static void apagar(Path dir) throws IOException {
+        try (var arquivos = Files.walk(dir)) {
+            arquivos.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
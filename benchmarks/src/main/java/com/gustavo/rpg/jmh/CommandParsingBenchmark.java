@@ -0,0 +1,87 @@
+package com.gustavo.rpg.jmh;
+
+import com.gustavo.rpg.core.CommandRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Separacao verbo/argumento: a antiga (split com regex + toLowerCase +
+ * switch de String) contra a busca no CommandRegistry. Cada operacao
+ * processa as LINHAS todas; rode com -prof gc para ver os bytes alocados.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandParsingBenchmark {
+
+    private static final String[] LINHAS = {
+            "olhar", "ir norte", "atacar", "pegar espada curta", "Inventario",
+            "n", "beber pocao", "equipar espada", "status", "  largar   espada longa  "
+    };
+
+    private CommandRegistry registry;
+
+    @Setup
+    public void setup() {
+        registry = new CommandRegistry();
+        for (String verbo : new String[] { "ajuda", "status", "olhar", "inventario", "ir", "atacar",
+                "pegar", "largar", "equipar", "beber", "salvar", "sair" }) {
+            registry.register(verbo, arg -> { });
+        }
+        registry.alias("n", "ir", "norte");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(10)
+    public void splitESwitch(Blackhole bh) {
+        for (String original : LINHAS) {
+            String linha = original.trim();
+            String[] partes = linha.split("\\s+", 2);
+            String comando = partes[0].toLowerCase();
+            String arg = partes.length > 1 ? partes[1] : "";
+            int id = switch (comando) {
+                case "ajuda" -> 1;
+                case "status" -> 2;
+                case "olhar" -> 3;
+                case "inventario" -> 4;
+                case "ir", "n" -> 5;
+                case "atacar" -> 6;
+                case "pegar" -> 7;
+                case "largar" -> 8;
+                case "equipar" -> 9;
+                case "beber" -> 10;
+                default -> 0;
+            };
+            bh.consume(id);
+            bh.consume(arg);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(10)
+    public void registry(Blackhole bh) {
+        for (String linha : LINHAS) {
+            int fim = linha.length();
+            int inicio = 0;
+            while (inicio < fim && Character.isWhitespace(linha.charAt(inicio))) inicio++;
+            while (fim > inicio && Character.isWhitespace(linha.charAt(fim - 1))) fim--;
+            int fimVerbo = inicio;
+            while (fimVerbo < fim && !Character.isWhitespace(linha.charAt(fimVerbo))) fimVerbo++;
+
+            CommandRegistry.Entry entry = registry.find(linha, inicio, fimVerbo);
+            String arg = entry.getArgFixo();
+            if (arg == null) {
+                int inicioArg = fimVerbo;
+                while (inicioArg < fim && Character.isWhitespace(linha.charAt(inicioArg))) inicioArg++;
+                arg = (inicioArg < fim) ? linha.substring(inicioArg, fim) : "";
+            }
+            bh.consume(entry);
+            bh.consume(arg);
+        }
+    }
+}
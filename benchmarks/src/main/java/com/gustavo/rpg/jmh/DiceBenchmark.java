@@ -0,0 +1,92 @@
+package com.gustavo.rpg.jmh;
+
+import com.gustavo.rpg.utils.Dice;
+import com.gustavo.rpg.utils.DiceTable;
+import com.gustavo.rpg.utils.RandomSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rolagem de dados: por dado, NdF, em lote e em lote em todas as threads,
+ * cada uma com uma fonte split() da mesma semente.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DiceBenchmark {
+
+    @Param({ "4", "6", "100" })
+    public int faces;
+
+    private RandomSource rng;
+    private DiceTable tresDados;
+    private final int[] lote = new int[1024];
+
+    @Setup
+    public void setup() {
+        rng = new RandomSource(42);
+        tresDados = DiceTable.of(3, faces);
+    }
+
+    @Benchmark
+    public int rollThreadLocal() {
+        return Dice.roll(1, faces);
+    }
+
+    @Benchmark
+    public int rollRandomSource() {
+        return Dice.roll(rng, 1, faces);
+    }
+
+    @Benchmark
+    public int roll3DadosUmAUm() {
+        return Dice.roll(1, faces) + Dice.roll(1, faces) + Dice.roll(1, faces);
+    }
+
+    @Benchmark
+    public int roll3DadosTabela() {
+        return tresDados.roll(rng);
+    }
+
+    /** 1024 dados por operacao. */
+    @Benchmark
+    @OperationsPerInvocation(1024)
+    public int[] rollMany() {
+        Dice.rollMany(rng, faces, lote);
+        return lote;
+    }
+
+    /** 1024 dados por operacao, uma thread por processador. */
+    @Benchmark
+    @Threads(Threads.MAX)
+    @OperationsPerInvocation(1024)
+    public int[] rollManyParalelo(Fonte fonte) {
+        Dice.rollMany(fonte.rng, faces, fonte.lote);
+        return fonte.lote;
+    }
+
+    /** Semente comum das threads de rollManyParalelo. */
+    @State(Scope.Benchmark)
+    public static class Raiz {
+        private final RandomSource rng = new RandomSource(42);
+
+        synchronized RandomSource split() {
+            return rng.split();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Fonte {
+        RandomSource rng;
+        final int[] lote = new int[1024];
+
+        @Setup
+        public void setup(Raiz raiz) {
+            rng = raiz.split();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.gustavo.rpg.jmh;
+
+import com.gustavo.rpg.core.Game;
+import com.gustavo.rpg.core.NullOutput;
+import com.gustavo.rpg.core.WorldTemplate;
+import com.gustavo.rpg.save.SaveData;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de Game.handleCommand por verbo, com saida descartada.
+ * Verbos que mudam o estado rodam em pares que voltam ao estado inicial
+ * (ir norte/ir sul, pegar/largar), entao cada operacao sao dois comandos.
+ *
+ * 'mundo' e o mapa padrao ou um gerado (ver Mundos). O mundo gerado nao tem
+ * itens no inicio: a partida comeca de uma foto com uma Espada curta na
+ * mochila, 'ir' usa a primeira saida do local inicial e 'pegar' vira
+ * largar/pegar. atacar() depende do Lobo do mapa padrao e roda sempre nele.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandleCommandBenchmark {
+
+    @Param({ "olhar", "status", "inventario", "ajuda", "ir", "pegar", "equipar", "desconhecido" })
+    public String verbo;
+
+    @Param({ Mundos.PADRAO, "100x100", "1000x1000" })
+    public String mundo;
+
+    private Game game;
+    private String primeiro;
+    private String segundo; // null = so um comando
+
+    @Setup(Level.Trial)
+    public void setup() {
+        if (Mundos.PADRAO.equals(mundo)) {
+            game = new Game("Bench", "guerreiro", NullOutput.INSTANCE);
+            game.setSeed(1);
+            game.start();
+            comandosDoMapaPadrao();
+        } else {
+            WorldTemplate mapa = Mundos.template(mundo);
+            SaveData foto = new SaveData("Bench", "guerreiro", 25,
+                    mapa.getEntidades().idDe(mapa.getInicial()), mapa.chaveDe(mapa.getInicial()), null,
+                    List.of(SaveData.ItemSalvo.porNome("Espada curta")), List.of());
+            game = Game.carregar(foto, NullOutput.INSTANCE, mapa);
+            game.setSeed(1);
+            game.start();
+            comandosDoMapaGerado(mapa);
+        }
+    }
+
+    private void comandosDoMapaPadrao() {
+        switch (verbo) {
+            case "ir" -> { primeiro = "ir norte"; segundo = "ir sul"; }
+            case "pegar" -> { primeiro = "pegar espada"; segundo = "largar espada"; }
+            case "equipar" -> {
+                game.handleCommand("pegar espada");
+                primeiro = "equipar espada curta";
+            }
+            case "desconhecido" -> primeiro = "dancar";
+            default -> primeiro = verbo;
+        }
+    }
+
+    private void comandosDoMapaGerado(WorldTemplate mapa) {
+        switch (verbo) {
+            case "ir" -> {
+                String[] idaEVolta = Mundos.idaEVolta(mapa);
+                primeiro = "ir " + idaEVolta[0];
+                segundo = "ir " + idaEVolta[1];
+            }
+            case "pegar" -> { primeiro = "largar espada curta"; segundo = "pegar espada curta"; }
+            case "equipar" -> primeiro = "equipar espada curta";
+            case "desconhecido" -> primeiro = "dancar";
+            default -> primeiro = verbo;
+        }
+    }
+
+    @Benchmark
+    public boolean comando() {
+        boolean r = game.handleCommand(primeiro);
+        if (segundo != null) {
+            r &= game.handleCommand(segundo);
+        }
+        return r;
+    }
+
+    /** Luta completa: partida nova, ir ate o Lobo e atacar ate ele morrer. */
+    @Benchmark
+    public void atacar(Blackhole bh) {
+        Game g = new Game("Bench", "guerreiro", NullOutput.INSTANCE);
+        g.start();
+        g.handleCommand("n");
+        for (int i = 0; i < 4; i++) {
+            bh.consume(g.handleCommand("atacar"));
+        }
+    }
+}
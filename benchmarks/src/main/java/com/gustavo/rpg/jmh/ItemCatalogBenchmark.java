@@ -0,0 +1,68 @@
+package com.gustavo.rpg.jmh;
+
+import com.gustavo.rpg.items.Item;
+import com.gustavo.rpg.items.ItemCatalog;
+import com.gustavo.rpg.items.Potion;
+import com.gustavo.rpg.items.Weapon;
+import com.gustavo.rpg.utils.RandomSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Catalogo de itens: resolver um item do save por id e por nome, e o
+ * custo de um item carregado como objeto novo (como o load fazia antes)
+ * contra a referencia ao prototipo do catalogo. Com -prof gc o
+ * gc.alloc.rate.norm mostra os bytes por item de cada jeito.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemCatalogBenchmark {
+
+    private static final int CONSULTAS = 4096; // potencia de 2
+
+    private ItemCatalog catalogo;
+    private int[] ids;
+    private String[] nomes;
+    private int i;
+
+    @Setup
+    public void setup() {
+        catalogo = ItemCatalog.padrao();
+        ids = new int[CONSULTAS];
+        nomes = new String[CONSULTAS];
+        RandomSource rng = new RandomSource(42);
+        for (int k = 0; k < CONSULTAS; k++) {
+            ids[k] = rng.nextInt(catalogo.tamanho());
+            nomes[k] = catalogo.item(ids[k]).getName();
+        }
+    }
+
+    private int proximo() {
+        i = (i + 1) & (CONSULTAS - 1);
+        return i;
+    }
+
+    @Benchmark
+    public Item porId() {
+        return catalogo.item(ids[proximo()]);
+    }
+
+    @Benchmark
+    public Item porNome() {
+        return catalogo.porNome(nomes[proximo()]);
+    }
+
+    /** O que cada load fazia: um Weapon/Potion novo com o mesmo nome (String nova). */
+    @Benchmark
+    public Item copia() {
+        Item item = catalogo.item(ids[proximo()]);
+        String nome = new String(item.getName());
+        if (item instanceof Weapon w) return new Weapon(nome, w.getDamageBonus());
+        return new Potion(nome, ((Potion) item).getHealAmount());
+    }
+}
@@ -0,0 +1,73 @@
+package com.gustavo.rpg.jmh;
+
+import com.gustavo.rpg.core.Location;
+import com.gustavo.rpg.core.LocationState;
+import com.gustavo.rpg.core.World;
+import com.gustavo.rpg.core.WorldTemplate;
+import com.gustavo.rpg.exceptions.InventoryFullException;
+import com.gustavo.rpg.exceptions.ItemNotFoundException;
+import com.gustavo.rpg.inventory.Inventory;
+import com.gustavo.rpg.items.Item;
+import com.gustavo.rpg.items.Potion;
+import com.gustavo.rpg.items.Weapon;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Busca de item por nome parcial em inventarios e no chao de um local,
+ * com N itens. As buscas cobrem nome exato, prefixo, meio do nome e o
+ * ultimo item inserido.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemLookupBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int itens;
+
+    @Param({ "espada curta 0", "pocao", "longa 5", "ultimo" })
+    public String busca;
+
+    private Inventory<Item> inventario;
+    private LocationState chao;
+    private String consulta;
+
+    @Setup
+    public void setup() throws InventoryFullException {
+        inventario = new Inventory<>(itens);
+        Location loc = new Location("Deposito", "Benchmark");
+        for (int i = 0; i < itens; i++) {
+            Item item = criarItem(i);
+            inventario.add(item);
+            loc.addGroundItem(item);
+        }
+        WorldTemplate template = new WorldTemplate(Map.of("deposito", loc), "deposito");
+        chao = new World(template).estado(loc);
+
+        consulta = busca.equals("ultimo") ? criarItem(itens - 1).getName() : busca;
+    }
+
+    private static Item criarItem(int i) {
+        return switch (i % 3) {
+            case 0 -> new Weapon("Espada curta " + i, 4);
+            case 1 -> new Weapon("Espada longa " + i, 6);
+            default -> new Potion("Pocao de cura " + i, 6);
+        };
+    }
+
+    @Benchmark
+    public Item inventarioFindOrThrow() throws ItemNotFoundException {
+        return inventario.findOrThrow(consulta);
+    }
+
+    @Benchmark
+    public Item locationFindGroundItem() {
+        return chao.findGroundItem(consulta);
+    }
+}
@@ -0,0 +1,47 @@
+package com.gustavo.rpg.jmh;
+
+import com.gustavo.rpg.core.Location;
+import com.gustavo.rpg.core.WorldTemplate;
+import com.gustavo.rpg.world.WorldGenerator;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mapas para o @Param 'mundo' dos benchmarks: "padrao" (o mapa do jogo) ou
+ * "LxA", um mundo gerado de L x A locais (semente fixa). Gerar um mundo
+ * grande custa segundos, entao cada um e gerado uma vez por fork.
+ */
+final class Mundos {
+
+    static final String PADRAO = "padrao";
+
+    private static final Map<String, WorldTemplate> GERADOS = new ConcurrentHashMap<>();
+
+    private Mundos() {}
+
+    static WorldTemplate template(String mundo) {
+        if (PADRAO.equals(mundo)) {
+            return WorldTemplate.padrao();
+        }
+        return GERADOS.computeIfAbsent(mundo, m -> {
+            String[] partes = m.split("x");
+            int largura = Integer.parseInt(partes[0]);
+            int altura = Integer.parseInt(partes[1]);
+            return WorldTemplate.gerado(WorldGenerator.gerar(largura, altura, 42));
+        });
+    }
+
+    /** Uma saida do local inicial e a direcao que volta dela (ex: { "norte", "sul" }). */
+    static String[] idaEVolta(WorldTemplate mapa) {
+        Location inicio = mapa.getInicial();
+        for (Map.Entry<String, Location> saida : inicio.getExits().entrySet()) {
+            for (Map.Entry<String, Location> volta : saida.getValue().getExits().entrySet()) {
+                if (volta.getValue().equals(inicio)) {
+                    return new String[] { saida.getKey(), volta.getKey() };
+                }
+            }
+        }
+        throw new IllegalStateException("Local inicial sem saida de ida e volta: " + inicio.getName());
+    }
+}
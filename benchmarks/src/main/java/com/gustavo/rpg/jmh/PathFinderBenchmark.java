@@ -0,0 +1,68 @@
+package com.gustavo.rpg.jmh;
+
+import com.gustavo.rpg.utils.RandomSource;
+import com.gustavo.rpg.world.CompactWorld;
+import com.gustavo.rpg.world.PathFinder;
+import com.gustavo.rpg.world.WorldGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Menor caminho em mundos gerados. buscaFria roda mais pares do que cabem
+ * no cache de rotas (cada consulta e uma busca); rotaRepetida roda
+ * poucos pares, sempre achados no cache.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathFinderBenchmark {
+
+    private static final int PARES_FRIOS = 10_000; // mais que o cache do PathFinder
+    private static final int PARES_QUENTES = 200;
+
+    @Param({ "100000", "1000000" })
+    public int locais;
+
+    private PathFinder rotas;
+    private int[] origens;
+    private int[] destinos;
+    private int fria;
+    private int quente;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        int lado = (int) Math.ceil(Math.sqrt(locais));
+        CompactWorld mundo = WorldGenerator.gerar(lado, lado, 42);
+        rotas = new PathFinder(mundo);
+        rotas.rota(0, 1); // marcos, se o grafo usar
+
+        RandomSource rng = new RandomSource(7);
+        origens = new int[PARES_FRIOS];
+        destinos = new int[PARES_FRIOS];
+        for (int i = 0; i < PARES_FRIOS; i++) {
+            origens[i] = rng.nextInt(mundo.tamanho());
+            destinos[i] = rng.nextInt(mundo.tamanho());
+        }
+        for (int i = 0; i < PARES_QUENTES; i++) {
+            rotas.rota(origens[i], destinos[i]); // rotaRepetida ja comeca com o cache cheio
+        }
+    }
+
+    @Benchmark
+    public int[] buscaFria() {
+        int i = fria;
+        fria = (i + 1) % PARES_FRIOS;
+        return rotas.rota(origens[i], destinos[i]);
+    }
+
+    @Benchmark
+    public int[] rotaRepetida() {
+        int i = quente;
+        quente = (i + 1) % PARES_QUENTES;
+        return rotas.rota(origens[i], destinos[i]);
+    }
+}
@@ -0,0 +1,74 @@
+package com.gustavo.rpg.jmh;
+
+import com.gustavo.rpg.utils.RandomSource;
+import com.gustavo.rpg.world.RegionWorld;
+import com.gustavo.rpg.world.WorldFile;
+import com.gustavo.rpg.world.WorldGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mundo em arquivo por regioes: grava um mundo gerado e anda pelo arquivo
+ * com orcamentos de cache diferentes. O passeio imita varios jogadores:
+ * passos aleatorios com um salto para um local qualquer a cada SALTO
+ * passos. Acertos, faltas e despejos saem no fim de cada trial.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegionWorldBenchmark {
+
+    private static final int SALTO = 2_000;
+
+    @Param({ "1000000", "4000000" })
+    public int locais;
+
+    @Param({ "4", "16", "64" })
+    public long orcamentoMB;
+
+    private Path dir;
+    private RegionWorld mundo;
+    private RandomSource rng;
+    private int atual;
+    private int passos;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("rpg-regioes");
+        Path arquivo = dir.resolve("mundo.rpgw");
+        int lado = (int) Math.ceil(Math.sqrt(locais));
+        WorldFile.gravar(WorldGenerator.gerar(lado, lado, 42), arquivo, WorldFile.LADO_PADRAO);
+
+        mundo = RegionWorld.abrir(arquivo, orcamentoMB << 20);
+        rng = new RandomSource(7);
+        atual = mundo.getInicial();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.out.printf("%n%d MB: acertos %.2f%%, faltas %d, despejos %d%n", orcamentoMB,
+                100 * mundo.getTaxaAcerto(), mundo.getFaltas(), mundo.getDespejos());
+        mundo.close();
+        try (var arquivos = Files.walk(dir)) {
+            arquivos.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public int passo() {
+        if (++passos % SALTO == 0) {
+            atual = rng.nextInt(mundo.tamanho());
+        }
+        int proximo = mundo.vizinho(atual, rng.nextInt(mundo.totalDirecoes()));
+        if (proximo >= 0) atual = proximo;
+        return atual;
+    }
+}
@@ -0,0 +1,68 @@
+package com.gustavo.rpg.jmh;
+
+import com.gustavo.rpg.save.BinarySaveCodec;
+import com.gustavo.rpg.save.SaveData;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode/decode do formato binario com saves sinteticos grandes: 'itens'
+ * no inventario (metade por id, metade por nome) e 'locais' alterados.
+ * SaveLoadBenchmark mede o mesmo com saves de partidas de verdade.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SaveCodecBenchmark {
+
+    @Param({ "100", "10000" })
+    public int itens;
+
+    @Param({ "10", "1000" })
+    public int locais;
+
+    private SaveData data;
+    private byte[] bytes;
+
+    @Setup
+    public void setup() {
+        data = criarSave(itens, locais);
+        bytes = BinarySaveCodec.encode(data);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return BinarySaveCodec.encode(data);
+    }
+
+    @Benchmark
+    public SaveData decode() throws IOException {
+        return BinarySaveCodec.decode(bytes);
+    }
+
+    private static SaveData criarSave(int itens, int locais) {
+        List<SaveData.ItemSalvo> inventario = new ArrayList<>(itens);
+        for (int i = 0; i < itens; i++) {
+            inventario.add(i % 2 == 0
+                    ? SaveData.ItemSalvo.porId(i % 8)
+                    : SaveData.ItemSalvo.porNome("Espada curta " + i));
+        }
+
+        List<SaveData.LocalSalvo> alterados = new ArrayList<>(locais);
+        for (int i = 0; i < locais; i++) {
+            alterados.add(new SaveData.LocalSalvo(i, null,
+                    List.of(new SaveData.NpcSalva(i % 6, null, i % 18)),
+                    List.of(SaveData.ItemSalvo.porId(1), SaveData.ItemSalvo.porId(2))));
+        }
+
+        return new SaveData("Benchmark", "guerreiro", 25, 0, "vila",
+                SaveData.ItemSalvo.porId(0), inventario, alterados);
+    }
+}
@@ -0,0 +1,94 @@
+package com.gustavo.rpg.jmh;
+
+import com.gustavo.rpg.core.Game;
+import com.gustavo.rpg.core.NullOutput;
+import com.gustavo.rpg.core.WorldTemplate;
+import com.gustavo.rpg.save.BinarySaveCodec;
+import com.gustavo.rpg.save.SaveData;
+import com.gustavo.rpg.save.SaveFiles;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ida e volta de save: a foto que salvar() enfileira (criarSaveData),
+ * o encode/decode binario e o carregamento completo via carregarDeArquivo.
+ * 'alteracoes' controla quantos comandos mexeram no mundo antes do save.
+ * 'mundo' e o mapa padrao ou um gerado (ver Mundos); o roteiro e do mapa
+ * padrao, entao num mundo gerado os comandos que nao se aplicam so falham
+ * e o save fica com o jogador e poucos locais alterados.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SaveLoadBenchmark {
+
+    @Param({ "0", "20" })
+    public int alteracoes;
+
+    @Param({ Mundos.PADRAO, "100x100", "1000x1000" })
+    public String mundo;
+
+    private WorldTemplate mapa;
+    private Game game;
+    private SaveData data;
+    private byte[] bytes;
+    private Path arquivo;
+
+    @Setup
+    public void setup() throws IOException {
+        mapa = Mundos.template(mundo);
+        game = new Game("Bench", "guerreiro", NullOutput.INSTANCE, mapa);
+        game.setSeed(7);
+        game.start();
+        String[] roteiro = { "pegar espada", "n", "atacar", "atacar", "atacar", "pegar pocao",
+                "l", "atacar", "atacar", "atacar", "largar espada", "o", "s" };
+        for (int i = 0; i < alteracoes; i++) {
+            game.handleCommand(roteiro[i % roteiro.length]);
+        }
+
+        data = game.criarSaveData();
+        bytes = BinarySaveCodec.encode(data);
+        arquivo = Files.createTempFile("rpg-bench", SaveFiles.EXTENSAO);
+        SaveFiles.escrever(arquivo, data);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(arquivo);
+    }
+
+    @Benchmark
+    public SaveData snapshot() {
+        return game.criarSaveData();
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return BinarySaveCodec.encode(data);
+    }
+
+    @Benchmark
+    public SaveData decode() throws IOException {
+        return BinarySaveCodec.decode(bytes);
+    }
+
+    @Benchmark
+    public Path escreverArquivo() throws IOException {
+        SaveFiles.escrever(arquivo, game.criarSaveData());
+        return arquivo;
+    }
+
+    @Benchmark
+    public Game carregarDeArquivo() {
+        Game carregado = Game.carregarDeArquivo(arquivo, NullOutput.INSTANCE, mapa);
+        carregado.start();
+        return carregado;
+    }
+}
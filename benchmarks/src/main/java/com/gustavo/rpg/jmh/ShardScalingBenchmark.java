@@ -0,0 +1,63 @@
+package com.gustavo.rpg.jmh;
+
+import com.gustavo.rpg.core.ShardedWorld;
+import com.gustavo.rpg.core.WorldTemplate;
+import com.gustavo.rpg.world.WorldGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prototipo ShardedWorld em 1, 2, 4... shards (uma thread cada): tempo para
+ * rodar TICKS ticks de um mundo gerado com 'jogadores' robos. Depois de
+ * cada rodada confere que nenhum jogador ou NPC sumiu ou duplicou nas
+ * passagens de um shard para outro (falha o benchmark se sim).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShardScalingBenchmark {
+
+    private static final int TICKS = 30;
+
+    @Param({ "1", "2", "4", "8" })
+    public int shards;
+
+    @Param({ "250000" })
+    public int locais;
+
+    @Param({ "5000" })
+    public int jogadores;
+
+    private WorldTemplate mapa;
+    private ShardedWorld mundo;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        int lado = (int) Math.ceil(Math.sqrt(locais));
+        mapa = WorldTemplate.gerado(WorldGenerator.gerar(lado, lado, 42));
+    }
+
+    @Setup(Level.Invocation)
+    public void novoMundo() {
+        mundo = new ShardedWorld(mapa, shards, 7);
+        mundo.adicionarJogadores(jogadores);
+    }
+
+    @TearDown(Level.Invocation)
+    public void conferir() {
+        if (mundo.contarJogadores() != jogadores || mundo.contarNpcs() != mundo.getNpcsIniciais()) {
+            throw new IllegalStateException("Passagem entre shards perdeu ou duplicou alguem: "
+                    + mundo.contarJogadores() + " jogadores, " + mundo.contarNpcs() + " NPCs de "
+                    + mundo.getNpcsIniciais());
+        }
+    }
+
+    @Benchmark
+    public ShardedWorld.Resultado rodar() throws InterruptedException {
+        return mundo.rodar(TICKS);
+    }
+}
@@ -0,0 +1,173 @@
+package com.gustavo.rpg.jmh;
+
+import com.gustavo.rpg.core.Game;
+import com.gustavo.rpg.core.Location;
+import com.gustavo.rpg.core.NullOutput;
+import com.gustavo.rpg.core.World;
+import com.gustavo.rpg.core.WorldTemplate;
+import com.gustavo.rpg.entities.NPC;
+import com.gustavo.rpg.events.GameEvent;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Teste de carga do mundo compartilhado, com contencao de proposito e
+ * THREADS threads (mais que os nucleos, para intercalar):
+ *
+ * - golpe: todas batem na mesma NPC; quem recebe a morte poe outra no
+ *   lugar. Cada NPC tem que ter exatamente um matador;
+ * - atacar: uma partida por thread num World.compartilhado, todas na mesma
+ *   arena. Nenhuma NPC sai do local duas vezes: no fim de cada iteracao
+ *   NPCs na arena = iniciais + reaparecidas - derrotadas, sem repetidas nem
+ *   mortas, e golpes fatais = derrotadas.
+ *
+ * A conferencia roda no fim de cada iteracao e falha o benchmark
+ * (IllegalStateException) se algo nao bate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(SharedWorldStressBenchmark.THREADS)
+@Fork(1)
+public class SharedWorldStressBenchmark {
+
+    static final int THREADS = 8;
+    private static final int NPCS_NA_ARENA = 40;
+
+    // -------------------------------------------------------------------------
+    // GOLPES NA MESMA NPC (CAS DO HP)
+    // -------------------------------------------------------------------------
+
+    @State(Scope.Benchmark)
+    public static class Alvo {
+        final AtomicReference<NPC> atual = new AtomicReference<>();
+        final Map<NPC, AtomicInteger> matadores = new ConcurrentHashMap<>();
+        final AtomicInteger criadas = new AtomicInteger();
+
+        @Setup(Level.Iteration)
+        public void novo() {
+            matadores.clear();
+            criadas.set(0);
+            trocar();
+        }
+
+        void trocar() {
+            NPC npc = new NPC("Alvo", 50, 0);
+            matadores.put(npc, new AtomicInteger());
+            criadas.incrementAndGet();
+            atual.set(npc);
+        }
+
+        @TearDown(Level.Iteration)
+        public void conferir() {
+            int mortas = 0;
+            for (Map.Entry<NPC, AtomicInteger> e : matadores.entrySet()) {
+                int n = e.getValue().get();
+                if (n > 1) {
+                    throw new IllegalStateException("NPC com " + n + " matadores");
+                }
+                if (n == 1 && e.getKey().getHp() != 0) {
+                    throw new IllegalStateException("NPC morta com hp " + e.getKey().getHp());
+                }
+                mortas += n;
+            }
+            if (mortas == 0) {
+                throw new IllegalStateException("nenhuma NPC morreu: a conferencia nao testou nada");
+            }
+            if (mortas != criadas.get() - 1) { // so a ultima pode estar viva
+                throw new IllegalStateException(mortas + " mortes para " + criadas.get() + " NPCs");
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean golpe(Alvo alvo) {
+        NPC npc = alvo.atual.get();
+        if (npc.takeDamage(1)) {
+            alvo.matadores.get(npc).incrementAndGet();
+            alvo.trocar(); // so quem matou troca
+            return true;
+        }
+        return false; // ainda viva, ou outra thread ja matou
+    }
+
+    // -------------------------------------------------------------------------
+    // PARTIDAS NA MESMA ARENA
+    // -------------------------------------------------------------------------
+
+    @State(Scope.Benchmark)
+    public static class Arena {
+        Location arena;
+        World mundo;
+        final LongAdder derrotadas = new LongAdder();
+        final LongAdder golpesFatais = new LongAdder();
+
+        @Setup(Level.Trial)
+        public void setup() {
+            arena = new Location("Arena", "Areia, sangue e gente demais.");
+            for (int i = 0; i < NPCS_NA_ARENA; i++) {
+                arena.addNpc(new NPC("Gladiador " + i, 25, 2));
+            }
+            mundo = World.compartilhado(new WorldTemplate(Map.of("arena", arena), "arena"));
+        }
+
+        /** Chamado com todas as threads paradas (fim da iteracao). */
+        @TearDown(Level.Iteration)
+        public void conferir() {
+            if (derrotadas.sum() == 0) {
+                throw new IllegalStateException("nenhuma NPC derrotada: a conferencia nao testou nada");
+            }
+            List<NPC> restantes = mundo.estado(arena).getNpcs();
+            Set<NPC> unicas = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (NPC npc : restantes) {
+                if (!npc.isAlive()) {
+                    throw new IllegalStateException("NPC morta continua na arena: " + npc.getName());
+                }
+                if (!unicas.add(npc)) {
+                    throw new IllegalStateException("NPC repetida na arena: " + npc.getName());
+                }
+            }
+            long reaparecidas = derrotadas.sum() - mundo.getPendentesDoMundo(); // respawn e do mundo
+            long esperadas = NPCS_NA_ARENA + reaparecidas - derrotadas.sum();
+            if (restantes.size() != esperadas) {
+                throw new IllegalStateException(restantes.size() + " NPCs na arena, esperado " + esperadas);
+            }
+            if (golpesFatais.sum() != derrotadas.sum()) {
+                throw new IllegalStateException(golpesFatais.sum() + " golpes fatais para "
+                        + derrotadas.sum() + " derrotadas");
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Partida {
+        Game game;
+
+        @Setup(Level.Trial)
+        public void setup(Arena arena) {
+            game = new Game("Jogador", "guerreiro", NullOutput.INSTANCE, arena.mundo);
+            game.setEventos(evento -> {
+                if (evento instanceof GameEvent.NpcDerrotado) {
+                    arena.derrotadas.increment();
+                } else if (evento instanceof GameEvent.Ataque a && a.hpAlvo() == 0) {
+                    arena.golpesFatais.increment();
+                }
+            });
+            game.start();
+        }
+    }
+
+    @Benchmark
+    public boolean atacar(Partida partida) {
+        return partida.game.handleCommand("atacar");
+    }
+}
@@ -0,0 +1,64 @@
+package com.gustavo.rpg.jmh;
+
+import com.gustavo.rpg.utils.RandomSource;
+import com.gustavo.rpg.utils.TimingWheel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TimingWheel x PriorityQueue com muitos timers pendentes. Cada operacao
+ * anda um tick; quem dispara se reagenda com atraso aleatorio ate
+ * ATRASO_MAXIMO (como regen e andarilhos), entao ficam sempre 'pendentes'
+ * timers e cerca de pendentes / (ATRASO_MAXIMO / 2) disparos por tick.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = { "-Xms2g", "-Xmx2g" })
+public class TimingWheelBenchmark {
+
+    private static final int ATRASO_MAXIMO = 10_000;
+
+    @Param({ "100000", "1000000" })
+    public int pendentes;
+
+    private RandomSource rng;
+    private TimingWheel<int[]> roda;
+    private TimingWheel.Disparo<int[]> reagendar;
+    private PriorityQueue<long[]> fila;
+    private long agora;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        rng = new RandomSource(42);
+        roda = new TimingWheel<>();
+        reagendar = valor -> roda.agendar(1 + rng.nextInt(ATRASO_MAXIMO), valor);
+        fila = new PriorityQueue<>(pendentes, (a, b) -> Long.compare(a[0], b[0]));
+        for (int i = 0; i < pendentes; i++) {
+            roda.agendar(1 + rng.nextInt(ATRASO_MAXIMO), new int[] { i });
+            fila.add(new long[] { 1 + rng.nextInt(ATRASO_MAXIMO), i });
+        }
+    }
+
+    @Benchmark
+    public int rodaTick() {
+        return roda.avancar(reagendar);
+    }
+
+    @Benchmark
+    public int filaTick() {
+        agora++;
+        int disparos = 0;
+        while (fila.peek()[0] <= agora) {
+            long[] timer = fila.poll();
+            timer[0] = agora + 1 + rng.nextInt(ATRASO_MAXIMO);
+            fila.add(timer);
+            disparos++;
+        }
+        return disparos;
+    }
+}
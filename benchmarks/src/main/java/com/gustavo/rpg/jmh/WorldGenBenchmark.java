@@ -0,0 +1,69 @@
+package com.gustavo.rpg.jmh;
+
+import com.gustavo.rpg.core.Game;
+import com.gustavo.rpg.core.NullOutput;
+import com.gustavo.rpg.core.WorldTemplate;
+import com.gustavo.rpg.utils.RandomSource;
+import com.gustavo.rpg.world.CompactWorld;
+import com.gustavo.rpg.world.WorldGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mundos gerados: tempo de gerar (o gc.alloc.rate.norm do -prof gc e o
+ * tamanho do mundo), um passo de passeio aleatorio direto no CompactWorld
+ * e o mesmo passo via Game.handleCommand("ir ...").
+ * Para 10 milhoes de locais: -p locais=10000000 -jvmArgs -Xmx2g.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorldGenBenchmark {
+
+    private static final String[] DIRECOES = { "norte", "sul", "leste", "oeste" };
+
+    @Param({ "100000", "1000000" })
+    public int locais;
+
+    private int lado;
+    private CompactWorld mundo;
+    private Game game;
+    private RandomSource rng;
+    private int atual;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        lado = (int) Math.ceil(Math.sqrt(locais));
+        mundo = WorldGenerator.gerar(lado, lado, 42);
+        game = new Game("Bench", "guerreiro", NullOutput.INSTANCE, WorldTemplate.gerado(mundo));
+        game.setSeed(7);
+        game.start();
+        rng = new RandomSource(7);
+        atual = mundo.getInicial();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public CompactWorld gerar() {
+        return WorldGenerator.gerar(lado, lado, 42);
+    }
+
+    /** Passeio aleatorio usando so vizinho(). */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int passo() {
+        int proximo = mundo.vizinho(atual, rng.nextInt(4));
+        if (proximo >= 0) atual = proximo;
+        return atual;
+    }
+
+    /** Passeio pelo comando "ir" de uma partida sem saida. */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean ir() {
+        return game.handleCommand("ir " + DIRECOES[rng.nextInt(4)]);
+    }
+}
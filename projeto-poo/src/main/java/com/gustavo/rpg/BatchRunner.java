@@ -0,0 +1,226 @@
+package com.gustavo.rpg;
+
+import com.gustavo.rpg.core.BufferedOutput;
+import com.gustavo.rpg.core.ConsoleOutput;
+import com.gustavo.rpg.core.Game;
+import com.gustavo.rpg.core.GameOutput;
+import com.gustavo.rpg.core.NullOutput;
+import com.gustavo.rpg.core.WorldTemplate;
+import com.gustavo.rpg.events.CompactRenderer;
+import com.gustavo.rpg.metrics.CommandMetrics;
+import com.gustavo.rpg.metrics.TickMetrics;
+import com.gustavo.rpg.world.CompactWorld;
+import com.gustavo.rpg.world.RegionWorld;
+import com.gustavo.rpg.world.WorldFile;
+import com.gustavo.rpg.world.WorldGenerator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Roda arquivos de comandos sem terminal (modo "batch").
+ *
+ * Cada script e uma partida nova: uma linha = um comando, linhas vazias e
+ * comecando com '#' sao ignoradas. No fim mostra comandos/s e tempo total.
+ *
+ * Uso: BatchRunner [opcoes] script1.txt [script2.txt ...]
+ *   --nome NOME        nome do jogador (padrao: Bot)
+ *   --classe CLASSE    guerreiro, mago ou arqueiro (padrao: guerreiro)
+ *   --paralelo N       quantos scripts rodam ao mesmo tempo (padrao: 1)
+ *   --repetir N        roda cada script N vezes (padrao: 1)
+ *   --saida MODO       nula, buffer, console ou compacta (eventos, um por linha) (padrao: nula)
+ *   --seed N           semente dos dados; a partida i usa N + i (padrao: aleatoria)
+ *   --metricas         no fim mostra execucoes, erros e latencia de cada verbo
+ *   --mundo LxA        joga num mundo gerado de L x A locais (semente: --seed ou 42)
+ *   --arquivo-mundo F  joga no mundo do arquivo F, lido por regioes (se F nao
+ *                      existe, gera com --mundo e grava); mudancas vao para F.estado
+ */
+public class BatchRunner {
+
+    private static final class Resultado {
+        final Path script;
+        final long comandos;
+        final long nanos;
+        final int bytesSaida;
+
+        Resultado(Path script, long comandos, long nanos, int bytesSaida) {
+            this.script = script;
+            this.comandos = comandos;
+            this.nanos = nanos;
+            this.bytesSaida = bytesSaida;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String nome = "Bot";
+        String classe = "guerreiro";
+        String saida = "nula";
+        int paralelo = 1;
+        int repetir = 1;
+        Long seed = null;
+        boolean metricas = false;
+        String mundo = null;
+        Path arquivoMundo = null;
+        List<Path> scripts = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--nome" -> nome = args[++i];
+                case "--classe" -> classe = args[++i];
+                case "--paralelo" -> paralelo = Integer.parseInt(args[++i]);
+                case "--repetir" -> repetir = Integer.parseInt(args[++i]);
+                case "--saida" -> saida = args[++i];
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--metricas" -> metricas = true;
+                case "--mundo" -> mundo = args[++i];
+                case "--arquivo-mundo" -> arquivoMundo = Paths.get(args[++i]);
+                default -> scripts.add(Paths.get(args[i]));
+            }
+        }
+
+        if (scripts.isEmpty()) {
+            System.out.println("Uso: BatchRunner [--nome N] [--classe C] [--paralelo N] "
+                    + "[--repetir N] [--saida nula|buffer|console|compacta] [--seed N] [--metricas] [--mundo LxA] [--arquivo-mundo F] script...");
+            return;
+        }
+
+        // le os scripts uma vez so
+        List<Path> execucoes = new ArrayList<>();
+        List<List<String>> comandos = new ArrayList<>();
+        for (Path script : scripts) {
+            List<String> linhas = lerScript(script);
+            for (int r = 0; r < repetir; r++) {
+                execucoes.add(script);
+                comandos.add(linhas);
+            }
+        }
+
+        final String nomeJogador = nome;
+        final String classeJogador = classe;
+        final String modoSaida = saida;
+        final Long seedBase = seed;
+        final WorldTemplate mapa = (arquivoMundo != null) ? abrirMundo(arquivoMundo, mundo, seed)
+                : (mundo == null) ? WorldTemplate.padrao() : gerarMundo(mundo, seed);
+
+        long inicio = System.nanoTime();
+        List<Resultado> resultados = new ArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, paralelo));
+        try {
+            List<Future<Resultado>> futuros = new ArrayList<>();
+            for (int i = 0; i < execucoes.size(); i++) {
+                Path script = execucoes.get(i);
+                List<String> linhas = comandos.get(i);
+                Long seedPartida = (seedBase == null) ? null : seedBase + i;
+                futuros.add(pool.submit(() -> rodar(script, linhas, nomeJogador, classeJogador,
+                        modoSaida, seedPartida, mapa)));
+            }
+            for (Future<Resultado> f : futuros) {
+                resultados.add(f.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+        long wall = System.nanoTime() - inicio;
+
+        long totalComandos = 0;
+        for (Resultado r : resultados) {
+            totalComandos += r.comandos;
+            if (resultados.size() <= 20) {
+                System.out.printf("%s: %d comandos em %.2f ms (%d bytes de saida)%n",
+                        r.script.getFileName(), r.comandos, r.nanos / 1e6, r.bytesSaida);
+            }
+        }
+        double segundos = wall / 1e9;
+        System.out.printf("Total: %d partidas, %d comandos em %.3f s (%.0f comandos/s)%n",
+                resultados.size(), totalComandos, segundos, totalComandos / segundos);
+
+        if (metricas) {
+            System.out.println();
+            System.out.print(CommandMetrics.relatorio());
+            System.out.print(TickMetrics.relatorio());
+        }
+        if (mapa.getRegioes() != null) {
+            if (metricas) System.out.println(mapa.getRegioes().relatorio());
+            mapa.getRegioes().close(); // grava as regioes alteradas
+        }
+    }
+
+    private static Resultado rodar(Path script, List<String> linhas,
+                                   String nome, String classe, String modoSaida, Long seed,
+                                   WorldTemplate mapa) {
+        long inicio = System.nanoTime();
+        GameOutput out = criarSaida(modoSaida);
+        Game game = new Game(nome, classe, out, mapa);
+        if (modoSaida.equals("compacta")) {
+            game.setEventos(new CompactRenderer(out));
+        }
+        if (seed != null) {
+            game.setSeed(seed);
+        }
+        game.start();
+
+        long executados = 0;
+        for (String linha : linhas) {
+            executados++;
+            if (!game.handleCommand(linha)) {
+                break;
+            }
+        }
+        game.encerrar();
+        long nanos = System.nanoTime() - inicio;
+        int bytes = (out instanceof BufferedOutput b) ? b.length() : 0;
+        return new Resultado(script, executados, nanos, bytes);
+    }
+
+    private static WorldTemplate gerarMundo(String tamanho, Long seed) {
+        return WorldTemplate.gerado(gerarCompacto(tamanho, seed));
+    }
+
+    private static CompactWorld gerarCompacto(String tamanho, Long seed) {
+        int x = tamanho.toLowerCase().indexOf('x');
+        int largura = Integer.parseInt(tamanho.substring(0, x));
+        int altura = Integer.parseInt(tamanho.substring(x + 1));
+        long inicio = System.nanoTime();
+        CompactWorld mundo = WorldGenerator.gerar(largura, altura, seed == null ? 42 : seed);
+        System.out.printf("Mundo %dx%d gerado em %.0f ms%n", largura, altura, (System.nanoTime() - inicio) / 1e6);
+        return mundo;
+    }
+
+    private static WorldTemplate abrirMundo(Path arquivo, String tamanho, Long seed) throws IOException {
+        if (!Files.exists(arquivo)) {
+            if (tamanho == null) {
+                throw new IOException("Mundo nao existe e falta --mundo LxA para gerar: " + arquivo);
+            }
+            long inicio = System.nanoTime();
+            WorldFile.gravar(gerarCompacto(tamanho, seed), arquivo, WorldFile.LADO_PADRAO);
+            System.out.printf("Gravado em %s (%.0f ms)%n", arquivo, (System.nanoTime() - inicio) / 1e6);
+        }
+        return WorldTemplate.gerado(RegionWorld.abrir(arquivo, RegionWorld.ORCAMENTO_PADRAO));
+    }
+
+    private static GameOutput criarSaida(String modo) {
+        return switch (modo) {
+            case "console", "compacta" -> new ConsoleOutput();
+            case "buffer" -> new BufferedOutput();
+            default -> NullOutput.INSTANCE;
+        };
+    }
+
+    private static List<String> lerScript(Path script) throws IOException {
+        List<String> linhas = new ArrayList<>();
+        for (String linha : Files.readAllLines(script, StandardCharsets.UTF_8)) {
+            String t = linha.trim();
+            if (t.isEmpty() || t.startsWith("#")) continue;
+            linhas.add(t);
+        }
+        return linhas;
+    }
+}
@@ -1,8 +1,10 @@
 package com.gustavo.rpg;
 
+import java.util.List;
 import java.util.Scanner;
 
 import com.gustavo.rpg.core.Game;
+import com.gustavo.rpg.save.SaveCatalog;
 
 public class Main {
 
@@ -59,6 +61,8 @@ public class Main {
         jogo.run();
     }
 
+    private static final int SAVES_POR_PAGINA = 10;
+
     private static void carregarJogo(Scanner in) {
         try {
             java.nio.file.Path dir = java.nio.file.Paths.get("saves");
@@ -67,46 +71,86 @@ public class Main {
                 return;
             }
 
-            var arquivos = java.nio.file.Files.list(dir)
-                    .filter(p -> p.getFileName().toString().endsWith(".txt"))
-                    .sorted()
-                    .toList();
+            SaveCatalog catalogo = SaveCatalog.doDiretorio(dir);
+            int pagina = 0;
+            String filtro = null;
+
+            while (true) {
+                int total = catalogo.contar(filtro);
+                if (total == 0) {
+                    System.out.println(filtro == null
+                            ? "Nao ha jogos salvos ainda."
+                            : "Nenhum save para o jogador '" + filtro + "'.");
+                    if (filtro == null) return;
+                    filtro = null;
+                    pagina = 0;
+                    continue;
+                }
 
-            if (arquivos.isEmpty()) {
-                System.out.println("Nao ha jogos salvos ainda.");
-                return;
-            }
+                int paginas = (total + SAVES_POR_PAGINA - 1) / SAVES_POR_PAGINA;
+                List<SaveCatalog.Entrada> saves = catalogo.listar(pagina, SAVES_POR_PAGINA, filtro);
 
-            System.out.println("Jogos salvos:");
-            for (int i = 0; i < arquivos.size(); i++) {
-                System.out.println((i + 1) + " - " + arquivos.get(i).getFileName());
-            }
+                System.out.println("Jogos salvos (pagina " + (pagina + 1) + "/" + paginas
+                        + ", mais recentes primeiro):");
+                for (int i = 0; i < saves.size(); i++) {
+                    System.out.println((i + 1) + " - " + saves.get(i));
+                }
+                System.out.println("[p] proxima  [a] anterior  [f <nome>] filtrar  [r] refazer indice");
 
-            System.out.print("Escolha um numero (ou ENTER para cancelar): ");
-            String linha = in.nextLine().trim();
-            if (linha.isEmpty()) {
-                System.out.println("Carregamento cancelado.");
-                return;
-            }
+                System.out.print("Escolha um numero (ou ENTER para cancelar): ");
+                String linha = in.nextLine().trim();
+                if (linha.isEmpty()) {
+                    System.out.println("Carregamento cancelado.");
+                    return;
+                }
 
-            int escolha;
-            try {
-                escolha = Integer.parseInt(linha);
-            } catch (NumberFormatException e) {
-                System.out.println("Entrada invalida.");
-                return;
-            }
+                switch (linha.toLowerCase()) {
+                    case "p" -> {
+                        if (pagina + 1 < paginas) pagina++;
+                        continue;
+                    }
+                    case "a" -> {
+                        if (pagina > 0) pagina--;
+                        continue;
+                    }
+                    case "r" -> {
+                        catalogo.reconstruir();
+                        pagina = 0;
+                        continue;
+                    }
+                    case "f" -> {
+                        filtro = null; // 'f' sozinho limpa o filtro
+                        pagina = 0;
+                        continue;
+                    }
+                    default -> { }
+                }
+                if (linha.toLowerCase().startsWith("f ")) {
+                    filtro = linha.substring(2).trim();
+                    pagina = 0;
+                    continue;
+                }
 
-            if (escolha < 1 || escolha > arquivos.size()) {
-                System.out.println("Numero fora da faixa.");
-                return;
-            }
+                int escolha;
+                try {
+                    escolha = Integer.parseInt(linha);
+                } catch (NumberFormatException e) {
+                    System.out.println("Entrada invalida.");
+                    continue;
+                }
+
+                if (escolha < 1 || escolha > saves.size()) {
+                    System.out.println("Numero fora da faixa.");
+                    continue;
+                }
 
-            java.nio.file.Path arquivoEscolhido = arquivos.get(escolha - 1);
-            System.out.println("Carregando jogo de: " + arquivoEscolhido.getFileName());
+                java.nio.file.Path arquivoEscolhido = catalogo.resolver(saves.get(escolha - 1));
+                System.out.println("Carregando jogo de: " + arquivoEscolhido.getFileName());
 
-            Game game = Game.carregarDeArquivo(arquivoEscolhido);
-            game.run();
+                Game game = Game.carregarDeArquivo(arquivoEscolhido);
+                game.run();
+                return;
+            }
 
         } catch (java.io.IOException e) {
             System.out.println("Erro ao listar jogos salvos: " + e.getMessage());
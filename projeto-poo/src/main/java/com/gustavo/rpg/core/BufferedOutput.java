@@ -0,0 +1,21 @@
+package com.gustavo.rpg.core;
+
+/** Saida que guarda o texto em memoria (ex: para comparar com o esperado). */
+public class BufferedOutput implements GameOutput {
+
+    private final StringBuilder buffer = new StringBuilder();
+
+    @Override
+    public void println(String s) {
+        buffer.append(s).append('\n');
+    }
+
+    @Override
+    public void print(String s) {
+        buffer.append(s);
+    }
+
+    public String getTexto() { return buffer.toString(); }
+    public int length() { return buffer.length(); }
+    public void clear() { buffer.setLength(0); }
+}
@@ -0,0 +1,30 @@
+package com.gustavo.rpg.core;
+
+import com.gustavo.rpg.items.ItemCatalog;
+import com.gustavo.rpg.items.Weapon;
+import com.gustavo.rpg.utils.Dice;
+import com.gustavo.rpg.utils.RandomSource;
+
+/**
+ * Regras de combate usadas pelo Game e pelo simulador de balanceamento,
+ * para que os dois nunca fiquem diferentes.
+ */
+public final class CombatRules {
+
+    /** Contra-ataque de um inimigo que sobreviveu: 1d4. */
+    public static final int CONTRA_ATAQUE_DADOS = 1;
+    public static final int CONTRA_ATAQUE_FACES = 4;
+
+    private static final Weapon ARMA_INICIAL = ItemCatalog.padrao().arma("Espada de treino");
+
+    private CombatRules() {}
+
+    public static int contraAtaque(RandomSource rng) {
+        return Dice.roll(rng, CONTRA_ATAQUE_DADOS, CONTRA_ATAQUE_FACES);
+    }
+
+    /** Arma com que todo jogador novo comeca. */
+    public static Weapon armaInicial() {
+        return ARMA_INICIAL; // itens sao imutaveis: todos compartilham a mesma
+    }
+}
@@ -0,0 +1,12 @@
+package com.gustavo.rpg.core;
+
+import com.gustavo.rpg.exceptions.InvalidActionException;
+import com.gustavo.rpg.exceptions.InventoryFullException;
+import com.gustavo.rpg.exceptions.ItemNotFoundException;
+
+/** Um comando do jogo. 'arg' e o resto da linha depois do verbo ("" se nao tiver). */
+@FunctionalInterface
+public interface Command {
+    void execute(String arg)
+            throws InvalidActionException, ItemNotFoundException, InventoryFullException;
+}
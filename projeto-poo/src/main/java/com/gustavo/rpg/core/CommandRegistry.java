@@ -0,0 +1,163 @@
+package com.gustavo.rpg.core;
+
+import com.gustavo.rpg.metrics.CommandMetrics;
+import com.gustavo.rpg.metrics.CommandStats;
+
+import java.util.*;
+
+/**
+ * Tabela de verbos do jogo.
+ *
+ * Verbos e atalhos sao registrados uma vez; na primeira busca a tabela e
+ * "compilada": entram tambem os prefixos que identificam um unico verbo
+ * (ex: "eq" -> equipar) e tudo vai para uma tabela hash de enderecamento
+ * aberto. A busca recebe um trecho da linha digitada (inicio/fim) e compara
+ * caractere a caractere ignorando maiusculas, sem criar Strings.
+ */
+public class CommandRegistry {
+
+    /** Resultado de uma busca: o comando e, para atalhos como "n", o argumento fixo. */
+    public static final class Entry {
+        private final String verbo;
+        private final Command command;
+        private final String argFixo; // null = usa o argumento digitado
+        private final CommandStats stats; // null = metricas desligadas
+
+        Entry(String verbo, Command command, String argFixo) {
+            this.verbo = verbo;
+            this.command = command;
+            this.argFixo = argFixo;
+            this.stats = CommandMetrics.ATIVO ? CommandMetrics.doVerbo(verbo) : null;
+        }
+
+        public String getVerbo() { return verbo; }
+        public Command getCommand() { return command; }
+        public String getArgFixo() { return argFixo; }
+
+        /** Metricas do verbo (atalhos usam as do verbo original); null se desligadas. */
+        public CommandStats getStats() { return stats; }
+    }
+
+    private final Map<String, Entry> registrados = new LinkedHashMap<>();
+    private final Set<String> atalhos = new HashSet<>();
+
+    // tabela compilada (null = precisa recompilar)
+    private String[] chaves;
+    private Entry[] valores;
+    private int mascara;
+
+    /** Registra (ou substitui) um verbo. */
+    public void register(String verbo, Command command) {
+        String chave = verbo.toLowerCase();
+        registrados.put(chave, new Entry(chave, command, null));
+        chaves = null;
+    }
+
+    /** Atalho para um verbo ja registrado, ex: alias("i", "inventario"). */
+    public void alias(String atalho, String verbo) {
+        alias(atalho, verbo, null);
+    }
+
+    /** Atalho com argumento fixo, ex: alias("n", "ir", "norte"). */
+    public void alias(String atalho, String verbo, String argFixo) {
+        Entry alvo = registrados.get(verbo.toLowerCase());
+        if (alvo == null) {
+            throw new IllegalArgumentException("Verbo nao registrado: " + verbo);
+        }
+        String chave = atalho.toLowerCase();
+        registrados.put(chave, new Entry(alvo.verbo, alvo.command, argFixo));
+        atalhos.add(chave);
+        chaves = null;
+    }
+
+    /** Verbos registrados (sem atalhos), na ordem de registro. */
+    public List<String> getVerbos() {
+        List<String> verbos = new ArrayList<>();
+        for (String chave : registrados.keySet()) {
+            if (!atalhos.contains(chave)) verbos.add(chave);
+        }
+        return verbos;
+    }
+
+    /** Procura o verbo em linha[inicio, fim). Retorna null se nao existe. */
+    public Entry find(CharSequence linha, int inicio, int fim) {
+        if (chaves == null) {
+            compilar();
+        }
+        int h = hash(linha, inicio, fim) & mascara;
+        while (true) {
+            String chave = chaves[h];
+            if (chave == null) return null;
+            if (igual(chave, linha, inicio, fim)) return valores[h];
+            h = (h + 1) & mascara;
+        }
+    }
+
+    public Entry find(String verbo) {
+        return find(verbo, 0, verbo.length());
+    }
+
+    // -------------------------------------------------------------------------
+    // COMPILACAO
+    // -------------------------------------------------------------------------
+
+    private void compilar() {
+        Map<String, Entry> todas = new HashMap<>(registrados);
+
+        // prefixos que apontam para um unico verbo viram atalhos
+        Map<String, Entry> prefixos = new HashMap<>();
+        Set<String> ambiguos = new HashSet<>();
+        for (Map.Entry<String, Entry> e : registrados.entrySet()) {
+            if (atalhos.contains(e.getKey())) continue;
+            String verbo = e.getKey();
+            for (int n = 1; n < verbo.length(); n++) {
+                String prefixo = verbo.substring(0, n);
+                if (ambiguos.contains(prefixo)) continue;
+                if (prefixos.containsKey(prefixo)) {
+                    prefixos.remove(prefixo);
+                    ambiguos.add(prefixo);
+                } else {
+                    prefixos.put(prefixo, e.getValue());
+                }
+            }
+        }
+        for (Map.Entry<String, Entry> e : prefixos.entrySet()) {
+            todas.putIfAbsent(e.getKey(), e.getValue()); // registrados tem prioridade
+        }
+
+        int capacidade = Integer.highestOneBit(Math.max(4, todas.size() * 2) - 1) << 1;
+        String[] novasChaves = new String[capacidade];
+        Entry[] novosValores = new Entry[capacidade];
+        int novaMascara = capacidade - 1;
+
+        for (Map.Entry<String, Entry> e : todas.entrySet()) {
+            String chave = e.getKey();
+            int h = hash(chave, 0, chave.length()) & novaMascara;
+            while (novasChaves[h] != null) {
+                h = (h + 1) & novaMascara;
+            }
+            novasChaves[h] = chave;
+            novosValores[h] = e.getValue();
+        }
+
+        valores = novosValores;
+        mascara = novaMascara;
+        chaves = novasChaves;
+    }
+
+    private static int hash(CharSequence s, int inicio, int fim) {
+        int h = 0;
+        for (int i = inicio; i < fim; i++) {
+            h = 31 * h + Character.toLowerCase(s.charAt(i));
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean igual(String chave, CharSequence s, int inicio, int fim) {
+        if (chave.length() != fim - inicio) return false;
+        for (int i = 0; i < chave.length(); i++) {
+            if (chave.charAt(i) != Character.toLowerCase(s.charAt(inicio + i))) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,171 @@
+package com.gustavo.rpg.core;
+
+import com.gustavo.rpg.entities.NPC;
+import com.gustavo.rpg.items.Item;
+import com.gustavo.rpg.world.CompactWorld;
+import com.gustavo.rpg.world.GridWorld;
+
+import java.util.*;
+
+/**
+ * Vista de um local de um mundo gerado ({@link CompactWorld} ou
+ * RegionWorld) como Location.
+ *
+ * E criada sob demanda (ao andar, olhar, carregar) e descartada; duas
+ * vistas do mesmo id sao iguais (equals/hashCode), entao podem ser chave
+ * no World de cada partida. Chave do local no template: "g" + id.
+ */
+final class CompactLocation extends Location {
+
+    static final String PREFIXO = "g";
+
+    private final GridWorld mundo;
+    private final int id;
+    private LocationState estadoInicial;
+
+    CompactLocation(GridWorld mundo, int id) {
+        super(mundo.nome(id), mundo.descricao(id));
+        this.mundo = mundo;
+        this.id = id;
+    }
+
+    int getId() { return id; }
+
+    @Override
+    public Location getExit(String direction) {
+        int d = CompactWorld.direcao(direction);
+        if (d < 0) return null;
+        int destino = mundo.vizinho(id, d);
+        return destino < 0 ? null : new CompactLocation(mundo, destino);
+    }
+
+    @Override
+    public Map<String, Location> getExits() {
+        Map<String, Location> exits = new LinkedHashMap<>();
+        for (int d = 0; d < mundo.totalDirecoes(); d++) {
+            int destino = mundo.vizinho(id, d);
+            if (destino >= 0) {
+                exits.put(mundo.nomeDirecao(d), new CompactLocation(mundo, destino));
+            }
+        }
+        return Collections.unmodifiableMap(exits);
+    }
+
+    @Override
+    public List<NPC> getNpcs() {
+        NPC npc = mundo.npc(id);
+        return npc == null ? List.of() : List.of(npc);
+    }
+
+    @Override
+    public List<Item> getGroundItems() {
+        Item item = mundo.loot(id);
+        return item == null ? List.of() : List.of(item);
+    }
+
+    @Override
+    public void connect(String direction, Location other) {
+        throw new UnsupportedOperationException("Mundo gerado nao pode ser alterado.");
+    }
+
+    @Override
+    public void addNpc(NPC npc) {
+        throw new UnsupportedOperationException("Mundo gerado nao pode ser alterado.");
+    }
+
+    @Override
+    public void addGroundItem(Item item) {
+        throw new UnsupportedOperationException("Mundo gerado nao pode ser alterado.");
+    }
+
+    @Override
+    LocationState getEstadoInicial() {
+        if (estadoInicial == null) {
+            estadoInicial = LocationState.inicial(getNpcs(), getGroundItems());
+        }
+        return estadoInicial;
+    }
+
+    @Override
+    void congelar(WorldTemplate dono) {
+        // ja nasce somente leitura
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof CompactLocation outra && outra.id == id && outra.mundo == mundo;
+    }
+
+    @Override
+    public int hashCode() {
+        return Integer.hashCode(id);
+    }
+
+    // -------------------------------------------------------------------------
+    // MAPA DE CHAVES
+    // -------------------------------------------------------------------------
+
+    /** Map "g<id>" -> vista, sem guardar nada por local. */
+    static final class Mapa extends AbstractMap<String, Location> {
+        private final GridWorld mundo;
+
+        Mapa(GridWorld mundo) {
+            this.mundo = mundo;
+        }
+
+        @Override
+        public Location get(Object chave) {
+            int id = idDaChave(chave);
+            return id < 0 ? null : new CompactLocation(mundo, id);
+        }
+
+        @Override
+        public boolean containsKey(Object chave) {
+            return idDaChave(chave) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return mundo.tamanho();
+        }
+
+        @Override
+        public Set<Entry<String, Location>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public int size() {
+                    return mundo.tamanho();
+                }
+
+                @Override
+                public Iterator<Entry<String, Location>> iterator() {
+                    return new Iterator<>() {
+                        private int proximo = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return proximo < mundo.tamanho();
+                        }
+
+                        @Override
+                        public Entry<String, Location> next() {
+                            if (!hasNext()) throw new NoSuchElementException();
+                            int id = proximo++;
+                            return Map.entry(PREFIXO + id, new CompactLocation(mundo, id));
+                        }
+                    };
+                }
+            };
+        }
+
+        private int idDaChave(Object chave) {
+            if (!(chave instanceof String s) || !s.startsWith(PREFIXO)) return -1;
+            try {
+                int id = Integer.parseInt(s, PREFIXO.length(), s.length(), 10);
+                return (id >= 0 && id < mundo.tamanho()) ? id : -1;
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+    }
+}
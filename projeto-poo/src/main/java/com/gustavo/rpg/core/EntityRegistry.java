@@ -0,0 +1,105 @@
+package com.gustavo.rpg.core;
+
+import com.gustavo.rpg.entities.NPC;
+import com.gustavo.rpg.items.Item;
+import com.gustavo.rpg.items.ItemCatalog;
+
+import java.util.*;
+
+/**
+ * Ids numericos estaveis das entidades de um mapa, nos dois sentidos em O(1).
+ *
+ * - Location: o numero do local no WorldTemplate (ordem do mapa, ou o id
+ *   da grade num mundo gerado).
+ * - Item: primeiro o ItemCatalog inteiro (id do registro = id do
+ *   catalogo), depois itens do mapa que nao estao no catalogo. Itens sao
+ *   imutaveis, entao o objeto e o "tipo".
+ * - NPC: cada NPC original do template; as copias de uma partida tem o id
+ *   da original (NPC.getPrototipo()).
+ *
+ * Os ids dependem so do mapa, nao da ordem em que as partidas rodam:
+ * saves e indices guardam ids em vez de nomes. Preenchido uma vez pelo
+ * template e depois so lido, por qualquer thread.
+ */
+public final class EntityRegistry {
+
+    public static final int SEM_ID = -1;
+
+    private final WorldTemplate template;
+
+    private final List<Item> itens = new ArrayList<>();
+    private final Map<Item, Integer> idsItens = new IdentityHashMap<>();
+    private final Map<String, Item> itensPorNome = new HashMap<>();
+
+    private final List<NPC> npcs = new ArrayList<>();
+    private final Map<NPC, Integer> idsNpcs = new IdentityHashMap<>();
+
+    EntityRegistry(WorldTemplate template) {
+        this.template = template;
+        for (Item item : ItemCatalog.padrao().getItens()) registrar(item);
+    }
+
+    // -------------------------------------------------------------------------
+    // REGISTRO (so durante a montagem do template)
+    // -------------------------------------------------------------------------
+
+    int registrar(Item item) {
+        Integer id = idsItens.get(item);
+        if (id != null) return id;
+        int novo = itens.size();
+        itens.add(item);
+        idsItens.put(item, novo);
+        itensPorNome.putIfAbsent(item.getName().toLowerCase(Locale.ROOT), item);
+        return novo;
+    }
+
+    int registrar(NPC npc) {
+        NPC original = npc.getPrototipo();
+        Integer id = idsNpcs.get(original);
+        if (id != null) return id;
+        int novo = npcs.size();
+        npcs.add(original);
+        idsNpcs.put(original, novo);
+        return novo;
+    }
+
+    // -------------------------------------------------------------------------
+    // CONSULTA
+    // -------------------------------------------------------------------------
+
+    public int idDe(Location loc) {
+        return template.idDe(loc);
+    }
+
+    /** Local pelo id, ou null se o id nao e deste mapa. */
+    public Location local(int id) {
+        return (id >= 0 && id < template.getGrafo().tamanho()) ? template.local(id) : null;
+    }
+
+    public int idDe(Item item) {
+        Integer id = idsItens.get(item);
+        return id == null ? SEM_ID : id;
+    }
+
+    public Item item(int id) {
+        return (id >= 0 && id < itens.size()) ? itens.get(id) : null;
+    }
+
+    /** Primeiro item registrado com esse nome (saves antigos, que so tinham o nome), ou null. */
+    public Item itemPorNome(String nome) {
+        return itensPorNome.get(nome.trim().toLowerCase(Locale.ROOT));
+    }
+
+    public int idDe(NPC npc) {
+        Integer id = idsNpcs.get(npc.getPrototipo());
+        return id == null ? SEM_ID : id;
+    }
+
+    /** NPC original pelo id (nao alterar: use new NPC(original)), ou null. */
+    public NPC npc(int id) {
+        return (id >= 0 && id < npcs.size()) ? npcs.get(id) : null;
+    }
+
+    public int totalItens() { return itens.size(); }
+    public int totalNpcs() { return npcs.size(); }
+}
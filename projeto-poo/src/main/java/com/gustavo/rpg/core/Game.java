@@ -1,42 +1,67 @@
 package com.gustavo.rpg.core;
 
 import com.gustavo.rpg.entities.*;
+import com.gustavo.rpg.events.GameEvent;
+import com.gustavo.rpg.events.GameEventListener;
+import com.gustavo.rpg.events.TextRenderer;
 import com.gustavo.rpg.items.*;
-import com.gustavo.rpg.utils.Dice;
+import com.gustavo.rpg.utils.DiceTape;
+import com.gustavo.rpg.utils.RandomSource;
 import com.gustavo.rpg.exceptions.*;
+import com.gustavo.rpg.save.CommandJournal;
+import com.gustavo.rpg.save.SaveData;
+import com.gustavo.rpg.save.SaveFiles;
+import com.gustavo.rpg.save.SaveService;
+import com.gustavo.rpg.metrics.CommandMetrics;
+import com.gustavo.rpg.metrics.CommandStats;
+import com.gustavo.rpg.world.WorldGraph;
 
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.charset.StandardCharsets;
 import java.io.IOException;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public class Game {
 
-    /**
-     * Estrutura interna para representar dados de save.
-     * (Por enquanto nao guardamos a classe do jogador aqui.)
-     */
-    private static class SaveData {
-        String name;
-        String playerClass;
-        int hp;
-        String localKey;
-        String weaponName;
-        java.util.List<String> inventoryNames;
-    }
+    private static final Path SAVES = Paths.get("saves");
 
-    private final Scanner in = new Scanner(System.in);
-    private final World world = new World();
+    /** Comandos que mudam o estado: so eles vao para o diario. */
+    private static final Set<String> VERBOS_DO_DIARIO =
+            Set.of("ir", "viajar", "atacar", "pegar", "largar", "equipar", "beber");
+    /** Registros do diario entre duas fotos da partida. */
+    private static final int SNAPSHOT_A_CADA = 200;
+
+    private final World world;
     private Player player;
 
     private final String playerName;
     private final String playerClass; // classe escolhida (guerreiro/mago/arqueiro)
     private final SaveData loaded;    // se nao for null, significa jogo carregado
     private final GameOutput out;     // saida (console ou GUI)
+    private GameEventListener eventos; // quem transforma os eventos em texto (ou nao)
+
+    private final CommandRegistry comandos = criarComandos();
+    private boolean pediuSair = false;
+    private WorldSimulation simulacao; // criada no boot(), com o jogador
+    private int ticksDoComando;        // tempo que o comando gastou no relogio do mundo
+
+    private long autosaveNanos = 0;   // 0 = autosave desligado
+    private long ultimoSave = System.nanoTime();
+    private final Queue<String> falhasDeSave = new ConcurrentLinkedQueue<>(); // do SaveService, avisadas no proximo comando
+
+    // diario de comandos (null = desligado)
+    private CommandJournal diario;
+    private String chaveDiario;
+    private long partida;             // identifica esta partida no diario
+    private long seqDiario;           // ultimo comando registrado
+    private long seqSnapshot;         // ultimo comando coberto por uma foto
+    private int ticksSemRegistro;     // ticks de comandos fora do diario; vao no proximo registro
+    private final DiceTape fitaCombate = new DiceTape();
+    private final DiceTape fitaSimulacao = new DiceTape();
+    private List<CommandJournal.Registro> refazer; // recuperacao: registros a refazer no start()
+    private boolean refazendo;
 
     // -------------------------------------------------------------------------
     // CONSTRUTORES
@@ -59,6 +84,21 @@ public class Game {
 
     // construtor para novo jogo especificando classe + saída customizada (GUI)
     public Game(String playerName, String playerClass, GameOutput out) {
+        this(playerName, playerClass, out, WorldTemplate.padrao());
+    }
+
+    // construtor para novo jogo em outro mapa (ex: mundo gerado)
+    public Game(String playerName, String playerClass, GameOutput out, WorldTemplate mapa) {
+        this(new World(mapa), playerName, playerClass, out);
+    }
+
+    // construtor para novo jogo num mundo com outros jogadores (World.compartilhado)
+    public Game(String playerName, String playerClass, GameOutput out, World compartilhado) {
+        this(compartilhado.novaPartida(), playerName, playerClass, out);
+    }
+
+    private Game(World world, String playerName, String playerClass, GameOutput out) {
+        this.world = world;
         if (playerName == null || playerName.isBlank()) {
             this.playerName = "Artemis";
         } else {
@@ -69,6 +109,7 @@ public class Game {
                 : playerClass.toLowerCase();
         this.loaded = null;
         this.out = out;
+        this.eventos = TextRenderer.para(out);
     }
 
     // construtor para jogo carregado (console)
@@ -78,12 +119,19 @@ public class Game {
 
     // construtor para jogo carregado com saída customizada (GUI)
     private Game(SaveData data, GameOutput out) {
-        this.playerName = data.name;
-        this.playerClass = (data.playerClass == null || data.playerClass.isBlank())
+        this(data, out, WorldTemplate.padrao());
+    }
+
+    // construtor para jogo carregado num mapa escolhido (ex: mundo gerado)
+    private Game(SaveData data, GameOutput out, WorldTemplate mapa) {
+        this.world = new World(mapa);
+        this.playerName = data.getName();
+        this.playerClass = (data.getPlayerClass() == null || data.getPlayerClass().isBlank())
             ? "guerreiro"
-            : data.playerClass.toLowerCase();
+            : data.getPlayerClass().toLowerCase();
         this.loaded = data;
         this.out = out;
+        this.eventos = TextRenderer.para(out);
     }
 
     // -------------------------------------------------------------------------
@@ -95,13 +143,19 @@ public class Game {
      */
     public void start() {
         boot();
-        out.println("Bem-vindo! Digite 'ajuda' para comandos, 'sair' para encerrar.");
+        int refeitos = (diario != null) ? iniciarDiario() : 0;
+        emitir(new GameEvent.JogoIniciado(player.getName(), player.getHp(),
+                player.getLocation().getName(), loaded != null));
+        if (refeitos > 0) {
+            println("Partida recuperada do diario (" + refeitos + " comandos refeitos).");
+        }
     }
 
     /**
      * Loop de jogo no modo console (Main usa este).
      */
     public void run() {
+        Scanner in = new Scanner(System.in); // so o modo console le do teclado
         start();  // inicializa o mundo + mensagens iniciais
 
         boolean vivo = true;
@@ -110,7 +164,7 @@ public class Game {
             String linha = in.nextLine().trim();
             vivo = handleCommand(linha);
         }
-        out.println("Ate mais!");
+        emitir(new GameEvent.JogoEncerrado());
     }
 
     /**
@@ -118,157 +172,188 @@ public class Game {
      * Retorna false se o jogador pediu para sair.
      */
     public boolean handleCommand(String linha) {
-        linha = linha.trim();
-        String[] partes = linha.split("\\s+", 2);
-        String comando = partes[0].toLowerCase();
-        String arg = partes.length > 1 ? partes[1] : "";
+        avisarFalhasDeSave();
+
+        // separa verbo e argumento sem regex nem arrays intermediarios
+        int fim = linha.length();
+        int inicio = 0;
+        while (inicio < fim && Character.isWhitespace(linha.charAt(inicio))) inicio++;
+        while (fim > inicio && Character.isWhitespace(linha.charAt(fim - 1))) fim--;
+        if (inicio == fim) {
+            return true; // ignora vazio
+        }
 
-        try {
-            switch (comando) {
-                case "ajuda" -> ajuda();
-                case "status" -> mostrarStatus();
-                case "olhar" -> olhar();
-                case "inventario" -> mostrarInventario();
-                case "ir" -> ir(arg);
-                case "atacar" -> atacar();
-                case "pegar" -> pegar(arg);
-                case "largar" -> largar(arg);
-                case "equipar" -> equipar(arg);
-                case "beber" -> beber(arg);
-                case "salvar" -> salvar();
-                case "sair" -> {
-                    return false; // encerra o jogo
-                }
-                case "" -> { /* ignora vazio */ }
-                default -> out.println("Comando desconhecido. Tente 'ajuda'.");
+        int fimVerbo = inicio;
+        while (fimVerbo < fim && !Character.isWhitespace(linha.charAt(fimVerbo))) fimVerbo++;
+
+        CommandRegistry.Entry entry = comandos.find(linha, inicio, fimVerbo);
+        if (entry == null) {
+            if (CommandMetrics.ATIVO) {
+                CommandMetrics.doVerbo(CommandMetrics.DESCONHECIDO).gravar(0, true);
             }
+            emitir(new GameEvent.ComandoDesconhecido(linha.substring(inicio, fimVerbo)));
+            return true;
+        }
+
+        String arg = entry.getArgFixo();
+        if (arg == null) {
+            int inicioArg = fimVerbo;
+            while (inicioArg < fim && Character.isWhitespace(linha.charAt(inicioArg))) inicioArg++;
+            arg = (inicioArg < fim) ? linha.substring(inicioArg, fim) : "";
+        }
+
+        pediuSair = false;
+        ticksDoComando = 1;
+        CommandStats stats = entry.getStats();
+        long t0 = (stats != null) ? System.nanoTime() : 0;
+        boolean erro = false;
+        try {
+            entry.getCommand().execute(arg);
         } catch (InvalidActionException |
                  ItemNotFoundException |
                  InventoryFullException e) {
-            out.println("Erro: " + e.getMessage());
+            erro = true;
+            emitir(new GameEvent.Erro(e.getMessage()));
+        }
+        if (stats != null) {
+            stats.gravar(System.nanoTime() - t0, erro);
+        }
+        if (pediuSair) {
+            if (diario != null && seqDiario > seqSnapshot) {
+                snapshotDiario(); // proxima recuperacao nao precisa refazer nada
+            }
+            encerrar();
+            return false; // encerra o jogo
+        }
+
+        if (simulacao != null) {
+            simulacao.avancar(ticksDoComando); // o mundo anda depois do comando
+        }
+        if (diario != null && !refazendo) {
+            registrarNoDiario(entry, arg);
         }
 
+        verificarAutosave();
         return true; // continua jogando
     }
 
+    /**
+     * Registra um comando novo (ou substitui um existente) nesta partida.
+     * Ex: game.registrarComando("dancar", arg -> ...);
+     */
+    public void registrarComando(String verbo, Command command) {
+        comandos.register(verbo, command);
+    }
+
+    public CommandRegistry getComandos() { return comandos; }
+
+    /**
+     * Troca quem recebe os eventos da partida (padrao: TextRenderer na
+     * saida do construtor). Chamar antes de start() para ver o inicio.
+     */
+    public void setEventos(GameEventListener eventos) {
+        this.eventos = (eventos == null) ? GameEventListener.NENHUM : eventos;
+    }
+
+    public GameEventListener getEventos() { return eventos; }
+
+    private CommandRegistry criarComandos() {
+        CommandRegistry r = new CommandRegistry();
+        r.register("ajuda", arg -> ajuda());
+        r.register("status", arg -> mostrarStatus());
+        r.register("olhar", arg -> olhar());
+        r.register("inventario", arg -> mostrarInventario());
+        r.register("ir", this::ir);
+        r.register("viajar", this::viajar);
+        r.register("atacar", arg -> atacar());
+        r.register("pegar", this::pegar);
+        r.register("largar", this::largar);
+        r.register("equipar", this::equipar);
+        r.register("beber", this::beber);
+        r.register("salvar", arg -> salvar());
+        r.register("sair", arg -> pediuSair = true);
+
+        // atalhos
+        r.alias("n", "ir", "norte");
+        r.alias("s", "ir", "sul");
+        r.alias("l", "ir", "leste");
+        r.alias("o", "ir", "oeste");
+        r.alias("i", "inventario");
+        r.alias("inv", "inventario");
+        r.alias("ver", "olhar");
+        r.alias("?", "ajuda");
+        return r;
+    }
+
     // -------------------------------------------------------------------------
     // COMANDOS
     // -------------------------------------------------------------------------
 
     private void ajuda() {
-        println("Comandos:");
-        println("  ajuda               - lista comandos");
-        println("  olhar               - descreve o local atual");
-        println("  ir <direcao>        - move (norte/sul/leste/oeste)");
-        println("  status              - mostra status do jogador");
-        println("  inventario          - lista itens na mochila");
-        println("  pegar <item>        - pega item do chao");
-        println("  largar <item>       - larga item no chao");
-        println("  equipar <arma>      - equipa uma arma do inventario");
-        println("  beber <pocao>       - bebe uma pocao do inventario");
-        println("  atacar              - ataca inimigo no local");
-        println("  salvar              - salva o jogo em arquivo");
-        println("  sair                - encerra o jogo");
+        emitir(new GameEvent.Ajuda());
     }
 
     private void boot() {
-        // =========================
-        // 1) CRIA LOCAIS
-        // =========================
-        Location vila = new Location("Vila", "Uma vila tranquila, com poucas casas e uma pequena taverna.");
-        Location bosque = new Location("Bosque", "Sons estranhos entre as arvores. A luz do sol mal chega ao chao.");
-        Location ruinas = new Location("Ruinas", "Restos de uma antiga fortaleza, tomada pelo tempo.");
-        Location torre = new Location("Torre", "Uma torre de mago em ruinas, ainda pulsando com energia arcana.");
-
-        // Conexoes entre locais
-        vila.connect("norte", bosque);
-
-        bosque.connect("sul", vila);
-        bosque.connect("leste", ruinas);
-
-        ruinas.connect("oeste", bosque);
-        ruinas.connect("norte", torre);
-
-        torre.connect("sul", ruinas);
-
-        // =========================
-        // 2) INIMIGOS
-        // =========================
-        NPC lobo = new NPC("Lobo", 12, 3);
-        NPC esqueleto = new NPC("Esqueleto", 18, 4);
-        NPC magoSombrio = new NPC("Mago Sombrio", 22, 5);
-
-        bosque.getNpcs().add(lobo);
-        ruinas.getNpcs().add(esqueleto);
-        torre.getNpcs().add(magoSombrio);
-
-        // =========================
-        // 3) ITENS NO CHAO
-        // =========================
-        vila.getGroundItems().add(new Weapon("Espada curta", 4));
-        bosque.getGroundItems().add(new Potion("Pocao de cura", 6));
-        ruinas.getGroundItems().add(new Weapon("Espada longa", 6));
-        torre.getGroundItems().add(new Weapon("Cajado arcano", 7));
-
-        // =========================
-        // 4) REGISTRA LOCAIS NO MUNDO
-        // =========================
-        world.getLocations().put("vila", vila);
-        world.getLocations().put("bosque", bosque);
-        world.getLocations().put("ruinas", ruinas);
-        world.getLocations().put("torre", torre);
-
-        // =========================
-        // 5) DEFINE O PLAYER
-        // =========================
+        // o mapa (locais, conexoes, inimigos e itens iniciais) vem do
+        // WorldTemplate compartilhado; aqui so montamos o jogador
+        Location vila = world.getTemplate().getInicial();
+
         if (loaded == null) {
             // NOVO JOGO usando a classe escolhida
             player = criarPlayerParaClasse(playerName, playerClass);
-            player.setLocation(vila);
+            mover(vila);
 
             // arma inicial basica
-            player.setWeapon(new Weapon("Espada de treino", 3));
-
-            println("Voce esta na Vila. Tente 'olhar' ou 'ir norte'.");
+            player.setWeapon(CombatRules.armaInicial());
         } else {
             // JOGO CARREGADO: respeita a classe salva
-            player = criarPlayerParaClasse(loaded.name, playerClass);
+            player = criarPlayerParaClasse(loaded.getName(), playerClass);
 
             // HP base depende da classe (Warrior, Mage, Archer)
             int baseHp = player.getHp(); // HP inicial da classe
-            if (loaded.hp < baseHp) {
-                player.takeDamage(baseHp - loaded.hp);
-            } else if (loaded.hp > baseHp) {
-                player.heal(loaded.hp - baseHp);
+            if (loaded.getHp() < baseHp) {
+                player.takeDamage(baseHp - loaded.getHp());
+            } else if (loaded.getHp() > baseHp) {
+                player.heal(loaded.getHp() - baseHp);
             }
 
             // Local
-            Location destino = world.getLocations().getOrDefault(loaded.localKey, vila);
-            player.setLocation(destino);
+            Location destino = localDoSave(loaded.getLocalId(), loaded.getLocalKey());
+            mover(destino != null ? destino : vila);
 
             // Arma equipada
-            if (loaded.weaponName != null && !loaded.weaponName.equals("-")) {
-                Weapon w = criarWeaponAPartirDoNome(loaded.weaponName);
-                player.setWeapon(w);
+            if (loaded.getWeapon() != null) {
+                Item arma = itemDoSave(loaded.getWeapon());
+                if (arma instanceof Weapon w) {
+                    player.setWeapon(w);
+                } else if (arma != null) {
+                    println("Aviso: item equipado no save nao e uma arma: " + arma.getName());
+                }
             }
 
             // Inventario
-            for (String nomeItem : loaded.inventoryNames) {
-                if (nomeItem == null || nomeItem.isBlank()) continue;
-                Item item = criarItemAPartirDoNome(nomeItem);
+            for (SaveData.ItemSalvo salvo : loaded.getInventory()) {
+                Item item = itemDoSave(salvo);
                 if (item != null) {
                     try {
                         player.getBag().add(item);
                     } catch (InventoryFullException e) {
-                        println("Aviso: inventario cheio ao carregar item: " + nomeItem);
+                        println("Aviso: inventario cheio ao carregar item: " + item.getName());
                     }
                 }
             }
 
-            println("Jogo carregado para o jogador: " + player.getName());
-            println("Use 'status' ou 'olhar' para ver o estado atual.");
+            // Locais alterados (inimigos derrotados, itens movidos)
+            for (SaveData.LocalSalvo salvo : loaded.getLocais()) {
+                restaurarLocal(salvo);
+            }
         }
 
+        // o relogio do mundo comeca com o jogador ja no lugar
+        simulacao = new WorldSimulation(world, player, this::emitir);
+        if (loaded != null) {
+            simulacao.restaurarTimers(loaded.getTimers()); // so fotos do diario tem timers
+        }
     }
 
     private void mostrarStatus() {
@@ -284,75 +369,129 @@ public class Game {
 
         String arma = (player.getWeapon() != null)
                 ? player.getWeapon().getName()
-                : "nenhuma";
+                : null;
 
-        out.println("Jogador: " + player.getName()
-                + " (" + classePt + ")"
-                + " | HP=" + player.getHp()
-                + " | Arma: " + arma);
+        emitir(new GameEvent.Status(player.getName(), classePt, player.getHp(), arma));
     }
 
     private void olhar() {
         Location loc = player.getLocation();
-        println("Local: " + loc.getName());
-        println("Descricao: " + loc.getDescription());
-
-        if (!loc.getGroundItems().isEmpty()) {
-            println("Itens no chao: " + loc.getGroundItems());
-        } else {
-            println("Nao ha itens no chao.");
-        }
-
-        if (!loc.getNpcs().isEmpty()) {
-            println("Voce ve: " + loc.getNpcs());
-        } else {
-            println("Nao ha inimigos aqui.");
+        List<Item> itens;
+        List<NPC> npcs;
+        synchronized (world.trava(loc)) { // foto do local (outros jogadores podem estar mexendo)
+            LocationState estado = world.estado(loc);
+            itens = estado.getGroundItems();
+            npcs = List.copyOf(estado.getNpcs());
         }
-
-        println("Saidas disponiveis: " + loc.getExits().keySet());
+        emitir(new GameEvent.LocalDescrito(loc, itens, npcs));
     }
 
-    private void ir(String direcao) {
+    private void ir(String direcao) throws InvalidActionException {
         if (direcao == null || direcao.isBlank()) {
             println("Use: ir <direcao> (norte, sul, leste, oeste)");
             return;
         }
+        if (direcao.regionMatches(true, 0, "para ", 0, 5)) {
+            viajar(direcao.substring(5));
+            return;
+        }
 
         Location atual = player.getLocation();
-        Location destino = atual.getExits().get(direcao.toLowerCase());
+        Location destino = atual.getExit(direcao);
 
         if (destino == null) {
-            println("Nao existe caminho para " + direcao + " a partir daqui.");
+            emitir(new GameEvent.SemCaminho(direcao));
             return;
         }
 
-        player.setLocation(destino);
-        println("Voce se moveu para: " + destino.getName());
+        mover(destino);
+        emitir(new GameEvent.Movimento(atual, destino));
         olhar(); // mostra o novo local automaticamente
     }
 
+    /**
+     * Vai ate um local pelo menor caminho (rota do cache do mapa).
+     * Para antes se passar por um local com inimigos.
+     */
+    private void viajar(String nomeLocal) throws InvalidActionException {
+        if (nomeLocal == null || nomeLocal.isBlank()) {
+            throw new InvalidActionException("Use: viajar <local> (ou: ir para <local>)");
+        }
+
+        WorldTemplate mapa = world.getTemplate();
+        Location alvo = mapa.procurar(nomeLocal);
+        if (alvo == null) {
+            throw new InvalidActionException("Local desconhecido: " + nomeLocal.trim());
+        }
+
+        Location atual = player.getLocation();
+        if (alvo.equals(atual)) {
+            throw new InvalidActionException("Voce ja esta em " + atual.getName() + ".");
+        }
+
+        int[] rota = mapa.getRotas().rota(mapa.idDe(atual), mapa.idDe(alvo));
+        if (rota == null) {
+            throw new InvalidActionException("Nao ha caminho ate " + alvo.getName() + ".");
+        }
+
+        WorldGraph grafo = mapa.getGrafo();
+        int id = mapa.idDe(atual);
+        int passos = 0;
+        for (int direcao : rota) {
+            id = grafo.vizinho(id, direcao);
+            passos++;
+            if (passos < rota.length && world.temNpcs(mapa.local(id))) {
+                break; // inimigo no caminho
+            }
+        }
+
+        Location chegada = mapa.local(id);
+        mover(chegada);
+        ticksDoComando = passos; // um tick por passo
+        emitir(new GameEvent.Viagem(atual, chegada, passos, !chegada.equals(alvo)));
+        olhar();
+    }
+
     private void atacar() {
         Location loc = player.getLocation();
-        if (loc.getNpcs().isEmpty()) {
-            println("Nao ha inimigos aqui.");
+        if (world.estado(loc).getNpcs().isEmpty()) {
+            emitir(new GameEvent.SemInimigos());
             return;
         }
 
-        GameCharacter alvo = loc.getNpcs().get(0);
-
-        int dano = player.attack();
-        alvo.takeDamage(dano);
-        println(player.getName() + " causou " + dano + " em " + alvo.getName() + ".");
+        // o combate altera o local: a partida passa a ter sua propria copia
+        // (num mundo compartilhado, a copia de todos). Escolher o alvo, dar o
+        // golpe e tirar a NPC morta acontecem sob a trava do local, entao
+        // dois jogadores nunca tiram a mesma NPC.
+        NPC alvo;
+        int dano, hpAlvo;
+        boolean matou;
+        synchronized (world.trava(loc)) {
+            LocationState estado = world.estadoParaAlterar(loc);
+            if (estado.getNpcs().isEmpty()) {
+                emitir(new GameEvent.SemInimigos()); // outro jogador chegou antes
+                return;
+            }
+            alvo = estado.getNpcs().get(0);
+            dano = player.attack(world.getRandom());
+            matou = alvo.takeDamage(dano);
+            hpAlvo = alvo.getHp();
+            if (matou) {
+                estado.removeNpc(alvo);
+            }
+        }
+        emitir(new GameEvent.Ataque(player.getName(), alvo.getName(), dano, hpAlvo));
 
-        if (!alvo.isAlive()) {
-            println("Voce derrotou " + alvo.getName() + "!");
-            loc.getNpcs().remove(0);
+        if (matou) {
+            emitir(new GameEvent.NpcDerrotado(alvo.getName()));
+            simulacao.npcDerrotada(loc, alvo); // volta depois de um tempo
             return;
         }
+        simulacao.npcFerida(alvo);
 
-        int contra = Dice.roll(1, 4);
+        int contra = CombatRules.contraAtaque(world.getRandom());
         player.takeDamage(contra);
-        println(alvo.getName() + " contra-atacou por " + contra + ".");
+        emitir(new GameEvent.ContraAtaque(alvo.getName(), player.getName(), contra, player.getHp()));
     }
 
     private void pegar(String nomeItem)
@@ -362,14 +501,17 @@ public class Game {
         }
 
         Location loc = player.getLocation();
-        Item item = loc.findGroundItem(nomeItem);
-        if (item == null) {
-            throw new InvalidActionException("Nao existe esse item no chao aqui.");
-        }
+        Item item;
+        synchronized (world.trava(loc)) { // o mesmo item nao vai para duas mochilas
+            item = world.estado(loc).findGroundItem(nomeItem);
+            if (item == null) {
+                throw new InvalidActionException("Nao existe esse item no chao aqui.");
+            }
 
-        player.getBag().add(item); // pode disparar InventoryFullException
-        loc.getGroundItems().remove(item);
-        println("Voce pegou: " + item.getName());
+            player.getBag().add(item); // pode disparar InventoryFullException
+            world.estadoParaAlterar(loc).removeGroundItem(item);
+        }
+        emitir(new GameEvent.ItemPego(item));
     }
 
     private void largar(String nomeItem)
@@ -380,8 +522,11 @@ public class Game {
 
         Item item = player.getBag().findOrThrow(nomeItem);
         player.getBag().remove(item);
-        player.getLocation().getGroundItems().add(item);
-        println("Voce largou: " + item.getName());
+        Location loc = player.getLocation();
+        synchronized (world.trava(loc)) {
+            world.estadoParaAlterar(loc).addGroundItem(item);
+        }
+        emitir(new GameEvent.ItemLargado(item));
     }
 
     private void equipar(String nomeItem)
@@ -397,7 +542,7 @@ public class Game {
 
         Weapon w = (Weapon) item;
         player.setWeapon(w);
-        println("Voce equipou: " + w.getName());
+        emitir(new GameEvent.ArmaEquipada(w));
     }
 
     private void beber(String nomeItem)
@@ -412,82 +557,125 @@ public class Game {
         }
 
         Potion p = (Potion) item;
-        player.heal(p.getHealAmount());
+        if (p.getDuracao() > 0) {
+            simulacao.pocaoBebida(p); // cura um pouco a cada tick
+        } else {
+            player.heal(p.getHealAmount());
+        }
         player.getBag().remove(p);
-        println("Voce bebeu " + p.getName()
-                + " e recuperou " + p.getHealAmount() + " de HP.");
+        emitir(new GameEvent.PocaoBebida(p, player.getHp()));
     }
 
     private void mostrarInventario() {
-        var itens = player.getBag().getItems();
-        if (itens.isEmpty()) {
-            println("Seu inventario esta vazio.");
-            return;
-        }
-        println("Itens no inventario:");
-        for (int i = 0; i < itens.size(); i++) {
-            println("  " + (i + 1) + " - " + itens.get(i).getName());
-        }
+        emitir(new GameEvent.Inventario(player.getBag().getItems()));
     }
 
     private void salvar() {
-        try {
-            Path dir = Paths.get("saves");
-            if (!Files.exists(dir)) {
-                Files.createDirectories(dir);
-            }
+        Path arquivo = SAVES.resolve(normalizarNome(player.getName()) + "__" + timestampArquivo()
+                + SaveFiles.EXTENSAO);
+        enfileirarSave(arquivo);
+        emitir(new GameEvent.JogoSalvo(arquivo));
+    }
 
-            // gerar nome amigavel: Player__2025-11-16__21-53-01.txt
-            String nomePlayer = normalizarNome(player.getName());
+    /**
+     * Liga o autosave: a cada 'intervalo' (checado depois de cada comando)
+     * a partida e gravada em segundo plano em um arquivo fixo por jogador.
+     * Duration.ZERO ou null desliga.
+     */
+    public void setAutosave(java.time.Duration intervalo) {
+        this.autosaveNanos = (intervalo == null) ? 0 : intervalo.toNanos();
+        this.ultimoSave = System.nanoTime();
+    }
 
-            String timestamp = java.time.LocalDateTime.now()
-                    .format(java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd__HH-mm-ss"));
+    private void verificarAutosave() {
+        if (autosaveNanos <= 0 || player == null) return;
+        if (System.nanoTime() - ultimoSave < autosaveNanos) return;
 
-            String nomeArquivo = nomePlayer + "__" + timestamp + ".txt";
+        enfileirarSave(SAVES.resolve(normalizarNome(player.getName()) + "__autosave" + SaveFiles.EXTENSAO));
+    }
 
-            Path arquivo = dir.resolve(nomeArquivo);
+    /**
+     * So tira a foto aqui; a gravacao acontece na thread do SaveService.
+     * Um erro de gravacao volta por uma fila e e avisado no proximo comando,
+     * na thread da partida (os eventos nao sao seguros entre threads).
+     */
+    private void enfileirarSave(Path arquivo) {
+        ultimoSave = System.nanoTime();
+        SaveService.padrao().enfileirar(this, arquivo, criarSaveData(),
+                e -> falhasDeSave.add("Erro ao salvar o jogo: " + e.getMessage()));
+    }
 
-            // descobre a "chave" da location atual (ex: "vila" / "bosque")
-            String localKey = encontrarChaveDaLocation(player.getLocation());
+    private void avisarFalhasDeSave() {
+        for (String falha; (falha = falhasDeSave.poll()) != null; ) {
+            emitir(new GameEvent.Mensagem(falha));
+        }
+    }
 
-            String weaponName = (player.getWeapon() != null)
-                    ? player.getWeapon().getName()
-                    : "-";
+    private static String timestampArquivo() {
+        // gerar nome amigavel: Player__2025-11-16__21-53-01.sav
+        return java.time.LocalDateTime.now()
+                .format(java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd__HH-mm-ss"));
+    }
 
-            String inventario = player.getBag().getItems().stream()
-                    .map(Item::getName)
-                    .collect(Collectors.joining(","));
+    /** Foto do estado atual da partida (jogador + locais alterados; no mundo compartilhado, os de todos). */
+    public SaveData criarSaveData() {
+        WorldTemplate template = world.getTemplate();
+        EntityRegistry entidades = template.getEntidades();
 
-            String classeSalvar;
-            if (player instanceof Mage) {
-                classeSalvar = "mago";
-            } else if (player instanceof Archer) {
-                classeSalvar = "arqueiro";
-            } else {
-                classeSalvar = "guerreiro";
-            }
+        // a chave (ex: "vila" / "bosque") continua no save: o catalogo mostra ela
+        Location atual = player.getLocation();
+        String localKey = template.chaveDe(atual);
 
-            StringBuilder sb = new StringBuilder();
-            sb.append(player.getName()).append("\n");
-            sb.append(classeSalvar).append("\n");
-            sb.append(player.getHp()).append("\n");
-            sb.append(localKey).append("\n");
-            sb.append(weaponName).append("\n");
-            sb.append(inventario).append("\n");
+        SaveData.ItemSalvo arma = (player.getWeapon() != null)
+                ? itemSalvo(entidades, player.getWeapon())
+                : null;
 
-            Files.writeString(arquivo, sb.toString(), StandardCharsets.UTF_8);
+        List<SaveData.ItemSalvo> inventario = new ArrayList<>();
+        for (Item item : player.getBag().getItems()) {
+            inventario.add(itemSalvo(entidades, item));
+        }
 
-            println("Jogo salvo em: " + arquivo.toAbsolutePath());
-        } catch (IOException e) {
-            println("Erro ao salvar o jogo: " + e.getMessage());
+        String classeSalvar;
+        if (player instanceof Mage) {
+            classeSalvar = "mago";
+        } else if (player instanceof Archer) {
+            classeSalvar = "arqueiro";
+        } else {
+            classeSalvar = "guerreiro";
         }
+
+        List<SaveData.LocalSalvo> locais = new ArrayList<>();
+        for (Map.Entry<Location, LocationState> e : world.getAlterados().entrySet()) {
+            List<SaveData.NpcSalva> npcs = new ArrayList<>();
+            List<SaveData.ItemSalvo> itens = new ArrayList<>();
+            // num mundo compartilhado outras partidas mexem no local enquanto a foto e tirada
+            synchronized (world.trava(e.getKey())) {
+                for (NPC npc : e.getValue().getNpcs()) {
+                    int id = entidades.idDe(npc);
+                    npcs.add(new SaveData.NpcSalva(id, id == EntityRegistry.SEM_ID ? npc.getName() : null,
+                            npc.getHp()));
+                }
+                for (Item item : e.getValue().getGroundItems()) {
+                    itens.add(itemSalvo(entidades, item));
+                }
+            }
+            locais.add(new SaveData.LocalSalvo(entidades.idDe(e.getKey()), null, npcs, itens));
+        }
+
+        return new SaveData(player.getName(), classeSalvar, player.getHp(),
+                entidades.idDe(atual), localKey, arma, inventario, locais);
+    }
+
+    private static SaveData.ItemSalvo itemSalvo(EntityRegistry entidades, Item item) {
+        int id = entidades.idDe(item);
+        return id == EntityRegistry.SEM_ID ? SaveData.ItemSalvo.porNome(item.getName()) : SaveData.ItemSalvo.porId(id);
     }
 
     // -------------------------------------------------------------------------
     // HELPERS
     // -------------------------------------------------------------------------
 
-    private Player criarPlayerParaClasse(String nome, String classe) {
+    public static Player criarPlayerParaClasse(String nome, String classe) {
         if (classe == null) classe = "guerreiro";
         classe = classe.toLowerCase();
 
@@ -498,16 +686,71 @@ public class Game {
         };
     }
 
-    private String encontrarChaveDaLocation(Location loc) {
-        for (Map.Entry<String, Location> entry : world.getLocations().entrySet()) {
-            if (entry.getValue() == loc) {
-                return entry.getKey();
+    /** Local pelo id do registro; saves antigos so tem a chave. */
+    private Location localDoSave(int id, String chave) {
+        if (id != SaveData.SEM_ID) {
+            return world.getTemplate().getEntidades().local(id);
+        }
+        return chave == null ? null : world.getLocations().get(chave);
+    }
+
+    /**
+     * Prototipo do item pelo id; saves antigos so tem o nome, resolvido
+     * pelo registro (catalogo + itens do mapa). Desconhecido = null.
+     */
+    private Item itemDoSave(SaveData.ItemSalvo salvo) {
+        EntityRegistry entidades = world.getTemplate().getEntidades();
+        Item item = (salvo.getId() != SaveData.SEM_ID)
+                ? entidades.item(salvo.getId())
+                : (salvo.getName() == null || salvo.getName().isBlank()) ? null : entidades.itemPorNome(salvo.getName());
+        if (item == null) {
+            println("Aviso: item desconhecido no save: "
+                    + (salvo.getName() != null ? salvo.getName() : "#" + salvo.getId()));
+        }
+        return item;
+    }
+
+    private void restaurarLocal(SaveData.LocalSalvo salvo) {
+        Location loc = localDoSave(salvo.getLocalId(), salvo.getKey());
+        if (loc == null) {
+            println("Aviso: local desconhecido no save: "
+                    + (salvo.getKey() != null ? salvo.getKey() : "#" + salvo.getLocalId()));
+            return;
+        }
+
+        EntityRegistry entidades = world.getTemplate().getEntidades();
+        List<NPC> npcs = new ArrayList<>();
+        for (SaveData.NpcSalva salva : salvo.getNpcs()) {
+            NPC prototipo = (salva.getId() != SaveData.SEM_ID) ? entidades.npc(salva.getId()) : null;
+            if (prototipo != null) {
+                NPC npc = new NPC(prototipo);
+                if (salva.getHp() < npc.getHp()) npc.takeDamage(npc.getHp() - salva.getHp());
+                npcs.add(npc);
+                continue;
+            }
+            if (salva.getName() == null) continue; // id de outro mapa
+
+            // saves antigos: dano base do spawn original com o mesmo nome
+            int dano = 3;
+            for (NPC original : loc.getNpcs()) {
+                if (original.getName().equals(salva.getName())) {
+                    dano = original.getBaseDamage();
+                    break;
+                }
             }
+            npcs.add(new NPC(salva.getName(), salva.getHp(), dano));
         }
-        return "vila";
+
+        List<Item> itens = new ArrayList<>();
+        for (SaveData.ItemSalvo salvoItem : salvo.getGroundItems()) {
+            Item item = itemDoSave(salvoItem);
+            if (item != null) itens.add(item);
+        }
+
+        world.estadoParaAlterar(loc).restaurar(npcs, itens);
     }
 
-    private String normalizarNome(String nome) {
+    private static String normalizarNome(String nome) {
         String normalizado = nome
                 .replaceAll("[^a-zA-Z0-9 ]", "")
                 .replaceAll(" ", "_");
@@ -518,83 +761,175 @@ public class Game {
         return normalizado;
     }
 
-    private Weapon criarWeaponAPartirDoNome(String nome) {
-        if (nome.toLowerCase().contains("espada curta")) {
-            return new Weapon(nome, 4);
-        }
-        return new Weapon(nome, 3);
+    public GameOutput getOutput() { return out; }
+
+    /** Fixa a semente dos dados desta partida (combate e simulacao reproduziveis). */
+    public void setSeed(long seed) {
+        world.setRandom(new RandomSource(seed));
+        world.setRandomSimulacao(new RandomSource(~seed)); // nao mexe na sequencia do combate
+        if (diario != null) ligarFitas();
     }
 
-    private Item criarItemAPartirDoNome(String nome) {
-        String lower = nome.toLowerCase();
-        if (lower.contains("espada")) {
-            return criarWeaponAPartirDoNome(nome);
-        } else if (lower.contains("pocao")) {
-            return new Potion(nome, 6);
+    /** Relogio e comportamentos do mundo desta partida (null antes do start()). */
+    public WorldSimulation getSimulacao() { return simulacao; }
+
+    public RandomSource getRandom() { return world.getRandom(); }
+
+    /** Fim da partida (sair ou sessao fechada): libera o lugar do jogador no mundo. */
+    public void encerrar() {
+        world.liberar();
+    }
+
+    private void mover(Location destino) {
+        player.setLocation(destino);
+        world.ocupar(destino);
+        if (simulacao != null) {
+            simulacao.jogadorEntrou(destino);
         }
-        return null;
     }
 
-    private void println(String s) { out.println(s); }
-    private void print(String s)   { out.print(s); }
+    private void println(String s) { emitir(new GameEvent.Mensagem(s)); }
+
+    private void emitir(GameEvent evento) { eventos.onEvent(evento); }
 
     // -------------------------------------------------------------------------
-    // LOAD DE JOGO
+    // DIARIO DE COMANDOS
     // -------------------------------------------------------------------------
 
-    public static Game carregarDeArquivo(Path arquivo) {
-        return carregarDeArquivo(arquivo, new ConsoleOutput());
+    /**
+     * Liga o diario: cada comando que muda o estado (ir, viajar, atacar,
+     * pegar, largar, equipar, beber) vira um registro com os dados que
+     * tirou, e a cada SNAPSHOT_A_CADA registros (e ao sair) vai uma foto da
+     * partida. Chamar antes de start(). So para partidas solo no mapa
+     * padrao, que e o que recuperar() monta.
+     */
+    public void setDiario(CommandJournal diario) {
+        if (world.isCompartilhado() || world.getTemplate() != WorldTemplate.padrao()) {
+            throw new IllegalStateException("Diario so funciona em partida solo no mapa padrao.");
+        }
+        this.diario = diario;
+        this.chaveDiario = normalizarNome(playerName);
+        this.partida = RandomSource.local().nextLong();
     }
 
-    public static Game carregarDeArquivo(Path arquivo, GameOutput out) {
-        try {
-            List<String> linhas = Files.readAllLines(arquivo, StandardCharsets.UTF_8);
+    /**
+     * Remonta a partida do jogador a partir do diario: a ultima foto e,
+     * no start(), os comandos registrados depois dela, refeitos com os
+     * mesmos dados e sem eventos. O jogo continua registrando no mesmo
+     * diario. null se o diario nao conhece o jogador.
+     *
+     * A foto leva os timers que estavam correndo (NPC voltando,
+     * regeneracao, cura de pocao), entao o relogio continua de onde parou.
+     */
+    public static Game recuperar(CommandJournal diario, String playerName, GameOutput out) throws IOException {
+        String chave = normalizarNome(playerName.trim());
+        CommandJournal.Recuperacao r = diario.recuperar(chave);
+        if (r == null) return null;
+
+        Game game = (r.snapshot() != null) ? new Game(r.snapshot(), out) : new Game(r.nome(), r.classe(), out);
+        game.diario = diario;
+        game.chaveDiario = chave;
+        game.partida = r.partida();
+        game.seqDiario = r.seqSnapshot();
+        game.seqSnapshot = r.seqSnapshot();
+        game.refazer = r.cauda();
+        return game;
+    }
 
-            if (linhas.size() < 5) {
-                System.out.println("Arquivo de save invalido: " + arquivo);
-                return new Game("Player", out);
+    /** No start(): registra a partida nova ou refaz a cauda da recuperacao. Retorna os comandos refeitos. */
+    private int iniciarDiario() {
+        int refeitos = 0;
+        if (refazer == null) {
+            diario.iniciar(chaveDiario, partida, playerName, playerClass);
+            if (loaded != null) snapshotDiario(); // veio de um save: a base e a foto, nao um jogo novo
+        } else {
+            GameEventListener ouvinte = eventos;
+            eventos = GameEventListener.NENHUM;
+            setSeed(partida); // so vale para o que faltar na fita
+            refazendo = true;
+            try {
+                for (CommandJournal.Registro r : refazer) {
+                    fitaCombate.reproduzir(r.dadosCombate());
+                    fitaSimulacao.reproduzir(r.dadosSimulacao());
+                    simulacao.avancar(r.ticksAntes());
+                    handleCommand(r.linha());
+                    seqDiario = r.seq();
+                    refeitos++;
+                }
+            } finally {
+                refazendo = false;
+                eventos = ouvinte;
+                refazer = null;
             }
+            world.setRandom(new RandomSource());
+            world.setRandomSimulacao(new RandomSource());
+        }
+        ligarFitas();
+        return refeitos;
+    }
 
-            SaveData data = new SaveData();
-
-            // Suporte a DOIS formatos:
-            // novo (6 linhas): nome, classe, hp, local, arma, inventario
-            // antigo (5 linhas): nome, hp, local, arma, inventario  -> classe = guerreiro
-            String invLine;
-
-            if (linhas.size() >= 6) {
-                // NOVO FORMATO
-                data.name = linhas.get(0).trim();
-                data.playerClass = linhas.get(1).trim().toLowerCase();
-                data.hp = Integer.parseInt(linhas.get(2).trim());
-                data.localKey = linhas.get(3).trim();
-                data.weaponName = linhas.get(4).trim();
-                invLine = linhas.get(5).trim();
-            } else {
-                // FORMATO ANTIGO (sem classe)
-                data.name = linhas.get(0).trim();
-                data.playerClass = "guerreiro"; // default para saves antigos
-                data.hp = Integer.parseInt(linhas.get(1).trim());
-                data.localKey = linhas.get(2).trim();
-                data.weaponName = linhas.get(3).trim();
-                invLine = linhas.get(4).trim();
-            }
+    private void ligarFitas() {
+        fitaCombate.gravar();
+        fitaSimulacao.gravar();
+        world.getRandom().setFita(fitaCombate);
+        world.getRandomSimulacao().setFita(fitaSimulacao);
+    }
 
-            if (invLine.isEmpty()) {
-                data.inventoryNames = java.util.List.of();
-            } else {
-                data.inventoryNames = java.util.Arrays.stream(invLine.split(","))
-                        .map(String::trim)
-                        .filter(s -> !s.isEmpty())
-                        .toList();
-            }
+    private void registrarNoDiario(CommandRegistry.Entry entry, String arg) {
+        if (!VERBOS_DO_DIARIO.contains(entry.getVerbo())) {
+            ticksSemRegistro += ticksDoComando; // os dados desse tempo ficam na fita do proximo
+            return;
+        }
+        String linha = arg.isEmpty() ? entry.getVerbo() : entry.getVerbo() + " " + arg;
+        diario.registrar(chaveDiario, partida, new CommandJournal.Registro(++seqDiario, ticksSemRegistro, linha,
+                fitaCombate.getValores(), fitaSimulacao.getValores()));
+        fitaCombate.gravar();
+        fitaSimulacao.gravar();
+        ticksSemRegistro = 0;
+        if (seqDiario - seqSnapshot >= SNAPSHOT_A_CADA) {
+            snapshotDiario();
+        }
+    }
 
-            return new Game(data, out);
+    private void snapshotDiario() {
+        diario.snapshot(chaveDiario, partida, seqDiario, criarSaveData().comTimers(simulacao.exportarTimers()));
+        seqSnapshot = seqDiario;
+    }
+
+    /** Divergencias da ultima recuperacao (dado pedido que nao estava na fita); 0 = refeita igual. */
+    public int getDivergenciasDoDiario() {
+        return fitaCombate.getDivergencias() + fitaSimulacao.getDivergencias();
+    }
 
-        } catch (IOException | NumberFormatException e) {
+    // -------------------------------------------------------------------------
+    // LOAD DE JOGO
+    // -------------------------------------------------------------------------
+
+    public static Game carregarDeArquivo(Path arquivo) {
+        return carregarDeArquivo(arquivo, new ConsoleOutput());
+    }
+
+    public static Game carregarDeArquivo(Path arquivo, GameOutput out) {
+        return carregarDeArquivo(arquivo, out, WorldTemplate.padrao());
+    }
+
+    /** Carrega um save feito no mapa 'mapa' (os ids de locais e NPCs sao desse mapa). */
+    public static Game carregarDeArquivo(Path arquivo, GameOutput out, WorldTemplate mapa) {
+        try {
+            SaveData data = SaveFiles.ler(arquivo);
+            return new Game(data, out, mapa);
+        } catch (InvalidSaveException e) {
+            System.out.println("Arquivo de save invalido: " + arquivo + " (" + e.getMessage() + ")");
+            return new Game("Player", "guerreiro", out, mapa);
+        } catch (IOException e) {
             System.out.println("Erro ao carregar jogo: " + e.getMessage());
-            return new Game("Player", out);
+            return new Game("Player", "guerreiro", out, mapa);
         }
     }
 
+    /** Partida a partir de uma foto (ex: criarSaveData de outra partida) no mapa 'mapa'. */
+    public static Game carregar(SaveData data, GameOutput out, WorldTemplate mapa) {
+        return new Game(data, out, mapa);
+    }
+
 }
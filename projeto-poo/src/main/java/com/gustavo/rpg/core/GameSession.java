@@ -0,0 +1,106 @@
+package com.gustavo.rpg.core;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Uma partida hospedada pelo {@link SessionManager}.
+ * Cada sessao tem seu proprio Game (mundo, jogador e saida) e sua propria
+ * fila de entrada. Os comandos de uma sessao nunca rodam em paralelo:
+ * a flag 'agendada' garante que so uma thread drena a fila por vez.
+ * Encerrar de fora so desliga a sessao; quem fecha o Game e o proprio
+ * dreno, para nunca rodar junto com um handleCommand.
+ */
+public class GameSession {
+
+    private final long id;
+    private final Game game;
+    private final Queue<String> entrada = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean agendada = new AtomicBoolean(false);
+    private final long criadaEm = System.nanoTime();
+
+    private boolean iniciada = false;       // so acessado pela thread que drena
+    private volatile boolean ativa = true;
+    private volatile boolean finalizada = false; // game.encerrar() ja rodou
+    private volatile long comandos = 0;     // escrito so pela thread que drena
+
+    GameSession(long id, Game game) {
+        this.id = id;
+        this.game = game;
+    }
+
+    public long getId() { return id; }
+    public Game getGame() { return game; }
+    public boolean isAtiva() { return ativa; }
+    public int getPendentes() { return entrada.size(); }
+    public long getComandosProcessados() { return comandos; }
+
+    /** Comandos processados por segundo desde que a sessao foi criada. */
+    public double getComandosPorSegundo() {
+        double segundos = (System.nanoTime() - criadaEm) / 1_000_000_000.0;
+        return segundos > 0 ? comandos / segundos : 0.0;
+    }
+
+    // -------------------------------------------------------------------------
+    // USO INTERNO DO SESSION MANAGER
+    // -------------------------------------------------------------------------
+
+    void enfileirar(String linha) { entrada.add(linha); }
+
+    boolean tentarAgendar() { return agendada.compareAndSet(false, true); }
+
+    boolean temPendentes() { return !entrada.isEmpty(); }
+
+    /**
+     * Processa ate 'limite' comandos da fila.
+     * Retorna false se o jogador saiu do jogo ou a sessao foi encerrada;
+     * nesse caso o Game ja foi fechado.
+     */
+    boolean drenar(int limite) {
+        if (!iniciada && ativa) {
+            iniciada = true;
+            game.start();
+        }
+
+        for (int i = 0; i < limite && ativa; i++) {
+            String linha = entrada.poll();
+            if (linha == null) break;
+
+            boolean continua = game.handleCommand(linha);
+            comandos++;
+            if (!continua) {
+                ativa = false;
+            }
+        }
+        if (!ativa) {
+            finalizar();
+        }
+        return ativa;
+    }
+
+    /** Libera a flag de agendamento; retorna true se ainda ha trabalho. */
+    boolean liberar() {
+        agendada.set(false);
+        return ativa ? temPendentes() : !finalizada;
+    }
+
+    /** Desliga a sessao; o Game e fechado no proximo dreno (ver finalizar). */
+    void encerrar() {
+        ativa = false;
+        entrada.clear();
+    }
+
+    /** Fecha o Game uma vez. So quem segura a flag 'agendada' chama. */
+    void finalizar() {
+        if (!finalizada) {
+            finalizada = true;
+            game.encerrar();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Sessao #" + id;
+    }
+}
@@ -4,37 +4,84 @@ import java.util.*;
 import com.gustavo.rpg.entities.NPC;
 import com.gustavo.rpg.items.Item;
 
+/**
+ * Local do mapa. Faz parte do WorldTemplate e e compartilhado (somente
+ * leitura) por todas as partidas: as NPCs e itens guardados aqui sao o
+ * estado inicial. O que cada partida muda fica no World (LocationState).
+ */
 public class Location {
     private final String name;
     private final String description;
 
-    private final Map<String, Location> exits = new HashMap<>();
+    private volatile Map<String, Location> exits = Map.of(); // trocado inteiro a cada connect
     private final List<NPC> npcs = new ArrayList<>();
     private final List<Item> groundItems = new ArrayList<>();
 
+    private LocationState estadoInicial; // criado quando o template e congelado
+    private WorldTemplate template;      // dono, depois de congelado
+
     public Location(String name, String description) {
         this.name = name;
         this.description = description;
     }
 
-    public void connect(String direction, Location other) {
-        exits.put(direction.toLowerCase(), other);
+    /**
+     * Liga uma saida. Pode ser chamado depois de congelado (outras partidas
+     * podem estar lendo as saidas): o mapa e copiado e trocado, nunca alterado.
+     */
+    public synchronized void connect(String direction, Location other) {
+        Map<String, Location> novas = new HashMap<>(exits);
+        novas.put(direction.toLowerCase(), other);
+        exits = Collections.unmodifiableMap(novas);
+        if (template != null) {
+            template.conexoesMudaram(); // rotas calculadas antes deixam de valer
+        }
     }
 
-    public Item findGroundItem(String partial) {
-        for (Item item : groundItems) {
-            if (item.getName().toLowerCase().contains(partial.toLowerCase())) {
-                return item;
-            }
-        }
-        return null;
+    /** Adiciona uma NPC ao estado inicial (so durante a montagem do template). */
+    public void addNpc(NPC npc) {
+        verificarMontagem();
+        npcs.add(npc);
+    }
+
+    /** Adiciona um item ao chao no estado inicial (so durante a montagem do template). */
+    public void addGroundItem(Item item) {
+        verificarMontagem();
+        groundItems.add(item);
     }
 
     public String getName() { return name; }
     public String getDescription() { return description; }
     public Map<String, Location> getExits() { return exits; }
-    public List<NPC> getNpcs() { return npcs; }
-    public List<Item> getGroundItems() { return groundItems; }
+
+    /** Local na direcao (ex: "norte"), ou null se nao ha saida. */
+    public Location getExit(String direction) {
+        return exits.get(direction.toLowerCase());
+    }
+
+    public List<NPC> getNpcs() { return Collections.unmodifiableList(npcs); }
+    public List<Item> getGroundItems() { return Collections.unmodifiableList(groundItems); }
+
+    /** Estado inicial compartilhado (somente leitura). */
+    LocationState getEstadoInicial() {
+        if (estadoInicial == null) {
+            throw new IllegalStateException("Location ainda nao pertence a um WorldTemplate: " + name);
+        }
+        return estadoInicial;
+    }
+
+    void congelar(WorldTemplate dono) {
+        if (estadoInicial == null) {
+            estadoInicial = LocationState.inicial(npcs, groundItems);
+            template = dono;
+        }
+    }
+
+    private void verificarMontagem() {
+        if (estadoInicial != null) {
+            throw new IllegalStateException("Location ja congelada: " + name);
+        }
+    }
 
     @Override public String toString() { return name; }
 }
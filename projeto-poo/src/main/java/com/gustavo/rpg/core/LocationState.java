@@ -0,0 +1,101 @@
+package com.gustavo.rpg.core;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import com.gustavo.rpg.entities.NPC;
+import com.gustavo.rpg.inventory.ItemIndex;
+import com.gustavo.rpg.items.Item;
+import com.gustavo.rpg.world.ConteudoLocal;
+
+/**
+ * Estado mutavel de um Location (NPCs vivas e itens no chao).
+ * O estado inicial e compartilhado e nao pode ser alterado; o World de
+ * cada partida faz uma copia so quando o local muda pela primeira vez.
+ */
+public class LocationState implements ConteudoLocal {
+    private final List<NPC> npcs;
+    private final ItemIndex<Item> groundItems;
+    private final boolean compartilhado;
+
+    private LocationState(List<NPC> npcs, ItemIndex<Item> groundItems, boolean compartilhado) {
+        this.npcs = npcs;
+        this.groundItems = groundItems;
+        this.compartilhado = compartilhado;
+    }
+
+    static LocationState inicial(List<NPC> npcs, List<Item> groundItems) {
+        return new LocationState(List.copyOf(npcs), new ItemIndex<>(groundItems), true);
+    }
+
+    /** Estado alteravel com o conteudo dado (relido do arquivo de estado de um mundo em regioes). */
+    static LocationState restaurado(List<NPC> npcs, List<Item> groundItems) {
+        return new LocationState(new CopyOnWriteArrayList<>(npcs), new ItemIndex<>(groundItems), false);
+    }
+
+    /** Copia para uma partida. NPCs sao copiadas (tem HP); itens sao imutaveis. */
+    LocationState copiar() {
+        List<NPC> copiaNpcs = new ArrayList<>(npcs.size());
+        for (NPC npc : npcs) {
+            copiaNpcs.add(new NPC(npc));
+        }
+        return new LocationState(copiaNpcs, new ItemIndex<>(groundItems.asList()), false);
+    }
+
+    /**
+     * Copia para um mundo compartilhado: a lista de NPCs pode ser lida sem
+     * trava enquanto outra partida altera (quem altera segura World.trava).
+     */
+    LocationState copiarConcorrente() {
+        List<NPC> copiaNpcs = new ArrayList<>(npcs.size());
+        for (NPC npc : npcs) {
+            copiaNpcs.add(new NPC(npc));
+        }
+        return new LocationState(new CopyOnWriteArrayList<>(copiaNpcs), new ItemIndex<>(groundItems.asList()), false);
+    }
+
+    @Override
+    public List<NPC> getNpcs() { return Collections.unmodifiableList(npcs); }
+    @Override
+    public List<Item> getGroundItems() { return groundItems.asList(); }
+
+    public Item findGroundItem(String partial) {
+        return groundItems.find(partial);
+    }
+
+    public void addGroundItem(Item item) {
+        verificarAlteravel();
+        groundItems.add(item);
+    }
+
+    public boolean removeGroundItem(Item item) {
+        verificarAlteravel();
+        return groundItems.remove(item);
+    }
+
+    public void addNpc(NPC npc) {
+        verificarAlteravel();
+        npcs.add(npc);
+    }
+
+    public boolean removeNpc(NPC npc) {
+        verificarAlteravel();
+        return npcs.remove(npc);
+    }
+
+    /** Substitui o conteudo do local (usado ao carregar um save). */
+    void restaurar(List<NPC> novasNpcs, List<Item> novosItens) {
+        verificarAlteravel();
+        npcs.clear();
+        npcs.addAll(novasNpcs);
+        groundItems.clear();
+        for (Item item : novosItens) groundItems.add(item);
+    }
+
+    public boolean isCompartilhado() { return compartilhado; }
+
+    private void verificarAlteravel() {
+        if (compartilhado) {
+            throw new IllegalStateException("Estado compartilhado do template nao pode ser alterado.");
+        }
+    }
+}
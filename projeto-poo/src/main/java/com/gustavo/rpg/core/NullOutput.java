@@ -0,0 +1,15 @@
+package com.gustavo.rpg.core;
+
+/** Saida que descarta tudo (sessoes sem tela, benchmarks, testes de carga). */
+public final class NullOutput implements GameOutput {
+
+    public static final NullOutput INSTANCE = new NullOutput();
+
+    private NullOutput() {}
+
+    @Override
+    public void println(String s) { }
+
+    @Override
+    public void print(String s) { }
+}
@@ -0,0 +1,201 @@
+package com.gustavo.rpg.core;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Hospeda muitas partidas (GameSession) no mesmo processo.
+ *
+ * Cada sessao recebe comandos por uma fila propria (enviar) e e executada
+ * em um pool pequeno de threads "carregadoras": quando chega um comando a
+ * sessao e agendada no pool, processa um lote da fila e libera a thread.
+ * Assim milhares de sessoes ociosas nao ocupam thread nenhuma.
+ */
+public class SessionManager implements AutoCloseable {
+
+    /** Maximo de comandos de uma sessao por vez, para nao monopolizar o pool. */
+    private static final int LOTE = 32;
+
+    private final ExecutorService executor;
+    private final Map<Long, GameSession> sessoes = new ConcurrentHashMap<>();
+    private final AtomicLong proximoId = new AtomicLong(1);
+    private final LongAdder criadas = new LongAdder();
+    private final LongAdder encerradas = new LongAdder();
+    private final LongAdder comandos = new LongAdder();
+    private final long inicio = System.nanoTime();
+    private volatile Consumer<GameSession> aoEncerrar = sessao -> { };
+
+    public SessionManager() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public SessionManager(int threads) {
+        this.executor = Executors.newFixedThreadPool(threads, new CarrierFactory());
+    }
+
+    // -------------------------------------------------------------------------
+    // CICLO DE VIDA DAS SESSOES
+    // -------------------------------------------------------------------------
+
+    /** Cria uma nova sessao; o mundo e montado na primeira vez que ela roda. */
+    public GameSession criarSessao(String playerName, String playerClass, GameOutput out) {
+        return registrar(new Game(playerName, playerClass, out));
+    }
+
+    /** Cria uma sessao num mundo com outros jogadores (ver World.compartilhado). */
+    public GameSession criarSessao(String playerName, String playerClass, GameOutput out, World compartilhado) {
+        return registrar(new Game(playerName, playerClass, out, compartilhado));
+    }
+
+    /** Registra um Game ja construido (ex: carregado de um save). */
+    public GameSession registrar(Game game) {
+        long id = proximoId.getAndIncrement();
+        GameSession sessao = new GameSession(id, game);
+        sessoes.put(id, sessao);
+        criadas.increment();
+        agendar(sessao); // roda o start() fora da thread de quem criou
+        return sessao;
+    }
+
+    /**
+     * Enfileira uma linha de comando para a sessao.
+     * Retorna false se a sessao nao existe (ou ja terminou).
+     */
+    public boolean enviar(long sessionId, String linha) {
+        GameSession sessao = sessoes.get(sessionId);
+        if (sessao == null || !sessao.isAtiva()) {
+            return false;
+        }
+        sessao.enfileirar(linha);
+        agendar(sessao);
+        return true;
+    }
+
+    /**
+     * Encerra a sessao. Pode ser chamado de qualquer thread (ex: a do
+     * TelnetServer quando a conexao cai): a sessao so e desligada aqui e o
+     * Game e fechado pelo dreno dela, depois do comando que estiver rodando.
+     */
+    public void encerrar(long sessionId) {
+        GameSession sessao = sessoes.remove(sessionId);
+        if (sessao != null) {
+            sessao.encerrar();
+            encerradas.increment();
+            aoEncerrar.accept(sessao);
+            agendar(sessao); // se ja esta drenando, o liberar() reagenda
+        }
+    }
+
+    /**
+     * Chamado uma vez para cada sessao que termina (saiu do jogo, foi
+     * encerrada ou o manager fechou), na thread que a encerrou. Ex: o
+     * TelnetServer fecha a conexao do jogador.
+     */
+    public void setAoEncerrar(Consumer<GameSession> aoEncerrar) {
+        this.aoEncerrar = aoEncerrar;
+    }
+
+    public GameSession getSessao(long sessionId) {
+        return sessoes.get(sessionId);
+    }
+
+    public Collection<GameSession> getSessoes() {
+        return Collections.unmodifiableCollection(sessoes.values());
+    }
+
+    // -------------------------------------------------------------------------
+    // METRICAS
+    // -------------------------------------------------------------------------
+
+    public int getSessoesAtivas() { return sessoes.size(); }
+    public long getSessoesCriadas() { return criadas.sum(); }
+    public long getSessoesEncerradas() { return encerradas.sum(); }
+    public long getComandosProcessados() { return comandos.sum(); }
+
+    /** Vazao agregada (comandos/s) desde que o manager foi criado. */
+    public double getComandosPorSegundo() {
+        double segundos = (System.nanoTime() - inicio) / 1_000_000_000.0;
+        return segundos > 0 ? comandos.sum() / segundos : 0.0;
+    }
+
+    // -------------------------------------------------------------------------
+    // EXECUCAO
+    // -------------------------------------------------------------------------
+
+    private void agendar(GameSession sessao) {
+        if (!sessao.tentarAgendar()) {
+            return; // ja esta na fila do pool ou rodando; vai ver o comando novo
+        }
+        try {
+            executor.execute(() -> drenar(sessao));
+        } catch (RejectedExecutionException e) {
+            // manager fechado: temos a flag, entao nenhum dreno roda agora
+            if (!sessao.isAtiva()) {
+                sessao.finalizar();
+            }
+            sessao.liberar();
+        }
+    }
+
+    private void drenar(GameSession sessao) {
+        boolean continua;
+        long antes = sessao.getComandosProcessados();
+        try {
+            continua = sessao.drenar(LOTE);
+        } catch (RuntimeException e) {
+            // um bug em uma sessao nao pode derrubar a thread do pool
+            sessao.getGame().getOutput().println("Erro interno: " + e);
+            continua = true;
+        }
+        comandos.add(sessao.getComandosProcessados() - antes);
+
+        if (!continua) {
+            encerrar(sessao.getId());
+            sessao.liberar();
+            return;
+        }
+
+        // se chegou comando (ou um encerrar) enquanto processava, reagenda
+        if (sessao.liberar()) {
+            agendar(sessao);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        for (Long id : sessoes.keySet()) {
+            encerrar(id);
+        }
+    }
+
+    private static final class CarrierFactory implements ThreadFactory {
+        private final AtomicInteger contador = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "rpg-sessao-" + contador.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
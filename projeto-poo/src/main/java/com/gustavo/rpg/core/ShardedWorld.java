@@ -0,0 +1,327 @@
+package com.gustavo.rpg.core;
+
+import com.gustavo.rpg.entities.GameCharacter;
+import com.gustavo.rpg.entities.NPC;
+import com.gustavo.rpg.entities.Player;
+import com.gustavo.rpg.utils.BoundedMpscQueue;
+import com.gustavo.rpg.utils.RandomSource;
+import com.gustavo.rpg.world.WorldGraph;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Prototipo de benchmark (ShardScalingBenchmark), nao usado pelo jogo: mede
+ * quanto a simulacao escala dividindo um mundo gerado em shards, um por
+ * thread. NPCs andando, jogadores-robo lutando e respawn sao uma copia
+ * simplificada do WorldSimulation e do Game (Andarilho, Robo.lutar), sem
+ * eventos, saves nem sessoes; mudar as regras do jogo nao muda isto.
+ *
+ * Nao ha barreira de tick entre os shards: cada thread roda seus ticks no
+ * proprio ritmo e uma chegada e tratada no tick em que o dono esvazia a
+ * caixa, nao no tick em que saiu. Serve para medir vazao, nao para
+ * reproduzir uma partida.
+ *
+ * Cada shard e dono de uma faixa de regioes consecutivas (linhas da grade
+ * de regioes, ver WorldTemplate.regiaoDe) e tem seu proprio World, com
+ * relogio e dados; so a thread do shard mexe nos seus locais, NPCs e
+ * jogadores, entao nada disso precisa de lock. Quem atravessa uma saida
+ * para um local de outro shard vira uma mensagem (Chegada) na caixa de
+ * entrada do dono, uma BoundedMpscQueue. Caixa cheia nao bloqueia: a
+ * chegada espera numa fila local e e reenviada no tick seguinte.
+ *
+ * So bordas entre faixas e portais geram mensagens. O mundo em arquivo
+ * (RegionWorld) nao e suportado: ele guarda o estado no template, que e
+ * compartilhado por todos os shards.
+ */
+public final class ShardedWorld {
+
+    public static final int CAPACIDADE_CAIXA = 1 << 12;
+
+    /** Um personagem entrando num local de outro shard. */
+    private record Chegada(GameCharacter quem, int local) {}
+
+    /** Resultado de rodar(): eventos = timers de NPCs e jogadores executados. */
+    public record Resultado(int shards, int ticks, long nanos, long eventos, long mensagens, long reenvios) {
+        public double eventosPorSegundo() { return eventos / (nanos / 1e9); }
+    }
+
+    private final WorldTemplate mapa;
+    private final WorldGraph grafo;
+    private final Shard[] shards;
+    private final int totalRegioes;
+    private final RandomSource rng;
+    private int npcsIniciais = -1;
+
+    public ShardedWorld(WorldTemplate mapa, int quantidade, long seed) {
+        if (!mapa.temAndarilhos()) {
+            throw new IllegalArgumentException("ShardedWorld precisa de um mundo gerado.");
+        }
+        if (mapa.getRegioes() != null) {
+            throw new IllegalArgumentException("Mundo em arquivo por regioes nao pode ser dividido em shards.");
+        }
+        this.mapa = mapa;
+        this.grafo = mapa.getGrafo();
+        this.totalRegioes = mapa.totalRegioes();
+        this.rng = new RandomSource(seed);
+        this.shards = new Shard[Math.max(1, Math.min(quantidade, totalRegioes))];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(i, rng.split());
+        }
+    }
+
+    public int getQuantidade() { return shards.length; }
+
+    /** Shard dono do local. */
+    public int shardDe(int local) {
+        return (int) ((long) mapa.regiaoDe(local) * shards.length / totalRegioes);
+    }
+
+    /** Coloca jogadores-robo em locais aleatorios (antes de rodar). */
+    public void adicionarJogadores(int quantidade) {
+        String[] classes = { "guerreiro", "mago", "arqueiro" };
+        for (int i = 0; i < quantidade; i++) {
+            int local = rng.nextInt(grafo.tamanho());
+            Player jogador = Game.criarPlayerParaClasse("Robo" + i, classes[i % classes.length]);
+            shards[shardDe(local)].iniciais.add(new Chegada(jogador, local));
+        }
+    }
+
+    /**
+     * Roda 'ticks' ticks em cada shard, uma thread por shard, e espera todos.
+     * Mensagens que sobraram nas caixas sao entregues no fim (sem threads).
+     */
+    public Resultado rodar(int ticks) throws InterruptedException {
+        Thread[] threads = new Thread[shards.length];
+        long inicio = System.nanoTime();
+        for (int i = 0; i < shards.length; i++) {
+            Shard shard = shards[i];
+            threads[i] = new Thread(() -> shard.rodar(ticks), "shard-" + i);
+            threads[i].start();
+        }
+        for (Thread t : threads) t.join();
+        long nanos = System.nanoTime() - inicio;
+
+        // depois do join tudo e visivel aqui: esvazia as caixas
+        boolean pendente = true;
+        while (pendente) {
+            pendente = false;
+            for (Shard shard : shards) {
+                shard.reenviar();
+                shard.receber();
+                pendente |= !shard.esperando.isEmpty() || shard.caixa.tamanho() > 0;
+            }
+        }
+
+        long eventos = 0, mensagens = 0, reenvios = 0;
+        for (Shard shard : shards) {
+            eventos += shard.eventos;
+            mensagens += shard.enviadas;
+            reenvios += shard.reenvios;
+        }
+        return new Resultado(shards.length, ticks, nanos, eventos, mensagens, reenvios);
+    }
+
+    /** Jogadores em todos os shards (chame com as threads paradas). */
+    public int contarJogadores() {
+        int total = 0;
+        for (Shard shard : shards) total += shard.jogadores + shard.iniciais.size();
+        return total;
+    }
+
+    /** NPCs vivas mais as que esperam respawn: nao muda enquanto roda (chame com as threads paradas). */
+    public int contarNpcs() {
+        int total = 0;
+        for (Shard shard : shards) total += shard.npcs + shard.respawns;
+        return total;
+    }
+
+    /** NPCs do mapa no comeco (antes do primeiro rodar, -1). */
+    public int getNpcsIniciais() { return npcsIniciais; }
+
+    // -------------------------------------------------------------------------
+    // SHARD
+    // -------------------------------------------------------------------------
+
+    private final class Shard {
+        private final int indice;
+        private final World world = new World(mapa); // so os locais deste shard sao usados
+        private final WorldClock relogio = world.getRelogio();
+        private final RandomSource dados;
+        private final BoundedMpscQueue<Chegada> caixa = new BoundedMpscQueue<>(CAPACIDADE_CAIXA);
+        private final ArrayDeque<Chegada> esperando = new ArrayDeque<>(); // caixa do destino cheia
+        private final List<Chegada> iniciais = new ArrayList<>();
+        private boolean acordado;
+
+        // contadores: so a thread do shard escreve
+        private int jogadores, npcs, respawns;
+        private long eventos, enviadas, reenvios;
+
+        Shard(int indice, RandomSource dados) {
+            this.indice = indice;
+            this.dados = dados;
+        }
+
+        void rodar(int ticks) {
+            if (!acordado) {
+                acordar();
+                acordado = true;
+            }
+            for (Chegada c : iniciais) chegar(c);
+            iniciais.clear();
+
+            for (int t = 0; t < ticks; t++) {
+                receber();
+                reenviar();
+                relogio.avancar(1);
+            }
+        }
+
+        /** Cada NPC dos locais deste shard ganha um andarilho. */
+        private void acordar() {
+            int contadas = 0;
+            for (int regiao = 0; regiao < totalRegioes; regiao++) {
+                if ((int) ((long) regiao * shards.length / totalRegioes) != indice) continue;
+                for (int id : mapa.locaisDaRegiao(regiao)) {
+                    Location loc = mapa.local(id);
+                    if (!world.temNpcs(loc)) continue;
+                    for (NPC npc : world.estadoParaAlterar(loc).getNpcs()) {
+                        relogio.agendar(1 + dados.nextInt(WorldSimulation.VAGUEAR), new Andarilho(npc, id));
+                        contadas++;
+                    }
+                }
+            }
+            npcs += contadas;
+            synchronized (ShardedWorld.this) {
+                npcsIniciais = Math.max(npcsIniciais, 0) + contadas;
+            }
+        }
+
+        void receber() {
+            Chegada c;
+            while ((c = caixa.poll()) != null) {
+                chegar(c);
+            }
+        }
+
+        void reenviar() {
+            for (int n = esperando.size(); n > 0; n--) {
+                Chegada c = esperando.poll();
+                if (!shards[shardDe(c.local())].caixa.offer(c)) {
+                    esperando.add(c);
+                    reenvios++;
+                }
+            }
+        }
+
+        private void chegar(Chegada c) {
+            if (c.quem() instanceof NPC npc) {
+                world.estadoParaAlterar(mapa.local(c.local())).addNpc(npc);
+                relogio.agendar(WorldSimulation.VAGUEAR, new Andarilho(npc, c.local()));
+                npcs++;
+            } else if (c.quem() instanceof Player jogador) {
+                relogio.agendar(1, new Robo(jogador, c.local()));
+                jogadores++;
+            }
+        }
+
+        /** Sai deste shard: a mensagem vai para o dono do local (ou espera, se a caixa esta cheia). */
+        private void enviar(GameCharacter quem, int local) {
+            Chegada c = new Chegada(quem, local);
+            enviadas++;
+            if (!shards[shardDe(local)].caixa.offer(c)) {
+                esperando.add(c);
+            }
+        }
+
+        /** Vizinho aleatorio, ou -1 (parede). */
+        private int vizinhoAleatorio(int local) {
+            return grafo.vizinho(local, dados.nextInt(grafo.totalDirecoes()));
+        }
+
+        /** NPC andando pelas saidas; some deste shard quando cruza a borda. */
+        private final class Andarilho implements Runnable {
+            private final NPC npc;
+            private int local;
+
+            Andarilho(NPC npc, int local) {
+                this.npc = npc;
+                this.local = local;
+            }
+
+            @Override
+            public void run() {
+                if (!npc.isAlive()) return; // o respawn cria outra
+                eventos++;
+                int destino = vizinhoAleatorio(local);
+                if (destino >= 0) {
+                    world.estadoParaAlterar(mapa.local(local)).removeNpc(npc);
+                    if (shardDe(destino) != indice) {
+                        npcs--;
+                        enviar(npc, destino);
+                        return;
+                    }
+                    world.estadoParaAlterar(mapa.local(destino)).addNpc(npc);
+                    local = destino;
+                }
+                relogio.agendar(WorldSimulation.VAGUEAR, this);
+            }
+        }
+
+        /** Jogador-robo: luta se ha NPC no local, senao anda. */
+        private final class Robo implements Runnable {
+            private final Player jogador;
+            private int local;
+
+            Robo(Player jogador, int local) {
+                this.jogador = jogador;
+                this.local = local;
+            }
+
+            @Override
+            public void run() {
+                eventos++;
+                Location aqui = mapa.local(local);
+                if (world.temNpcs(aqui)) {
+                    lutar(aqui);
+                } else {
+                    jogador.regenerar(1);
+                    int destino = vizinhoAleatorio(local);
+                    if (destino >= 0 && shardDe(destino) != indice) {
+                        jogadores--;
+                        enviar(jogador, destino);
+                        return;
+                    }
+                    if (destino >= 0) local = destino;
+                }
+                relogio.agendar(1, this);
+            }
+
+            private void lutar(Location aqui) {
+                LocationState estado = world.estadoParaAlterar(aqui);
+                NPC alvo = estado.getNpcs().get(0);
+                alvo.takeDamage(jogador.attack(dados));
+                if (!alvo.isAlive()) {
+                    estado.removeNpc(alvo);
+                    npcs--;
+                    respawns++;
+                    NPC prototipo = alvo.getPrototipo();
+                    int onde = local;
+                    relogio.agendar(WorldSimulation.RESPAWN, () -> {
+                        NPC nova = new NPC(prototipo);
+                        world.estadoParaAlterar(mapa.local(onde)).addNpc(nova);
+                        relogio.agendar(WorldSimulation.VAGUEAR, new Andarilho(nova, onde));
+                        respawns--;
+                        npcs++;
+                    });
+                    return;
+                }
+                jogador.takeDamage(CombatRules.contraAtaque(dados));
+                if (!jogador.isAlive()) {
+                    jogador.heal(jogador.getMaxHp()); // renasce no mesmo lugar
+                }
+            }
+        }
+    }
+}
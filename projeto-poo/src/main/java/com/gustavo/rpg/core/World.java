@@ -1,8 +1,207 @@
 package com.gustavo.rpg.core;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
+import com.gustavo.rpg.utils.RandomSource;
+
+/**
+ * Mundo de uma partida: um WorldTemplate compartilhado mais as alteracoes
+ * desta partida (copy-on-write por local). Criar um World e O(1); a memoria
+ * cresce so com os locais que o jogador mudou.
+ *
+ * Num mundo em regioes (RegionWorld) as mudancas sao do mundo, nao da
+ * partida: vao para a regiao, que as grava no arquivo de estado. Todas as
+ * partidas no mesmo arquivo veem essas mudancas, entao a trava de um local
+ * e a da regiao (RegionWorld.trava), nao a do World.
+ *
+ * Num mundo compartilhado (compartilhado() + novaPartida()) varias partidas
+ * veem as mesmas mudancas ao mesmo tempo; cada uma tem seus dados e seu
+ * relogio. Quem altera um local segura a trava dele (trava(loc)): as travas
+ * sao divididas em TRAVAS faixas pelo hash do local, entao partidas em
+ * locais diferentes quase nunca esperam uma pela outra. O que e do mundo e
+ * nao de uma partida (o respawn) vai para um relogio comum, que anda com os
+ * ticks de todas as partidas e continua depois que quem agendou sai.
+ */
 public class World {
-    private final Map<String, Location> locations = new HashMap<>();
-    public Map<String, Location> getLocations() { return locations; }
+    private static final int TRAVAS = 64; // potencia de 2
+
+    private final WorldTemplate template;
+    private Map<Location, LocationState> alterados; // null ate a primeira mudanca
+    private final Object[] travas; // null = mundo de uma partida so
+    private final RelogioComum comum; // so no mundo compartilhado
+    private RandomSource random = new RandomSource(); // dados desta partida
+    private RandomSource randomSimulacao = new RandomSource(); // NPCs andando (separado do combate)
+    private final WorldClock relogio = new WorldClock();
+    private Location ocupado; // onde o jogador esta (so mundo em regioes)
+
+    public World() {
+        this(WorldTemplate.padrao());
+    }
+
+    public World(WorldTemplate template) {
+        this.template = template;
+        this.travas = null;
+        this.comum = null;
+    }
+
+    private World(WorldTemplate template, Map<Location, LocationState> alterados, Object[] travas,
+                  RelogioComum comum) {
+        this.template = template;
+        this.alterados = alterados;
+        this.travas = travas;
+        this.comum = comum;
+    }
+
+    /** Mundo para muitas partidas; cada jogador entra com novaPartida(). */
+    public static World compartilhado(WorldTemplate template) {
+        if (template.getRegioes() != null) {
+            throw new IllegalArgumentException("Mundo em arquivo por regioes nao pode ser compartilhado.");
+        }
+        Object[] travas = new Object[TRAVAS];
+        for (int i = 0; i < TRAVAS; i++) travas[i] = new Object();
+        return new World(template, new ConcurrentHashMap<>(), travas, new RelogioComum());
+    }
+
+    /** Visao de uma partida sobre este mundo compartilhado: mesmos locais, dados e relogio proprios. */
+    public World novaPartida() {
+        if (travas == null) {
+            throw new IllegalStateException("So um mundo compartilhado recebe outras partidas.");
+        }
+        return new World(template, alterados, travas, comum);
+    }
+
+    public boolean isCompartilhado() { return travas != null; }
+
+    /** Trava para alterar o local (no mundo de uma partida so, o proprio World). */
+    public Object trava(Location loc) {
+        if (template.getRegioes() != null) return template.travaRegiao(loc);
+        if (travas == null) return this;
+        int h = loc.hashCode();
+        return travas[(h ^ (h >>> 16)) & (TRAVAS - 1)];
+    }
+
+    public WorldTemplate getTemplate() { return template; }
+    public RandomSource getRandom() { return random; }
+    public void setRandom(RandomSource random) { this.random = random; }
+    public RandomSource getRandomSimulacao() { return randomSimulacao; }
+    public void setRandomSimulacao(RandomSource random) { this.randomSimulacao = random; }
+    public WorldClock getRelogio() { return relogio; }
+    public Map<String, Location> getLocations() { return template.getLocations(); }
+
+    /** Estado atual do local, somente para leitura. */
+    public LocationState estado(Location loc) {
+        LocationState proprio = proprio(loc);
+        return proprio != null ? proprio : loc.getEstadoInicial();
+    }
+
+    /** Se ha NPCs no local agora (sem montar o estado inicial de quem nao mudou). */
+    public boolean temNpcs(Location loc) {
+        LocationState proprio = proprio(loc);
+        return proprio != null ? !proprio.getNpcs().isEmpty() : !loc.getNpcs().isEmpty();
+    }
+
+    /** Estado do local pronto para ser alterado (copia na primeira vez). */
+    public LocationState estadoParaAlterar(Location loc) {
+        if (template.getRegioes() != null) {
+            return template.estadoPersistente(loc, true);
+        }
+        if (travas != null) {
+            // ConcurrentHashMap: duas partidas nunca ganham copias diferentes
+            return alterados.computeIfAbsent(loc, l -> l.getEstadoInicial().copiarConcorrente());
+        }
+        if (alterados == null) {
+            alterados = new HashMap<>();
+        }
+        return alterados.computeIfAbsent(loc, l -> l.getEstadoInicial().copiar());
+    }
+
+    /**
+     * Locais alterados, com seu estado atual (vazio num mundo em regioes).
+     * Num mundo compartilhado sao os de todas as partidas e mudam enquanto
+     * se le: copie cada um segurando trava(loc).
+     */
+    public Map<Location, LocationState> getAlterados() {
+        return alterados == null ? Map.of() : Collections.unmodifiableMap(alterados);
+    }
+
+    // -------------------------------------------------------------------------
+    // RELOGIO COMUM (MUNDO COMPARTILHADO)
+    // -------------------------------------------------------------------------
+
+    /**
+     * Agenda algo que e do mundo, nao da partida (ex: respawn): roda no
+     * relogio comum, na thread de quem estiver andando com ele, entao a acao
+     * nao pode mexer em jogador nem em saida de partida nenhuma.
+     */
+    public void agendarNoMundo(long ticks, Runnable acao) {
+        if (comum == null) {
+            throw new IllegalStateException("So um mundo compartilhado tem relogio comum.");
+        }
+        comum.novos.add(new Agendado(ticks, acao));
+    }
+
+    /** A partida gastou 'ticks': o relogio comum anda junto. */
+    public void avancarMundo(int ticks) {
+        if (comum != null) comum.avancar(ticks);
+    }
+
+    /** Timers no relogio comum (agendados e ainda nao vencidos). */
+    public int getPendentesDoMundo() {
+        return comum == null ? 0 : comum.relogio.getPendentes() + comum.novos.size();
+    }
+
+    /**
+     * Relogio do mundo compartilhado. Agendar so poe numa fila (quem agenda
+     * pode estar segurando a trava de um local); quem anda segura 'vez', e
+     * quem nao consegue a vez deixa seus ticks para o que esta andando.
+     */
+    private record Agendado(long ticks, Runnable acao) {}
+
+    private static final class RelogioComum {
+        final WorldClock relogio = new WorldClock();
+        final Queue<Agendado> novos = new ConcurrentLinkedQueue<>();
+        final AtomicLong atrasados = new AtomicLong();
+        final ReentrantLock vez = new ReentrantLock();
+
+        void avancar(int ticks) {
+            atrasados.addAndGet(ticks);
+            if (!vez.tryLock()) return; // quem esta andando leva estes ticks (ou a proxima partida)
+            try {
+                // uma rodada so: com partidas sempre chegando, repetir ate zerar
+                // prenderia esta partida aqui para sempre
+                for (Agendado novo; (novo = novos.poll()) != null; ) {
+                    relogio.agendar(novo.ticks(), novo.acao());
+                }
+                relogio.avancar((int) atrasados.getAndSet(0));
+            } finally {
+                vez.unlock();
+            }
+        }
+    }
+
+    /** Avisa onde o jogador esta: num mundo em regioes, a regiao dele nao sai do cache. */
+    public synchronized void ocupar(Location loc) {
+        if (template.getRegioes() == null || loc.equals(ocupado)) return;
+        template.ocupar(ocupado, loc);
+        ocupado = loc;
+    }
+
+    /** O jogador saiu do jogo: a regiao onde estava pode sair do cache. */
+    public synchronized void liberar() {
+        if (ocupado != null) {
+            template.ocupar(ocupado, null);
+            ocupado = null;
+        }
+    }
+
+    private LocationState proprio(Location loc) {
+        if (template.getRegioes() != null) {
+            return template.estadoPersistente(loc, false);
+        }
+        return alterados == null ? null : alterados.get(loc);
+    }
 }
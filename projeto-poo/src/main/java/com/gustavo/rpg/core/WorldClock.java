@@ -0,0 +1,55 @@
+package com.gustavo.rpg.core;
+
+import com.gustavo.rpg.metrics.TickMetrics;
+import com.gustavo.rpg.utils.TimingWheel;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Relogio do mundo de uma partida, em ticks (um comando = um tick; viajar
+ * gasta um por passo). Tudo que acontece com o tempo (respawn, regeneracao,
+ * NPCs andando, pocoes) e um timer numa TimingWheel: agendar e disparar
+ * custam O(1) mesmo com milhoes pendentes.
+ *
+ * Roda na thread da partida, como o resto do Game. O tempo de cada tick
+ * vai para TickMetrics.
+ */
+public final class WorldClock {
+
+    private final TimingWheel<Runnable> roda = new TimingWheel<>();
+
+    public long getAgora() { return roda.getAgora(); }
+    public int getPendentes() { return roda.getPendentes(); }
+
+    /** Roda 'acao' daqui a 'ticks' ticks (no minimo 1). */
+    public TimingWheel.Timer<Runnable> agendar(long ticks, Runnable acao) {
+        return roda.agendar(ticks, acao);
+    }
+
+    public boolean cancelar(TimingWheel.Timer<Runnable> timer) {
+        return roda.cancelar(timer);
+    }
+
+    /** Timers pendentes, do que vence primeiro ao ultimo (ex: foto do diario de comandos). */
+    public List<TimingWheel.Timer<Runnable>> getTimers() {
+        List<TimingWheel.Timer<Runnable>> timers = new ArrayList<>(roda.getPendentes());
+        roda.paraCada(timers::add);
+        timers.sort(Comparator.comparingLong(TimingWheel.Timer::getVence));
+        return timers;
+    }
+
+    /** Anda 'ticks' ticks, rodando os timers que vencem em cada um. */
+    public void avancar(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            if (TickMetrics.ATIVO) {
+                long t0 = System.nanoTime();
+                int disparos = roda.avancar(Runnable::run);
+                TickMetrics.gravar(System.nanoTime() - t0, disparos);
+            } else {
+                roda.avancar(Runnable::run);
+            }
+        }
+    }
+}
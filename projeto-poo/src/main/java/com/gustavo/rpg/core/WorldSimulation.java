@@ -0,0 +1,370 @@
+package com.gustavo.rpg.core;
+
+import com.gustavo.rpg.entities.NPC;
+import com.gustavo.rpg.entities.Player;
+import com.gustavo.rpg.events.GameEvent;
+import com.gustavo.rpg.events.GameEventListener;
+import com.gustavo.rpg.items.Item;
+import com.gustavo.rpg.items.Potion;
+import com.gustavo.rpg.save.SaveData;
+import com.gustavo.rpg.utils.RandomSource;
+import com.gustavo.rpg.world.WorldGraph;
+
+import java.util.*;
+
+/**
+ * O que o mundo de uma partida faz sozinho com o tempo, em cima do
+ * WorldClock:
+ *
+ * - respawn: NPC derrotada volta ao mesmo local depois de RESPAWN ticks;
+ * - regeneracao: jogador e NPCs feridas recuperam HP ate o maximo (NPC
+ *   em combate, no local do jogador, nao regenera);
+ * - andarilhos: no mundo gerado as NPCs andam pelas saidas dentro da
+ *   sua regiao; so a regiao do jogador anda no ritmo normal, as ultimas
+ *   ACORDADAS visitadas andam LENTO vezes mais devagar e as demais dormem;
+ * - pocoes com duracao curam um pouco por tick.
+ *
+ * Uma regiao ganha timers de andarilho quando o jogador entra nela. Ao
+ * dormir ela muda de vez (epoca) e os timers da vez anterior morrem no
+ * proximo disparo, entao os timers pendentes nao crescem com o numero de
+ * regioes visitadas. NPCs sao achadas pelo prototipo no local (copias do
+ * mesmo prototipo sao iguais), entao os timers nao seguram objetos que o
+ * copy-on-write do World (ou o cache de regioes) pode trocar.
+ *
+ * Num mundo compartilhado cada partida tem sua simulacao, mas o respawn e
+ * do mundo: vai para o relogio comum (World.agendarNoMundo), entao a NPC
+ * volta mesmo que quem a derrotou saia do jogo. Nao ha andarilhos (cada
+ * partida andaria com as mesmas NPCs). Num mundo em regioes o andarilho move a NPC
+ * segurando a trava da regiao, como o respawn.
+ *
+ * Os timers de respawn, regeneracao e pocao podem ir para a foto do diario
+ * de comandos (exportarTimers / restaurarTimers); andarilhos nao.
+ */
+public final class WorldSimulation {
+
+    static final int RESPAWN = 60;
+    static final int REGEN_JOGADOR = 5;
+    static final int REGEN_NPC = 4;
+    static final int VAGUEAR = 6;
+    static final int LENTO = 8;
+    static final int ACORDADAS = 4; // regioes com andarilhos, contando a do jogador
+
+    private final World world;
+    private final WorldTemplate mapa;
+    private final WorldClock relogio;
+    private final Player player;
+    private final GameEventListener eventos;
+    private final Set<NPC> regenerando = Collections.newSetFromMap(new IdentityHashMap<>());
+    /** Regiao acordada -> vez em que acordou; a mais antiga dorme quando passa de ACORDADAS. */
+    private final Map<Integer, Integer> regioesAcordadas = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Integer> maisAntiga) {
+            return size() > ACORDADAS;
+        }
+    };
+    private int vezes = 0;
+    private final boolean andarilhos;
+    private final Runnable regenJogador = this::regenerarJogador;
+    private int regiaoAtiva = -1;
+
+    WorldSimulation(World world, Player player, GameEventListener eventos) {
+        this.world = world;
+        this.mapa = world.getTemplate();
+        this.relogio = world.getRelogio();
+        this.player = player;
+        this.eventos = eventos;
+        this.andarilhos = mapa.temAndarilhos() && !world.isCompartilhado();
+        relogio.agendar(REGEN_JOGADOR, regenJogador);
+        jogadorEntrou(player.getLocation());
+    }
+
+    public WorldClock getRelogio() { return relogio; }
+
+    /** Passa o tempo (chamado pelo Game depois de cada comando). */
+    public void avancar(int ticks) {
+        relogio.avancar(ticks);
+        world.avancarMundo(ticks);
+    }
+
+    // -------------------------------------------------------------------------
+    // AVISOS DO GAME
+    // -------------------------------------------------------------------------
+
+    void jogadorEntrou(Location loc) {
+        int regiao = mapa.regiaoDe(mapa.idDe(loc));
+        if (regiao == regiaoAtiva) return;
+        regiaoAtiva = regiao;
+        if (andarilhos && regioesAcordadas.get(regiao) == null) { // get() tambem a marca como recente
+            int vez = ++vezes;
+            regioesAcordadas.put(regiao, vez);
+            acordar(regiao, vez);
+        }
+    }
+
+    void npcFerida(NPC npc) {
+        if (npc.isAlive() && regenerando.add(npc)) {
+            relogio.agendar(REGEN_NPC, new RegenNpc(npc));
+        }
+    }
+
+    void npcDerrotada(Location loc, NPC npc) {
+        regenerando.remove(npc);
+        NPC prototipo = npc.getPrototipo();
+        if (world.isCompartilhado()) {
+            World mundo = world; // sem 'this': a partida pode sair antes do respawn
+            mundo.agendarNoMundo(RESPAWN, () -> {
+                synchronized (mundo.trava(loc)) {
+                    mundo.estadoParaAlterar(loc).addNpc(new NPC(prototipo));
+                }
+            });
+            return;
+        }
+        relogio.agendar(RESPAWN, new Reaparecer(loc, prototipo));
+    }
+
+    void pocaoBebida(Potion pocao) {
+        int ticks = pocao.getDuracao();
+        for (int t = 1; t <= ticks; t++) {
+            // divide a cura em partes inteiras que somam getHealAmount()
+            int cura = pocao.getHealAmount() * t / ticks - pocao.getHealAmount() * (t - 1) / ticks;
+            relogio.agendar(t, new Cura(pocao, cura));
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // FOTO DOS TIMERS (DIARIO DE COMANDOS)
+    // -------------------------------------------------------------------------
+
+    /** Timers de respawn, regeneracao e pocao que estao correndo, na ordem em que vencem. */
+    List<SaveData.TimerSalvo> exportarTimers() {
+        EntityRegistry entidades = mapa.getEntidades();
+        long agora = relogio.getAgora();
+        List<SaveData.TimerSalvo> timers = new ArrayList<>();
+        for (var timer : relogio.getTimers()) {
+            int faltam = (int) (timer.getVence() - agora);
+            Runnable acao = timer.getValor();
+            if (acao == regenJogador) {
+                timers.add(new SaveData.TimerSalvo(SaveData.TimerSalvo.REGEN_JOGADOR, faltam, SaveData.SEM_ID,
+                        SaveData.SEM_ID, 0));
+            } else if (acao instanceof RegenNpc r) {
+                // a NPC e guardada pela posicao na lista do local (a foto recria as NPCs)
+                for (Map.Entry<Location, LocationState> e : world.getAlterados().entrySet()) {
+                    int posicao = indiceDe(e.getValue().getNpcs(), r.npc);
+                    if (posicao >= 0) {
+                        timers.add(new SaveData.TimerSalvo(SaveData.TimerSalvo.REGEN_NPC, faltam,
+                                entidades.idDe(e.getKey()), posicao, 0));
+                        break;
+                    }
+                }
+            } else if (acao instanceof Reaparecer r) {
+                timers.add(new SaveData.TimerSalvo(SaveData.TimerSalvo.REAPARECER, faltam,
+                        entidades.idDe(r.loc), entidades.idDe(r.prototipo), 0));
+            } else if (acao instanceof Cura c) {
+                timers.add(new SaveData.TimerSalvo(SaveData.TimerSalvo.CURA, faltam, SaveData.SEM_ID,
+                        entidades.idDe(c.pocao), c.cura));
+            }
+        }
+        return timers;
+    }
+
+    /** Depois de carregar a foto: poe de volta os timers exportados (o do jogador substitui o do inicio). */
+    void restaurarTimers(List<SaveData.TimerSalvo> timers) {
+        EntityRegistry entidades = mapa.getEntidades();
+        for (SaveData.TimerSalvo t : timers) {
+            switch (t.getTipo()) {
+                case SaveData.TimerSalvo.REGEN_JOGADOR -> {
+                    for (var timer : relogio.getTimers()) {
+                        if (timer.getValor() == regenJogador) relogio.cancelar(timer);
+                    }
+                    relogio.agendar(t.getFaltam(), regenJogador);
+                }
+                case SaveData.TimerSalvo.REGEN_NPC -> {
+                    Location loc = entidades.local(t.getLocal());
+                    List<NPC> npcs = (loc != null) ? world.estado(loc).getNpcs() : List.of();
+                    if (t.getAlvo() >= 0 && t.getAlvo() < npcs.size() && regenerando.add(npcs.get(t.getAlvo()))) {
+                        relogio.agendar(t.getFaltam(), new RegenNpc(npcs.get(t.getAlvo())));
+                    }
+                }
+                case SaveData.TimerSalvo.REAPARECER -> {
+                    Location loc = entidades.local(t.getLocal());
+                    NPC prototipo = entidades.npc(t.getAlvo());
+                    if (loc != null && prototipo != null) {
+                        relogio.agendar(t.getFaltam(), new Reaparecer(loc, prototipo));
+                    }
+                }
+                case SaveData.TimerSalvo.CURA -> {
+                    Item item = entidades.item(t.getAlvo());
+                    if (item instanceof Potion pocao) {
+                        relogio.agendar(t.getFaltam(), new Cura(pocao, t.getValor()));
+                    }
+                }
+                default -> { } // tipo de versao mais nova
+            }
+        }
+    }
+
+    private static int indiceDe(List<NPC> npcs, NPC npc) {
+        for (int i = 0; i < npcs.size(); i++) {
+            if (npcs.get(i) == npc) return i;
+        }
+        return -1;
+    }
+
+    // -------------------------------------------------------------------------
+    // TIMERS
+    // -------------------------------------------------------------------------
+
+    private void regenerarJogador() {
+        if (player.isAlive()) {
+            int cura = player.regenerar(1);
+            if (cura > 0) {
+                eventos.onEvent(new GameEvent.HpRecuperado(cura, player.getHp(), null));
+            }
+        }
+        relogio.agendar(REGEN_JOGADOR, regenJogador);
+    }
+
+    /** NPC ferida recupera 1 HP a cada REGEN_NPC ticks ate o maximo. */
+    private final class RegenNpc implements Runnable {
+        private final NPC npc;
+
+        RegenNpc(NPC npc) {
+            this.npc = npc;
+        }
+
+        @Override
+        public void run() {
+            if (!npc.isAlive() || npc.getHp() >= npc.getMaxHp()) {
+                regenerando.remove(npc);
+                return;
+            }
+            if (!world.estado(player.getLocation()).getNpcs().contains(npc)) {
+                npc.regenerar(1);
+            }
+            relogio.agendar(REGEN_NPC, this);
+        }
+    }
+
+    /** NPC derrotada volta ao local. */
+    private final class Reaparecer implements Runnable {
+        private final Location loc;
+        private final NPC prototipo;
+
+        Reaparecer(Location loc, NPC prototipo) {
+            this.loc = loc;
+            this.prototipo = prototipo;
+        }
+
+        @Override
+        public void run() {
+            synchronized (world.trava(loc)) {
+                world.estadoParaAlterar(loc).addNpc(new NPC(prototipo));
+            }
+            if (loc.equals(player.getLocation())) {
+                eventos.onEvent(new GameEvent.NpcReapareceu(prototipo.getName()));
+            }
+            Integer vez = andarilhos ? regioesAcordadas.get(mapa.regiaoDe(mapa.idDe(loc))) : null;
+            if (vez != null) {
+                relogio.agendar(VAGUEAR, new Andarilho(prototipo, mapa.idDe(loc), vez));
+            }
+        }
+    }
+
+    /** Uma parte da cura de uma pocao com duracao. */
+    private final class Cura implements Runnable {
+        private final Potion pocao;
+        private final int cura;
+
+        Cura(Potion pocao, int cura) {
+            this.pocao = pocao;
+            this.cura = cura;
+        }
+
+        @Override
+        public void run() {
+            if (!player.isAlive() || cura == 0) return;
+            player.heal(cura);
+            eventos.onEvent(new GameEvent.HpRecuperado(cura, player.getHp(), pocao.getName()));
+        }
+    }
+
+    /** Jogador entrou numa regiao que dormia: cada NPC dela ganha seu timer. */
+    private void acordar(int regiao, int vez) {
+        RandomSource rng = world.getRandomSimulacao();
+        for (int id : mapa.locaisDaRegiao(regiao)) {
+            Location loc = mapa.local(id);
+            if (!world.temNpcs(loc)) continue;
+            List<NPC> npcs;
+            synchronized (world.trava(loc)) {
+                npcs = List.copyOf(world.estado(loc).getNpcs());
+            }
+            for (NPC npc : npcs) {
+                // fase aleatoria: nem todas andam no mesmo tick
+                relogio.agendar(1 + rng.nextInt(VAGUEAR), new Andarilho(npc.getPrototipo(), id, vez));
+            }
+        }
+    }
+
+    /** Timer de uma NPC que anda: tenta uma saida aleatoria e se reagenda. */
+    private final class Andarilho implements Runnable {
+        private final NPC prototipo;
+        private final int vez;
+        private int local;
+
+        Andarilho(NPC prototipo, int local, int vez) {
+            this.prototipo = prototipo;
+            this.local = local;
+            this.vez = vez;
+        }
+
+        @Override
+        public void run() {
+            int regiao = mapa.regiaoDe(local);
+            Integer acordada = regioesAcordadas.get(regiao);
+            if (acordada == null || acordada != vez) {
+                return; // a regiao dormiu: quem acordar de novo agenda timers novos
+            }
+            Location aqui = mapa.local(local);
+            String chegou = null;
+            // a saida sorteada fica na mesma regiao, entao a trava de 'aqui' cobre os dois locais
+            synchronized (world.trava(aqui)) {
+                if (acharNpc(world.estado(aqui)) == null) {
+                    return; // morreu (ou outra partida a levou): o respawn cria um andarilho novo
+                }
+                if (!aqui.equals(player.getLocation())) { // em combate fica
+                    chegou = andar(aqui, regiao);
+                }
+            }
+            if (chegou != null) {
+                eventos.onEvent(new GameEvent.NpcChegou(chegou));
+            }
+            relogio.agendar(regiao == regiaoAtiva ? VAGUEAR : VAGUEAR * LENTO, this);
+        }
+
+        /** Retorna o nome da NPC se ela chegou ao local do jogador. */
+        private String andar(Location aqui, int regiao) {
+            WorldGraph grafo = mapa.getGrafo();
+            RandomSource rng = world.getRandomSimulacao();
+            int direcoes = grafo.totalDirecoes();
+            int destino = grafo.vizinho(local, rng.nextInt(direcoes));
+            if (destino < 0 || mapa.regiaoDe(destino) != regiao) {
+                return null; // parede ou fim da regiao: fica parada neste tick
+            }
+
+            LocationState origem = world.estadoParaAlterar(aqui);
+            NPC npc = acharNpc(origem);
+            origem.removeNpc(npc);
+            Location para = mapa.local(destino);
+            world.estadoParaAlterar(para).addNpc(npc);
+            local = destino;
+            return para.equals(player.getLocation()) ? npc.getName() : null;
+        }
+
+        private NPC acharNpc(LocationState estado) {
+            for (NPC npc : estado.getNpcs()) {
+                if (npc.getPrototipo() == prototipo) return npc;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package com.gustavo.rpg.core;
+
+import com.gustavo.rpg.entities.NPC;
+import com.gustavo.rpg.items.Item;
+import com.gustavo.rpg.items.ItemCatalog;
+import com.gustavo.rpg.world.GridWorld;
+import com.gustavo.rpg.world.PathFinder;
+import com.gustavo.rpg.world.RegionWorld;
+import com.gustavo.rpg.world.WorldFile;
+import com.gustavo.rpg.world.WorldGraph;
+
+import java.util.*;
+
+/**
+ * Mapa estatico do jogo: locais, conexoes, descricoes e spawns iniciais.
+ * E montado uma vez e compartilhado por todas as partidas (somente leitura);
+ * cada partida guarda apenas o que mudou em seu proprio World.
+ *
+ * Pode ser feito a mao (mapa de Locations) ou vir de um mundo gerado
+ * (GridWorld); nesse caso os Locations sao vistas criadas sob demanda.
+ * Se o mundo gerado esta num arquivo por regioes (RegionWorld), as
+ * mudancas das partidas vao para ele em vez de ficar em cada World.
+ */
+public final class WorldTemplate {
+
+    private final Map<String, Location> locations;
+    private final Location inicial;
+    private final EntityRegistry entidades;
+
+    private final GridWorld compacto;    // null = mapa feito a mao
+    private final RegionWorld regioes;   // so mundo em arquivo
+    private final WorldGraph grafo;
+    private volatile long versaoConexoes = 0;
+    private PathFinder rotas;             // criado no primeiro uso
+
+    // so mapas feitos a mao: ids na ordem do mapa
+    private final Location[] porId;
+    private final String[] chaves;
+    private final Map<Location, Integer> ids;
+
+    public WorldTemplate(Map<String, Location> locations, String chaveInicial) {
+        this.compacto = null;
+        this.regioes = null;
+        this.locations = Collections.unmodifiableMap(new LinkedHashMap<>(locations));
+        this.inicial = locations.get(chaveInicial);
+        if (inicial == null) {
+            throw new IllegalArgumentException("Local inicial inexistente: " + chaveInicial);
+        }
+        this.porId = this.locations.values().toArray(new Location[0]);
+        this.chaves = this.locations.keySet().toArray(new String[0]);
+        this.ids = new IdentityHashMap<>();
+        for (int i = 0; i < porId.length; i++) {
+            ids.put(porId[i], i);
+        }
+        this.entidades = new EntityRegistry(this);
+        for (Location loc : porId) {
+            loc.congelar(this);
+            for (NPC npc : loc.getNpcs()) entidades.registrar(npc);
+            for (Item item : loc.getGroundItems()) entidades.registrar(item);
+        }
+        this.grafo = new GrafoManual();
+    }
+
+    private WorldTemplate(GridWorld compacto) {
+        this.compacto = compacto;
+        this.regioes = (compacto instanceof RegionWorld r) ? r : null;
+        this.locations = new CompactLocation.Mapa(compacto);
+        this.inicial = new CompactLocation(compacto, compacto.getInicial());
+        this.porId = null;
+        this.chaves = null;
+        this.ids = null;
+        this.grafo = compacto;
+        this.entidades = new EntityRegistry(this);
+        for (NPC npc : compacto.getPrototiposNpc()) entidades.registrar(npc);
+        for (Item item : compacto.getPrototiposItem()) entidades.registrar(item);
+    }
+
+    /** Template sobre um mundo gerado (ver WorldGenerator e RegionWorld). */
+    public static WorldTemplate gerado(GridWorld mundo) {
+        return new WorldTemplate(mundo);
+    }
+
+    /** Mundo padrao do jogo, criado na primeira vez que e usado. */
+    public static WorldTemplate padrao() {
+        return Padrao.INSTANCIA;
+    }
+
+    public Map<String, Location> getLocations() { return locations; }
+    public Location getInicial() { return inicial; }
+
+    /** Ids estaveis de locais, itens e NPCs deste mapa. */
+    public EntityRegistry getEntidades() { return entidades; }
+
+    /** Chave do local em getLocations() (ex: "vila"), em O(1); null se nao e deste mapa. */
+    public String chaveDe(Location loc) {
+        int id = idDe(loc);
+        if (id < 0) return null;
+        return compacto != null ? CompactLocation.PREFIXO + id : chaves[id];
+    }
+
+    /** Mundo gerado por tras deste template, ou null se o mapa e feito a mao. */
+    public GridWorld getCompacto() { return compacto; }
+
+    /** Mundo em arquivo por regioes, ou null. */
+    public RegionWorld getRegioes() { return regioes; }
+
+    // -------------------------------------------------------------------------
+    // ESTADO PERSISTENTE (MUNDO EM REGIOES)
+    // -------------------------------------------------------------------------
+
+    /**
+     * Estado do local guardado na regiao, ou null se ninguem o mudou e
+     * 'paraAlterar' e false. Com 'paraAlterar' a regiao fica marcada para
+     * ser gravada antes de sair do cache (quem altera segura travaRegiao).
+     */
+    LocationState estadoPersistente(Location loc, boolean paraAlterar) {
+        // fora do ajuste: montar o estado inicial pode carregar uma regiao
+        LocationState inicial = paraAlterar ? loc.getEstadoInicial() : null;
+        return (LocationState) regioes.atualizar(idDe(loc), atual -> {
+            if (atual instanceof LocationState s) return s;
+            // relido do arquivo de estado: vira LocationState uma vez so
+            if (atual != null) return LocationState.restaurado(atual.getNpcs(), atual.getGroundItems());
+            return inicial == null ? null : inicial.copiarConcorrente();
+        }, paraAlterar);
+    }
+
+    /** Trava de quem altera o local num mundo em regioes (a mesma para todas as partidas). */
+    Object travaRegiao(Location loc) {
+        return regioes.trava(idDe(loc));
+    }
+
+    /** Jogador de uma partida saiu de 'de' (ou null) para 'para' (ou null). */
+    void ocupar(Location de, Location para) {
+        if (para != null) regioes.entrar(idDe(para));
+        if (de != null) regioes.sair(idDe(de));
+    }
+
+    // -------------------------------------------------------------------------
+    // GRAFO E ROTAS
+    // -------------------------------------------------------------------------
+
+    public WorldGraph getGrafo() { return grafo; }
+
+    /** Rotas deste mapa (cache compartilhado por todas as partidas). */
+    public synchronized PathFinder getRotas() {
+        if (rotas == null) {
+            rotas = new PathFinder(grafo);
+        }
+        return rotas;
+    }
+
+    // -------------------------------------------------------------------------
+    // REGIOES DA SIMULACAO
+    // -------------------------------------------------------------------------
+
+    /**
+     * Regiao do local para a simulacao (WorldSimulation): no mundo gerado,
+     * blocos quadrados da grade (os mesmos do arquivo por regioes); o mapa
+     * feito a mao e uma regiao so.
+     */
+    public int regiaoDe(int id) {
+        if (compacto == null) return 0;
+        int lado = ladoRegiao();
+        int colunas = (compacto.getLargura() + lado - 1) / lado;
+        return (compacto.y(id) / lado) * colunas + compacto.x(id) / lado;
+    }
+
+    public int totalRegioes() {
+        if (compacto == null) return 1;
+        int lado = ladoRegiao();
+        return ((compacto.getLargura() + lado - 1) / lado) * ((compacto.getAltura() + lado - 1) / lado);
+    }
+
+    /** Ids dos locais da regiao. */
+    public int[] locaisDaRegiao(int regiao) {
+        if (compacto == null) {
+            int[] todos = new int[porId.length];
+            for (int i = 0; i < todos.length; i++) todos[i] = i;
+            return todos;
+        }
+        int lado = ladoRegiao();
+        int largura = compacto.getLargura();
+        int colunas = (largura + lado - 1) / lado;
+        int x0 = (regiao % colunas) * lado;
+        int y0 = (regiao / colunas) * lado;
+        int x1 = Math.min(x0 + lado, largura);
+        int y1 = Math.min(y0 + lado, compacto.getAltura());
+        int[] ids = new int[(x1 - x0) * (y1 - y0)];
+        int n = 0;
+        for (int y = y0; y < y1; y++) {
+            for (int x = x0; x < x1; x++) ids[n++] = y * largura + x;
+        }
+        return ids;
+    }
+
+    /** NPCs andam sozinhas pelo mapa? So no mundo gerado: as do mapa feito a mao guardam o lugar. */
+    public boolean temAndarilhos() {
+        return compacto != null;
+    }
+
+    private int ladoRegiao() {
+        return regioes != null ? regioes.getLadoRegiao() : WorldFile.LADO_PADRAO;
+    }
+
+    /** Numero do local no grafo, ou -1 se nao e deste mapa. */
+    public int idDe(Location loc) {
+        if (compacto != null) {
+            return (loc instanceof CompactLocation c) ? c.getId() : -1;
+        }
+        Integer id = ids.get(loc);
+        return id == null ? -1 : id;
+    }
+
+    public Location local(int id) {
+        return compacto != null ? new CompactLocation(compacto, id) : porId[id];
+    }
+
+    /**
+     * Local pelo que o jogador digitou: chave ("ruinas"), nome ("Ruinas")
+     * ou comeco do nome; no mapa gerado tambem "x,y" ou "(x,y)".
+     * Retorna null se nada bate.
+     */
+    public Location procurar(String texto) {
+        String busca = texto.trim().toLowerCase();
+        if (busca.isEmpty()) return null;
+
+        Location porChave = locations.get(busca);
+        if (porChave != null) return porChave;
+
+        if (compacto != null) {
+            int abre = busca.lastIndexOf('(');
+            String coords = (abre >= 0) ? busca.substring(abre + 1).replace(")", "") : busca;
+            int virgula = coords.indexOf(',');
+            if (virgula < 0) return null;
+            try {
+                int x = Integer.parseInt(coords.substring(0, virgula).trim());
+                int y = Integer.parseInt(coords.substring(virgula + 1).trim());
+                if (x < 0 || y < 0 || x >= compacto.getLargura() || y >= compacto.getAltura()) return null;
+                return local(y * compacto.getLargura() + x);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        Location prefixo = null;
+        for (Location loc : porId) {
+            String nome = loc.getName().toLowerCase();
+            if (nome.equals(busca)) return loc;
+            if (prefixo == null && nome.startsWith(busca)) prefixo = loc;
+        }
+        return prefixo;
+    }
+
+    void conexoesMudaram() {
+        versaoConexoes++;
+    }
+
+    /**
+     * Grafo "ao vivo" de um mapa feito a mao: le as saidas dos Locations.
+     * As direcoes sao todas as que aparecem no mapa, recontadas quando
+     * alguma conexao muda.
+     */
+    private final class GrafoManual implements WorldGraph {
+        private long versaoDirecoes = -1;
+        private String[] direcoes;
+
+        @Override
+        public int tamanho() { return porId.length; }
+
+        @Override
+        public int totalDirecoes() { return direcoes().length; }
+
+        @Override
+        public String nomeDirecao(int direcao) { return direcoes()[direcao]; }
+
+        @Override
+        public int vizinho(int id, int direcao) {
+            Location destino = porId[id].getExit(direcoes()[direcao]);
+            return destino == null ? -1 : idDe(destino);
+        }
+
+        @Override
+        public long versao() { return versaoConexoes; }
+
+        private synchronized String[] direcoes() {
+            if (versaoDirecoes != versaoConexoes) {
+                Set<String> todas = new LinkedHashSet<>();
+                for (Location loc : porId) todas.addAll(loc.getExits().keySet());
+                direcoes = todas.toArray(new String[0]);
+                versaoDirecoes = versaoConexoes;
+            }
+            return direcoes;
+        }
+    }
+
+    private static final class Padrao {
+        static final WorldTemplate INSTANCIA = criarPadrao();
+    }
+
+    private static WorldTemplate criarPadrao() {
+        // =========================
+        // 1) CRIA LOCAIS
+        // =========================
+        Location vila = new Location("Vila", "Uma vila tranquila, com poucas casas e uma pequena taverna.");
+        Location bosque = new Location("Bosque", "Sons estranhos entre as arvores. A luz do sol mal chega ao chao.");
+        Location ruinas = new Location("Ruinas", "Restos de uma antiga fortaleza, tomada pelo tempo.");
+        Location torre = new Location("Torre", "Uma torre de mago em ruinas, ainda pulsando com energia arcana.");
+
+        // Conexoes entre locais
+        vila.connect("norte", bosque);
+
+        bosque.connect("sul", vila);
+        bosque.connect("leste", ruinas);
+
+        ruinas.connect("oeste", bosque);
+        ruinas.connect("norte", torre);
+
+        torre.connect("sul", ruinas);
+
+        // =========================
+        // 2) INIMIGOS
+        // =========================
+        bosque.addNpc(new NPC("Lobo", 12, 3));
+        ruinas.addNpc(new NPC("Esqueleto", 18, 4));
+        torre.addNpc(new NPC("Mago Sombrio", 22, 5));
+
+        // =========================
+        // 3) ITENS NO CHAO (prototipos do catalogo)
+        // =========================
+        ItemCatalog catalogo = ItemCatalog.padrao();
+        vila.addGroundItem(catalogo.arma("Espada curta"));
+        bosque.addGroundItem(catalogo.pocao("Pocao de cura"));
+        ruinas.addGroundItem(catalogo.arma("Espada longa"));
+        torre.addGroundItem(catalogo.arma("Cajado arcano"));
+
+        // =========================
+        // 4) REGISTRA LOCAIS
+        // =========================
+        Map<String, Location> locais = new LinkedHashMap<>();
+        locais.put("vila", vila);
+        locais.put("bosque", bosque);
+        locais.put("ruinas", ruinas);
+        locais.put("torre", torre);
+
+        return new WorldTemplate(locais, "vila");
+    }
+}
@@ -1,6 +1,7 @@
 package com.gustavo.rpg.entities;
 
 import com.gustavo.rpg.utils.Dice;
+import com.gustavo.rpg.utils.RandomSource;
 
 public class Archer  extends Player {
     public Archer (String name) {
@@ -8,10 +9,10 @@ public class Archer  extends Player {
     }
 
     @Override
-    public int attack() {
+    public int attack(RandomSource rng) {
         int base = getBaseDamage();
         // arqueiro: chance de critico
-        int crit = Dice.roll(1, 100);
+        int crit = Dice.roll(rng, 1, 100);
         if (crit <= 25) { // 25% de chance de critico
             return base * 2;
         }
@@ -1,6 +1,10 @@
 package com.gustavo.rpg.entities;
 
 import com.gustavo.rpg.core.Location;
+import com.gustavo.rpg.utils.RandomSource;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 
 /**
  * [Classe Abstrata] Base para personagens.
@@ -8,26 +12,63 @@ import com.gustavo.rpg.core.Location;
  */
 public abstract class GameCharacter {
     private String name;       // [Encapsulamento]
-    private int hp;            // [Encapsulamento]
+    private volatile int hp;   // [Encapsulamento] so muda por CAS (mundo compartilhado)
+    private final int maxHp;   // HP de nascimento; regeneracao para aqui
     private int baseDamage;    // [Encapsulamento]
     private Location location; // personagem "está em" uma Location
 
+    private static final VarHandle HP;
+    static {
+        try {
+            HP = MethodHandles.lookup().findVarHandle(GameCharacter.class, "hp", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     protected GameCharacter(String name, int hp, int baseDamage) {
         this.name = name;
         this.hp = hp;
+        this.maxHp = hp;
         this.baseDamage = baseDamage;
     }
 
     public String getName() { return name; }
     public int getHp() { return hp; }
+    public int getMaxHp() { return maxHp; }
     public boolean isAlive() { return hp > 0; }
     public void setLocation(Location location) { this.location = location; }
     public Location getLocation() { return location; }
 
-    public void takeDamage(int amount) { this.hp = Math.max(0, this.hp - amount); }
-    public void heal(int amount) { this.hp += amount; }
+    /**
+     * Tira HP (sem passar de 0) com um CAS: varios jogadores podem bater na
+     * mesma NPC ao mesmo tempo. Retorna true so para o golpe que zerou o
+     * HP, entao cada morte tem exatamente um autor.
+     */
+    public boolean takeDamage(int amount) {
+        while (true) {
+            int atual = hp;
+            if (atual <= 0) return false; // ja morto: o golpe nao conta
+            int novo = Math.max(0, atual - amount);
+            if (HP.compareAndSet(this, atual, novo)) return novo == 0;
+        }
+    }
+
+    public void heal(int amount) { HP.getAndAdd(this, amount); }
+
+    /** Cura de regeneracao: nao passa de getMaxHp() (pocoes passam) nem revive. Retorna quanto curou. */
+    public int regenerar(int amount) {
+        while (true) {
+            int atual = hp;
+            int cura = atual <= 0 ? 0 : Math.max(0, Math.min(amount, maxHp - atual));
+            if (cura == 0 || HP.compareAndSet(this, atual, atual + cura)) return cura;
+        }
+    }
     public int getBaseDamage() { return baseDamage; }
 
     // [Polimorfismo] cada subclasse define o cálculo
-    public abstract int attack();
+    public abstract int attack(RandomSource rng);
+
+    /** Ataque com o gerador da thread (sem semente). */
+    public int attack() { return attack(RandomSource.local()); }
 }
@@ -1,6 +1,7 @@
 package com.gustavo.rpg.entities;
 
 import com.gustavo.rpg.utils.Dice;
+import com.gustavo.rpg.utils.RandomSource;
 
 public class Mage extends Player {
     public Mage (String name) {
@@ -8,9 +9,9 @@ public class Mage extends Player {
     }
 
     @Override
-    public int attack() {
+    public int attack(RandomSource rng) {
         int base = getBaseDamage();
         if (getWeapon() != null) base += getWeapon().getDamageBonus();
-        return base + Dice.roll(1, 8);
+        return base + Dice.roll(rng, 1, 8);
     }
 }
@@ -1,15 +1,29 @@
 package com.gustavo.rpg.entities;
 
 import com.gustavo.rpg.utils.Dice;
+import com.gustavo.rpg.utils.RandomSource;
 
 public class NPC extends GameCharacter {
+    private final NPC prototipo; // NPC do template de que esta e copia (ou ela mesma)
+
     public NPC(String name, int hp, int baseDamage) {
         super(name, hp, baseDamage);
+        this.prototipo = this;
+    }
+
+    /** Copia usada quando uma partida altera um local do template. */
+    public NPC(NPC original) {
+        super(original.getName(), original.prototipo.getHp(), original.getBaseDamage());
+        if (original.getHp() < getHp()) takeDamage(getHp() - original.getHp());
+        this.prototipo = original.prototipo;
     }
 
+    /** NPC original do template; copias apontam para a mesma (ver EntityRegistry). */
+    public NPC getPrototipo() { return prototipo; }
+
     @Override
-    public int attack() {
-        return getBaseDamage() + Dice.roll(1, 4);
+    public int attack(RandomSource rng) {
+        return getBaseDamage() + Dice.roll(rng, 1, 4);
     }
 
     @Override
@@ -0,0 +1,122 @@
+package com.gustavo.rpg.events;
+
+import com.gustavo.rpg.core.GameOutput;
+import com.gustavo.rpg.entities.NPC;
+import com.gustavo.rpg.items.Item;
+
+import java.util.List;
+
+/**
+ * Formato compacto para bots e ferramentas: uma linha por evento,
+ * TIPO seguido de campos separados por TAB (TAB e quebra de linha dentro
+ * de nomes viram espaco). Ex: "DANO\tAna\tLobo\t7\t5".
+ */
+public class CompactRenderer implements GameEventListener {
+
+    private final GameOutput out;
+    private final StringBuilder linha = new StringBuilder(64);
+
+    public CompactRenderer(GameOutput out) {
+        this.out = out;
+    }
+
+    @Override
+    public void onEvent(GameEvent evento) {
+        linha.setLength(0);
+        if (evento instanceof GameEvent.Mensagem m) {
+            tipo("MSG").campo(m.texto());
+        } else if (evento instanceof GameEvent.Erro e) {
+            tipo("ERRO").campo(e.mensagem());
+        } else if (evento instanceof GameEvent.ComandoDesconhecido c) {
+            tipo("DESCONHECIDO").campo(c.verbo());
+        } else if (evento instanceof GameEvent.Ajuda) {
+            tipo("AJUDA");
+        } else if (evento instanceof GameEvent.JogoIniciado j) {
+            tipo("INICIO").campo(j.jogador()).campo(j.hp()).campo(j.local())
+                    .campo(j.carregado() ? 1 : 0);
+        } else if (evento instanceof GameEvent.JogoEncerrado) {
+            tipo("FIM");
+        } else if (evento instanceof GameEvent.LocalDescrito d) {
+            tipo("LOCAL").campo(d.local().getName())
+                    .itens(d.itens()).npcs(d.npcs()).campo(String.join(",", d.local().getExits().keySet()));
+        } else if (evento instanceof GameEvent.Movimento m) {
+            tipo("MOVE").campo(m.origem().getName()).campo(m.destino().getName());
+        } else if (evento instanceof GameEvent.Viagem v) {
+            tipo("VIAGEM").campo(v.origem().getName()).campo(v.destino().getName())
+                    .campo(v.passos()).campo(v.interrompida() ? 1 : 0);
+        } else if (evento instanceof GameEvent.SemCaminho s) {
+            tipo("SEM_CAMINHO").campo(s.direcao());
+        } else if (evento instanceof GameEvent.SemInimigos) {
+            tipo("SEM_INIMIGOS");
+        } else if (evento instanceof GameEvent.Ataque a) {
+            tipo("DANO").campo(a.atacante()).campo(a.alvo())
+                    .campo(a.dano()).campo(a.hpAlvo());
+        } else if (evento instanceof GameEvent.ContraAtaque c) {
+            tipo("CONTRA").campo(c.atacante()).campo(c.alvo())
+                    .campo(c.dano()).campo(c.hpAlvo());
+        } else if (evento instanceof GameEvent.NpcDerrotado n) {
+            tipo("DERROTA").campo(n.nome());
+        } else if (evento instanceof GameEvent.NpcReapareceu n) {
+            tipo("REAPARECEU").campo(n.nome());
+        } else if (evento instanceof GameEvent.NpcChegou n) {
+            tipo("CHEGOU").campo(n.nome());
+        } else if (evento instanceof GameEvent.Status s) {
+            tipo("STATUS").campo(s.jogador()).campo(s.classe())
+                    .campo(s.hp()).campo(s.arma() == null ? "" : s.arma());
+        } else if (evento instanceof GameEvent.Inventario i) {
+            tipo("INV").itens(i.itens());
+        } else if (evento instanceof GameEvent.ItemPego p) {
+            tipo("PEGOU").campo(p.item().getName());
+        } else if (evento instanceof GameEvent.ItemLargado l) {
+            tipo("LARGOU").campo(l.item().getName());
+        } else if (evento instanceof GameEvent.ArmaEquipada a) {
+            tipo("EQUIPOU").campo(a.arma().getName());
+        } else if (evento instanceof GameEvent.PocaoBebida p) {
+            tipo("BEBEU").campo(p.pocao().getName())
+                    .campo(p.pocao().getHealAmount()).campo(p.hp());
+        } else if (evento instanceof GameEvent.HpRecuperado h) {
+            tipo("HP").campo(h.cura()).campo(h.hp()).campo(h.fonte() == null ? "" : h.fonte());
+        } else if (evento instanceof GameEvent.JogoSalvo s) {
+            tipo("SALVO").campo(s.arquivo().toString());
+        }
+        out.println(linha.toString());
+    }
+
+    private CompactRenderer tipo(String tipo) {
+        linha.append(tipo);
+        return this;
+    }
+
+    private CompactRenderer campo(int valor) {
+        linha.append('\t').append(valor);
+        return this;
+    }
+
+    private CompactRenderer campo(String valor) {
+        linha.append('\t');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            linha.append(c == '\t' || c == '\n' || c == '\r' ? ' ' : c);
+        }
+        return this;
+    }
+
+    /** Lista de nomes separados por virgula num campo so. */
+    private CompactRenderer itens(List<Item> itens) {
+        StringBuilder nomes = new StringBuilder();
+        for (Item item : itens) {
+            if (nomes.length() > 0) nomes.append(',');
+            nomes.append(item.getName());
+        }
+        return campo(nomes.toString());
+    }
+
+    private CompactRenderer npcs(List<NPC> npcs) {
+        StringBuilder nomes = new StringBuilder();
+        for (NPC npc : npcs) {
+            if (nomes.length() > 0) nomes.append(',');
+            nomes.append(npc.getName()).append(':').append(npc.getHp());
+        }
+        return campo(nomes.toString());
+    }
+}
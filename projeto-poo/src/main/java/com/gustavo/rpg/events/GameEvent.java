@@ -0,0 +1,90 @@
+package com.gustavo.rpg.events;
+
+import com.gustavo.rpg.core.Location;
+import com.gustavo.rpg.entities.NPC;
+import com.gustavo.rpg.items.Item;
+import com.gustavo.rpg.items.Potion;
+import com.gustavo.rpg.items.Weapon;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * O que aconteceu na partida, sem texto pronto.
+ *
+ * Game so cria o evento; transformar em frase (ou em JSON, ou em nada) e
+ * trabalho de um {@link GameEventListener}. Os eventos sao entregues na
+ * thread que rodou o comando. Locais, itens e NPCs sao os objetos do jogo:
+ * quem guardar o evento para depois deve copiar o que precisar.
+ */
+public sealed interface GameEvent {
+
+    /** Texto livre (avisos, instrucoes de uso). */
+    record Mensagem(String texto) implements GameEvent {}
+
+    /** Acao invalida: mensagem da excecao do jogo. */
+    record Erro(String mensagem) implements GameEvent {}
+
+    record ComandoDesconhecido(String verbo) implements GameEvent {}
+
+    record Ajuda() implements GameEvent {}
+
+    /** Fim do start(): partida nova ou carregada de um save. */
+    record JogoIniciado(String jogador, int hp, String local, boolean carregado) implements GameEvent {}
+
+    record JogoEncerrado() implements GameEvent {}
+
+    // -------------------------------------------------------------------------
+    // MUNDO
+    // -------------------------------------------------------------------------
+
+    /** Resultado de "olhar" (itens e NPCs como estavam no momento). */
+    record LocalDescrito(Location local, List<Item> itens, List<NPC> npcs) implements GameEvent {}
+
+    record Movimento(Location origem, Location destino) implements GameEvent {}
+
+    record SemCaminho(String direcao) implements GameEvent {}
+
+    /** viajar: andou 'passos' de origem ate destino; interrompida = parou antes por inimigos. */
+    record Viagem(Location origem, Location destino, int passos, boolean interrompida) implements GameEvent {}
+
+    // -------------------------------------------------------------------------
+    // COMBATE
+    // -------------------------------------------------------------------------
+
+    record SemInimigos() implements GameEvent {}
+
+    record Ataque(String atacante, String alvo, int dano, int hpAlvo) implements GameEvent {}
+
+    record ContraAtaque(String atacante, String alvo, int dano, int hpAlvo) implements GameEvent {}
+
+    record NpcDerrotado(String nome) implements GameEvent {}
+
+    /** Uma NPC derrotada voltou (respawn) no local do jogador. */
+    record NpcReapareceu(String nome) implements GameEvent {}
+
+    /** Uma NPC andando pelo mapa entrou no local do jogador. */
+    record NpcChegou(String nome) implements GameEvent {}
+
+    // -------------------------------------------------------------------------
+    // JOGADOR E ITENS
+    // -------------------------------------------------------------------------
+
+    /** classe ja em portugues ("Guerreiro"); arma null = nenhuma. */
+    record Status(String jogador, String classe, int hp, String arma) implements GameEvent {}
+
+    record Inventario(List<Item> itens) implements GameEvent {}
+
+    record ItemPego(Item item) implements GameEvent {}
+
+    record ItemLargado(Item item) implements GameEvent {}
+
+    record ArmaEquipada(Weapon arma) implements GameEvent {}
+
+    record PocaoBebida(Potion pocao, int hp) implements GameEvent {}
+
+    /** HP do jogador subiu com o tempo; fonte = pocao que cura aos poucos, ou null (regeneracao). */
+    record HpRecuperado(int cura, int hp, String fonte) implements GameEvent {}
+
+    record JogoSalvo(Path arquivo) implements GameEvent {}
+}
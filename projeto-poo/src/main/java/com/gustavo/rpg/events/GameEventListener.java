@@ -0,0 +1,19 @@
+package com.gustavo.rpg.events;
+
+/** Quem consome os eventos de uma partida (renderizador, bot, teste). */
+@FunctionalInterface
+public interface GameEventListener {
+
+    /** Descarta tudo: partidas sem ninguem olhando nao formatam texto nenhum. */
+    GameEventListener NENHUM = evento -> {};
+
+    void onEvent(GameEvent evento);
+
+    /** Entrega cada evento a este listener e depois ao outro. */
+    default GameEventListener e(GameEventListener outro) {
+        return evento -> {
+            onEvent(evento);
+            outro.onEvent(evento);
+        };
+    }
+}
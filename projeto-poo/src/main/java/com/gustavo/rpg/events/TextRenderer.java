@@ -0,0 +1,138 @@
+package com.gustavo.rpg.events;
+
+import com.gustavo.rpg.core.GameOutput;
+import com.gustavo.rpg.core.NullOutput;
+import com.gustavo.rpg.items.Item;
+
+import java.util.List;
+
+/**
+ * Renderiza os eventos como o texto em portugues do jogo, linha a linha,
+ * num GameOutput (console, buffer, janela).
+ */
+public class TextRenderer implements GameEventListener {
+
+    private final GameOutput out;
+
+    public TextRenderer(GameOutput out) {
+        this.out = out;
+    }
+
+    /** Renderizador para a saida; NullOutput nem chega a formatar. */
+    public static GameEventListener para(GameOutput out) {
+        return (out instanceof NullOutput) ? NENHUM : new TextRenderer(out);
+    }
+
+    public GameOutput getOutput() { return out; }
+
+    @Override
+    public void onEvent(GameEvent evento) {
+        if (evento instanceof GameEvent.Mensagem m) {
+            println(m.texto());
+        } else if (evento instanceof GameEvent.Erro e) {
+            println("Erro: " + e.mensagem());
+        } else if (evento instanceof GameEvent.ComandoDesconhecido) {
+            println("Comando desconhecido. Tente 'ajuda'.");
+        } else if (evento instanceof GameEvent.Ajuda) {
+            ajuda();
+        } else if (evento instanceof GameEvent.JogoIniciado j) {
+            if (j.carregado()) {
+                println("Jogo carregado para o jogador: " + j.jogador());
+                println("Use 'status' ou 'olhar' para ver o estado atual.");
+            } else {
+                println("Voce esta na " + j.local() + ". Tente 'olhar' ou 'ir norte'.");
+            }
+            println("Bem-vindo! Digite 'ajuda' para comandos, 'sair' para encerrar.");
+        } else if (evento instanceof GameEvent.JogoEncerrado) {
+            println("Ate mais!");
+        } else if (evento instanceof GameEvent.LocalDescrito d) {
+            println("Local: " + d.local().getName());
+            println("Descricao: " + d.local().getDescription());
+            println(d.itens().isEmpty() ? "Nao ha itens no chao." : "Itens no chao: " + d.itens());
+            println(d.npcs().isEmpty() ? "Nao ha inimigos aqui." : "Voce ve: " + d.npcs());
+            println("Saidas disponiveis: " + d.local().getExits().keySet());
+        } else if (evento instanceof GameEvent.Movimento m) {
+            println("Voce se moveu para: " + m.destino().getName());
+        } else if (evento instanceof GameEvent.Viagem v) {
+            if (v.interrompida()) {
+                println("Voce parou em " + v.destino().getName() + " depois de " + v.passos()
+                        + " passos: ha inimigos no caminho.");
+            } else {
+                println("Voce viajou ate " + v.destino().getName() + " (" + v.passos() + " passos).");
+            }
+        } else if (evento instanceof GameEvent.SemCaminho s) {
+            println("Nao existe caminho para " + s.direcao() + " a partir daqui.");
+        } else if (evento instanceof GameEvent.SemInimigos) {
+            println("Nao ha inimigos aqui.");
+        } else if (evento instanceof GameEvent.Ataque a) {
+            println(a.atacante() + " causou " + a.dano() + " em " + a.alvo() + ".");
+        } else if (evento instanceof GameEvent.ContraAtaque c) {
+            println(c.atacante() + " contra-atacou por " + c.dano() + ".");
+        } else if (evento instanceof GameEvent.NpcDerrotado n) {
+            println("Voce derrotou " + n.nome() + "!");
+        } else if (evento instanceof GameEvent.NpcReapareceu n) {
+            println(n.nome() + " apareceu aqui!");
+        } else if (evento instanceof GameEvent.NpcChegou n) {
+            println(n.nome() + " chegou.");
+        } else if (evento instanceof GameEvent.Status s) {
+            println("Jogador: " + s.jogador()
+                    + " (" + s.classe() + ")"
+                    + " | HP=" + s.hp()
+                    + " | Arma: " + (s.arma() != null ? s.arma() : "nenhuma"));
+        } else if (evento instanceof GameEvent.Inventario i) {
+            inventario(i.itens());
+        } else if (evento instanceof GameEvent.ItemPego p) {
+            println("Voce pegou: " + p.item().getName());
+        } else if (evento instanceof GameEvent.ItemLargado l) {
+            println("Voce largou: " + l.item().getName());
+        } else if (evento instanceof GameEvent.ArmaEquipada a) {
+            println("Voce equipou: " + a.arma().getName());
+        } else if (evento instanceof GameEvent.PocaoBebida p) {
+            if (p.pocao().getDuracao() > 0) {
+                println("Voce bebeu " + p.pocao().getName()
+                        + " e vai recuperar " + p.pocao().getHealAmount() + " de HP aos poucos.");
+            } else {
+                println("Voce bebeu " + p.pocao().getName()
+                        + " e recuperou " + p.pocao().getHealAmount() + " de HP.");
+            }
+        } else if (evento instanceof GameEvent.HpRecuperado h) {
+            if (h.fonte() != null) { // regeneracao natural nao ganha linha
+                println("Voce recuperou " + h.cura() + " de HP (" + h.fonte() + ").");
+            }
+        } else if (evento instanceof GameEvent.JogoSalvo s) {
+            println("Jogo salvo em: " + s.arquivo().toAbsolutePath());
+        }
+    }
+
+    private void ajuda() {
+        println("Comandos:");
+        println("  ajuda               - lista comandos");
+        println("  olhar               - descreve o local atual");
+        println("  ir <direcao>        - move (norte/sul/leste/oeste)");
+        println("  viajar <local>      - vai ate o local pelo menor caminho (ou: ir para <local>)");
+        println("  status              - mostra status do jogador");
+        println("  inventario          - lista itens na mochila");
+        println("  pegar <item>        - pega item do chao");
+        println("  largar <item>       - larga item no chao");
+        println("  equipar <arma>      - equipa uma arma do inventario");
+        println("  beber <pocao>       - bebe uma pocao do inventario");
+        println("  atacar              - ataca inimigo no local");
+        println("  salvar              - salva o jogo em arquivo");
+        println("  sair                - encerra o jogo");
+        println("Atalhos: n/s/l/o (ir norte/sul/leste/oeste), i (inventario), ver, ?");
+        println("Tambem vale o comeco de um comando, ex: 'eq' para equipar.");
+    }
+
+    private void inventario(List<Item> itens) {
+        if (itens.isEmpty()) {
+            println("Seu inventario esta vazio.");
+            return;
+        }
+        println("Itens no inventario:");
+        for (int i = 0; i < itens.size(); i++) {
+            println("  " + (i + 1) + " - " + itens.get(i).getName());
+        }
+    }
+
+    protected void println(String s) { out.println(s); }
+}
@@ -0,0 +1,9 @@
+package com.gustavo.rpg.exceptions;
+
+import java.io.IOException;
+
+public class InvalidSaveException extends IOException {
+    public InvalidSaveException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,131 @@
+package com.gustavo.rpg.gui;
+
+import com.gustavo.rpg.core.Game;
+import com.gustavo.rpg.core.GameOutput;
+
+import javax.swing.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Roda o Game da janela numa thread propria ("rpg-jogo"), fora do EDT.
+ *
+ * A janela so enfileira: criar/carregar partida, comandos e consultas
+ * (ex: listar saves) rodam em ordem na thread do jogo, e o Game so e
+ * tocado por ela. A saida chega na tela pelo TextAreaOutput; o Listener
+ * e sempre chamado no EDT.
+ */
+public class GameExecutor implements AutoCloseable {
+
+    /** Avisos para a janela (sempre no EDT). */
+    public interface Listener {
+        /** true quando a fila comeca a ter trabalho, false quando esvazia. */
+        void ocupadoMudou(boolean ocupado);
+
+        /** O jogador saiu (comando "sair"). */
+        void jogoEncerrado();
+    }
+
+    private final GameOutput saida;
+    private final Listener listener;
+    private final ExecutorService thread;
+    private final AtomicInteger pendentes = new AtomicInteger();
+
+    private Game game;                       // so acessado pela thread do jogo
+    private volatile boolean ativo = false;  // ha partida aceitando comandos
+
+    public GameExecutor(GameOutput saida, Listener listener) {
+        this.saida = saida;
+        this.listener = listener;
+        this.thread = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "rpg-jogo");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public boolean isAtivo() { return ativo; }
+
+    public boolean isOcupado() { return pendentes.get() > 0; }
+
+    /**
+     * Troca a partida. 'criar' roda na thread do jogo (carregar um save
+     * le o arquivo la); comandos enviados depois ja vao para a nova partida.
+     */
+    public void iniciar(Supplier<Game> criar) {
+        ativo = true;
+        submeter(() -> {
+            game = criar.get();
+            game.start();
+        });
+    }
+
+    /** Enfileira um comando; ignorado se nao ha partida ativa. */
+    public void enviar(String comando) {
+        if (!ativo) return;
+        submeter(() -> {
+            if (game == null || !ativo) return;
+            if (!game.handleCommand(comando)) {
+                ativo = false;
+                SwingUtilities.invokeLater(listener::jogoEncerrado);
+            }
+        });
+    }
+
+    /**
+     * Roda 'tarefa' na thread do jogo e entrega o resultado no EDT.
+     * Para trabalho lento que nao e comando (ex: ler o catalogo de saves).
+     */
+    public <T> void executar(Callable<T> tarefa, Consumer<T> noEdt) {
+        submeter(() -> {
+            T resultado;
+            try {
+                resultado = tarefa.call();
+            } catch (Exception e) {
+                saida.println("Erro: " + e.getMessage());
+                return;
+            }
+            SwingUtilities.invokeLater(() -> noEdt.accept(resultado));
+        });
+    }
+
+    @Override
+    public void close() {
+        ativo = false;
+        thread.shutdownNow();
+    }
+
+    // -------------------------------------------------------------------------
+    // FILA
+    // -------------------------------------------------------------------------
+
+    private void submeter(Runnable tarefa) {
+        if (pendentes.getAndIncrement() == 0) {
+            avisarOcupado(true);
+        }
+        thread.execute(() -> {
+            try {
+                tarefa.run();
+            } catch (RuntimeException e) {
+                // um bug num comando nao pode matar a thread do jogo
+                saida.println("Erro interno: " + e);
+            } finally {
+                if (pendentes.decrementAndGet() == 0) {
+                    avisarOcupado(false);
+                }
+            }
+        });
+    }
+
+    private void avisarOcupado(boolean ocupado) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            listener.ocupadoMudou(ocupado);
+        } else {
+            SwingUtilities.invokeLater(() -> listener.ocupadoMudou(isOcupado()));
+        }
+    }
+}
@@ -1,19 +1,35 @@
 package com.gustavo.rpg.gui;
 
 import com.gustavo.rpg.core.Game;
-import com.gustavo.rpg.core.GameOutput;
+import com.gustavo.rpg.save.SaveCatalog;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 public class RpgWindow extends JFrame {
 
+    private static final int SAVES_NA_LISTA = 50;
+
+    /** Caracteres mantidos na tela; -Drpg.scrollback=N muda. */
+    private static final int SCROLLBACK = Integer.getInteger("rpg.scrollback", 200_000);
+
+    /** Comandos rapidos nao chegam a mostrar o indicador de ocupado. */
+    private static final int ATRASO_OCUPADO_MS = 200;
+
     private final JTextArea textArea;
+    private final TextAreaOutput saida;
     private final JTextField inputField;
-    private Game game;
-    private boolean jogoAtivo = false;
+    private final JProgressBar ocupadoBar;
+    private final JLabel statusLabel;
+    private final Timer ocupadoTimer;
+    private final GameExecutor executor;
 
     public RpgWindow() {
         super("RPG ***JOGER***");
@@ -24,6 +40,19 @@ public class RpgWindow extends JFrame {
         textArea.setLineWrap(true);
         textArea.setWrapStyleWord(true);
         textArea.setFont(new Font("Consolas", Font.PLAIN, 14)); // fonte monoespacada
+        saida = new TextAreaOutput(textArea, SCROLLBACK);
+        executor = new GameExecutor(saida, new GameExecutor.Listener() {
+            @Override
+            public void ocupadoMudou(boolean ocupado) {
+                mostrarOcupado(ocupado);
+            }
+
+            @Override
+            public void jogoEncerrado() {
+                inputField.setEnabled(false);
+                saida.println("Jogo encerrado.");
+            }
+        });
 
         JScrollPane scrollPane = new JScrollPane(textArea);
 
@@ -57,6 +86,24 @@ public class RpgWindow extends JFrame {
         actionsPanel.add(atacarBtn);
         actionsPanel.add(ajudaBtn);
 
+        // HP e local do jogador, atualizados pelos eventos do jogo
+        statusLabel = new JLabel(" ");
+        actionsPanel.add(statusLabel);
+
+        // Indicador de "processando" (so aparece se o comando demorar)
+        ocupadoBar = new JProgressBar();
+        ocupadoBar.setIndeterminate(true);
+        ocupadoBar.setString("Processando...");
+        ocupadoBar.setStringPainted(true);
+        ocupadoBar.setVisible(false);
+        actionsPanel.add(ocupadoBar);
+
+        ocupadoTimer = new Timer(ATRASO_OCUPADO_MS, e -> {
+            ocupadoBar.setVisible(true);
+            setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        });
+        ocupadoTimer.setRepeats(false);
+
         // Painel inferior: botoes + campo de texto + enviar
         JPanel bottomPanel = new JPanel(new BorderLayout());
         bottomPanel.add(actionsPanel, BorderLayout.NORTH);
@@ -163,29 +210,15 @@ public class RpgWindow extends JFrame {
             default -> "guerreiro";
         };
 
-        // 3) Limpa tela e cria o Game com saida GUI
-        textArea.setText("");
-        GameOutput guiOut = new GameOutput() {
-            @Override
-            public void println(String s) {
-                textArea.append(s + "\n");
-                textArea.setCaretPosition(textArea.getDocument().getLength());
-            }
-
-            @Override
-            public void print(String s) {
-                textArea.append(s);
-                textArea.setCaretPosition(textArea.getDocument().getLength());
-            }
-        };
-
-        game = new Game(nome, classeInterna, guiOut);
-        jogoAtivo = true;
-        game.start(); // monta o mundo e mostra as mensagens iniciais
+        // 3) Limpa tela e cria o Game com saida GUI (na thread do jogo)
+        saida.limpar();
+        inputField.setEnabled(true);
+        executor.iniciar(() -> comRenderer(new Game(nome, classeInterna, saida)));
+        inputField.requestFocusInWindow();
     }
 
     private void salvarJogo() {
-        if (game == null || !jogoAtivo) {
+        if (!executor.isAtivo()) {
             JOptionPane.showMessageDialog(
                     this,
                     "Nenhum jogo ativo para salvar.",
@@ -196,88 +229,130 @@ public class RpgWindow extends JFrame {
         }
 
         // Reaproveita a mesma lógica do console: comando "salvar"
-        game.handleCommand("salvar");
+        executor.enviar("salvar");
     }
 
     private void carregarJogo() {
-        JFileChooser chooser = new JFileChooser("saves");
-        chooser.setDialogTitle("Escolha um arquivo de save");
-
-        int result = chooser.showOpenDialog(this);
-        if (result != JFileChooser.APPROVE_OPTION) {
-            // Se nao tem jogo ativo ainda, volta para o menu inicial
-            if (game == null) {
-                mostrarMenuInicial();
+        // o catalogo pode precisar ser refeito (le todos os saves): fora do EDT
+        Path dir = Paths.get("saves");
+        SaveCatalog catalogo = SaveCatalog.doDiretorio(dir);
+        executor.executar(() -> listarSaves(dir, catalogo), recentes -> {
+            Path arquivo = escolherSave(catalogo, recentes);
+            if (arquivo == null) {
+                // Se nao tem jogo ativo ainda, volta para o menu inicial
+                if (!executor.isAtivo()) {
+                    mostrarMenuInicial();
+                }
+                return;
             }
-            return;
-        }
 
-        Path arquivo = chooser.getSelectedFile().toPath();
+            saida.limpar();
+            inputField.setEnabled(true);
+            inputField.setText("");
 
-        textArea.setText("");
-        inputField.setEnabled(true);
-        inputField.setText("");
+            // ler e decodificar o save roda na thread do jogo
+            executor.iniciar(() -> comRenderer(Game.carregarDeArquivo(arquivo, saida)));
+            inputField.requestFocusInWindow();
+        });
+    }
 
-        GameOutput guiOut = new GameOutput() {
-            @Override
-            public void println(String s) {
-                textArea.append(s + "\n");
-                textArea.setCaretPosition(textArea.getDocument().getLength());
+    private List<SaveCatalog.Entrada> listarSaves(Path dir, SaveCatalog catalogo) {
+        try {
+            if (Files.isDirectory(dir)) {
+                return catalogo.listar(0, SAVES_NA_LISTA, null);
             }
+        } catch (IOException ex) {
+            saida.println("Erro ao ler catalogo de saves: " + ex.getMessage());
+        }
+        return List.of();
+    }
 
-            @Override
-            public void print(String s) {
-                textArea.append(s);
-                textArea.setCaretPosition(textArea.getDocument().getLength());
+    /**
+     * Mostra os saves mais recentes do catalogo (sem abrir os arquivos);
+     * "Outro arquivo..." abre o seletor de arquivos normal.
+     */
+    private Path escolherSave(SaveCatalog catalogo, List<SaveCatalog.Entrada> recentes) {
+        final String outro = "Outro arquivo...";
+        List<Object> opcoes = new ArrayList<>(recentes);
+
+        if (!opcoes.isEmpty()) {
+            opcoes.add(outro);
+            Object escolha = JOptionPane.showInputDialog(
+                    this,
+                    "Saves mais recentes:",
+                    "Carregar jogo",
+                    JOptionPane.QUESTION_MESSAGE,
+                    null,
+                    opcoes.toArray(),
+                    opcoes.get(0)
+            );
+            if (escolha == null) {
+                return null;
             }
-        };
+            if (escolha instanceof SaveCatalog.Entrada entrada) {
+                return catalogo.resolver(entrada);
+            }
+        }
 
-        game = Game.carregarDeArquivo(arquivo, guiOut);
-        jogoAtivo = true;
-        game.start(); // boot + estado carregado + mensagens
-        inputField.requestFocusInWindow();
+        JFileChooser chooser = new JFileChooser("saves");
+        chooser.setDialogTitle("Escolha um arquivo de save");
+
+        int result = chooser.showOpenDialog(this);
+        if (result != JFileChooser.APPROVE_OPTION) {
+            return null;
+        }
+        return chooser.getSelectedFile().toPath();
     }
 
     private void onCommandEntered(ActionEvent e) {
-        if (!jogoAtivo || game == null) {
+        if (!executor.isAtivo()) {
             return;
         }
         String comando = inputField.getText().trim();
         if (comando.isEmpty()) return;
 
         // mostra comando digitado no log (tipo console)
-        textArea.append("> " + comando + "\n");
-        textArea.setCaretPosition(textArea.getDocument().getLength());
+        saida.println("> " + comando);
 
         inputField.setText("");
 
-        boolean continua = game.handleCommand(comando);
-        if (!continua) {
-            jogoAtivo = false;
-            inputField.setEnabled(false);
-            textArea.append("Jogo encerrado.\n");
-        }
+        // o comando roda na thread do jogo; o campo continua livre para o proximo
+        executor.enviar(comando);
 
         inputField.requestFocusInWindow();
     }
 
     // Usado pelos botoes rapidos (olhar/status/inventario/atacar)
     private void executarComandoRapido(String comando) {
-        if (!jogoAtivo || game == null) {
+        if (!executor.isAtivo()) {
             return;
         }
 
-        textArea.append("> " + comando + "\n");
-        textArea.setCaretPosition(textArea.getDocument().getLength());
+        saida.println("> " + comando);
+        executor.enviar(comando);
 
-        boolean continua = game.handleCommand(comando);
-        if (!continua) {
-            jogoAtivo = false;
-            inputField.setEnabled(false);
-            textArea.append("Jogo encerrado.\n");
+        inputField.requestFocusInWindow();
+    }
+
+    private Game comRenderer(Game novo) {
+        novo.setEventos(new SwingRenderer(saida, statusLabel));
+        return novo;
+    }
+
+    private void mostrarOcupado(boolean ocupado) {
+        if (ocupado) {
+            ocupadoTimer.restart();
+        } else {
+            ocupadoTimer.stop();
+            ocupadoBar.setVisible(false);
+            setCursor(Cursor.getDefaultCursor());
         }
+    }
 
-        inputField.requestFocusInWindow();
+    @Override
+    public void dispose() {
+        executor.close();
+        super.dispose();
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,50 @@
+package com.gustavo.rpg.gui;
+
+import com.gustavo.rpg.events.GameEvent;
+import com.gustavo.rpg.events.TextRenderer;
+
+import javax.swing.*;
+
+/**
+ * Texto do jogo no TextAreaOutput da janela e, a partir dos eventos, um
+ * rotulo com o HP e o local atual do jogador (sem ler o texto de volta).
+ */
+public class SwingRenderer extends TextRenderer {
+
+    private final JLabel statusLabel;
+    private String jogador = "";
+    private int hp;
+    private String local = "";
+
+    public SwingRenderer(TextAreaOutput out, JLabel statusLabel) {
+        super(out);
+        this.statusLabel = statusLabel;
+    }
+
+    @Override
+    public void onEvent(GameEvent evento) {
+        super.onEvent(evento);
+
+        if (evento instanceof GameEvent.JogoIniciado j) {
+            jogador = j.jogador();
+            hp = j.hp();
+        } else if (evento instanceof GameEvent.Status s) {
+            hp = s.hp();
+        } else if (evento instanceof GameEvent.ContraAtaque c) {
+            hp = c.hpAlvo();
+        } else if (evento instanceof GameEvent.PocaoBebida p) {
+            hp = p.hp();
+        } else if (evento instanceof GameEvent.HpRecuperado h) {
+            hp = h.hp();
+        } else if (evento instanceof GameEvent.Movimento m) {
+            local = m.destino().getName();
+        } else if (evento instanceof GameEvent.LocalDescrito d) {
+            local = d.local().getName();
+        } else {
+            return;
+        }
+
+        String texto = jogador + " | HP " + hp + (local.isEmpty() ? "" : " | " + local);
+        SwingUtilities.invokeLater(() -> statusLabel.setText(texto));
+    }
+}
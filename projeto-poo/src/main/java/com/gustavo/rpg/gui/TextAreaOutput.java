@@ -0,0 +1,117 @@
+package com.gustavo.rpg.gui;
+
+import com.gustavo.rpg.core.GameOutput;
+
+import javax.swing.*;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+
+/**
+ * Saida do jogo para um JTextArea.
+ *
+ * print/println so acumulam o texto num buffer; a primeira escrita agenda
+ * uma unica atualizacao no EDT que joga tudo o que juntou no documento de
+ * uma vez. Um comando como "ajuda" vira um insert so, em vez de um por linha.
+ * Pode ser chamada de qualquer thread.
+ *
+ * O documento guarda no maximo 'maxCaracteres'; quando passa disso com
+ * folga, as linhas mais antigas sao cortadas num remove so.
+ */
+public class TextAreaOutput implements GameOutput {
+
+    private final JTextArea textArea;
+    private final int maxCaracteres;
+    private final int folga;
+
+    private final StringBuilder pendente = new StringBuilder();
+    private boolean agendado = false; // protegido por 'pendente'
+
+    public TextAreaOutput(JTextArea textArea, int maxCaracteres) {
+        if (maxCaracteres <= 0) {
+            throw new IllegalArgumentException("maxCaracteres deve ser positivo: " + maxCaracteres);
+        }
+        this.textArea = textArea;
+        this.maxCaracteres = maxCaracteres;
+        this.folga = Math.max(1, maxCaracteres / 8);
+    }
+
+    @Override
+    public void println(String s) {
+        escrever(s, true);
+    }
+
+    @Override
+    public void print(String s) {
+        escrever(s, false);
+    }
+
+    /** Apaga a tela e o que ainda nao foi mostrado. */
+    public void limpar() {
+        synchronized (pendente) {
+            pendente.setLength(0);
+        }
+        noEdt(() -> textArea.setText(""));
+    }
+
+    /** Mostra agora o que estiver pendente (no EDT: na hora; fora: agenda). */
+    public void flush() {
+        noEdt(this::descarregar);
+    }
+
+    private void escrever(String s, boolean novaLinha) {
+        boolean agendar;
+        synchronized (pendente) {
+            pendente.append(s);
+            if (novaLinha) pendente.append('\n');
+            agendar = !agendado;
+            agendado = true;
+        }
+        if (agendar) {
+            SwingUtilities.invokeLater(this::descarregar);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // EDT
+    // -------------------------------------------------------------------------
+
+    private void descarregar() {
+        String texto;
+        synchronized (pendente) {
+            agendado = false;
+            if (pendente.length() == 0) return;
+            texto = pendente.toString();
+            pendente.setLength(0);
+        }
+
+        textArea.append(texto);
+        Document doc = textArea.getDocument();
+        int tamanho = doc.getLength();
+        if (tamanho > maxCaracteres + folga) {
+            cortarInicio(doc, tamanho - maxCaracteres);
+            tamanho = doc.getLength();
+        }
+        textArea.setCaretPosition(tamanho);
+    }
+
+    /** Remove pelo menos 'excesso' caracteres do inicio, terminando numa quebra de linha. */
+    private void cortarInicio(Document doc, int excesso) {
+        try {
+            int fim = excesso;
+            String resto = doc.getText(excesso, Math.min(doc.getLength() - excesso, 1024));
+            int quebra = resto.indexOf('\n');
+            if (quebra >= 0) fim += quebra + 1;
+            doc.remove(0, fim);
+        } catch (BadLocationException e) {
+            textArea.setText(""); // nao deve acontecer: posicoes vem do proprio documento
+        }
+    }
+
+    private static void noEdt(Runnable r) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            r.run();
+        } else {
+            SwingUtilities.invokeLater(r);
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package com.gustavo.rpg.inventory;
 
-import java.util.*;
+import java.util.List;
 
 import com.gustavo.rpg.exceptions.InventoryFullException;
 import com.gustavo.rpg.exceptions.ItemNotFoundException;
@@ -8,10 +8,10 @@ import com.gustavo.rpg.items.Item;
 
 /**
  * [Classe Genérica] Inventário para qualquer subtipo de Item.
- * Mostra uso de List (Collections) e genéricos.
+ * Mostra uso de Collections e genéricos; a busca por nome usa o ItemIndex.
  */
 public class Inventory<T extends Item> {
-    private final List<T> items = new ArrayList<>();
+    private final ItemIndex<T> items = new ItemIndex<>();
     private final int capacity;
 
     public Inventory(int capacity) { this.capacity = capacity; }
@@ -24,14 +24,16 @@ public class Inventory<T extends Item> {
     }
 
     public void remove(T item) { items.remove(item); }
-    public List<T> getItems() { return Collections.unmodifiableList(items); }
+    public List<T> getItems() { return items.asList(); }
+    public int size() { return items.size(); }
+    public int getCapacity() { return capacity; }
 
     public T findOrThrow(String partial) throws ItemNotFoundException {
-        for (T t : items) {
-            if (t.getName().toLowerCase().contains(partial.toLowerCase()))
-                return t;
+        T t = items.find(partial);
+        if (t == null) {
+            throw new ItemNotFoundException(partial);
         }
-        throw new ItemNotFoundException(partial);
+        return t;
     }
 
 
@@ -0,0 +1,212 @@
+package com.gustavo.rpg.inventory;
+
+import java.text.Normalizer;
+import java.util.*;
+
+import com.gustavo.rpg.items.Item;
+
+/**
+ * Colecao ordenada de itens com indice por nome.
+ *
+ * O nome de cada item e normalizado uma vez (minusculas, sem acento) ao
+ * entrar. A busca por nome parcial usa, nesta ordem:
+ * nome exato -> prefixo (TreeMap) -> n-gramas (1 a 3 letras) para trechos
+ * no meio do nome. Quando varios itens servem, ganha o de melhor tipo de
+ * match (exato, prefixo, inicio de palavra, trecho) e, empatando, o que
+ * entrou primeiro. Remover e O(1) (lista duplamente ligada).
+ */
+public class ItemIndex<T extends Item> implements Iterable<T> {
+
+    private static final int GRAMA_MAX = 3;
+
+    // ranking dos matches no meio do nome (exato e prefixo sao resolvidos antes)
+    private static final int INICIO_PALAVRA = 0;
+    private static final int TRECHO = 1;
+
+    private static final class Slot<T> {
+        final T item;
+        final String nome;
+        final long seq;
+        Slot<T> anterior;
+        Slot<T> proximo;
+
+        Slot(T item, String nome, long seq) {
+            this.item = item;
+            this.nome = nome;
+            this.seq = seq;
+        }
+    }
+
+    private final NavigableMap<String, LinkedHashSet<Slot<T>>> porNome = new TreeMap<>();
+    private final Map<String, LinkedHashSet<Slot<T>>> gramas = new HashMap<>();
+    private final Map<T, ArrayDeque<Slot<T>>> porItem = new IdentityHashMap<>();
+
+    private Slot<T> primeiro;
+    private Slot<T> ultimo;
+    private int tamanho;
+    private long proximoSeq;
+    private List<T> snapshot; // cache de asList(); null = mudou
+
+    public ItemIndex() {}
+
+    public ItemIndex(Collection<? extends T> itens) {
+        for (T item : itens) add(item);
+    }
+
+    // -------------------------------------------------------------------------
+    // ALTERACAO
+    // -------------------------------------------------------------------------
+
+    public void add(T item) {
+        Slot<T> slot = new Slot<>(item, normalizar(item.getName()), proximoSeq++);
+
+        if (ultimo == null) {
+            primeiro = ultimo = slot;
+        } else {
+            ultimo.proximo = slot;
+            slot.anterior = ultimo;
+            ultimo = slot;
+        }
+        tamanho++;
+        snapshot = null;
+
+        porItem.computeIfAbsent(item, k -> new ArrayDeque<>(1)).addLast(slot);
+        porNome.computeIfAbsent(slot.nome, k -> new LinkedHashSet<>()).add(slot);
+        for (String grama : gramasDe(slot.nome)) {
+            gramas.computeIfAbsent(grama, k -> new LinkedHashSet<>()).add(slot);
+        }
+    }
+
+    /** Remove uma ocorrencia do item (a mais antiga). */
+    public boolean remove(T item) {
+        ArrayDeque<Slot<T>> slots = porItem.get(item);
+        if (slots == null) return false;
+
+        Slot<T> slot = slots.pollFirst();
+        if (slots.isEmpty()) porItem.remove(item);
+
+        if (slot.anterior == null) primeiro = slot.proximo; else slot.anterior.proximo = slot.proximo;
+        if (slot.proximo == null) ultimo = slot.anterior; else slot.proximo.anterior = slot.anterior;
+        tamanho--;
+        snapshot = null;
+
+        retirar(porNome, slot.nome, slot);
+        for (String grama : gramasDe(slot.nome)) {
+            retirar(gramas, grama, slot);
+        }
+        return true;
+    }
+
+    public void clear() {
+        porNome.clear();
+        gramas.clear();
+        porItem.clear();
+        primeiro = ultimo = null;
+        tamanho = 0;
+        snapshot = null;
+    }
+
+    // -------------------------------------------------------------------------
+    // CONSULTA
+    // -------------------------------------------------------------------------
+
+    public int size() { return tamanho; }
+    public boolean isEmpty() { return tamanho == 0; }
+
+    /** Itens na ordem em que entraram (lista imutavel, recriada so quando muda). */
+    public List<T> asList() {
+        if (snapshot == null) {
+            List<T> lista = new ArrayList<>(tamanho);
+            for (Slot<T> s = primeiro; s != null; s = s.proximo) lista.add(s.item);
+            snapshot = Collections.unmodifiableList(lista);
+        }
+        return snapshot;
+    }
+
+    /** Melhor item cujo nome contem 'parcial' (ver ranking na classe), ou null. */
+    public T find(String parcial) {
+        String q = normalizar(parcial);
+        if (q.isEmpty()) {
+            return primeiro == null ? null : primeiro.item;
+        }
+
+        // 1) nome exato
+        LinkedHashSet<Slot<T>> exatos = porNome.get(q);
+        if (exatos != null) {
+            return exatos.iterator().next().item;
+        }
+
+        // 2) prefixo: todas as chaves entre q e q + MAX_VALUE
+        Slot<T> melhor = null;
+        for (LinkedHashSet<Slot<T>> slots : porNome.subMap(q, true, q + Character.MAX_VALUE, false).values()) {
+            Slot<T> s = slots.iterator().next();
+            if (melhor == null || s.seq < melhor.seq) melhor = s;
+        }
+        if (melhor != null) {
+            return melhor.item;
+        }
+
+        // 3) trecho no meio: candidatos pelo n-grama mais raro da busca
+        LinkedHashSet<Slot<T>> candidatos = null;
+        int n = Math.min(GRAMA_MAX, q.length());
+        for (int i = 0; i + n <= q.length(); i++) {
+            LinkedHashSet<Slot<T>> lista = gramas.get(q.substring(i, i + n));
+            if (lista == null) return null; // algum pedaco nao existe em nenhum nome
+            if (candidatos == null || lista.size() < candidatos.size()) candidatos = lista;
+        }
+
+        int melhorRank = Integer.MAX_VALUE;
+        for (Slot<T> s : candidatos) {
+            int pos = s.nome.indexOf(q);
+            if (pos < 0) continue;
+            int rank = (pos > 0 && s.nome.charAt(pos - 1) == ' ') ? INICIO_PALAVRA : TRECHO;
+            if (rank < melhorRank || (rank == melhorRank && s.seq < melhor.seq)) {
+                melhor = s;
+                melhorRank = rank;
+            }
+        }
+        return melhor == null ? null : melhor.item;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return asList().iterator();
+    }
+
+    @Override
+    public String toString() {
+        return asList().toString();
+    }
+
+    // -------------------------------------------------------------------------
+    // HELPERS
+    // -------------------------------------------------------------------------
+
+    /** Minusculas e sem acentos: "Poção" -> "pocao". */
+    static String normalizar(String s) {
+        String t = s.trim().toLowerCase(Locale.ROOT);
+        for (int i = 0; i < t.length(); i++) {
+            if (t.charAt(i) > 127) {
+                return Normalizer.normalize(t, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+            }
+        }
+        return t;
+    }
+
+    private static Set<String> gramasDe(String nome) {
+        Set<String> resultado = new HashSet<>();
+        for (int n = 1; n <= GRAMA_MAX; n++) {
+            for (int i = 0; i + n <= nome.length(); i++) {
+                resultado.add(nome.substring(i, i + n));
+            }
+        }
+        return resultado;
+    }
+
+    private static <K, T> void retirar(Map<K, LinkedHashSet<Slot<T>>> mapa, K chave, Slot<T> slot) {
+        LinkedHashSet<Slot<T>> slots = mapa.get(chave);
+        if (slots == null) return;
+        slots.remove(slot);
+        if (slots.isEmpty()) mapa.remove(chave);
+    }
+}
@@ -0,0 +1,165 @@
+package com.gustavo.rpg.items;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Catalogo de itens lido de um arquivo de dados (itens.txt).
+ *
+ * Cada linha vira um prototipo imutavel com id fixo, e todo lugar que
+ * precisa de um item (mapa, gerador de mundo, save) usa a mesma instancia
+ * daqui: mil "Pocao de cura" no inventario sao mil referencias para um
+ * objeto so. Busca por id e por nome em O(1).
+ *
+ * Formato: "id | tipo | valor | nome [| duracao]", tipo arma ou pocao
+ * (duracao: pocao que cura aos poucos, em ticks); '#' comenta.
+ * Os ids comecam em 0 e seguem sem buracos (viram ids do EntityRegistry).
+ * O arquivo padrao vem no classpath; -Drpg.itens=arquivo usa outro.
+ */
+public final class ItemCatalog {
+
+    public static final int SEM_ID = -1;
+
+    private static final String RECURSO = "itens.txt";
+
+    private final List<Item> itens;
+    private final Map<String, Item> porNome = new HashMap<>();
+    private final Map<Item, Integer> ids = new IdentityHashMap<>();
+
+    private ItemCatalog(List<Item> itens) {
+        this.itens = List.copyOf(itens);
+        for (int id = 0; id < itens.size(); id++) {
+            Item item = itens.get(id);
+            porNome.putIfAbsent(chave(item.getName()), item);
+            ids.put(item, id);
+        }
+    }
+
+    /** Catalogo do jogo, lido na primeira vez que e usado. */
+    public static ItemCatalog padrao() {
+        return Padrao.INSTANCIA;
+    }
+
+    private static final class Padrao {
+        static final ItemCatalog INSTANCIA = carregarPadrao();
+
+        private static ItemCatalog carregarPadrao() {
+            try {
+                String arquivo = System.getProperty("rpg.itens");
+                if (arquivo != null) {
+                    return ler(Path.of(arquivo));
+                }
+                try (InputStream in = ItemCatalog.class.getResourceAsStream(RECURSO)) {
+                    if (in == null) {
+                        throw new IOException("Catalogo de itens nao encontrado: " + RECURSO);
+                    }
+                    return ler(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // LEITURA
+    // -------------------------------------------------------------------------
+
+    public static ItemCatalog ler(Path arquivo) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8)) {
+            return ler(in);
+        }
+    }
+
+    public static ItemCatalog ler(BufferedReader in) throws IOException {
+        List<Item> itens = new ArrayList<>();
+        String linha;
+        int numero = 0;
+        while ((linha = in.readLine()) != null) {
+            numero++;
+            linha = linha.strip();
+            if (linha.isEmpty() || linha.startsWith("#")) continue;
+
+            String[] campos = linha.split("\\|", 5);
+            if (campos.length < 4) {
+                throw new IOException("Linha " + numero + ": esperado 'id | tipo | valor | nome [| duracao]'");
+            }
+            try {
+                int id = Integer.parseInt(campos[0].strip());
+                if (id != itens.size()) {
+                    throw new IOException("Linha " + numero + ": id " + id + " fora de ordem (esperado " + itens.size() + ")");
+                }
+                int valor = Integer.parseInt(campos[2].strip());
+                String nome = campos[3].strip();
+                int duracao = campos.length > 4 ? Integer.parseInt(campos[4].strip()) : 0;
+                itens.add(switch (campos[1].strip().toLowerCase(Locale.ROOT)) {
+                    case "arma" -> new Weapon(nome, valor);
+                    case "pocao" -> new Potion(nome, valor, duracao);
+                    default -> throw new IOException("Linha " + numero + ": tipo desconhecido: " + campos[1].strip());
+                });
+            } catch (NumberFormatException e) {
+                throw new IOException("Linha " + numero + ": numero invalido: " + e.getMessage());
+            }
+        }
+        return new ItemCatalog(itens);
+    }
+
+    // -------------------------------------------------------------------------
+    // CONSULTA
+    // -------------------------------------------------------------------------
+
+    /** Todos os prototipos, na ordem dos ids. */
+    public List<Item> getItens() { return itens; }
+
+    public int tamanho() { return itens.size(); }
+
+    /** Prototipo pelo id, ou null se o id nao existe. */
+    public Item item(int id) {
+        return (id >= 0 && id < itens.size()) ? itens.get(id) : null;
+    }
+
+    /** Prototipo pelo nome (sem diferenciar maiusculas), ou null. */
+    public Item porNome(String nome) {
+        return porNome.get(chave(nome));
+    }
+
+    public int idDe(Item item) {
+        Integer id = ids.get(item);
+        return id == null ? SEM_ID : id;
+    }
+
+    /** Arma do catalogo; o jogo nao funciona sem ela, entao falta e erro. */
+    public Weapon arma(String nome) {
+        if (porNome(nome) instanceof Weapon w) return w;
+        throw new IllegalStateException("Arma fora do catalogo de itens: " + nome);
+    }
+
+    public Potion pocao(String nome) {
+        if (porNome(nome) instanceof Potion p) return p;
+        throw new IllegalStateException("Pocao fora do catalogo de itens: " + nome);
+    }
+
+    /**
+     * O prototipo igual a 'item' (mesmo tipo, nome e valor), ou o proprio
+     * item se o catalogo nao tem um igual. Usado por quem le itens de
+     * arquivos que guardam os atributos (mundos gerados).
+     */
+    public Item canonico(Item item) {
+        Item prototipo = porNome(item.getName());
+        if (prototipo == null || prototipo.getClass() != item.getClass()) return item;
+        if (item instanceof Weapon w && w.getDamageBonus() == ((Weapon) prototipo).getDamageBonus()) return prototipo;
+        if (item instanceof Potion p && p.getHealAmount() == ((Potion) prototipo).getHealAmount()) return prototipo;
+        return item;
+    }
+
+    private static String chave(String nome) {
+        return nome.strip().toLowerCase(Locale.ROOT);
+    }
+}
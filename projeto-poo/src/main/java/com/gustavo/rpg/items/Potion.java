@@ -2,9 +2,19 @@ package com.gustavo.rpg.items;
 
 public class Potion extends Item {
     private final int healAmount;
+    private final int duracao; // em ticks do relogio do mundo; 0 = cura na hora
+
     public Potion(String name, int healAmount) {
+        this(name, healAmount, 0);
+    }
+
+    /** Pocao que cura 'healAmount' aos poucos, ao longo de 'duracao' ticks. */
+    public Potion(String name, int healAmount, int duracao) {
         super(name);
         this.healAmount = healAmount;
+        this.duracao = Math.max(0, duracao);
     }
+
     public int getHealAmount() { return healAmount; }
+    public int getDuracao() { return duracao; }
 }
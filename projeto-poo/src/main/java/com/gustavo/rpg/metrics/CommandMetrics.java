@@ -0,0 +1,69 @@
+package com.gustavo.rpg.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Metricas por verbo de todas as partidas do processo.
+ *
+ * Cada verbo ganha um {@link CommandStats} na primeira vez que e registrado
+ * e ele e publicado no MBeanServer da JVM como
+ * com.gustavo.rpg:type=Comando,name=VERBO. Comandos desconhecidos entram
+ * em {@link #DESCONHECIDO}.
+ *
+ * Com -Drpg.metricas=false nada e medido (Game nem chama nanoTime).
+ */
+public final class CommandMetrics {
+
+    public static final boolean ATIVO = !"false".equalsIgnoreCase(System.getProperty("rpg.metricas"));
+
+    public static final String DESCONHECIDO = "_desconhecido";
+
+    private static final Map<String, CommandStats> POR_VERBO = new ConcurrentHashMap<>();
+
+    private CommandMetrics() {}
+
+    /** Metricas do verbo (criadas e publicadas no JMX na primeira chamada). */
+    public static CommandStats doVerbo(String verbo) {
+        CommandStats stats = POR_VERBO.get(verbo);
+        return stats != null ? stats : POR_VERBO.computeIfAbsent(verbo, CommandMetrics::criar);
+    }
+
+    public static List<CommandStats> todos() {
+        List<CommandStats> lista = new ArrayList<>(POR_VERBO.values());
+        lista.sort((a, b) -> a.getVerbo().compareTo(b.getVerbo()));
+        return lista;
+    }
+
+    /** Tabela de texto com todos os verbos ja executados (tempos em us). */
+    public static String relatorio() {
+        StringBuilder sb = new StringBuilder(String.format("%-14s %9s %7s %9s %9s %9s %9s%n",
+                "verbo", "execucoes", "erros", "p50", "p99", "p999", "max"));
+        for (CommandStats stats : todos()) {
+            if (stats.getExecucoes() > 0) {
+                sb.append(stats).append(System.lineSeparator());
+            }
+        }
+        return sb.toString();
+    }
+
+    private static CommandStats criar(String verbo) {
+        CommandStats stats = new CommandStats(verbo);
+        try {
+            MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+            ObjectName nome = new ObjectName("com.gustavo.rpg:type=Comando,name=" + ObjectName.quote(verbo));
+            if (!servidor.isRegistered(nome)) {
+                servidor.registerMBean(stats, nome);
+            }
+        } catch (JMException | SecurityException e) {
+            // sem JMX as metricas continuam disponiveis por relatorio()
+        }
+        return stats;
+    }
+}
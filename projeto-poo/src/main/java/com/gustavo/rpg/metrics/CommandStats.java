@@ -0,0 +1,46 @@
+package com.gustavo.rpg.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/** Contadores e histograma de latencia de um verbo, somados entre todas as partidas. */
+public final class CommandStats implements CommandStatsMXBean {
+
+    private final String verbo;
+    private final LongAdder erros = new LongAdder();
+    private final LatencyHistogram latencias = new LatencyHistogram();
+
+    CommandStats(String verbo) {
+        this.verbo = verbo;
+    }
+
+    /** Uma execucao do comando; 'erro' = terminou com excecao do jogo. */
+    public void gravar(long nanos, boolean erro) {
+        latencias.gravar(nanos);
+        if (erro) {
+            erros.increment();
+        }
+    }
+
+    public LatencyHistogram getLatencias() { return latencias; }
+
+    @Override public String getVerbo() { return verbo; }
+    @Override public long getExecucoes() { return latencias.getTotal(); }
+    @Override public long getErros() { return erros.sum(); }
+    @Override public double getMediaMicros() { return latencias.getMedia() / 1e3; }
+    @Override public double getP50Micros() { return latencias.percentil(0.50) / 1e3; }
+    @Override public double getP99Micros() { return latencias.percentil(0.99) / 1e3; }
+    @Override public double getP999Micros() { return latencias.percentil(0.999) / 1e3; }
+    @Override public double getMaximoMicros() { return latencias.getMaximo() / 1e3; }
+
+    @Override
+    public void zerar() {
+        latencias.zerar();
+        erros.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-14s %9d %7d %9.1f %9.1f %9.1f %9.1f", verbo, getExecucoes(), getErros(),
+                getP50Micros(), getP99Micros(), getP999Micros(), getMaximoMicros());
+    }
+}
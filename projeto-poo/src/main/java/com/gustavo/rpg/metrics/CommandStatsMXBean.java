@@ -0,0 +1,24 @@
+package com.gustavo.rpg.metrics;
+
+/** Metricas de um verbo, como aparecem no JConsole/VisualVM. Tempos em microssegundos. */
+public interface CommandStatsMXBean {
+
+    String getVerbo();
+
+    long getExecucoes();
+
+    /** Execucoes que terminaram em erro do jogo (acao invalida, item nao encontrado, inventario cheio). */
+    long getErros();
+
+    double getMediaMicros();
+
+    double getP50Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    double getMaximoMicros();
+
+    void zerar();
+}
@@ -0,0 +1,92 @@
+package com.gustavo.rpg.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de latencias (em nanossegundos) com baldes log-lineares:
+ * cada potencia de 2 e dividida em 16 baldes, entao o erro de qualquer
+ * percentil fica abaixo de ~6%. Gravar e um incremento atomico num array
+ * fixo (sem alocacao); os percentis so sao calculados quando alguem le.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB = 1 << SUB_BITS;      // baldes por potencia de 2
+    private static final int MAX_EXPOENTE = 42;        // ~73 min; acima disso vai pro ultimo balde
+    private static final int BALDES = (MAX_EXPOENTE - SUB_BITS + 2) * SUB;
+
+    private final AtomicLongArray baldes = new AtomicLongArray(BALDES);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong soma = new AtomicLong();
+    private final AtomicLong maximo = new AtomicLong();
+
+    public void gravar(long nanos) {
+        if (nanos < 0) nanos = 0;
+        baldes.incrementAndGet(indice(nanos));
+        total.incrementAndGet();
+        soma.addAndGet(nanos);
+        long max = maximo.get();
+        while (nanos > max && !maximo.compareAndSet(max, nanos)) {
+            max = maximo.get();
+        }
+    }
+
+    public long getTotal() { return total.get(); }
+    public long getMaximo() { return maximo.get(); }
+
+    public double getMedia() {
+        long n = total.get();
+        return n == 0 ? 0.0 : soma.get() / (double) n;
+    }
+
+    /** Valor (ns) abaixo do qual ficam p (0..1) das gravacoes. */
+    public long percentil(double p) {
+        long[] copia = new long[BALDES];
+        long n = 0;
+        for (int i = 0; i < BALDES; i++) {
+            copia[i] = baldes.get(i);
+            n += copia[i];
+        }
+        if (n == 0) return 0;
+
+        long alvo = Math.max(1, (long) Math.ceil(p * n));
+        long acumulado = 0;
+        for (int i = 0; i < BALDES; i++) {
+            acumulado += copia[i];
+            if (acumulado >= alvo) {
+                return Math.min(limiteSuperior(i), maximo.get());
+            }
+        }
+        return maximo.get();
+    }
+
+    public void zerar() {
+        for (int i = 0; i < BALDES; i++) baldes.set(i, 0);
+        total.set(0);
+        soma.set(0);
+        maximo.set(0);
+    }
+
+    // -------------------------------------------------------------------------
+    // BALDES
+    // -------------------------------------------------------------------------
+
+    /** 0..15 ficam em baldes exatos; depois, 16 baldes por potencia de 2. */
+    static int indice(long v) {
+        if (v < SUB) return (int) v;
+        int expoente = 63 - Long.numberOfLeadingZeros(v);
+        if (expoente > MAX_EXPOENTE) return BALDES - 1;
+        int sub = (int) (v >>> (expoente - SUB_BITS)) & (SUB - 1);
+        return (expoente - SUB_BITS + 1) * SUB + sub;
+    }
+
+    /** Maior valor que cai no balde i. */
+    static long limiteSuperior(int i) {
+        if (i < SUB) return i;
+        int expoente = i / SUB + SUB_BITS - 1;
+        long sub = i % SUB;
+        long largura = 1L << (expoente - SUB_BITS);
+        return (1L << expoente) + (sub + 1) * largura - 1;
+    }
+}
@@ -0,0 +1,34 @@
+package com.gustavo.rpg.metrics;
+
+/** Cache de regioes de um mundo em arquivo, como aparece no JConsole/VisualVM. */
+public interface RegionCacheMXBean {
+
+    String getArquivo();
+
+    /** Consultas a um local cuja regiao ja estava carregada. */
+    long getAcertos();
+
+    /** Consultas que precisaram mapear e ler a regiao. */
+    long getFaltas();
+
+    double getTaxaAcerto();
+
+    /** Regioes tiradas do cache para caber no orcamento. */
+    long getDespejos();
+
+    /** Regioes alteradas gravadas no arquivo de estado (antes de sair do cache ou no fechamento). */
+    long getGravacoes();
+
+    long getFalhasGravacao();
+
+    int getRegioesCarregadas();
+
+    /** Regioes com alguma sessao dentro (nao saem do cache). */
+    int getRegioesOcupadas();
+
+    long getBytesCarregados();
+
+    long getOrcamentoBytes();
+
+    void setOrcamentoBytes(long bytes);
+}
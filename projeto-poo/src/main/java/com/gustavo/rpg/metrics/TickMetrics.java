@@ -0,0 +1,33 @@
+package com.gustavo.rpg.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tempo dos ticks do relogio do mundo (WorldClock), somando todas as
+ * partidas do processo: quanto cada tick levou e quantos timers disparou.
+ * Desligado junto com as metricas de comando (-Drpg.metricas=false).
+ */
+public final class TickMetrics {
+
+    public static final boolean ATIVO = CommandMetrics.ATIVO;
+
+    private static final LatencyHistogram TICKS = new LatencyHistogram();
+    private static final LongAdder DISPAROS = new LongAdder();
+
+    private TickMetrics() {}
+
+    public static void gravar(long nanos, int disparos) {
+        TICKS.gravar(nanos);
+        DISPAROS.add(disparos);
+    }
+
+    public static LatencyHistogram getTicks() { return TICKS; }
+    public static long getDisparos() { return DISPAROS.sum(); }
+
+    /** Uma linha de texto (tempos em us), como o relatorio de comandos. */
+    public static String relatorio() {
+        return String.format("ticks: %d, timers disparados: %d, p50 %.1f us, p99 %.1f us, max %.1f us%n",
+                TICKS.getTotal(), getDisparos(), TICKS.percentil(0.50) / 1e3,
+                TICKS.percentil(0.99) / 1e3, TICKS.getMaximo() / 1e3);
+    }
+}
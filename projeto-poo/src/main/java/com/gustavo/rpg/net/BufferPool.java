@@ -0,0 +1,47 @@
+package com.gustavo.rpg.net;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * Pool de ByteBuffers diretos do mesmo tamanho.
+ *
+ * Buffer direto e caro de criar e vai para o socket sem copia extra, entao
+ * as conexoes pegam um daqui so enquanto tem texto para mandar e devolvem
+ * quando o socket aceitou tudo: conexao ociosa nao segura buffer nenhum.
+ * O pool guarda no maximo 'maximoLivres'; o que passar disso vira lixo.
+ */
+public final class BufferPool {
+
+    private final int tamanhoBuffer;
+    private final int maximoLivres;
+    private final ArrayDeque<ByteBuffer> livres = new ArrayDeque<>();
+    private long criados;
+
+    public BufferPool(int tamanhoBuffer, int maximoLivres) {
+        this.tamanhoBuffer = tamanhoBuffer;
+        this.maximoLivres = maximoLivres;
+    }
+
+    public int getTamanhoBuffer() { return tamanhoBuffer; }
+
+    /** Buffer limpo (posicao 0, limite = capacidade). */
+    public synchronized ByteBuffer pegar() {
+        ByteBuffer b = livres.pollLast();
+        if (b == null) {
+            criados++;
+            return ByteBuffer.allocateDirect(tamanhoBuffer);
+        }
+        return b;
+    }
+
+    public synchronized void devolver(ByteBuffer b) {
+        if (livres.size() < maximoLivres) {
+            b.clear();
+            livres.addLast(b);
+        }
+    }
+
+    public synchronized int getLivres() { return livres.size(); }
+    public synchronized long getCriados() { return criados; }
+}
@@ -0,0 +1,229 @@
+package com.gustavo.rpg.net;
+
+import com.gustavo.rpg.core.GameOutput;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+
+/**
+ * Um cliente do TelnetServer.
+ *
+ * Entrada: so a thread do selector mexe. Os bytes viram linhas (\n ou
+ * \r\n); negociacao telnet (IAC ...) e descartada e linha maior que
+ * LINHA_MAXIMA e jogada fora inteira.
+ *
+ * Saida: o Game escreve aqui da thread do pool de sessoes. O texto vai
+ * para buffers diretos do BufferPool, numa fila protegida por 'this'; o
+ * selector manda para o socket quando ele aceita. Os bytes na fila sao a
+ * medida de cliente lento: o servidor para de ler comandos dele acima de
+ * PAUSAR e derruba a conexao se passar de MAXIMO.
+ */
+final class Conexao implements GameOutput {
+
+    static final int LINHA_MAXIMA = 1024;
+
+    private static final byte IAC = (byte) 0xFF;
+    private static final byte[] FIM_DE_LINHA = { '\r', '\n' };
+
+    private final TelnetServer servidor;
+    private final BufferPool pool;
+    final SocketChannel canal;
+    SelectionKey chave;
+
+    // entrada (thread do selector)
+    private byte[] linha;        // null enquanto nao ha linha pela metade
+    private int tamanhoLinha;
+    private int pularIac;        // bytes de negociacao telnet que faltam pular
+    private boolean descartando; // linha grande demais: ignora ate o fim dela
+    private byte[] sobra;        // lido mas nao consumido quando o servidor pausou a conexao
+    String nome;                 // login: nome ja digitado, falta a classe
+    long sessaoId;               // 0 = ainda no login
+
+    // saida (protegida por this)
+    private final ArrayDeque<ByteBuffer> saida = new ArrayDeque<>(); // buffers em modo de escrita
+    private int pendentes;       // bytes na fila
+    private boolean naFila;      // ja esta na fila de escrita do servidor
+    private boolean fecharDepois;
+    private boolean fechada;
+    private boolean lenta;
+
+    Conexao(TelnetServer servidor, BufferPool pool, SocketChannel canal) {
+        this.servidor = servidor;
+        this.pool = pool;
+        this.canal = canal;
+    }
+
+    // -------------------------------------------------------------------------
+    // ENTRADA
+    // -------------------------------------------------------------------------
+
+    /**
+     * Consome os bytes lidos; cada linha completa vai para o servidor. Se
+     * o servidor pausar a conexao no meio, o resto fica guardado ate
+     * retomar().
+     */
+    void receber(ByteBuffer in) {
+        while (in.hasRemaining()) {
+            byte b = in.get();
+            if (pularIac > 0) {
+                pularIac--;
+                // IAC WILL/WONT/DO/DONT tem mais um byte; os outros comandos nao
+                if (pularIac == 1 && (b < (byte) 0xFB || b > (byte) 0xFE)) pularIac = 0;
+                continue;
+            }
+            if (b == IAC) {
+                pularIac = 2;
+                continue;
+            }
+            if (b == '\n') {
+                if (!descartando) {
+                    int fim = tamanhoLinha;
+                    if (fim > 0 && linha[fim - 1] == '\r') fim--;
+                    String texto = fim == 0 ? "" : new String(linha, 0, fim, StandardCharsets.UTF_8);
+                    tamanhoLinha = 0;
+                    if (!servidor.linhaRecebida(this, texto)) {
+                        sobra = new byte[in.remaining()];
+                        in.get(sobra);
+                        break;
+                    }
+                }
+                descartando = false;
+                tamanhoLinha = 0;
+                continue;
+            }
+            if (descartando) continue;
+            if (tamanhoLinha == LINHA_MAXIMA) {
+                descartando = true;
+                tamanhoLinha = 0;
+                continue;
+            }
+            if (linha == null) linha = new byte[LINHA_MAXIMA];
+            linha[tamanhoLinha++] = b;
+        }
+        if (tamanhoLinha == 0) linha = null; // ociosa nao segura o array
+    }
+
+    /** Saiu da pausa: consome o que tinha ficado guardado. */
+    void retomar() {
+        if (sobra != null) {
+            ByteBuffer guardado = ByteBuffer.wrap(sobra);
+            sobra = null;
+            receber(guardado);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // SAIDA (GameOutput)
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void println(String s) {
+        escrever(s, true);
+    }
+
+    @Override
+    public void print(String s) {
+        escrever(s, false);
+    }
+
+    private void escrever(String s, boolean novaLinha) {
+        boolean avisar;
+        synchronized (this) {
+            if (fechada || fecharDepois) return;
+            int antes = pendentes;
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c == '\n') {
+                    colocar(FIM_DE_LINHA); // telnet quer \r\n
+                } else if (c < 0x80) {
+                    colocar((byte) c);
+                } else {
+                    int fim = (Character.isHighSurrogate(c) && i + 1 < s.length()) ? i + 2 : i + 1;
+                    colocar(s.substring(i, fim).getBytes(StandardCharsets.UTF_8));
+                    i = fim - 1;
+                }
+            }
+            if (novaLinha) colocar(FIM_DE_LINHA);
+            if (pendentes > TelnetServer.MAXIMO && antes <= TelnetServer.MAXIMO) {
+                // nao esta lendo: joga fora o que nao foi e fecha
+                lenta = true;
+                fecharDepois = true;
+                liberarBuffers();
+            }
+            avisar = !naFila;
+            naFila = true;
+        }
+        if (avisar) servidor.querEscrever(this);
+    }
+
+    private void colocar(byte b) {
+        ByteBuffer fim = saida.peekLast();
+        if (fim == null || !fim.hasRemaining()) {
+            fim = pool.pegar();
+            saida.addLast(fim);
+        }
+        fim.put(b);
+        pendentes++;
+    }
+
+    private void colocar(byte[] bytes) {
+        for (byte b : bytes) colocar(b);
+    }
+
+    // -------------------------------------------------------------------------
+    // USO DO SELECTOR
+    // -------------------------------------------------------------------------
+
+    /**
+     * Manda o que o socket aceitar. Retorna true se a fila esvaziou
+     * (buffers voltam para o pool), false se o socket encheu.
+     */
+    synchronized boolean enviar() throws IOException {
+        naFila = false;
+        while (!saida.isEmpty()) {
+            ByteBuffer b = saida.peekFirst();
+            b.flip();
+            pendentes -= canal.write(b);
+            if (b.hasRemaining()) {
+                b.compact(); // volta a modo de escrita com o resto no comeco
+                return false;
+            }
+            pool.devolver(saida.pollFirst());
+        }
+        return true;
+    }
+
+    synchronized int getPendentes() { return pendentes; }
+
+    synchronized boolean isLenta() { return lenta; }
+
+    /** Fechar quando o que ja esta na fila for enviado (ex: fim da sessao). */
+    void fecharDepoisDeEnviar() {
+        boolean avisar;
+        synchronized (this) {
+            if (fechada) return;
+            fecharDepois = true;
+            avisar = !naFila;
+            naFila = true;
+        }
+        if (avisar) servidor.querEscrever(this);
+    }
+
+    synchronized boolean isFecharDepois() { return fecharDepois; }
+
+    /** Conexao fechada: nada mais entra na fila; buffers voltam para o pool. */
+    synchronized void marcarFechada() {
+        fechada = true;
+        liberarBuffers();
+    }
+
+    private void liberarBuffers() {
+        ByteBuffer b;
+        while ((b = saida.pollFirst()) != null) pool.devolver(b);
+        pendentes = 0;
+    }
+}
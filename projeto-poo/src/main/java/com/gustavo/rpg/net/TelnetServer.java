@@ -0,0 +1,316 @@
+package com.gustavo.rpg.net;
+
+import com.gustavo.rpg.core.Game;
+import com.gustavo.rpg.core.GameSession;
+import com.gustavo.rpg.core.SessionManager;
+import com.gustavo.rpg.core.World;
+import com.gustavo.rpg.core.WorldTemplate;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Servidor de linhas (telnet) para jogar pela rede.
+ *
+ * Uma thread com um Selector cuida de todos os sockets sem bloquear:
+ * aceita, le linhas e escreve a saida. Cada conexao, depois do login
+ * (nome e classe), vira uma GameSession do SessionManager: as linhas vao
+ * para a fila da sessao (enviar) e o Game roda no pool do manager,
+ * escrevendo direto na Conexao, que e o GameOutput dela. Conexao ociosa
+ * nao usa thread nem buffer.
+ *
+ * Cliente lento: com mais de PAUSAR bytes esperando o socket, ou mais de
+ * FILA_MAXIMA comandos esperando a sessao, o servidor para de ler aquele
+ * socket (o TCP segura o cliente) ate a saida baixar de RETOMAR. Passou
+ * de MAXIMO, a conexao cai.
+ *
+ * Uso: TelnetServer [porta] [--compartilhado] [--threads n]
+ * (padrao: 4000; --compartilhado poe todos no mesmo World)
+ */
+public final class TelnetServer implements AutoCloseable {
+
+    public static final int PORTA_PADRAO = 4000;
+
+    static final int PAUSAR = 32 * 1024;
+    static final int RETOMAR = 8 * 1024;
+    static final int MAXIMO = 256 * 1024;
+    static final int FILA_MAXIMA = 64;
+
+    private static final int TAMANHO_BUFFER = 4096;
+
+    private final SessionManager sessoes;
+    private final WorldTemplate mapa;
+    private final World compartilhado; // null = um mundo por jogador
+    private final BufferPool pool = new BufferPool(TAMANHO_BUFFER, 4096);
+    private final ByteBuffer leitura = ByteBuffer.allocateDirect(8192); // so o selector usa
+
+    private final Selector selector;
+    private final ServerSocketChannel servidor;
+    private final ConcurrentLinkedQueue<Conexao> paraEscrever = new ConcurrentLinkedQueue<>();
+    private final Map<Long, Conexao> porSessao = new ConcurrentHashMap<>();
+    private final Set<Conexao> pausadas = new HashSet<>(); // so o selector usa
+    private volatile boolean rodando = true;
+
+    private volatile int abertas;
+    private final LongAdder aceitas = new LongAdder();
+    private final LongAdder lentas = new LongAdder();
+    private final LongAdder pausas = new LongAdder();
+
+    public TelnetServer(int porta, SessionManager sessoes, WorldTemplate mapa, boolean mundoCompartilhado)
+            throws IOException {
+        this.sessoes = sessoes;
+        this.mapa = mapa;
+        this.compartilhado = mundoCompartilhado ? World.compartilhado(mapa) : null;
+        this.selector = Selector.open();
+        this.servidor = ServerSocketChannel.open();
+        servidor.bind(new InetSocketAddress(porta), 4096);
+        servidor.configureBlocking(false);
+        servidor.register(selector, SelectionKey.OP_ACCEPT);
+
+        // sessao que terminou (comando sair) fecha a conexao depois de mandar o resto
+        sessoes.setAoEncerrar(sessao -> {
+            Conexao c = porSessao.remove(sessao.getId());
+            if (c != null) c.fecharDepoisDeEnviar();
+        });
+    }
+
+    public int getPorta() { return servidor.socket().getLocalPort(); }
+    public int getConexoesAbertas() { return abertas; }
+    public long getConexoesAceitas() { return aceitas.sum(); }
+    public long getClientesLentos() { return lentas.sum(); }
+    public long getPausas() { return pausas.sum(); }
+    public BufferPool getPool() { return pool; }
+
+    // -------------------------------------------------------------------------
+    // LOOP DO SELECTOR
+    // -------------------------------------------------------------------------
+
+    /** Roda na thread de quem chamou ate close(). */
+    public void rodar() throws IOException {
+        while (rodando) {
+            selector.select(this::pronta, 100);
+            Conexao c;
+            while ((c = paraEscrever.poll()) != null) {
+                escrever(c);
+            }
+            verificarPausadas();
+        }
+        fecharTudo();
+    }
+
+    private void pronta(SelectionKey chave) {
+        if (!chave.isValid()) return;
+        if (chave.isAcceptable()) {
+            aceitar();
+            return;
+        }
+        Conexao c = (Conexao) chave.attachment();
+        if (chave.isReadable()) ler(c);
+        if (chave.isValid() && chave.isWritable()) escrever(c);
+    }
+
+    private void aceitar() {
+        try {
+            SocketChannel canal;
+            while ((canal = servidor.accept()) != null) {
+                canal.configureBlocking(false);
+                canal.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                Conexao c = new Conexao(this, pool, canal);
+                c.chave = canal.register(selector, SelectionKey.OP_READ, c);
+                abertas++;
+                aceitas.increment();
+                c.print("Nome do jogador: ");
+            }
+        } catch (IOException e) {
+            // limite de arquivos abertos etc.: tenta de novo no proximo select
+            System.err.println("Erro aceitando conexao: " + e.getMessage());
+        }
+    }
+
+    private void ler(Conexao c) {
+        try {
+            leitura.clear();
+            int n = c.canal.read(leitura);
+            if (n < 0) {
+                fechar(c);
+                return;
+            }
+            leitura.flip();
+            c.receber(leitura);
+        } catch (IOException e) {
+            fechar(c);
+        }
+    }
+
+    private void escrever(Conexao c) {
+        if (!c.chave.isValid()) return;
+        try {
+            boolean vazia = c.enviar();
+            if (vazia && c.isFecharDepois()) {
+                if (c.isLenta()) lentas.increment();
+                fechar(c);
+                return;
+            }
+            int ops = c.chave.interestOps();
+            c.chave.interestOps(vazia ? ops & ~SelectionKey.OP_WRITE : ops | SelectionKey.OP_WRITE);
+            if (c.getPendentes() > PAUSAR) pausar(c);
+        } catch (IOException e) {
+            fechar(c);
+        }
+    }
+
+    /** Chamado pela Conexao (qualquer thread) quando a fila de saida deixa de estar vazia. */
+    void querEscrever(Conexao c) {
+        paraEscrever.add(c);
+        selector.wakeup();
+    }
+
+    // -------------------------------------------------------------------------
+    // LOGIN E COMANDOS
+    // -------------------------------------------------------------------------
+
+    /** Uma linha do cliente. false = conexao pausada, pare de entregar linhas. */
+    boolean linhaRecebida(Conexao c, String linha) {
+        if (c.sessaoId != 0) {
+            if (!sessoes.enviar(c.sessaoId, linha)) {
+                c.fecharDepoisDeEnviar();
+                return false;
+            }
+            GameSession sessao = sessoes.getSessao(c.sessaoId);
+            if (sessao != null && sessao.getPendentes() >= FILA_MAXIMA) pausar(c);
+            return !pausadas.contains(c);
+        }
+
+        if (c.nome == null) {
+            c.nome = linha.isBlank() ? "Aventureiro" : linha.strip();
+            c.print("Classe (guerreiro, mago, arqueiro): ");
+            return true;
+        }
+
+        String classe = linha.strip().toLowerCase(Locale.ROOT);
+        Game game = (compartilhado != null)
+                ? new Game(c.nome, classe, c, compartilhado)
+                : new Game(c.nome, classe, c, mapa);
+        GameSession sessao = sessoes.registrar(game);
+        c.sessaoId = sessao.getId();
+        porSessao.put(sessao.getId(), c);
+        return true;
+    }
+
+    // -------------------------------------------------------------------------
+    // BACKPRESSURE
+    // -------------------------------------------------------------------------
+
+    private void pausar(Conexao c) {
+        if (c.chave.isValid() && pausadas.add(c)) {
+            c.chave.interestOps(c.chave.interestOps() & ~SelectionKey.OP_READ);
+            pausas.increment();
+        }
+    }
+
+    private void verificarPausadas() {
+        if (pausadas.isEmpty()) return;
+        List<Conexao> liberadas = new ArrayList<>();
+        for (Conexao c : pausadas) {
+            GameSession sessao = c.sessaoId != 0 ? sessoes.getSessao(c.sessaoId) : null;
+            int fila = sessao != null ? sessao.getPendentes() : 0;
+            if (c.getPendentes() <= RETOMAR && fila < FILA_MAXIMA / 2) liberadas.add(c);
+        }
+        for (Conexao c : liberadas) {
+            pausadas.remove(c);
+            c.retomar(); // linhas que ja tinham sido lidas (pode pausar de novo)
+            if (c.chave.isValid() && !pausadas.contains(c)) {
+                c.chave.interestOps(c.chave.interestOps() | SelectionKey.OP_READ);
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // FIM
+    // -------------------------------------------------------------------------
+
+    private void fechar(Conexao c) {
+        if (!c.chave.isValid()) return;
+        c.chave.cancel();
+        try {
+            c.canal.close();
+        } catch (IOException e) {
+            // ja estava fechado
+        }
+        c.marcarFechada();
+        pausadas.remove(c);
+        abertas--;
+        if (c.sessaoId != 0 && porSessao.remove(c.sessaoId) != null) {
+            sessoes.encerrar(c.sessaoId);
+        }
+    }
+
+    private void fecharTudo() throws IOException {
+        for (SelectionKey chave : selector.keys()) {
+            if (chave.attachment() instanceof Conexao c) fechar(c);
+        }
+        servidor.close();
+        selector.close();
+    }
+
+    @Override
+    public void close() {
+        rodando = false;
+        selector.wakeup();
+    }
+
+    // -------------------------------------------------------------------------
+    // LINHA DE COMANDO
+    // -------------------------------------------------------------------------
+
+    public static void main(String[] args) throws IOException {
+        int porta = PORTA_PADRAO;
+        boolean mundoCompartilhado = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--compartilhado" -> mundoCompartilhado = true;
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                default -> porta = Integer.parseInt(args[i]);
+            }
+        }
+
+        SessionManager sessoes = new SessionManager(threads);
+        TelnetServer servidor = new TelnetServer(porta, sessoes, WorldTemplate.padrao(), mundoCompartilhado);
+        Thread status = new Thread(() -> {
+            while (true) {
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                Runtime rt = Runtime.getRuntime();
+                System.out.printf("conexoes=%d sessoes=%d comandos=%d (%.0f/s) lentos=%d pausas=%d buffers=%d heap=%d MB%n",
+                        servidor.getConexoesAbertas(), sessoes.getSessoesAtivas(), sessoes.getComandosProcessados(),
+                        sessoes.getComandosPorSegundo(), servidor.getClientesLentos(), servidor.getPausas(),
+                        servidor.getPool().getCriados(), (rt.totalMemory() - rt.freeMemory()) >> 20);
+            }
+        }, "telnet-status");
+        status.setDaemon(true);
+        status.start();
+
+        System.out.println("Servidor telnet na porta " + servidor.getPorta()
+                + (mundoCompartilhado ? " (mundo compartilhado)" : ""));
+        servidor.rodar();
+    }
+}
@@ -0,0 +1,369 @@
+package com.gustavo.rpg.save;
+
+import com.gustavo.rpg.exceptions.InvalidSaveException;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Formato binario dos saves.
+ *
+ * <pre>
+ * magic "RPGS" | versao (u16) | campos... | FIM | crc32 (u32)
+ * campo = tag (varint) | tamanho (varint) | bytes
+ * </pre>
+ *
+ * Cada campo tem tamanho, entao um leitor antigo pula tags que nao conhece.
+ * Itens do inventario e locais alterados sao campos repetidos, gravados um
+ * a um sem montar o arquivo inteiro na memoria. O CRC cobre tudo antes dele.
+ *
+ * Versao 2: locais, itens e NPCs vao pelo id do registro do mapa (varint);
+ * os campos por nome da versao 1 continuam sendo lidos e sao usados para
+ * itens que nao estao no registro. TIMER (fotos do diario de comandos) e
+ * um campo a mais que leitores antigos pulam.
+ */
+public final class BinarySaveCodec {
+
+    public static final byte[] MAGIC = { 'R', 'P', 'G', 'S' };
+    public static final int VERSAO = 2;
+
+    /** Maior campo aceito na leitura; tamanho acima disso e save corrompido, nao um campo de verdade. */
+    private static final int CAMPO_MAXIMO = 1 << 20;
+
+    // tags de topo
+    private static final int FIM = 0;
+    private static final int NOME = 1;
+    private static final int CLASSE = 2;
+    private static final int HP = 3;
+    private static final int LOCAL = 4;
+    private static final int ARMA = 5;
+    private static final int ITEM = 6;
+    private static final int LOCAL_ALTERADO = 7;
+    private static final int LOCAL_ID = 8;
+    private static final int ARMA_ID = 9;
+    private static final int ITEM_ID = 10;
+    private static final int TIMER = 11;
+
+    // tags dentro de LOCAL_ALTERADO
+    private static final int CHAVE = 1;
+    private static final int NPC = 2;
+    private static final int ITEM_CHAO = 3;
+    private static final int ID = 4;
+    private static final int NPC_ID = 5;
+    private static final int ITEM_CHAO_ID = 6;
+
+    private BinarySaveCodec() {}
+
+    /** true se os bytes comecam com o magic do formato binario. */
+    public static boolean isBinario(byte[] inicio) {
+        if (inicio.length < MAGIC.length) return false;
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (inicio[i] != MAGIC[i]) return false;
+        }
+        return true;
+    }
+
+    // -------------------------------------------------------------------------
+    // ENCODER
+    // -------------------------------------------------------------------------
+
+    public static void encode(SaveData data, OutputStream destino) throws IOException {
+        CRC32 crc = new CRC32();
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new CheckedOutputStream(destino, crc), 8192));
+
+        out.write(MAGIC);
+        out.writeShort(VERSAO);
+
+        writeString(out, NOME, data.getName());
+        writeString(out, CLASSE, data.getPlayerClass());
+        writeInt(out, HP, data.getHp());
+        if (data.getLocalKey() != null) {
+            writeString(out, LOCAL, data.getLocalKey()); // o catalogo mostra a chave
+        }
+        if (data.getLocalId() != SaveData.SEM_ID) {
+            writeId(out, LOCAL_ID, data.getLocalId());
+        }
+        if (data.getWeapon() != null) {
+            writeItem(out, ARMA_ID, ARMA, data.getWeapon());
+        }
+        for (SaveData.ItemSalvo item : data.getInventory()) {
+            writeItem(out, ITEM_ID, ITEM, item);
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+        DataOutputStream local = new DataOutputStream(buffer);
+        for (SaveData.LocalSalvo salvo : data.getLocais()) {
+            buffer.reset();
+            if (salvo.getLocalId() != SaveData.SEM_ID) {
+                writeId(local, ID, salvo.getLocalId());
+            } else {
+                writeString(local, CHAVE, salvo.getKey());
+            }
+            for (SaveData.NpcSalva npc : salvo.getNpcs()) {
+                if (npc.getId() != SaveData.SEM_ID) {
+                    writeVarInt(local, NPC_ID);
+                    writeVarInt(local, tamanhoVarInt(npc.getId()) + 4);
+                    writeVarInt(local, npc.getId());
+                    local.writeInt(npc.getHp());
+                } else {
+                    byte[] nome = npc.getName().getBytes(StandardCharsets.UTF_8);
+                    writeVarInt(local, NPC);
+                    writeVarInt(local, 4 + nome.length);
+                    local.writeInt(npc.getHp());
+                    local.write(nome);
+                }
+            }
+            for (SaveData.ItemSalvo item : salvo.getGroundItems()) {
+                writeItem(local, ITEM_CHAO_ID, ITEM_CHAO, item);
+            }
+            local.flush();
+            writeVarInt(out, LOCAL_ALTERADO);
+            writeVarInt(out, buffer.size());
+            buffer.writeTo(out);
+        }
+        for (SaveData.TimerSalvo timer : data.getTimers()) {
+            buffer.reset();
+            writeVarInt(local, timer.getTipo());
+            writeVarInt(local, timer.getFaltam());
+            writeVarInt(local, timer.getLocal());
+            writeVarInt(local, timer.getAlvo());
+            writeVarInt(local, timer.getValor());
+            local.flush();
+            writeVarInt(out, TIMER);
+            writeVarInt(out, buffer.size());
+            buffer.writeTo(out);
+        }
+
+        writeVarInt(out, FIM);
+        out.flush();
+
+        // o CRC nao entra na propria conta: escreve direto no destino
+        int valor = (int) crc.getValue();
+        destino.write(valor >>> 24);
+        destino.write(valor >>> 16);
+        destino.write(valor >>> 8);
+        destino.write(valor);
+        destino.flush();
+    }
+
+    public static byte[] encode(SaveData data) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try {
+            encode(data, bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // nao acontece em memoria
+        }
+        return bytes.toByteArray();
+    }
+
+    // -------------------------------------------------------------------------
+    // DECODER
+    // -------------------------------------------------------------------------
+
+    public static SaveData decode(InputStream origem) throws IOException {
+        CRC32 crc = new CRC32();
+        DataInputStream in = new DataInputStream(new CheckedInputStream(origem, crc));
+
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!isBinario(magic)) {
+            throw new InvalidSaveException("Arquivo nao e um save binario.");
+        }
+        int versao = in.readUnsignedShort();
+        if (versao > VERSAO) {
+            throw new InvalidSaveException("Versao de save nao suportada: " + versao);
+        }
+
+        String name = null;
+        String playerClass = "guerreiro";
+        int hp = -1;
+        int localId = SaveData.SEM_ID;
+        String localKey = "vila";
+        SaveData.ItemSalvo arma = null;
+        List<SaveData.ItemSalvo> inventario = new ArrayList<>();
+        List<SaveData.LocalSalvo> locais = new ArrayList<>();
+        List<SaveData.TimerSalvo> timers = new ArrayList<>();
+
+        int tag;
+        while ((tag = readVarInt(in)) != FIM) {
+            int tamanho = readVarInt(in);
+            switch (tag) {
+                case NOME -> name = readString(in, tamanho);
+                case CLASSE -> playerClass = readString(in, tamanho);
+                case HP -> hp = readInt(in, tamanho);
+                case LOCAL -> localKey = readString(in, tamanho);
+                case LOCAL_ID -> localId = readId(in, tamanho);
+                case ARMA -> arma = SaveData.ItemSalvo.porNome(readString(in, tamanho));
+                case ARMA_ID -> arma = SaveData.ItemSalvo.porId(readId(in, tamanho));
+                case ITEM -> inventario.add(SaveData.ItemSalvo.porNome(readString(in, tamanho)));
+                case ITEM_ID -> inventario.add(SaveData.ItemSalvo.porId(readId(in, tamanho)));
+                case LOCAL_ALTERADO -> locais.add(readLocal(in, tamanho));
+                case TIMER -> timers.add(readTimer(in, tamanho));
+                default -> skip(in, tamanho); // campo de versao mais nova
+            }
+        }
+
+        long esperado = crc.getValue();
+        long gravado = new DataInputStream(origem).readInt() & 0xFFFFFFFFL;
+        if (esperado != gravado) {
+            throw new InvalidSaveException("Save corrompido (checksum invalido).");
+        }
+        if (name == null || hp < 0) {
+            throw new InvalidSaveException("Save incompleto: faltam nome ou HP.");
+        }
+
+        return new SaveData(name, playerClass, hp, localId, localKey, arma, inventario, locais, timers);
+    }
+
+    public static SaveData decode(byte[] bytes) throws IOException {
+        return decode(new ByteArrayInputStream(bytes));
+    }
+
+    private static SaveData.LocalSalvo readLocal(DataInputStream in, int tamanho) throws IOException {
+        DataInputStream local = readCampo(in, tamanho);
+
+        int id = SaveData.SEM_ID;
+        String key = null;
+        List<SaveData.NpcSalva> npcs = new ArrayList<>();
+        List<SaveData.ItemSalvo> itens = new ArrayList<>();
+        while (local.available() > 0) {
+            int tag = readVarInt(local);
+            int len = readVarInt(local);
+            switch (tag) {
+                case ID -> id = readId(local, len);
+                case CHAVE -> key = readString(local, len);
+                case NPC -> {
+                    int hp = local.readInt();
+                    npcs.add(new SaveData.NpcSalva(SaveData.SEM_ID, readString(local, len - 4), hp));
+                }
+                case NPC_ID -> {
+                    DataInputStream campo = readCampo(local, len);
+                    int npc = readVarInt(campo);
+                    npcs.add(new SaveData.NpcSalva(npc, null, campo.readInt()));
+                }
+                case ITEM_CHAO -> itens.add(SaveData.ItemSalvo.porNome(readString(local, len)));
+                case ITEM_CHAO_ID -> itens.add(SaveData.ItemSalvo.porId(readId(local, len)));
+                default -> skip(local, len);
+            }
+        }
+        if (key == null && id == SaveData.SEM_ID) {
+            throw new InvalidSaveException("Local alterado sem chave.");
+        }
+        return new SaveData.LocalSalvo(id, key, npcs, itens);
+    }
+
+    private static SaveData.TimerSalvo readTimer(DataInputStream in, int tamanho) throws IOException {
+        DataInputStream timer = readCampo(in, tamanho);
+        return new SaveData.TimerSalvo(readVarInt(timer), readVarInt(timer), readVarInt(timer),
+                readVarInt(timer), readVarInt(timer));
+    }
+
+    // -------------------------------------------------------------------------
+    // PRIMITIVAS
+    // -------------------------------------------------------------------------
+
+    private static void writeString(DataOutputStream out, int tag, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, tag);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeInt(DataOutputStream out, int tag, int valor) throws IOException {
+        writeVarInt(out, tag);
+        writeVarInt(out, 4);
+        out.writeInt(valor);
+    }
+
+    /** Item pelo id, ou pelo nome se nao esta no registro. */
+    private static void writeItem(DataOutputStream out, int tagId, int tagNome, SaveData.ItemSalvo item)
+            throws IOException {
+        if (item.getId() != SaveData.SEM_ID) {
+            writeId(out, tagId, item.getId());
+        } else {
+            writeString(out, tagNome, item.getName());
+        }
+    }
+
+    private static void writeId(DataOutputStream out, int tag, int id) throws IOException {
+        writeVarInt(out, tag);
+        writeVarInt(out, tamanhoVarInt(id));
+        writeVarInt(out, id);
+    }
+
+    private static int tamanhoVarInt(int valor) {
+        int bytes = 1;
+        while ((valor & ~0x7F) != 0) {
+            valor >>>= 7;
+            bytes++;
+        }
+        return bytes;
+    }
+
+    private static void writeVarInt(DataOutputStream out, int valor) throws IOException {
+        while ((valor & ~0x7F) != 0) {
+            out.writeByte((valor & 0x7F) | 0x80);
+            valor >>>= 7;
+        }
+        out.writeByte(valor);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int valor = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            valor |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return valor;
+        }
+        throw new InvalidSaveException("Varint invalido.");
+    }
+
+    private static String readString(DataInputStream in, int tamanho) throws IOException {
+        return new String(readBytes(in, tamanho), StandardCharsets.UTF_8);
+    }
+
+    private static int readInt(DataInputStream in, int tamanho) throws IOException {
+        if (tamanho != 4) {
+            throw new InvalidSaveException("Campo inteiro com tamanho " + tamanho);
+        }
+        return in.readInt();
+    }
+
+    /**
+     * Id (varint) de um campo com 'tamanho' bytes. O campo inteiro e lido:
+     * se uma versao mais nova gravar algo depois do id, o resto do arquivo
+     * continua alinhado.
+     */
+    private static int readId(DataInputStream in, int tamanho) throws IOException {
+        return readVarInt(readCampo(in, tamanho));
+    }
+
+    /** Leitor so dos 'tamanho' bytes do campo. */
+    private static DataInputStream readCampo(DataInputStream in, int tamanho) throws IOException {
+        return new DataInputStream(new ByteArrayInputStream(readBytes(in, tamanho)));
+    }
+
+    private static void skip(DataInputStream in, int tamanho) throws IOException {
+        readBytes(in, tamanho);
+    }
+
+    /**
+     * Os bytes de um campo. O tamanho vem do arquivo: num save corrompido
+     * pode ser negativo ou enorme, e vira InvalidSaveException antes de
+     * alocar qualquer coisa.
+     */
+    private static byte[] readBytes(DataInputStream in, int tamanho) throws IOException {
+        if (tamanho < 0 || tamanho > CAMPO_MAXIMO) {
+            throw new InvalidSaveException("Tamanho de campo invalido: " + tamanho);
+        }
+        byte[] bytes = new byte[tamanho];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,701 @@
+package com.gustavo.rpg.save;
+
+import com.gustavo.rpg.exceptions.InvalidSaveException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Diario de comandos: persistencia por eventos das partidas.
+ *
+ * Cada comando que muda o estado vira um registro pequeno (linha + dados
+ * sorteados) anexado ao fim de um log; nada e reescrito. Todas as partidas
+ * usam o mesmo log, entao uma thread grava em lote o que chegou enquanto
+ * o fsync anterior rodava: um write + um fsync por lote, para qualquer
+ * numero de sessoes (group commit).
+ *
+ * O log e dividido em segmentos (000001.jrn, ...). De tempos em tempos a
+ * partida manda uma foto (snapshot, "chave.snap", um SaveData); um
+ * segmento em que todas as partidas ja tem foto mais nova que os seus
+ * registros e apagado. Recuperar = ultima foto + registros depois dela,
+ * refeitos pelo Game.
+ *
+ * Formato do registro: [int tamanho][int crc32][dados]. Um registro
+ * cortado ou com crc errado (queda no meio da gravacao) encerra a leitura
+ * daquele segmento; por isso, depois de um erro de gravacao, o proximo lote
+ * vai para um segmento novo.
+ */
+public final class CommandJournal implements AutoCloseable {
+
+    public static final String EXTENSAO_SEGMENTO = ".jrn";
+    public static final String EXTENSAO_SNAPSHOT = ".snap";
+
+    private static final byte[] MAGIC = { 'R', 'P', 'G', 'J' };
+    private static final int VERSAO = 1;
+    private static final int CABECALHO = MAGIC.length + 2;
+
+    private static final byte INICIO = 1;
+    private static final byte COMANDO = 2;
+
+    /** Tamanho a partir do qual o proximo lote vai para um segmento novo. */
+    private static final long SEGMENTO_MAXIMO = 16L << 20;
+    private static final int REGISTRO_MAXIMO = 1 << 20;
+
+    /** Um comando refeito na recuperacao; 'ticksAntes' = tempo que passou desde o registro anterior. */
+    public record Registro(long seq, int ticksAntes, String linha, long[] dadosCombate, long[] dadosSimulacao) {}
+
+    /**
+     * O que recuperar() achou de uma partida: a foto (null = comecar um
+     * jogo novo com nome e classe) e os registros depois dela, em ordem.
+     */
+    public record Recuperacao(long partida, String nome, String classe, SaveData snapshot, long seqSnapshot,
+                              List<Registro> cauda) {
+        public long ultimoSeq() {
+            return cauda.isEmpty() ? seqSnapshot : cauda.get(cauda.size() - 1).seq();
+        }
+    }
+
+    /** Um pedido na fila: registro ja codificado ou foto (snapshot != null). */
+    private static final class Pedido {
+        final String chave;
+        final long partida;
+        final long seq;
+        final byte tipo;
+        final byte[] quadro;
+        final SaveData snapshot;
+        long ticket;
+        IOException erro; // resultado do lote deste pedido (protegido por 'lock')
+
+        Pedido(String chave, long partida, long seq, byte tipo, byte[] quadro, SaveData snapshot) {
+            this.chave = chave;
+            this.partida = partida;
+            this.seq = seq;
+            this.tipo = tipo;
+            this.quadro = quadro;
+            this.snapshot = snapshot;
+        }
+    }
+
+    private final Path diretorio;
+    private final boolean esperarDisco;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition temTrabalho = lock.newCondition();
+    private final Condition gravou = lock.newCondition();
+    private List<Pedido> pendentes = new ArrayList<>();
+    private long enfileirados = 0; // ticket do ultimo pedido
+    private long duraveis = 0;     // ate que ticket ja esta em disco
+    private boolean escrevendo = false;
+    private boolean fechado = false;
+    private final Thread escritor;
+
+    // so a thread de gravacao (e o construtor) mexe
+    private FileChannel segmento;  // null depois de um erro: o proximo lote abre outro
+    private int numeroSegmento;
+    private long tamanhoSegmento;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+    private final TreeMap<Integer, Map<String, long[]>> conteudo = new TreeMap<>(); // segmento -> chave -> {partida, maior seq}
+    private final Map<String, long[]> fotos = new HashMap<>();       // chave -> {partida, seq}
+    private final Map<String, Long> partidaAtual = new HashMap<>();  // chave -> partida do ultimo INICIO
+
+    // metricas
+    private volatile long registros = 0;
+    private volatile long lotes = 0;
+    private volatile long bytes = 0;
+    private volatile long snapshots = 0;
+    private volatile long segmentosApagados = 0;
+    private volatile long falhas = 0;
+    private volatile int maiorLote = 0;
+
+    /**
+     * Abre (ou cria) o diario no diretorio. Com 'esperarDisco', registrar()
+     * so retorna depois do fsync do lote; sem, retorna na hora e uma queda
+     * perde no maximo o lote em andamento.
+     */
+    public CommandJournal(Path diretorio, boolean esperarDisco) throws IOException {
+        this.diretorio = diretorio;
+        this.esperarDisco = esperarDisco;
+        Files.createDirectories(diretorio);
+
+        carregarFotos();
+        for (int numero : listarSegmentos()) {
+            numeroSegmento = numero;
+            Map<String, long[]> doSegmento = new HashMap<>();
+            lerSegmento(arquivoSegmento(numero), lido -> anotar(doSegmento, lido.tipo, lido.chave, lido.partida, lido.seq));
+            conteudo.put(numero, doSegmento);
+        }
+        for (Map.Entry<String, long[]> e : fotos.entrySet()) {
+            partidaAtual.putIfAbsent(e.getKey(), e.getValue()[0]);
+        }
+        apagarSegmentosCobertos();
+        abrirSegmento(numeroSegmento + 1); // nunca continua um segmento antigo (pode ter final cortado)
+
+        escritor = new Thread(this::loop, "rpg-journal-writer");
+        escritor.setDaemon(true);
+        escritor.start();
+    }
+
+    // -------------------------------------------------------------------------
+    // API
+    // -------------------------------------------------------------------------
+
+    /** Partida nova (ou que passa a ter diario): registros e foto antigos da chave deixam de valer. */
+    public void iniciar(String chave, long partida, String nome, String classe) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(INICIO);
+            out.writeUTF(chave);
+            out.writeLong(partida);
+            out.writeUTF(nome);
+            out.writeUTF(classe);
+            enfileirar(new Pedido(chave, partida, 0, INICIO, quadro(bytes), null));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // nao acontece em memoria
+        }
+    }
+
+    /** Anexa um comando. O registro e codificado aqui, na thread da partida. */
+    public void registrar(String chave, long partida, Registro r) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(48 + 4 * r.linha().length());
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(COMANDO);
+            out.writeUTF(chave);
+            out.writeLong(partida);
+            writeVarLong(out, r.seq());
+            writeVarLong(out, r.ticksAntes());
+            out.writeUTF(r.linha());
+            writeDados(out, r.dadosCombate());
+            writeDados(out, r.dadosSimulacao());
+            enfileirar(new Pedido(chave, partida, r.seq(), COMANDO, quadro(bytes), null));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Foto da partida depois do registro 'seq'; gravada na ordem da fila. */
+    public void snapshot(String chave, long partida, long seq, SaveData data) {
+        enfileirar(new Pedido(chave, partida, seq, (byte) 0, null, data));
+    }
+
+    /** Bloqueia ate tudo o que foi enfileirado antes estar em disco. */
+    public void flush() {
+        lock.lock();
+        try {
+            long ate = enfileirados;
+            while (duraveis < ate) {
+                gravou.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Le a ultima foto e os registros seguintes da chave; null se o diario
+     * nao conhece a chave. Espera a fila esvaziar e segura as gravacoes
+     * enquanto le (so usado ao retomar uma partida).
+     */
+    public Recuperacao recuperar(String chave) throws IOException {
+        lock.lock();
+        try {
+            while (!pendentes.isEmpty() || escrevendo) {
+                gravou.awaitUninterruptibly();
+            }
+            return ler(chave);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Grava o que falta e para a thread de gravacao. */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (fechado) return;
+            fechado = true;
+            temTrabalho.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            escritor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        descartarSegmento(); // tudo que importa ja teve fsync
+    }
+
+    // -------------------------------------------------------------------------
+    // METRICAS
+    // -------------------------------------------------------------------------
+
+    public long getRegistros() { return registros; }
+    /** Lotes gravados; cada um custou um write e um fsync do log. */
+    public long getLotes() { return lotes; }
+    public long getBytes() { return bytes; }
+    public long getSnapshots() { return snapshots; }
+    public long getSegmentosApagados() { return segmentosApagados; }
+    public long getFalhas() { return falhas; }
+    public int getMaiorLote() { return maiorLote; }
+
+    public double getRegistrosPorLote() {
+        long n = lotes;
+        return n == 0 ? 0.0 : registros / (double) n;
+    }
+
+    // -------------------------------------------------------------------------
+    // FILA
+    // -------------------------------------------------------------------------
+
+    private void enfileirar(Pedido pedido) {
+        lock.lock();
+        try {
+            if (fechado) {
+                throw new IllegalStateException("CommandJournal encerrado.");
+            }
+            pedido.ticket = ++enfileirados;
+            pendentes.add(pedido);
+            temTrabalho.signal();
+            if (!esperarDisco) return;
+
+            while (duraveis < pedido.ticket) {
+                gravou.awaitUninterruptibly();
+            }
+            if (pedido.erro != null) { // so o erro do proprio lote, nunca o de um lote seguinte
+                throw new UncheckedIOException("Erro gravando o diario", pedido.erro);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** [tamanho][crc][dados] */
+    private static byte[] quadro(ByteArrayOutputStream dados) {
+        byte[] payload = dados.toByteArray();
+        if (payload.length > REGISTRO_MAXIMO) {
+            throw new IllegalArgumentException("Registro grande demais: " + payload.length + " bytes");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer quadro = ByteBuffer.allocate(8 + payload.length);
+        quadro.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+        return quadro.array();
+    }
+
+    // -------------------------------------------------------------------------
+    // THREAD DE GRAVACAO
+    // -------------------------------------------------------------------------
+
+    private void loop() {
+        List<Pedido> lote = new ArrayList<>();
+        while (true) {
+            lock.lock();
+            try {
+                while (pendentes.isEmpty() && !fechado) {
+                    temTrabalho.awaitUninterruptibly();
+                }
+                if (pendentes.isEmpty()) {
+                    return; // fechado e sem trabalho
+                }
+                // troca as listas: quem registrar agora ja cai no proximo lote
+                List<Pedido> cheia = pendentes;
+                pendentes = lote;
+                lote = cheia;
+                escrevendo = true;
+            } finally {
+                lock.unlock();
+            }
+
+            IOException erro = null;
+            try {
+                gravarLote(lote);
+            } catch (IOException | RuntimeException e) {
+                // a thread continua; quem espera este lote recebe o erro
+                erro = e instanceof IOException io ? io : new IOException("Erro inesperado gravando o diario", e);
+                falhas++;
+                descartarSegmento();
+            }
+            long ultimo = lote.get(lote.size() - 1).ticket;
+
+            lock.lock();
+            try {
+                escrevendo = false;
+                duraveis = ultimo;
+                if (erro != null) {
+                    for (Pedido p : lote) {
+                        p.erro = erro;
+                    }
+                }
+                gravou.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            lote.clear();
+        }
+    }
+
+    private void gravarLote(List<Pedido> lote) throws IOException {
+        if (segmento == null || tamanhoSegmento >= SEGMENTO_MAXIMO) {
+            if (segmento != null) segmento.close();
+            abrirSegmento(numeroSegmento + 1);
+        }
+
+        // 1) registros: um write e um fsync para o lote inteiro
+        int total = 0;
+        for (Pedido p : lote) {
+            if (p.quadro != null) total += p.quadro.length;
+        }
+        int quantidade = 0;
+        if (total > 0) {
+            if (buffer.capacity() < total) buffer = ByteBuffer.allocateDirect(Math.max(total, buffer.capacity() * 2));
+            buffer.clear();
+            Map<String, long[]> doSegmento = conteudo.get(numeroSegmento);
+            for (Pedido p : lote) {
+                if (p.quadro == null) continue;
+                buffer.put(p.quadro);
+                anotar(doSegmento, p.tipo, p.chave, p.partida, p.seq);
+                if (p.tipo == COMANDO) quantidade++;
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                segmento.write(buffer);
+            }
+            segmento.force(false);
+            tamanhoSegmento += total;
+            bytes += total;
+            registros += quantidade;
+            maiorLote = Math.max(maiorLote, quantidade);
+            lotes++;
+        }
+
+        // 2) na ordem da fila: partida nova invalida a foto antiga; fotos
+        boolean novasFotos = false;
+        for (Pedido p : lote) {
+            if (p.tipo == INICIO) {
+                if (Files.deleteIfExists(arquivoFoto(p.chave))) fotos.remove(p.chave);
+            } else if (p.snapshot != null) {
+                gravarFoto(p);
+                novasFotos = true;
+            }
+        }
+        if (novasFotos) {
+            sincronizarDiretorio(diretorio);
+            apagarSegmentosCobertos();
+        }
+    }
+
+    /** Segmento novo; so o cabecalho, o fsync vem com o primeiro lote. */
+    private void abrirSegmento(int numero) throws IOException {
+        numeroSegmento = numero;
+        segmento = FileChannel.open(arquivoSegmento(numero), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        conteudo.put(numero, new HashMap<>());
+        ByteBuffer cabecalho = ByteBuffer.allocate(CABECALHO);
+        cabecalho.put(MAGIC).putShort((short) VERSAO).flip();
+        segmento.write(cabecalho);
+        tamanhoSegmento = CABECALHO;
+        sincronizarDiretorio(diretorio);
+    }
+
+    /**
+     * Depois de um erro no write ou no fsync o fim do segmento pode ter um
+     * quadro cortado, e a leitura para nele: o que viesse depois se perderia.
+     * Fecha o segmento; o proximo lote vai para um novo.
+     */
+    private void descartarSegmento() {
+        if (segmento == null) return;
+        try {
+            segmento.close();
+        } catch (IOException e) {
+            // ja com erro; o arquivo fica como esta
+        }
+        segmento = null;
+    }
+
+    private void anotar(Map<String, long[]> doSegmento, byte tipo, String chave, long partida, long seq) {
+        if (tipo == INICIO) partidaAtual.put(chave, partida);
+        long[] atual = doSegmento.get(chave);
+        if (atual == null || atual[0] != partida) {
+            doSegmento.put(chave, new long[] { partida, seq });
+        } else {
+            atual[1] = Math.max(atual[1], seq);
+        }
+    }
+
+    private void gravarFoto(Pedido p) throws IOException {
+        Path destino = arquivoFoto(p.chave);
+        Path temp = diretorio.resolve(destino.getFileName() + ".tmp");
+        try (FileChannel canal = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            BufferedOutputStream out = new BufferedOutputStream(Channels.newOutputStream(canal), 8192);
+            DataOutputStream cabecalho = new DataOutputStream(out);
+            cabecalho.write(MAGIC);
+            cabecalho.writeShort(VERSAO);
+            cabecalho.writeLong(p.partida);
+            cabecalho.writeLong(p.seq);
+            BinarySaveCodec.encode(p.snapshot, cabecalho);
+            canal.force(true);
+        }
+        Files.move(temp, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        fotos.put(p.chave, new long[] { p.partida, p.seq });
+        snapshots++;
+    }
+
+    /**
+     * Apaga segmentos antigos (nunca o atual) em que cada partida ja tem
+     * foto cobrindo os seus registros, ou foi substituida por outra.
+     */
+    private void apagarSegmentosCobertos() {
+        Iterator<Map.Entry<Integer, Map<String, long[]>>> it = conteudo.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, Map<String, long[]>> e = it.next();
+            if (e.getKey() == numeroSegmento && segmento != null) break;
+            if (!coberto(e.getValue())) continue;
+            try {
+                Files.deleteIfExists(arquivoSegmento(e.getKey()));
+                it.remove();
+                segmentosApagados++;
+            } catch (IOException ex) {
+                // fica para a proxima foto
+            }
+        }
+    }
+
+    private boolean coberto(Map<String, long[]> doSegmento) {
+        for (Map.Entry<String, long[]> e : doSegmento.entrySet()) {
+            long partida = e.getValue()[0];
+            Long atual = partidaAtual.get(e.getKey());
+            if (atual != null && atual != partida) continue; // partida substituida
+            long[] foto = fotos.get(e.getKey());
+            if (foto == null || foto[0] != partida || foto[1] < e.getValue()[1]) return false;
+        }
+        return true;
+    }
+
+    private static void sincronizarDiretorio(Path dir) {
+        try (FileChannel canal = FileChannel.open(dir, StandardOpenOption.READ)) {
+            canal.force(true);
+        } catch (IOException e) {
+            // alguns sistemas (ex: Windows) nao deixam abrir diretorio
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // LEITURA
+    // -------------------------------------------------------------------------
+
+    /** Um registro lido do log. */
+    private record Lido(byte tipo, String chave, long partida, long seq, String nome, String classe, Registro registro) {}
+
+    private Path arquivoSegmento(int numero) {
+        return diretorio.resolve(String.format("%06d", numero) + EXTENSAO_SEGMENTO);
+    }
+
+    private Path arquivoFoto(String chave) {
+        return diretorio.resolve(chave + EXTENSAO_SNAPSHOT);
+    }
+
+    private List<Integer> listarSegmentos() throws IOException {
+        List<Integer> numeros = new ArrayList<>();
+        try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(diretorio, "*" + EXTENSAO_SEGMENTO)) {
+            for (Path arquivo : arquivos) {
+                String nome = arquivo.getFileName().toString();
+                try {
+                    numeros.add(Integer.parseInt(nome.substring(0, nome.length() - EXTENSAO_SEGMENTO.length())));
+                } catch (NumberFormatException e) {
+                    // nao e um segmento
+                }
+            }
+        }
+        Collections.sort(numeros);
+        return numeros;
+    }
+
+    /** So o cabecalho das fotos (partida e seq); a foto inteira e lida na recuperacao. */
+    private void carregarFotos() throws IOException {
+        try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(diretorio, "*" + EXTENSAO_SNAPSHOT)) {
+            for (Path arquivo : arquivos) {
+                String nome = arquivo.getFileName().toString();
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(arquivo), 64))) {
+                    lerCabecalho(in, arquivo);
+                    fotos.put(nome.substring(0, nome.length() - EXTENSAO_SNAPSHOT.length()),
+                            new long[] { in.readLong(), in.readLong() });
+                } catch (IOException e) {
+                    // foto ilegivel: a chave recupera pelo log
+                }
+            }
+        }
+    }
+
+    private static void lerCabecalho(DataInputStream in, Path arquivo) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC) || in.readShort() != VERSAO) {
+            throw new InvalidSaveException("Arquivo nao e do diario: " + arquivo.getFileName());
+        }
+    }
+
+    private interface Leitor {
+        void lido(Lido lido) throws IOException;
+    }
+
+    /** Le os registros do segmento ate o fim ou ate o primeiro registro estragado. */
+    private static void lerSegmento(Path arquivo, Leitor leitor) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(arquivo), 64 * 1024))) {
+            try {
+                lerCabecalho(in, arquivo);
+            } catch (EOFException e) {
+                return; // criado e nunca gravado
+            }
+            CRC32 crc = new CRC32();
+            while (true) {
+                byte[] payload;
+                int esperado;
+                try {
+                    int tamanho = in.readInt();
+                    if (tamanho <= 0 || tamanho > REGISTRO_MAXIMO) return;
+                    esperado = in.readInt();
+                    payload = new byte[tamanho];
+                    in.readFully(payload);
+                } catch (EOFException e) {
+                    return; // fim (ou registro cortado pela queda)
+                }
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != esperado) return;
+                leitor.lido(decodificar(payload));
+            }
+        }
+    }
+
+    private static Lido decodificar(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte tipo = in.readByte();
+        String chave = in.readUTF();
+        long partida = in.readLong();
+        if (tipo == INICIO) {
+            return new Lido(tipo, chave, partida, 0, in.readUTF(), in.readUTF(), null);
+        }
+        if (tipo != COMANDO) {
+            throw new InvalidSaveException("Tipo de registro desconhecido: " + tipo);
+        }
+        long seq = readVarLong(in);
+        int ticks = (int) readVarLong(in);
+        String linha = in.readUTF();
+        long[] combate = readDados(in);
+        long[] simulacao = readDados(in);
+        return new Lido(tipo, chave, partida, seq, null, null, new Registro(seq, ticks, linha, combate, simulacao));
+    }
+
+    private Recuperacao ler(String chave) throws IOException {
+        Lido[] inicio = { null };
+        List<Lido> comandos = new ArrayList<>();
+        for (int numero : listarSegmentos()) {
+            lerSegmento(arquivoSegmento(numero), lido -> {
+                if (!lido.chave.equals(chave)) return;
+                if (lido.tipo == INICIO) {
+                    inicio[0] = lido;
+                    comandos.clear();
+                } else {
+                    comandos.add(lido);
+                }
+            });
+        }
+
+        SaveData foto = null;
+        long partida, seqFoto = 0;
+        Path arquivoFoto = arquivoFoto(chave);
+        long[] cabecalho = null;
+        if (Files.exists(arquivoFoto)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(arquivoFoto), 8192))) {
+                lerCabecalho(in, arquivoFoto);
+                cabecalho = new long[] { in.readLong(), in.readLong() };
+                foto = BinarySaveCodec.decode((InputStream) in);
+            }
+        }
+
+        String nome, classe;
+        if (foto != null && (inicio[0] == null || inicio[0].partida == cabecalho[0])) {
+            partida = cabecalho[0];
+            seqFoto = cabecalho[1];
+            nome = foto.getName();
+            classe = foto.getPlayerClass();
+        } else if (inicio[0] != null) {
+            foto = null;
+            partida = inicio[0].partida;
+            nome = inicio[0].nome;
+            classe = inicio[0].classe;
+        } else {
+            return null;
+        }
+
+        // so a sequencia continua depois da foto (um buraco = o resto se perdeu)
+        List<Registro> cauda = new ArrayList<>();
+        long proximo = seqFoto + 1;
+        for (Lido lido : comandos) {
+            if (lido.partida != partida || lido.seq < proximo) continue;
+            if (lido.seq != proximo) break;
+            cauda.add(lido.registro);
+            proximo++;
+        }
+        return new Recuperacao(partida, nome, classe, foto, seqFoto, cauda);
+    }
+
+    // -------------------------------------------------------------------------
+    // VARINTS
+    // -------------------------------------------------------------------------
+
+    private static void writeDados(DataOutputStream out, long[] dados) throws IOException {
+        writeVarLong(out, dados.length);
+        for (long v : dados) {
+            writeVarLong(out, (v << 1) ^ (v >> 63)); // zigzag: dados pequenos ocupam 1 byte
+        }
+    }
+
+    private static long[] readDados(DataInputStream in) throws IOException {
+        int n = (int) readVarLong(in);
+        if (n < 0 || n > REGISTRO_MAXIMO) throw new InvalidSaveException("Registro do diario invalido.");
+        long[] dados = new long[n];
+        for (int i = 0; i < n; i++) {
+            long v = readVarLong(in);
+            dados[i] = (v >>> 1) ^ -(v & 1);
+        }
+        return dados;
+    }
+
+    private static void writeVarLong(DataOutputStream out, long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new InvalidSaveException("Varint grande demais no diario.");
+    }
+}
@@ -0,0 +1,297 @@
+package com.gustavo.rpg.save;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Indice dos saves de um diretorio (arquivo catalogo.idx).
+ *
+ * Cada salvar() acrescenta um registro com jogador, classe, HP, local e
+ * data, entao listar os saves nao precisa abrir arquivo nenhum. Se o
+ * indice nao existe, esta truncado ou o diretorio mudou depois dele
+ * (arquivos copiados/apagados a mao), o indice e refeito lendo os saves
+ * em paralelo. Regravar um arquivo acrescenta outro registro; quando os
+ * registros substituidos passam de LIMITE_OBSOLETOS (e do numero de saves)
+ * o indice e reescrito so com as entradas atuais.
+ */
+public final class SaveCatalog {
+
+    public static final String ARQUIVO_INDICE = "catalogo.idx";
+
+    private static final int MAGIC = 0x52504743; // "RPGC"
+    private static final int VERSAO = 1;
+    private static final int LIMITE_OBSOLETOS = 256;
+
+    /** Ordem do catalogo: por data, arquivo desempata (o mesmo segundo vale para varios saves). */
+    private static final Comparator<Entrada> ORDEM =
+            Comparator.comparingLong(Entrada::getTimestamp).thenComparing(Entrada::getArquivo);
+
+    private static final Map<Path, SaveCatalog> CATALOGOS = new ConcurrentHashMap<>();
+
+    /** Um save listado no catalogo. */
+    public static final class Entrada {
+        private final String arquivo;
+        private final String player;
+        private final String playerClass;
+        private final int hp;
+        private final String localKey;
+        private final long timestamp;
+
+        public Entrada(String arquivo, String player, String playerClass,
+                       int hp, String localKey, long timestamp) {
+            this.arquivo = arquivo;
+            this.player = player;
+            this.playerClass = playerClass;
+            this.hp = hp;
+            this.localKey = localKey;
+            this.timestamp = timestamp;
+        }
+
+        public String getArquivo() { return arquivo; }
+        public String getPlayer() { return player; }
+        public String getPlayerClass() { return playerClass; }
+        public int getHp() { return hp; }
+        public String getLocalKey() { return localKey; }
+        public long getTimestamp() { return timestamp; }
+
+        @Override
+        public String toString() {
+            String data = java.time.Instant.ofEpochMilli(timestamp)
+                    .atZone(java.time.ZoneId.systemDefault())
+                    .format(java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
+            return player + " (" + playerClass + ") HP=" + hp + " em " + localKey + " - " + data;
+        }
+    }
+
+    private final Path dir;
+    private final Path indice;
+    private NavigableSet<Entrada> entradas;    // mais antigo primeiro; null = nao carregado
+    private Map<String, Entrada> porArquivo;
+    private int registros;                     // registros no arquivo, inclusive os substituidos
+
+    private SaveCatalog(Path dir) {
+        this.dir = dir;
+        this.indice = dir.resolve(ARQUIVO_INDICE);
+    }
+
+    /** Catalogo (compartilhado no processo) do diretorio de saves. */
+    public static SaveCatalog doDiretorio(Path dir) {
+        return CATALOGOS.computeIfAbsent(dir.toAbsolutePath().normalize(), SaveCatalog::new);
+    }
+
+    // -------------------------------------------------------------------------
+    // CONSULTA
+    // -------------------------------------------------------------------------
+
+    /** Total de saves, opcionalmente so de um jogador (filtro null = todos). */
+    public synchronized int contar(String filtroJogador) throws IOException {
+        carregar();
+        if (filtroJogador == null || filtroJogador.isBlank()) {
+            return entradas.size();
+        }
+        int total = 0;
+        String filtro = filtroJogador.toLowerCase();
+        for (Entrada e : entradas) {
+            if (e.player.toLowerCase().contains(filtro)) total++;
+        }
+        return total;
+    }
+
+    /**
+     * Uma pagina de saves, do mais recente para o mais antigo.
+     * pagina comeca em 0; filtroJogador null = todos.
+     */
+    public synchronized List<Entrada> listar(int pagina, int tamanhoPagina, String filtroJogador)
+            throws IOException {
+        carregar();
+        int pular = pagina * tamanhoPagina;
+        List<Entrada> resultado = new ArrayList<>(tamanhoPagina);
+        String filtro = (filtroJogador == null || filtroJogador.isBlank())
+                ? null
+                : filtroJogador.toLowerCase();
+
+        for (Entrada e : entradas.descendingSet()) {
+            if (filtro != null && !e.player.toLowerCase().contains(filtro)) continue;
+            if (pular > 0) {
+                pular--;
+                continue;
+            }
+            resultado.add(e);
+            if (resultado.size() == tamanhoPagina) break;
+        }
+        return resultado;
+    }
+
+    public Path resolver(Entrada entrada) {
+        return dir.resolve(entrada.getArquivo());
+    }
+
+    // -------------------------------------------------------------------------
+    // ATUALIZACAO
+    // -------------------------------------------------------------------------
+
+    /**
+     * Acrescenta um save recem-gravado ao indice. Regravar um arquivo que
+     * ja esta no indice (autosave, dois saves no mesmo segundo) acrescenta
+     * outro registro; na leitura o ultimo de cada arquivo vale. Com muitos
+     * registros substituidos o indice e compactado.
+     */
+    public synchronized void registrar(Path arquivo, SaveData data) throws IOException {
+        Entrada nova = new Entrada(arquivo.getFileName().toString(), data.getName(),
+                data.getPlayerClass(), data.getHp(), data.getLocalKey(), System.currentTimeMillis());
+
+        if (carregar(arquivo)) {
+            return; // sem indice (ou indice velho) ele foi refeito agora e ja inclui o arquivo novo
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(indice, StandardOpenOption.APPEND)))) {
+            escreverEntrada(out, nova);
+        }
+        registros++;
+        adicionar(nova);
+
+        int obsoletos = registros - porArquivo.size();
+        if (obsoletos > LIMITE_OBSOLETOS && obsoletos > porArquivo.size()) {
+            gravarIndice(entradas);
+            registros = porArquivo.size();
+        }
+    }
+
+    /** Refaz o indice lendo todos os saves do diretorio em paralelo. */
+    public synchronized void reconstruir() throws IOException {
+        List<Entrada> lidas;
+        if (!Files.isDirectory(dir)) {
+            lidas = List.of();
+        } else {
+            try (Stream<Path> arquivos = Files.list(dir)) {
+                lidas = arquivos
+                        .filter(SaveFiles::isSave)
+                        .parallel()
+                        .map(SaveCatalog::lerEntrada)
+                        .filter(Objects::nonNull)
+                        .toList();
+            }
+            gravarIndice(lidas);
+        }
+        preencher(lidas);
+    }
+
+    // -------------------------------------------------------------------------
+    // HELPERS
+    // -------------------------------------------------------------------------
+
+    private void carregar() throws IOException {
+        carregar(null);
+    }
+
+    /** Retorna true se o indice teve que ser refeito lendo os saves. */
+    private boolean carregar(Path recemGravado) throws IOException {
+        if (entradas != null) return false;
+
+        if (!Files.exists(indice) || indiceDesatualizado(recemGravado)) {
+            reconstruir();
+            return true;
+        }
+
+        List<Entrada> lidas = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indice)))) {
+            if (in.readInt() != MAGIC || in.readUnsignedShort() > VERSAO) {
+                reconstruir();
+                return true;
+            }
+            while (in.available() > 0) {
+                lidas.add(lerRegistro(in));
+            }
+        } catch (EOFException e) {
+            reconstruir(); // ultimo registro truncado (queda no meio de um salvar)
+            return true;
+        }
+
+        preencher(lidas);
+        return false;
+    }
+
+    private void preencher(List<Entrada> lidas) {
+        entradas = new TreeSet<>(ORDEM);
+        porArquivo = new HashMap<>();
+        for (Entrada e : lidas) {
+            adicionar(e);
+        }
+        registros = lidas.size();
+    }
+
+    /**
+     * Diretorio alterado depois do indice = alguem mexeu nos arquivos a mao.
+     * A mudanca causada pelo save que esta sendo registrado nao conta.
+     */
+    private boolean indiceDesatualizado(Path recemGravado) throws IOException {
+        FileTime dirTime = Files.getLastModifiedTime(dir);
+        FileTime idxTime = Files.getLastModifiedTime(indice);
+        if (dirTime.compareTo(idxTime) <= 0) {
+            return false;
+        }
+        return recemGravado == null
+                || dirTime.compareTo(Files.getLastModifiedTime(recemGravado)) > 0;
+    }
+
+    /** Insere mantendo a ordem por data; mesmo arquivo substitui. */
+    private void adicionar(Entrada e) {
+        Entrada antiga = porArquivo.put(e.arquivo, e);
+        if (antiga != null) {
+            entradas.remove(antiga);
+        }
+        entradas.add(e);
+    }
+
+    private static Entrada lerEntrada(Path arquivo) {
+        try {
+            SaveData data = SaveFiles.ler(arquivo);
+            return new Entrada(arquivo.getFileName().toString(), data.getName(), data.getPlayerClass(),
+                    data.getHp(), data.getLocalKey(), Files.getLastModifiedTime(arquivo).toMillis());
+        } catch (IOException e) {
+            return null; // arquivo invalido nao entra no catalogo
+        }
+    }
+
+    /** Reescreve o indice inteiro (arquivo temporario + rename). */
+    private void gravarIndice(Collection<Entrada> lista) throws IOException {
+        Path temp = dir.resolve(ARQUIVO_INDICE + ".tmp");
+        escreverIndice(lista, temp);
+        Files.move(temp, indice, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // o rename mexe no diretorio; o indice tem que ficar "mais novo" que ele
+        Files.setLastModifiedTime(indice, FileTime.fromMillis(System.currentTimeMillis()));
+    }
+
+    private static void escreverIndice(Collection<Entrada> lista, Path destino) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(destino)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSAO);
+            for (Entrada e : lista) {
+                escreverEntrada(out, e);
+            }
+        }
+    }
+
+    private static void escreverEntrada(DataOutputStream out, Entrada e) throws IOException {
+        out.writeUTF(e.arquivo);
+        out.writeUTF(e.player);
+        out.writeUTF(e.playerClass);
+        out.writeInt(e.hp);
+        out.writeUTF(e.localKey);
+        out.writeLong(e.timestamp);
+    }
+
+    private static Entrada lerRegistro(DataInputStream in) throws IOException {
+        String arquivo = in.readUTF();
+        String player = in.readUTF();
+        String classe = in.readUTF();
+        int hp = in.readInt();
+        String local = in.readUTF();
+        long timestamp = in.readLong();
+        return new Entrada(arquivo, player, classe, hp, local, timestamp);
+    }
+}
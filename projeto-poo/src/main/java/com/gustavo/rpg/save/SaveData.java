@@ -0,0 +1,146 @@
+package com.gustavo.rpg.save;
+
+import java.util.List;
+
+/**
+ * Foto imutavel do estado de uma partida, no formato usado pelos saves.
+ * Guarda o jogador e as alteracoes feitas no mundo (locais alterados).
+ *
+ * Locais, itens e NPCs sao guardados pelo id do EntityRegistry do mapa.
+ * O nome so aparece em saves antigos (de antes dos ids) e em itens que
+ * nao sao do mapa; nesses casos o id e SEM_ID.
+ */
+public final class SaveData {
+
+    public static final int SEM_ID = -1;
+
+    /** Um item do save: id no registro do mapa e/ou nome. */
+    public static final class ItemSalvo {
+        private final int id;
+        private final String name; // null quando ha id
+
+        public ItemSalvo(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public static ItemSalvo porId(int id) { return new ItemSalvo(id, null); }
+        public static ItemSalvo porNome(String name) { return new ItemSalvo(SEM_ID, name); }
+
+        public int getId() { return id; }
+        public String getName() { return name; }
+    }
+
+    /** NPC viva em um local alterado. */
+    public static final class NpcSalva {
+        private final int id;
+        private final String name; // null quando ha id
+        private final int hp;
+
+        public NpcSalva(int id, String name, int hp) {
+            this.id = id;
+            this.name = name;
+            this.hp = hp;
+        }
+
+        public int getId() { return id; }
+        public String getName() { return name; }
+        public int getHp() { return hp; }
+    }
+
+    /**
+     * Timer do relogio do mundo que estava correndo: so as fotos do diario
+     * de comandos guardam (um save comum recomeca sem eles). 'faltam' =
+     * ticks ate disparar; 'local' e 'alvo' sao ids do registro (REGEN_NPC:
+     * alvo = posicao da NPC na lista do local).
+     */
+    public static final class TimerSalvo {
+        public static final int REGEN_JOGADOR = 1;
+        public static final int REGEN_NPC = 2;
+        public static final int REAPARECER = 3;
+        public static final int CURA = 4;
+
+        private final int tipo;
+        private final int faltam;
+        private final int local;
+        private final int alvo;
+        private final int valor;
+
+        public TimerSalvo(int tipo, int faltam, int local, int alvo, int valor) {
+            this.tipo = tipo;
+            this.faltam = faltam;
+            this.local = local;
+            this.alvo = alvo;
+            this.valor = valor;
+        }
+
+        public int getTipo() { return tipo; }
+        public int getFaltam() { return faltam; }
+        public int getLocal() { return local; }
+        public int getAlvo() { return alvo; }
+        public int getValor() { return valor; }
+    }
+
+    /** Estado de um local que a partida alterou (NPCs e itens no chao). */
+    public static final class LocalSalvo {
+        private final int localId;
+        private final String key;  // null quando ha id
+        private final List<NpcSalva> npcs;
+        private final List<ItemSalvo> groundItems;
+
+        public LocalSalvo(int localId, String key, List<NpcSalva> npcs, List<ItemSalvo> groundItems) {
+            this.localId = localId;
+            this.key = key;
+            this.npcs = List.copyOf(npcs);
+            this.groundItems = List.copyOf(groundItems);
+        }
+
+        public int getLocalId() { return localId; }
+        public String getKey() { return key; }
+        public List<NpcSalva> getNpcs() { return npcs; }
+        public List<ItemSalvo> getGroundItems() { return groundItems; }
+    }
+
+    private final String name;
+    private final String playerClass;
+    private final int hp;
+    private final int localId;
+    private final String localKey;     // chave do local (catalogo e saves antigos)
+    private final ItemSalvo weapon;    // null = sem arma
+    private final List<ItemSalvo> inventory;
+    private final List<LocalSalvo> locais;
+    private final List<TimerSalvo> timers;
+
+    public SaveData(String name, String playerClass, int hp, int localId, String localKey,
+                    ItemSalvo weapon, List<ItemSalvo> inventory, List<LocalSalvo> locais) {
+        this(name, playerClass, hp, localId, localKey, weapon, inventory, locais, List.of());
+    }
+
+    public SaveData(String name, String playerClass, int hp, int localId, String localKey,
+                    ItemSalvo weapon, List<ItemSalvo> inventory, List<LocalSalvo> locais, List<TimerSalvo> timers) {
+        this.name = name;
+        this.playerClass = playerClass;
+        this.hp = hp;
+        this.localId = localId;
+        this.localKey = localKey;
+        this.weapon = weapon;
+        this.inventory = List.copyOf(inventory);
+        this.locais = List.copyOf(locais);
+        this.timers = List.copyOf(timers);
+    }
+
+    /** Copia desta foto com os timers que estavam correndo. */
+    public SaveData comTimers(List<TimerSalvo> timers) {
+        return new SaveData(name, playerClass, hp, localId, localKey, weapon, inventory, locais, timers);
+    }
+
+    public String getName() { return name; }
+    public String getPlayerClass() { return playerClass; }
+    public int getHp() { return hp; }
+    public int getLocalId() { return localId; }
+    public String getLocalKey() { return localKey; }
+    public ItemSalvo getWeapon() { return weapon; }
+    public List<ItemSalvo> getInventory() { return inventory; }
+    public List<LocalSalvo> getLocais() { return locais; }
+    public List<TimerSalvo> getTimers() { return timers; }
+}
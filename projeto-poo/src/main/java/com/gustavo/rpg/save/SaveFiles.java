@@ -0,0 +1,83 @@
+package com.gustavo.rpg.save;
+
+import com.gustavo.rpg.exceptions.InvalidSaveException;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Leitura e escrita de arquivos de save.
+ * Grava sempre no formato binario; le binario e os dois formatos de texto
+ * antigos (detectados pelo magic no inicio do arquivo).
+ */
+public final class SaveFiles {
+
+    public static final String EXTENSAO = ".sav";
+    public static final String EXTENSAO_ANTIGA = ".txt";
+
+    private SaveFiles() {}
+
+    public static boolean isSave(Path arquivo) {
+        String nome = arquivo.getFileName().toString();
+        return nome.endsWith(EXTENSAO) || nome.endsWith(EXTENSAO_ANTIGA);
+    }
+
+    public static void escrever(Path arquivo, SaveData data) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(arquivo))) {
+            BinarySaveCodec.encode(data, out);
+        }
+    }
+
+    public static SaveData ler(Path arquivo) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(arquivo))) {
+            in.mark(BinarySaveCodec.MAGIC.length);
+            byte[] inicio = in.readNBytes(BinarySaveCodec.MAGIC.length);
+            in.reset();
+
+            if (BinarySaveCodec.isBinario(inicio)) {
+                return BinarySaveCodec.decode(in);
+            }
+            String texto = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            return lerTextoAntigo(texto.lines().toList());
+        }
+    }
+
+    /**
+     * Importa os saves de texto antigos. Dois formatos:
+     * novo (6 linhas): nome, classe, hp, local, arma, inventario
+     * antigo (5 linhas): nome, hp, local, arma, inventario  -> classe = guerreiro
+     */
+    public static SaveData lerTextoAntigo(List<String> linhas) throws InvalidSaveException {
+        if (linhas.size() < 5) {
+            throw new InvalidSaveException("Arquivo de save invalido.");
+        }
+
+        try {
+            boolean comClasse = linhas.size() >= 6;
+            int i = 0;
+            String name = linhas.get(i++).trim();
+            String playerClass = comClasse ? linhas.get(i++).trim().toLowerCase() : "guerreiro";
+            int hp = Integer.parseInt(linhas.get(i++).trim());
+            String localKey = linhas.get(i++).trim();
+            String weaponName = linhas.get(i++).trim();
+            String invLine = linhas.get(i).trim();
+
+            List<String> inventario = invLine.isEmpty()
+                    ? List.of()
+                    : Arrays.stream(invLine.split(","))
+                            .map(String::trim)
+                            .filter(s -> !s.isEmpty())
+                            .toList();
+
+            return new SaveData(name, playerClass, hp, SaveData.SEM_ID, localKey,
+                    weaponName.equals("-") ? null : SaveData.ItemSalvo.porNome(weaponName),
+                    inventario.stream().map(SaveData.ItemSalvo::porNome).toList(), List.of());
+        } catch (NumberFormatException e) {
+            throw new InvalidSaveException("HP invalido no save: " + e.getMessage());
+        }
+    }
+}
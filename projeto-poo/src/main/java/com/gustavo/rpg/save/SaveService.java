@@ -0,0 +1,284 @@
+package com.gustavo.rpg.save;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Gravacao de saves em segundo plano (write-behind).
+ *
+ * salvar() so tira uma foto (SaveData) e enfileira; uma thread propria
+ * grava em lote: cada arquivo vai para um .tmp, recebe fsync e e renomeado
+ * atomicamente por cima do destino, e o diretorio recebe um fsync por lote.
+ * Se a mesma sessao pedir varios saves do mesmo arquivo antes da gravacao
+ * (ex: autosave), so o ultimo e gravado.
+ */
+public final class SaveService implements AutoCloseable {
+
+    /** Espera curta para juntar mais pedidos no mesmo lote. */
+    private static final long JANELA_LOTE_MS = 5;
+
+    /** Um save pendente. 'aoFalhar' roda na thread de gravacao. */
+    private static final class Pedido {
+        final Path arquivo;
+        final SaveData data;
+        final Consumer<IOException> aoFalhar;
+        final long enfileiradoEm = System.nanoTime();
+
+        Pedido(Path arquivo, SaveData data, Consumer<IOException> aoFalhar) {
+            this.arquivo = arquivo;
+            this.data = data;
+            this.aoFalhar = aoFalhar;
+        }
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition temTrabalho = lock.newCondition();
+    private final Condition ocioso = lock.newCondition();
+    private final Map<Map.Entry<Object, Path>, Pedido> pendentes = new LinkedHashMap<>(); // (sessao, arquivo)
+    private final Thread escritor;
+    private boolean escrevendo = false;
+    private boolean fechado = false;
+
+    // metricas (escritas pela thread de gravacao, lidas por qualquer uma)
+    private volatile long gravados = 0;
+    private volatile long coalescidos = 0;
+    private volatile long falhas = 0;
+    private volatile long lotes = 0;
+    private volatile long ultimaLatenciaNanos = 0;
+    private volatile long maiorLatenciaNanos = 0;
+    private volatile long somaLatenciaNanos = 0;
+
+    public SaveService() {
+        escritor = new Thread(this::loop, "rpg-save-writer");
+        escritor.setDaemon(true);
+        escritor.start();
+    }
+
+    /** Servico usado pelo jogo; grava o que estiver pendente ao sair do processo. */
+    public static SaveService padrao() {
+        return Padrao.INSTANCIA;
+    }
+
+    private static final class Padrao {
+        static final SaveService INSTANCIA = criar();
+
+        private static SaveService criar() {
+            SaveService service = new SaveService();
+            Runtime.getRuntime().addShutdownHook(new Thread(service::close, "rpg-save-flush"));
+            return service;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // API
+    // -------------------------------------------------------------------------
+
+    /**
+     * Enfileira o save e retorna na hora. Um pedido anterior da mesma sessao
+     * para o mesmo arquivo que ainda nao foi gravado e substituido por este.
+     */
+    public void enfileirar(Object sessao, Path arquivo, SaveData data, Consumer<IOException> aoFalhar) {
+        Pedido pedido = new Pedido(arquivo, data, aoFalhar);
+        lock.lock();
+        try {
+            if (fechado) {
+                throw new IllegalStateException("SaveService encerrado.");
+            }
+            Map.Entry<Object, Path> chave = Map.entry(sessao, arquivo);
+            if (pendentes.remove(chave) != null) {
+                coalescidos++;
+            }
+            pendentes.put(chave, pedido);
+            temTrabalho.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Bloqueia ate todos os saves enfileirados estarem em disco. */
+    public void flush() {
+        lock.lock();
+        try {
+            while (!pendentes.isEmpty() || escrevendo) {
+                ocioso.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Grava o que falta e para a thread de gravacao. */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (fechado) return;
+            fechado = true;
+            temTrabalho.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            escritor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // METRICAS
+    // -------------------------------------------------------------------------
+
+    public int getTamanhoFila() {
+        lock.lock();
+        try {
+            return pendentes.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getGravados() { return gravados; }
+    public long getCoalescidos() { return coalescidos; }
+    public long getFalhas() { return falhas; }
+    public long getLotes() { return lotes; }
+
+    /** Tempo entre enfileirar e o arquivo estar em disco, em ms. */
+    public double getUltimaLatenciaMs() { return ultimaLatenciaNanos / 1e6; }
+    public double getMaiorLatenciaMs() { return maiorLatenciaNanos / 1e6; }
+
+    public double getLatenciaMediaMs() {
+        long n = gravados;
+        return n == 0 ? 0.0 : (somaLatenciaNanos / (double) n) / 1e6;
+    }
+
+    // -------------------------------------------------------------------------
+    // THREAD DE GRAVACAO
+    // -------------------------------------------------------------------------
+
+    private void loop() {
+        while (true) {
+            List<Pedido> lote;
+            lock.lock();
+            try {
+                while (pendentes.isEmpty() && !fechado) {
+                    temTrabalho.awaitUninterruptibly();
+                }
+                if (pendentes.isEmpty()) {
+                    ocioso.signalAll();
+                    return; // fechado e sem trabalho
+                }
+                if (!fechado) {
+                    // espera um pouco para juntar mais saves no mesmo lote
+                    temTrabalho.awaitNanos(TimeUnit.MILLISECONDS.toNanos(JANELA_LOTE_MS));
+                }
+                lote = new ArrayList<>(pendentes.values());
+                pendentes.clear();
+                escrevendo = true;
+            } catch (InterruptedException e) {
+                continue; // nao deve acontecer: ninguem interrompe esta thread
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                gravarLote(lote);
+            } catch (RuntimeException e) {
+                falhas++; // a thread continua: flush() e close() nao podem ficar esperando
+            } finally {
+                lock.lock();
+                try {
+                    escrevendo = false;
+                    if (pendentes.isEmpty()) {
+                        ocioso.signalAll();
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    private void gravarLote(List<Pedido> lote) {
+        Set<Path> diretorios = new HashSet<>();
+        List<Pedido> gravadosNoLote = new ArrayList<>(lote.size());
+
+        for (Pedido pedido : lote) {
+            try {
+                gravar(pedido);
+                diretorios.add(pedido.arquivo.toAbsolutePath().getParent());
+                gravadosNoLote.add(pedido);
+            } catch (IOException e) {
+                falhou(pedido, e);
+            } catch (RuntimeException e) { // ex: SaveData com algo que o codec nao aceita
+                falhou(pedido, new IOException("Erro inesperado gravando " + pedido.arquivo + ": " + e, e));
+            }
+        }
+
+        // um fsync de diretorio por lote torna todos os renames duraveis
+        for (Path dir : diretorios) {
+            sincronizarDiretorio(dir);
+        }
+
+        long agora = System.nanoTime();
+        for (Pedido pedido : gravadosNoLote) {
+            long latencia = agora - pedido.enfileiradoEm;
+            ultimaLatenciaNanos = latencia;
+            maiorLatenciaNanos = Math.max(maiorLatenciaNanos, latencia);
+            somaLatenciaNanos += latencia;
+            gravados++;
+
+            try {
+                SaveCatalog.doDiretorio(pedido.arquivo.getParent()).registrar(pedido.arquivo, pedido.data);
+            } catch (IOException | RuntimeException e) {
+                // o save esta em disco; o catalogo se refaz na proxima listagem
+            }
+        }
+        lotes++;
+    }
+
+    private void falhou(Pedido pedido, IOException e) {
+        falhas++;
+        if (pedido.aoFalhar != null) {
+            try {
+                pedido.aoFalhar.accept(e);
+            } catch (RuntimeException erroDoAviso) {
+                // o aviso e de quem pediu; o resto do lote continua
+            }
+        }
+    }
+
+    private static void gravar(Pedido pedido) throws IOException {
+        Path destino = pedido.arquivo;
+        Path dir = destino.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+
+        Path temp = dir.resolve(destino.getFileName() + ".tmp");
+        try (FileChannel canal = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream out = Channels.newOutputStream(canal);
+            BinarySaveCodec.encode(pedido.data, new java.io.BufferedOutputStream(out, 8192));
+            canal.force(true);
+        }
+        Files.move(temp, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // data do save = fim da gravacao (o catalogo compara com o diretorio)
+        Files.setLastModifiedTime(destino, FileTime.fromMillis(System.currentTimeMillis()));
+    }
+
+    private static void sincronizarDiretorio(Path dir) {
+        try (FileChannel canal = FileChannel.open(dir, StandardOpenOption.READ)) {
+            canal.force(true);
+        } catch (IOException e) {
+            // alguns sistemas (ex: Windows) nao deixam abrir diretorio; o rename ja foi feito
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.gustavo.rpg.sim;
+
+import com.gustavo.rpg.core.CombatRules;
+import com.gustavo.rpg.core.Game;
+import com.gustavo.rpg.core.Location;
+import com.gustavo.rpg.core.WorldTemplate;
+import com.gustavo.rpg.entities.NPC;
+import com.gustavo.rpg.entities.Player;
+import com.gustavo.rpg.items.Item;
+import com.gustavo.rpg.items.Weapon;
+import com.gustavo.rpg.utils.RandomSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Simulador Monte Carlo de balanceamento.
+ *
+ * Roda milhoes de lutas de cada classe contra cada inimigo do mundo padrao,
+ * com cada arma do mapa (e sem arma), usando exatamente as regras do jogo:
+ * attack() da classe e o contra-ataque de CombatRules, como em Game.atacar.
+ * Uma luta termina quando o inimigo morre (vitoria) ou o HP do jogador
+ * chega a zero (derrota).
+ *
+ * As lutas sao divididas com fork/join; cada tarefa recebe sua propria
+ * fonte de dados via split(), entao a mesma semente da o mesmo resultado
+ * com qualquer numero de threads.
+ *
+ * Uso: CombatSimulator [totalDeLutas] [semente] [threads]
+ */
+public final class CombatSimulator {
+
+    /** Lutas por tarefa folha do fork/join. */
+    private static final int LOTE = 50_000;
+
+    /** Lutas com mais turnos que isso caem no ultimo balde do histograma. */
+    static final int MAX_TURNOS = 64;
+
+    private static final String[] CLASSES = { "guerreiro", "mago", "arqueiro" };
+
+    /** Uma combinacao classe x inimigo x arma. */
+    public static final class Confronto {
+        final String classe;
+        final NPC inimigo;     // prototipo do template (so leitura)
+        final Weapon arma;     // null = sem arma
+
+        Confronto(String classe, NPC inimigo, Weapon arma) {
+            this.classe = classe;
+            this.inimigo = inimigo;
+            this.arma = arma;
+        }
+
+        @Override
+        public String toString() {
+            return classe + " vs " + inimigo.getName() + " [" + (arma == null ? "sem arma" : arma.getName()) + "]";
+        }
+    }
+
+    /** Resultado agregado de um confronto. */
+    public static final class Estatisticas {
+        long lutas;
+        long vitorias;
+        final long[] turnos = new long[MAX_TURNOS + 1];
+        final long[] hpRestante; // so vitorias; indice = HP
+
+        Estatisticas(int hpMaximo) {
+            hpRestante = new long[hpMaximo + 1];
+        }
+
+        void somar(Estatisticas outra) {
+            lutas += outra.lutas;
+            vitorias += outra.vitorias;
+            for (int i = 0; i < turnos.length; i++) turnos[i] += outra.turnos[i];
+            for (int i = 0; i < hpRestante.length; i++) hpRestante[i] += outra.hpRestante[i];
+        }
+
+        public double taxaVitoria() {
+            return lutas == 0 ? 0.0 : vitorias / (double) lutas;
+        }
+
+        public double turnosMedia() {
+            long soma = 0;
+            for (int i = 0; i < turnos.length; i++) soma += i * turnos[i];
+            return lutas == 0 ? 0.0 : soma / (double) lutas;
+        }
+
+        public int turnosPercentil(double p) {
+            return percentil(turnos, lutas, p);
+        }
+
+        /** Percentil do HP que sobra nas vitorias. */
+        public int hpPercentil(double p) {
+            return percentil(hpRestante, vitorias, p);
+        }
+
+        private static int percentil(long[] histograma, long total, double p) {
+            if (total == 0) return 0;
+            long alvo = (long) Math.ceil(p * total);
+            long acumulado = 0;
+            for (int i = 0; i < histograma.length; i++) {
+                acumulado += histograma[i];
+                if (acumulado >= alvo) return i;
+            }
+            return histograma.length - 1;
+        }
+    }
+
+    private CombatSimulator() {}
+
+    public static void main(String[] args) {
+        long total = args.length > 0 ? Long.parseLong(args[0]) : 10_000_000L;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+        int threads = args.length > 2 ? Integer.parseInt(args[2])
+                : Runtime.getRuntime().availableProcessors();
+
+        List<Confronto> confrontos = confrontosPadrao();
+        long porConfronto = Math.max(1, total / confrontos.size());
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long inicio = System.nanoTime();
+        List<Estatisticas> resultados = simular(pool, confrontos, porConfronto, new RandomSource(seed));
+        long nanos = System.nanoTime() - inicio;
+        pool.shutdown();
+
+        System.out.printf("%-44s %8s %6s %4s %4s %4s   %s%n",
+                "confronto", "vitoria", "turnos", "p50", "p90", "p99", "HP restante p10/p50/p90");
+        for (int i = 0; i < confrontos.size(); i++) {
+            Estatisticas e = resultados.get(i);
+            System.out.printf("%-44s %7.2f%% %6.2f %4d %4d %4d   %d/%d/%d%n",
+                    confrontos.get(i), 100 * e.taxaVitoria(), e.turnosMedia(),
+                    e.turnosPercentil(0.50), e.turnosPercentil(0.90), e.turnosPercentil(0.99),
+                    e.hpPercentil(0.10), e.hpPercentil(0.50), e.hpPercentil(0.90));
+        }
+
+        long lutas = porConfronto * confrontos.size();
+        System.out.printf("%n%d lutas em %.2f s com %d threads (%.1f M lutas/s)%n",
+                lutas, nanos / 1e9, threads, lutas / (nanos / 1e3));
+    }
+
+    /**
+     * Todas as combinacoes do mundo padrao: cada classe contra cada NPC do
+     * mapa, sem arma, com a arma inicial e com cada arma encontrada no chao.
+     */
+    public static List<Confronto> confrontosPadrao() {
+        List<NPC> inimigos = new ArrayList<>();
+        List<Weapon> armas = new ArrayList<>();
+        armas.add(null);
+        armas.add(CombatRules.armaInicial());
+
+        for (Location loc : WorldTemplate.padrao().getLocations().values()) {
+            inimigos.addAll(loc.getNpcs());
+            for (Item item : loc.getGroundItems()) {
+                if (item instanceof Weapon w) armas.add(w);
+            }
+        }
+
+        List<Confronto> confrontos = new ArrayList<>();
+        for (String classe : CLASSES) {
+            for (NPC inimigo : inimigos) {
+                for (Weapon arma : armas) {
+                    confrontos.add(new Confronto(classe, inimigo, arma));
+                }
+            }
+        }
+        return confrontos;
+    }
+
+    /** Roda 'lutas' lutas de cada confronto; resultados na mesma ordem. */
+    public static List<Estatisticas> simular(ForkJoinPool pool, List<Confronto> confrontos,
+                                             long lutas, RandomSource rng) {
+        List<Tarefa> tarefas = new ArrayList<>();
+        for (Confronto c : confrontos) {
+            tarefas.add(new Tarefa(c, lutas, rng.split()));
+        }
+        return pool.invoke(new RecursiveTask<List<Estatisticas>>() {
+            @Override
+            protected List<Estatisticas> compute() {
+                invokeAll(tarefas);
+                List<Estatisticas> resultado = new ArrayList<>();
+                for (Tarefa t : tarefas) resultado.add(t.join());
+                return resultado;
+            }
+        });
+    }
+
+    // -------------------------------------------------------------------------
+    // FORK/JOIN
+    // -------------------------------------------------------------------------
+
+    private static final class Tarefa extends RecursiveTask<Estatisticas> {
+        private static final long serialVersionUID = 1L; // nunca e serializada; so para o -Xlint
+
+        private final Confronto confronto;
+        private final long lutas;
+        private final RandomSource rng;
+
+        Tarefa(Confronto confronto, long lutas, RandomSource rng) {
+            this.confronto = confronto;
+            this.lutas = lutas;
+            this.rng = rng;
+        }
+
+        @Override
+        protected Estatisticas compute() {
+            if (lutas <= LOTE) {
+                return lutar(confronto, lutas, rng);
+            }
+            long metade = lutas / 2;
+            // o split acontece aqui, na ordem da arvore: resultado nao depende do agendamento
+            Tarefa esquerda = new Tarefa(confronto, metade, rng.split());
+            Tarefa direita = new Tarefa(confronto, lutas - metade, rng.split());
+            esquerda.fork();
+            Estatisticas resultado = direita.compute();
+            resultado.somar(esquerda.join());
+            return resultado;
+        }
+    }
+
+    /** Laco quente: um Player reaproveitado, HPs em variaveis locais. */
+    static Estatisticas lutar(Confronto c, long lutas, RandomSource rng) {
+        Player jogador = Game.criarPlayerParaClasse("Sim", c.classe);
+        jogador.setWeapon(c.arma);
+        int hpJogador = jogador.getHp();
+        int hpInimigo = c.inimigo.getHp();
+
+        Estatisticas e = new Estatisticas(hpJogador);
+        for (long n = 0; n < lutas; n++) {
+            int jogadorHp = hpJogador;
+            int inimigoHp = hpInimigo;
+            int turno = 0;
+            while (true) {
+                turno++;
+                inimigoHp -= jogador.attack(rng);
+                if (inimigoHp <= 0) {
+                    e.vitorias++;
+                    e.hpRestante[jogadorHp]++;
+                    break;
+                }
+                jogadorHp -= CombatRules.contraAtaque(rng);
+                if (jogadorHp <= 0) {
+                    break;
+                }
+            }
+            e.turnos[Math.min(turno, MAX_TURNOS)]++;
+        }
+        e.lutas = lutas;
+        return e;
+    }
+}
@@ -0,0 +1,72 @@
+package com.gustavo.rpg.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fila limitada sem locks: varios produtores, um consumidor.
+ *
+ * Anel de tamanho potencia de 2 em que cada posicao tem um numero de
+ * sequencia (fila de Vyukov): o produtor reserva uma posicao com um CAS na
+ * cauda, escreve o elemento e publica a sequencia; o consumidor so le uma
+ * posicao cuja sequencia diz que ela ja foi publicada. Cheia, offer()
+ * devolve false na hora (quem envia decide o que fazer, nunca bloqueia).
+ */
+public final class BoundedMpscQueue<T> {
+
+    private final int mascara;
+    private final AtomicReferenceArray<T> elementos;
+    private final AtomicLongArray sequencias;
+    private final AtomicLong cauda = new AtomicLong();
+    private long cabeca; // so o consumidor mexe
+
+    public BoundedMpscQueue(int capacidade) {
+        if (capacidade < 2 || Integer.bitCount(capacidade) != 1) {
+            throw new IllegalArgumentException("Capacidade deve ser potencia de 2: " + capacidade);
+        }
+        this.mascara = capacidade - 1;
+        this.elementos = new AtomicReferenceArray<>(capacidade);
+        this.sequencias = new AtomicLongArray(capacidade);
+        for (int i = 0; i < capacidade; i++) sequencias.set(i, i);
+    }
+
+    public int capacidade() { return mascara + 1; }
+
+    /** Qualquer thread. false = fila cheia. */
+    public boolean offer(T elemento) {
+        while (true) {
+            long posicao = cauda.get();
+            int i = (int) (posicao & mascara);
+            long diferenca = sequencias.getAcquire(i) - posicao;
+            if (diferenca == 0) {
+                if (cauda.compareAndSet(posicao, posicao + 1)) {
+                    elementos.setPlain(i, elemento);
+                    sequencias.setRelease(i, posicao + 1); // publica o elemento
+                    return true;
+                }
+            } else if (diferenca < 0) {
+                return false; // o consumidor ainda nao liberou esta posicao
+            }
+            // outro produtor pegou a posicao: tenta a proxima
+        }
+    }
+
+    /** So a thread consumidora. null = vazia (ou o proximo ainda nao foi publicado). */
+    public T poll() {
+        int i = (int) (cabeca & mascara);
+        if (sequencias.getAcquire(i) != cabeca + 1) {
+            return null;
+        }
+        T elemento = elementos.getPlain(i);
+        elementos.setPlain(i, null);
+        sequencias.setRelease(i, cabeca + mascara + 1); // libera para a proxima volta
+        cabeca++;
+        return elemento;
+    }
+
+    /** Aproximado (muda enquanto os produtores escrevem). */
+    public int tamanho() {
+        return (int) Math.max(0, cauda.get() - cabeca);
+    }
+}
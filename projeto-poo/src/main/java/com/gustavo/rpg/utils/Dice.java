@@ -3,12 +3,82 @@ package com.gustavo.rpg.utils;
 import java.util.concurrent.ThreadLocalRandom;
 
 public final class Dice {
+    /** Maior qtd * faces que vira DiceTable: acima disso a tabela e grande e usada pouco. */
+    private static final int TABELA_MAXIMA = 4096;
+    private static final int LOTE = 64;
+
     private Dice() {}
+
+    /** Rola usando o gerador da thread (sem semente). */
     public static int roll(int qtd, int faces) {
+        ThreadLocalRandom rng = ThreadLocalRandom.current();
         int sum = 0;
         for (int i = 0; i < qtd; i++) {
-            sum += ThreadLocalRandom.current().nextInt(1, faces + 1);
+            sum += rng.nextInt(1, faces + 1);
         }
         return sum;
     }
+
+    /**
+     * Rola qtd dados de 'faces' lados usando a fonte informada. Rolagens
+     * pequenas usam a DiceTable (cacheada para sempre); nas grandes montar a
+     * tabela custaria mais que rolar, entao os dados saem do rollMany.
+     */
+    public static int roll(RandomSource rng, int qtd, int faces) {
+        if (qtd <= 0) {
+            return 0; // como roll(qtd, faces): nenhum dado, soma zero
+        }
+        if (qtd == 1) {
+            return rng.nextInt(1, faces + 1);
+        }
+        if (qtd <= DiceTable.MAX_DADOS && faces >= 1 && faces <= DiceTable.MAX_FACES
+                && (long) qtd * faces <= TABELA_MAXIMA) {
+            return DiceTable.of(qtd, faces).roll(rng);
+        }
+        int sum = 0;
+        if (faces >= 2 && faces <= 65536) {
+            int[] dados = new int[Math.min(qtd, LOTE)];
+            for (int falta = qtd; falta > 0; falta -= dados.length) {
+                if (falta < dados.length) dados = new int[falta];
+                rollMany(rng, faces, dados);
+                for (int d : dados) sum += d;
+            }
+            return sum;
+        }
+        for (int i = 0; i < qtd; i++) {
+            sum += rng.nextInt(1, faces + 1);
+        }
+        return sum;
+    }
+
+    /**
+     * Preenche 'destino' com rolagens de um dado de 'faces' lados (2..65536).
+     * Cada nextLong() rende quatro dados de 16 bits (multiplica-e-desloca
+     * com rejeicao, sem vies), entao sai bem mais barato que um sorteio
+     * por dado.
+     */
+    public static void rollMany(RandomSource rng, int faces, int[] destino) {
+        if (faces < 2 || faces > 65536) {
+            throw new IllegalArgumentException("faces fora de 2..65536: " + faces);
+        }
+        int limiar = 65536 % faces; // valores abaixo disso dariam vies
+        int i = 0;
+        while (i < destino.length) {
+            long bits = rng.nextLong();
+            for (int parte = 0; parte < 4 && i < destino.length; parte++) {
+                long m = (bits & 0xFFFFL) * faces;
+                bits >>>= 16;
+                if ((m & 0xFFFFL) < limiar) continue; // rejeita e usa o proximo pedaco
+                destino[i++] = (int) (m >>> 16) + 1;
+            }
+        }
+    }
+
+    /** Preenche 'destino' com somas de qtd dados de 'faces' lados. */
+    public static void rollMany(RandomSource rng, int qtd, int faces, int[] destino) {
+        DiceTable tabela = DiceTable.of(qtd, faces);
+        for (int i = 0; i < destino.length; i++) {
+            destino[i] = tabela.roll(rng);
+        }
+    }
 }
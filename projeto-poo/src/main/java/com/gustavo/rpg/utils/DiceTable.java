@@ -0,0 +1,117 @@
+package com.gustavo.rpg.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Distribuicao pre-calculada da soma de N dados de F faces (NdF).
+ *
+ * Usa o metodo alias de Walker: depois de montada, cada rolagem de NdF
+ * custa um sorteio e uma comparacao, nao importa quantos dados sejam.
+ * As tabelas sao imutaveis e compartilhadas entre threads.
+ */
+public final class DiceTable {
+
+    static final int MAX_DADOS = 64;
+    static final int MAX_FACES = 1000;
+
+    private static final long SEMPRE = 1L << 32;
+
+    private static final Map<Long, DiceTable> CACHE = new ConcurrentHashMap<>();
+
+    private final int qtd;
+    private final int faces;
+    private final double[] probabilidades; // indice = soma - qtd
+    private final long[] corte;   // probabilidade de ficar na coluna, em 1/2^32
+    private final int[] alias;
+
+    private DiceTable(int qtd, int faces) {
+        this.qtd = qtd;
+        this.faces = faces;
+        this.probabilidades = distribuicao(qtd, faces);
+
+        int n = probabilidades.length;
+        corte = new long[n];
+        alias = new int[n];
+        montarAlias(n);
+    }
+
+    public static DiceTable of(int qtd, int faces) {
+        if (qtd < 1 || qtd > MAX_DADOS || faces < 1 || faces > MAX_FACES) {
+            throw new IllegalArgumentException("Tabela nao suportada: " + qtd + "d" + faces);
+        }
+        long chave = ((long) qtd << 32) | faces;
+        return CACHE.computeIfAbsent(chave, k -> new DiceTable(qtd, faces));
+    }
+
+    /**
+     * Um nextLong() por rolagem: 32 bits escolhem a coluna, 32 bits decidem
+     * entre a coluna e seu alias.
+     */
+    public int roll(RandomSource rng) {
+        long r = rng.nextLong();
+        int coluna = (int) (((r >>> 32) * corte.length) >>> 32);
+        return qtd + ((r & 0xFFFFFFFFL) < corte[coluna] ? coluna : alias[coluna]);
+    }
+
+    public int getMinimo() { return qtd; }
+    public int getMaximo() { return qtd * faces; }
+
+    /** Probabilidade exata de a soma dar 'soma'. */
+    public double probabilidade(int soma) {
+        if (soma < qtd || soma > qtd * faces) return 0.0;
+        return probabilidades[soma - qtd];
+    }
+
+    public double media() {
+        return qtd * (faces + 1) / 2.0;
+    }
+
+    // -------------------------------------------------------------------------
+    // MONTAGEM
+    // -------------------------------------------------------------------------
+
+    /** Convolucao: distribuicao de 1 dado somada N vezes. */
+    private static double[] distribuicao(int qtd, int faces) {
+        double[] atual = { 1.0 }; // soma de 0 dados = 0 com certeza
+        for (int d = 0; d < qtd; d++) {
+            double[] proxima = new double[atual.length + faces - 1];
+            for (int s = 0; s < atual.length; s++) {
+                double p = atual[s] / faces;
+                for (int f = 0; f < faces; f++) {
+                    proxima[s + f] += p;
+                }
+            }
+            atual = proxima;
+        }
+        return atual;
+    }
+
+    private void montarAlias(int n) {
+        double[] escala = new double[n];
+        int[] pequenos = new int[n];
+        int[] grandes = new int[n];
+        int np = 0;
+        int ng = 0;
+
+        for (int i = 0; i < n; i++) {
+            escala[i] = probabilidades[i] * n;
+            if (escala[i] < 1.0) pequenos[np++] = i; else grandes[ng++] = i;
+        }
+        while (np > 0 && ng > 0) {
+            int p = pequenos[--np];
+            int g = grandes[--ng];
+            corte[p] = (long) (escala[p] * SEMPRE);
+            alias[p] = g;
+            escala[g] = (escala[g] + escala[p]) - 1.0;
+            if (escala[g] < 1.0) pequenos[np++] = g; else grandes[ng++] = g;
+        }
+        while (ng > 0) corte[grandes[--ng]] = SEMPRE;
+        while (np > 0) corte[pequenos[--np]] = SEMPRE; // sobra de arredondamento
+    }
+
+    @Override
+    public String toString() {
+        return qtd + "d" + faces;
+    }
+}
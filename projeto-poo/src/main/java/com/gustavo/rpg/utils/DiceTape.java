@@ -0,0 +1,65 @@
+package com.gustavo.rpg.utils;
+
+import java.util.Arrays;
+
+/**
+ * Fita de sorteios de uma RandomSource (ver RandomSource.setFita).
+ *
+ * Gravando, guarda cada valor que a fonte devolve; reproduzindo, a fonte
+ * devolve os valores da fita na mesma ordem, entao um comando refeito
+ * tira exatamente os mesmos dados (diario de comandos). Se a reproducao
+ * pedir um valor que a fita nao tem (acabou ou fora da faixa pedida), a
+ * fonte volta a sortear e a fita conta uma divergencia.
+ */
+public final class DiceTape {
+
+    private long[] valores = new long[8];
+    private int tamanho;
+    private int lidos;
+    private boolean reproduzindo;
+    private int divergencias;
+
+    /** Comeca a gravar do zero. */
+    public void gravar() {
+        tamanho = 0;
+        lidos = 0;
+        reproduzindo = false;
+    }
+
+    /** Passa a devolver 'gravados', do primeiro ao ultimo. */
+    public void reproduzir(long[] gravados) {
+        if (valores.length < gravados.length) valores = new long[gravados.length];
+        System.arraycopy(gravados, 0, valores, 0, gravados.length);
+        tamanho = gravados.length;
+        lidos = 0;
+        reproduzindo = true;
+    }
+
+    /** O que foi gravado desde gravar(). */
+    public long[] getValores() { return Arrays.copyOf(valores, tamanho); }
+
+    public int tamanho() { return tamanho; }
+
+    public int getDivergencias() { return divergencias; }
+
+    // -------------------------------------------------------------------------
+    // USO DA RANDOMSOURCE
+    // -------------------------------------------------------------------------
+
+    boolean temProximo() { return reproduzindo && lidos < tamanho; }
+
+    long proximo() { return valores[lidos++]; }
+
+    void divergiu() { divergencias++; }
+
+    /** Valor novo da fonte: gravando, vai para a fita; reproduzindo, e uma divergencia. */
+    long anotar(long valor) {
+        if (reproduzindo) {
+            divergencias++;
+        } else {
+            if (tamanho == valores.length) valores = Arrays.copyOf(valores, tamanho * 2);
+            valores[tamanho++] = valor;
+        }
+        return valor;
+    }
+}
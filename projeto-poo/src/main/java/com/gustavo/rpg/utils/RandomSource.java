@@ -0,0 +1,84 @@
+package com.gustavo.rpg.utils;
+
+import java.util.SplittableRandom;
+
+/**
+ * Fonte de numeros aleatorios de uma partida (ou de um worker de simulacao).
+ *
+ * Com semente fixa a sequencia e sempre a mesma, entao o combate pode ser
+ * reproduzido. split() cria uma fonte independente para outra thread sem
+ * compartilhar estado. Nao e thread-safe: cada thread usa a sua.
+ *
+ * Com uma DiceTape ligada (setFita) cada valor sorteado e gravado, ou
+ * vem da fita quando ela esta reproduzindo.
+ */
+public final class RandomSource {
+
+    private static final ThreadLocal<RandomSource> LOCAL =
+            ThreadLocal.withInitial(RandomSource::new);
+
+    private final SplittableRandom rng;
+    private DiceTape fita; // null = sem gravacao
+
+    /** Semente aleatoria. */
+    public RandomSource() {
+        this(new SplittableRandom());
+    }
+
+    /** Semente fixa: mesma semente, mesmos dados. */
+    public RandomSource(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    private RandomSource(SplittableRandom rng) {
+        this.rng = rng;
+    }
+
+    /** Fonte da thread atual, para quem nao tem uma fonte propria. */
+    public static RandomSource local() {
+        return LOCAL.get();
+    }
+
+    /** Nova fonte independente (ex: uma por worker de uma simulacao paralela). */
+    public RandomSource split() {
+        return new RandomSource(rng.split());
+    }
+
+    /** Liga (ou desliga, com null) a fita que grava ou reproduz os sorteios. */
+    public void setFita(DiceTape fita) {
+        this.fita = fita;
+    }
+
+    /** Inteiro em [origem, limite). */
+    public int nextInt(int origem, int limite) {
+        if (fita == null) return rng.nextInt(origem, limite);
+        if (fita.temProximo()) {
+            long v = fita.proximo();
+            if (v >= origem && v < limite) return (int) v;
+            fita.divergiu();
+        }
+        return (int) fita.anotar(rng.nextInt(origem, limite));
+    }
+
+    /** Inteiro em [0, limite). */
+    public int nextInt(int limite) {
+        if (fita == null) return rng.nextInt(limite);
+        return nextInt(0, limite);
+    }
+
+    public long nextLong() {
+        if (fita == null) return rng.nextLong();
+        if (fita.temProximo()) return fita.proximo();
+        return fita.anotar(rng.nextLong());
+    }
+
+    public double nextDouble() {
+        if (fita == null) return rng.nextDouble();
+        if (fita.temProximo()) {
+            double v = Double.longBitsToDouble(fita.proximo());
+            if (v >= 0.0 && v < 1.0) return v;
+            fita.divergiu();
+        }
+        return Double.longBitsToDouble(fita.anotar(Double.doubleToRawLongBits(rng.nextDouble())));
+    }
+}
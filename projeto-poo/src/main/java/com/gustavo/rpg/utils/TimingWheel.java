@@ -0,0 +1,176 @@
+package com.gustavo.rpg.utils;
+
+import java.util.function.Consumer;
+
+/**
+ * Roda de tempo hierarquica (timing wheel) para muitos timers em ticks.
+ *
+ * NIVEIS rodas de 64 posicoes: a roda 0 tem um tick por posicao, a roda 1
+ * 64 ticks, a roda 2 64^2... Um timer entra na roda que cobre a distancia
+ * ate ele vencer; quando uma roda menor da a volta, a posicao atual da roda
+ * de cima e "descida" (cada timer vai para uma roda mais fina). Agendar,
+ * cancelar e disparar sao O(1) por timer, com milhoes pendentes. Timers
+ * alem de 64^NIVEIS ticks ficam na ultima roda e voltam para ela ate chegar
+ * a hora.
+ *
+ * Nao e thread-safe: quem usa (o relogio de um mundo) roda numa thread so.
+ */
+public final class TimingWheel<T> {
+
+    private static final int BITS = 6;
+    private static final int POSICOES = 1 << BITS;
+    private static final int MASCARA = POSICOES - 1;
+    private static final int NIVEIS = 4;
+
+    /** Um timer agendado; cancelar() tira ele da roda em O(1). */
+    public static final class Timer<T> {
+        private final T valor;
+        private long vence;
+        private Timer<T> anterior;
+        private Timer<T> proximo;
+        private Timer<T>[] lista; // roda em que esta (null = disparou ou cancelado)
+        private int posicao;
+
+        private Timer(T valor, long vence) {
+            this.valor = valor;
+            this.vence = vence;
+        }
+
+        public T getValor() { return valor; }
+        public long getVence() { return vence; }
+        public boolean isPendente() { return lista != null; }
+    }
+
+    /** Quem recebe os timers que vencem em avancar(). */
+    @FunctionalInterface
+    public interface Disparo<T> {
+        void disparar(T valor);
+    }
+
+    private final Timer<T>[][] rodas; // [nivel][posicao] = cabeca da lista
+    private long agora;
+    private int pendentes;
+
+    @SuppressWarnings({"unchecked", "rawtypes"}) // array generico: new Timer<T>[][] nao compila
+    public TimingWheel() {
+        rodas = new Timer[NIVEIS][POSICOES];
+    }
+
+    public long getAgora() { return agora; }
+    public int getPendentes() { return pendentes; }
+
+    /** Agenda 'valor' para daqui a 'atraso' ticks (no minimo 1). */
+    public Timer<T> agendar(long atraso, T valor) {
+        Timer<T> timer = new Timer<>(valor, agora + Math.max(1, atraso));
+        inserir(timer);
+        pendentes++;
+        return timer;
+    }
+
+    /** Tira o timer da roda; false se ele ja disparou ou ja foi cancelado. */
+    public boolean cancelar(Timer<T> timer) {
+        if (timer.lista == null) return false;
+        retirar(timer);
+        pendentes--;
+        return true;
+    }
+
+    /**
+     * Anda um tick e entrega os timers que venceram, na ordem em que foram
+     * agendados. O disparo pode agendar timers novos (vencem depois).
+     * Retorna quantos dispararam.
+     */
+    public int avancar(Disparo<T> disparo) {
+        agora++;
+        // desce as rodas de cima que deram a volta (da mais fina para a mais grossa)
+        for (int nivel = 1; nivel < NIVEIS; nivel++) {
+            if (((agora >>> (BITS * (nivel - 1))) & MASCARA) != 0) break;
+            descer(nivel, (int) ((agora >>> (BITS * nivel)) & MASCARA));
+        }
+
+        // um de cada vez pela cabeca: o disparo pode cancelar outro timer desta posicao
+        Timer<T>[] roda = rodas[0];
+        int posicao = (int) (agora & MASCARA);
+        int disparados = 0;
+        Timer<T> timer;
+        while ((timer = roda[posicao]) != null) {
+            retirar(timer);
+            if (timer.vence > agora) {
+                inserir(timer); // so acontece com timers alem do alcance das rodas
+            } else {
+                pendentes--;
+                disparados++;
+                disparo.disparar(timer.valor);
+            }
+        }
+        return disparados;
+    }
+
+    /** Visita os timers pendentes, sem ordem. Nao agende nem cancele durante a visita. */
+    public void paraCada(Consumer<Timer<T>> visita) {
+        for (Timer<T>[] roda : rodas) {
+            for (Timer<T> timer : roda) {
+                for (; timer != null; timer = timer.proximo) {
+                    visita.accept(timer);
+                }
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // LISTAS DAS POSICOES
+    // -------------------------------------------------------------------------
+
+    private void inserir(Timer<T> timer) {
+        long distancia = timer.vence - agora;
+        int nivel = 0;
+        while (nivel < NIVEIS - 1 && distancia >= 1L << (BITS * (nivel + 1))) nivel++;
+        long vence = Math.min(timer.vence, agora + (1L << (BITS * NIVEIS)) - 1);
+        int posicao = (int) ((vence >>> (BITS * nivel)) & MASCARA);
+
+        // no fim da lista: timers que vencem juntos disparam na ordem em que entraram
+        Timer<T>[] lista = rodas[nivel];
+        Timer<T> cabeca = lista[posicao];
+        timer.lista = lista;
+        timer.posicao = posicao;
+        if (cabeca == null) {
+            lista[posicao] = timer;
+            timer.anterior = timer; // a cabeca guarda o ultimo em 'anterior'
+        } else {
+            Timer<T> ultimo = cabeca.anterior;
+            ultimo.proximo = timer;
+            timer.anterior = ultimo;
+            cabeca.anterior = timer;
+        }
+    }
+
+    private void retirar(Timer<T> timer) {
+        Timer<T>[] lista = timer.lista;
+        Timer<T> cabeca = lista[timer.posicao];
+        if (timer == cabeca) {
+            Timer<T> seguinte = timer.proximo;
+            if (seguinte != null) seguinte.anterior = timer.anterior;
+            lista[timer.posicao] = seguinte;
+        } else {
+            timer.anterior.proximo = timer.proximo;
+            if (timer.proximo != null) {
+                timer.proximo.anterior = timer.anterior;
+            } else {
+                cabeca.anterior = timer.anterior;
+            }
+        }
+        timer.anterior = timer.proximo = null;
+        timer.lista = null;
+    }
+
+    private void descer(int nivel, int posicao) {
+        Timer<T> timer = rodas[nivel][posicao];
+        rodas[nivel][posicao] = null;
+        while (timer != null) {
+            Timer<T> seguinte = timer.proximo;
+            timer.anterior = timer.proximo = null;
+            inserir(timer);
+            timer = seguinte;
+        }
+    }
+}
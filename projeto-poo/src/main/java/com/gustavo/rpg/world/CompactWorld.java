@@ -0,0 +1,185 @@
+package com.gustavo.rpg.world;
+
+import com.gustavo.rpg.entities.NPC;
+import com.gustavo.rpg.items.Item;
+
+import java.util.List;
+
+/**
+ * Mapa gerado, guardado em arrays primitivos (um indice por local).
+ *
+ * Locais sao ids 0..n-1 numa grade largura x altura (id = y * largura + x).
+ * As saidas ficam em CSR: 'saidas[id]' e a mascara das direcoes existentes
+ * e os destinos de id ficam em destinos[inicio[id] ..], na ordem das
+ * direcoes. Achar o vizinho numa direcao e um bitCount, sem laco.
+ *
+ * Nome e descricao nao sao guardados por local: o nome sai do bioma e da
+ * posicao, e a descricao e um indice numa tabela pequena de textos.
+ * NPC e item inicial de cada local sao indices (0 = nenhum) em tabelas de
+ * prototipos compartilhados. Somando tudo, uns 20-25 bytes por local.
+ *
+ * Imutavel: pode ser lido por qualquer numero de threads.
+ */
+public final class CompactWorld implements GridWorld {
+
+    public static final int NORTE = 0;
+    public static final int SUL = 1;
+    public static final int LESTE = 2;
+    public static final int OESTE = 3;
+    public static final int CIMA = 4;   // portais (passagens para longe)
+    public static final int BAIXO = 5;
+
+    private static final String[] DIRECOES = { "norte", "sul", "leste", "oeste", "cima", "baixo" };
+
+    private final int largura;
+    private final int altura;
+    private final int inicial;
+
+    private final byte[] saidas;      // mascara de direcoes
+    private final int[] inicio;       // n + 1 posicoes em 'destinos'
+    private final int[] destinos;
+    private final byte[] bioma;
+    private final byte[] descricao;   // indice em 'textos'
+    private final byte[] npc;         // 0 = nenhum, senao indice + 1 em 'npcs'
+    private final byte[] loot;        // 0 = nenhum, senao indice + 1 em 'itens'
+
+    private final String[] biomas;
+    private final String[] textos;
+    private final NPC[] npcs;
+    private final Item[] itens;
+
+    CompactWorld(int largura, int altura, int inicial,
+                 byte[] saidas, int[] inicio, int[] destinos,
+                 byte[] bioma, byte[] descricao, byte[] npc, byte[] loot,
+                 String[] biomas, String[] textos, NPC[] npcs, Item[] itens) {
+        this.largura = largura;
+        this.altura = altura;
+        this.inicial = inicial;
+        this.saidas = saidas;
+        this.inicio = inicio;
+        this.destinos = destinos;
+        this.bioma = bioma;
+        this.descricao = descricao;
+        this.npc = npc;
+        this.loot = loot;
+        this.biomas = biomas;
+        this.textos = textos;
+        this.npcs = npcs;
+        this.itens = itens;
+    }
+
+    // -------------------------------------------------------------------------
+    // GRAFO
+    // -------------------------------------------------------------------------
+
+    @Override
+    public int tamanho() { return saidas.length; }
+    @Override
+    public int getLargura() { return largura; }
+    @Override
+    public int getAltura() { return altura; }
+    @Override
+    public int getInicial() { return inicial; }
+
+    /** Total de saidas (arestas dirigidas). */
+    public int getArestas() { return destinos.length; }
+
+    /** Mascara das direcoes com saida (bit = NORTE..BAIXO). */
+    public int saidas(int id) {
+        return saidas[id];
+    }
+
+    /** Destino saindo de id na direcao, ou -1. O(1). */
+    @Override
+    public int vizinho(int id, int direcao) {
+        int mascara = saidas[id];
+        int bit = 1 << direcao;
+        if ((mascara & bit) == 0) return -1;
+        return destinos[inicio[id] + Integer.bitCount(mascara & (bit - 1))];
+    }
+
+    /** Indice da direcao pelo nome ("norte"... "baixo"), ou -1. */
+    public static int direcao(String nome) {
+        for (int i = 0; i < DIRECOES.length; i++) {
+            if (DIRECOES[i].equalsIgnoreCase(nome)) return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public String nomeDirecao(int direcao) {
+        return DIRECOES[direcao];
+    }
+
+    @Override
+    public int totalDirecoes() {
+        return DIRECOES.length;
+    }
+
+    /** O gerador sempre liga os dois sentidos (inclusive portais). */
+    @Override
+    public boolean simetrico() {
+        return true;
+    }
+
+    /** Mundo gerado e imutavel: as conexoes nunca mudam. */
+    @Override
+    public long versao() {
+        return 0;
+    }
+
+    // -------------------------------------------------------------------------
+    // CONTEUDO
+    // -------------------------------------------------------------------------
+
+    @Override
+    public int x(int id) { return id % largura; }
+    @Override
+    public int y(int id) { return id / largura; }
+
+    @Override
+    public String nome(int id) {
+        return biomas[bioma[id]] + " (" + x(id) + "," + y(id) + ")";
+    }
+
+    @Override
+    public String descricao(int id) {
+        return textos[descricao[id]];
+    }
+
+    @Override
+    public NPC npc(int id) {
+        int i = npc[id];
+        return i == 0 ? null : npcs[i - 1];
+    }
+
+    @Override
+    public Item loot(int id) {
+        int i = loot[id];
+        return i == 0 ? null : itens[i - 1];
+    }
+
+    @Override
+    public List<NPC> getPrototiposNpc() { return List.of(npcs); }
+
+    @Override
+    public List<Item> getPrototiposItem() { return List.of(itens); }
+
+    // indices crus e tabelas, para o WorldFile gravar sem decodificar
+    byte biomaIndice(int id) { return bioma[id]; }
+    byte descricaoIndice(int id) { return descricao[id]; }
+    byte npcIndice(int id) { return npc[id]; }
+    byte lootIndice(int id) { return loot[id]; }
+    String[] biomas() { return biomas; }
+    String[] textos() { return textos; }
+    NPC[] npcs() { return npcs; }
+    Item[] itens() { return itens; }
+
+    /** Memoria dos arrays por local (sem cabecalhos de objeto), em bytes. */
+    public long bytesDosArrays() {
+        long n = saidas.length;
+        return n * 5                    // saidas, bioma, descricao, npc, loot
+                + 4L * inicio.length
+                + 4L * destinos.length;
+    }
+}
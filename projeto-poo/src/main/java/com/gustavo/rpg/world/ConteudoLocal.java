@@ -0,0 +1,14 @@
+package com.gustavo.rpg.world;
+
+import com.gustavo.rpg.entities.NPC;
+import com.gustavo.rpg.items.Item;
+
+import java.util.List;
+
+/** NPCs e itens no chao de um local, como o {@link RegionWorld} guarda e grava. */
+public interface ConteudoLocal {
+
+    List<NPC> getNpcs();
+
+    List<Item> getGroundItems();
+}
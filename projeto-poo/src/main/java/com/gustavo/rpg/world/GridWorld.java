@@ -0,0 +1,40 @@
+package com.gustavo.rpg.world;
+
+import com.gustavo.rpg.entities.NPC;
+import com.gustavo.rpg.items.Item;
+
+import java.util.List;
+
+/**
+ * Mundo gerado em grade (id = y * largura + x), com o conteudo inicial de
+ * cada local. Pode estar inteiro na memoria ({@link CompactWorld}) ou num
+ * arquivo lido por regioes ({@link RegionWorld}).
+ */
+public interface GridWorld extends WorldGraph {
+
+    int getLargura();
+
+    int getAltura();
+
+    int getInicial();
+
+    default int x(int id) { return id % getLargura(); }
+
+    default int y(int id) { return id / getLargura(); }
+
+    String nome(int id);
+
+    String descricao(int id);
+
+    /** Prototipo da NPC inicial do local (nao alterar), ou null. */
+    NPC npc(int id);
+
+    /** Item inicial no chao do local, ou null. */
+    Item loot(int id);
+
+    /** Todas as NPCs que npc() pode devolver, sempre na mesma ordem. */
+    List<NPC> getPrototiposNpc();
+
+    /** Todos os itens que loot() pode devolver, sempre na mesma ordem. */
+    List<Item> getPrototiposItem();
+}
@@ -0,0 +1,485 @@
+package com.gustavo.rpg.world;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Menor caminho (em numero de passos) entre dois locais de um WorldGraph.
+ *
+ * Em grafos simetricos (toda saida tem volta, como os mundos gerados) a
+ * busca e uma BFS dos dois lados ao mesmo tempo: com os portais o mundo
+ * fica "pequeno" e a bola de raio d/2 em volta de cada ponta e muito
+ * menor que a de raio d. Nos outros usa A* com heuristica de marcos (ALT):
+ * alguns locais espalhados tem a distancia BFS ate todos os outros
+ * calculada uma vez, e d(v, alvo) >= d(marco, alvo) - d(marco, v) poda a
+ * busca sem perder o menor caminho. Mapas pequenos nao usam marcos.
+ *
+ * As rotas ficam num cache LRU por (origem, destino). Quando a versao do
+ * grafo muda (alguma conexao mudou), cache e marcos sao descartados.
+ *
+ * Thread-safe: um PathFinder por mapa, compartilhado pelas partidas e
+ * pelo movimento das NPCs.
+ */
+public final class PathFinder {
+
+    /** Abaixo disso a busca sem heuristica ja e barata. */
+    private static final int MINIMO_PARA_MARCOS = 10_000;
+    private static final int MARCOS = 4;
+    private static final int ROTAS_NO_CACHE = 4096;
+
+    private static final int[] SEM_ROTA = new int[0];
+    private static final int INALCANCAVEL = Integer.MAX_VALUE;
+
+    private final WorldGraph grafo;
+
+    // protegidos por 'this'
+    private long versao;
+    private int[][] distanciaMarcos; // [marco][local]; null = ainda nao calculado ou sem marcos
+    private final Map<Long, int[]> cache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, int[]> mais) {
+            return size() > ROTAS_NO_CACHE;
+        }
+    };
+
+    private long buscas = 0;
+    private long acertos = 0;
+
+    public PathFinder(WorldGraph grafo) {
+        this.grafo = grafo;
+        this.versao = grafo.versao();
+    }
+
+    /**
+     * Direcoes a seguir de origem ate destino (vazio se origem == destino),
+     * ou null se nao ha caminho.
+     */
+    public int[] rota(int origem, int destino) {
+        long chave = ((long) origem << 32) | (destino & 0xffffffffL);
+        int[][] marcos;
+        long versaoDaBusca;
+        synchronized (this) {
+            verificarVersao();
+            versaoDaBusca = versao;
+            buscas++;
+            int[] salva = cache.get(chave);
+            if (salva != null) {
+                acertos++;
+                return salva == SEM_ROTA ? null : salva.clone();
+            }
+            marcos = marcos();
+        }
+
+        int[] calculada = grafo.simetrico()
+                ? new BuscaDupla(grafo).executar(origem, destino)
+                : new Busca(grafo, marcos).executar(origem, destino);
+
+        synchronized (this) {
+            verificarVersao();
+            if (versao == versaoDaBusca) { // conexao mudou durante a busca: a rota pode ser velha
+                cache.put(chave, calculada == null ? SEM_ROTA : calculada);
+            }
+        }
+        return calculada == null ? null : calculada.clone();
+    }
+
+    /** Primeira direcao do menor caminho (para NPCs andarem um passo), ou -1. */
+    public int proximoPasso(int origem, int destino) {
+        int[] r = rota(origem, destino);
+        return (r == null || r.length == 0) ? -1 : r[0];
+    }
+
+    public WorldGraph getGrafo() { return grafo; }
+
+    public synchronized long getBuscas() { return buscas; }
+    public synchronized long getAcertosCache() { return acertos; }
+
+    // -------------------------------------------------------------------------
+    // MARCOS
+    // -------------------------------------------------------------------------
+
+    private void verificarVersao() {
+        long atual = grafo.versao();
+        if (atual != versao) {
+            versao = atual;
+            cache.clear();
+            distanciaMarcos = null;
+        }
+    }
+
+    private int[][] marcos() {
+        if (grafo.simetrico() || grafo.tamanho() < MINIMO_PARA_MARCOS) return null;
+        if (distanciaMarcos == null) {
+            distanciaMarcos = calcularMarcos();
+        }
+        return distanciaMarcos;
+    }
+
+    /** Escolha "mais longe de todos": cada marco e o local mais distante dos anteriores. */
+    private int[][] calcularMarcos() {
+        int n = grafo.tamanho();
+        int[][] dist = new int[MARCOS][];
+        int[] fila = new int[n];
+        int[] menor = new int[n];
+        Arrays.fill(menor, INALCANCAVEL);
+
+        int[] inicial = bfs(0, fila);
+        int marco = maisLonge(inicial, null);
+        for (int k = 0; k < MARCOS; k++) {
+            dist[k] = bfs(marco, fila);
+            for (int v = 0; v < n; v++) {
+                menor[v] = Math.min(menor[v], dist[k][v]);
+            }
+            marco = maisLonge(menor, dist[k]);
+        }
+        return dist;
+    }
+
+    private int[] bfs(int origem, int[] fila) {
+        int[] dist = new int[grafo.tamanho()];
+        Arrays.fill(dist, INALCANCAVEL);
+        int direcoes = grafo.totalDirecoes();
+        int cabeca = 0, cauda = 0;
+        dist[origem] = 0;
+        fila[cauda++] = origem;
+        while (cabeca < cauda) {
+            int v = fila[cabeca++];
+            int proxima = dist[v] + 1;
+            for (int d = 0; d < direcoes; d++) {
+                int w = grafo.vizinho(v, d);
+                if (w >= 0 && dist[w] == INALCANCAVEL) {
+                    dist[w] = proxima;
+                    fila[cauda++] = w;
+                }
+            }
+        }
+        return dist;
+    }
+
+    /** Local alcancavel de maior valor em 'dist' (so entre os alcancaveis por 'alcance'). */
+    private static int maisLonge(int[] dist, int[] alcance) {
+        int melhor = 0;
+        int maior = -1;
+        for (int v = 0; v < dist.length; v++) {
+            int d = dist[v];
+            if (d == INALCANCAVEL || (alcance != null && alcance[v] == INALCANCAVEL)) continue;
+            if (d > maior) {
+                maior = d;
+                melhor = v;
+            }
+        }
+        return melhor;
+    }
+
+    // -------------------------------------------------------------------------
+    // A*
+    // -------------------------------------------------------------------------
+
+    /**
+     * Uma busca A*. O estado (custo, pai) fica numa tabela hash propria,
+     * proporcional aos locais visitados, nao ao tamanho do mapa.
+     */
+    private static final class Busca {
+        private final WorldGraph grafo;
+        private final int[][] marcos;
+        private final Tabela tabela = new Tabela();
+        private int alvo;
+
+        // heap por (f << 32 | h): empate em f vai para o mais perto do alvo
+        private long[] heap = new long[256];
+        private int[] heapLocal = new int[256];
+        private int tamanhoHeap = 0;
+
+        Busca(WorldGraph grafo, int[][] marcos) {
+            this.grafo = grafo;
+            this.marcos = marcos;
+        }
+
+        int[] executar(int origem, int destino) {
+            if (origem == destino) return new int[0];
+            alvo = destino;
+            Tabela t = tabela;
+
+            int s = t.slot(origem, true);
+            t.custo[s] = 0;
+            t.pai[s] = -1;
+            empilhar(0, heuristica(origem), origem);
+
+            int direcoes = grafo.totalDirecoes();
+            while (tamanhoHeap > 0) {
+                int v = desempilhar();
+                int sv = t.slot(v, false);
+                if (t.fechado[sv]) continue;
+                if (v == destino) return montar(sv);
+                t.fechado[sv] = true;
+
+                int g = t.custo[sv] + 1; // sv pode mudar se a tabela crescer; g nao
+                for (int d = 0; d < direcoes; d++) {
+                    int w = grafo.vizinho(v, d);
+                    if (w < 0) continue;
+                    int sw = t.slot(w, true);
+                    if (t.fechado[sw] || (t.pai[sw] != -2 && t.custo[sw] <= g)) continue;
+                    t.custo[sw] = g;
+                    t.pai[sw] = v;
+                    t.direcao[sw] = (byte) d;
+                    empilhar(g, heuristica(w), w);
+                }
+            }
+            return null;
+        }
+
+        private int heuristica(int v) {
+            if (marcos == null) return 0;
+            int h = 0;
+            for (int[] dist : marcos) {
+                int dv = dist[v], dt = dist[alvo];
+                if (dt != INALCANCAVEL && dv != INALCANCAVEL) {
+                    h = Math.max(h, dt - dv);
+                }
+            }
+            return h;
+        }
+
+        private int[] montar(int slotDestino) {
+            int[] rota = new int[tabela.custo[slotDestino]];
+            tabela.caminhoAte(slotDestino, rota, rota.length);
+            return rota;
+        }
+
+        private void empilhar(int g, int h, int local) {
+            if (tamanhoHeap == heap.length) {
+                heap = Arrays.copyOf(heap, tamanhoHeap * 2);
+                heapLocal = Arrays.copyOf(heapLocal, tamanhoHeap * 2);
+            }
+            long item = ((long) (g + h) << 32) | h;
+            int i = tamanhoHeap++;
+            while (i > 0) {
+                int p = (i - 1) >>> 1;
+                if (heap[p] <= item) break;
+                heap[i] = heap[p];
+                heapLocal[i] = heapLocal[p];
+                i = p;
+            }
+            heap[i] = item;
+            heapLocal[i] = local;
+        }
+
+        private int desempilhar() {
+            int topo = heapLocal[0];
+            long ultimo = heap[--tamanhoHeap];
+            int ultimoLocal = heapLocal[tamanhoHeap];
+            int i = 0;
+            while (true) {
+                int filho = 2 * i + 1;
+                if (filho >= tamanhoHeap) break;
+                if (filho + 1 < tamanhoHeap && heap[filho + 1] < heap[filho]) filho++;
+                if (heap[filho] >= ultimo) break;
+                heap[i] = heap[filho];
+                heapLocal[i] = heapLocal[filho];
+                i = filho;
+            }
+            heap[i] = ultimo;
+            heapLocal[i] = ultimoLocal;
+            return topo;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // BFS DOS DOIS LADOS
+    // -------------------------------------------------------------------------
+
+    /**
+     * BFS a partir da origem e do destino, um nivel inteiro por vez, sempre
+     * do lado com a fronteira menor. No primeiro nivel em que os lados se
+     * encontram, o menor dos encontros desse nivel e o menor caminho.
+     * So vale em grafo simetrico: o lado do destino anda pelas saidas ao
+     * contrario.
+     */
+    private static final class BuscaDupla {
+        private final WorldGraph grafo;
+        private final Tabela ida = new Tabela();    // a partir da origem
+        private final Tabela volta = new Tabela();  // a partir do destino
+
+        // melhor encontro: aresta encontroA -> encontroB, com A em 'ida' e B em 'volta'
+        private int melhor = INALCANCAVEL;
+        private int encontroA, encontroB;
+
+        BuscaDupla(WorldGraph grafo) {
+            this.grafo = grafo;
+        }
+
+        int[] executar(int origem, int destino) {
+            if (origem == destino) return new int[0];
+
+            int s = ida.slot(origem, true);
+            ida.custo[s] = 0;
+            ida.pai[s] = -1;
+            s = volta.slot(destino, true);
+            volta.custo[s] = 0;
+            volta.pai[s] = -1;
+
+            int[] fronteiraIda = { origem };
+            int[] fronteiraVolta = { destino };
+            int tamanhoIda = 1, tamanhoVolta = 1;
+
+            while (tamanhoIda > 0 && tamanhoVolta > 0) {
+                if (tamanhoIda <= tamanhoVolta) {
+                    fronteiraIda = expandir(ida, volta, fronteiraIda, tamanhoIda, true);
+                    tamanhoIda = proximoTamanho;
+                } else {
+                    fronteiraVolta = expandir(volta, ida, fronteiraVolta, tamanhoVolta, false);
+                    tamanhoVolta = proximoTamanho;
+                }
+                if (melhor != INALCANCAVEL) return montar();
+            }
+            return null;
+        }
+
+        private int proximoTamanho;
+
+        /** Expande um nivel de 'lado'; devolve a proxima fronteira (tamanho em proximoTamanho). */
+        private int[] expandir(Tabela lado, Tabela outro, int[] fronteira, int tamanho, boolean deIda) {
+            int[] proxima = new int[Math.max(16, tamanho * 2)];
+            int n = 0;
+            int direcoes = grafo.totalDirecoes();
+            for (int i = 0; i < tamanho; i++) {
+                int v = fronteira[i];
+                int g = lado.custo[lado.slot(v, false)] + 1;
+                for (int d = 0; d < direcoes; d++) {
+                    int w = grafo.vizinho(v, d);
+                    if (w < 0) continue;
+
+                    int so = outro.buscar(w);
+                    if (so >= 0) {
+                        int total = g + outro.custo[so];
+                        if (total < melhor) {
+                            melhor = total;
+                            encontroA = deIda ? v : w;
+                            encontroB = deIda ? w : v;
+                        }
+                    }
+
+                    int sw = lado.slot(w, true);
+                    if (lado.pai[sw] != -2) continue; // ja visto
+                    lado.custo[sw] = g;
+                    lado.pai[sw] = v;
+                    lado.direcao[sw] = (byte) d;
+                    if (n == proxima.length) proxima = Arrays.copyOf(proxima, n * 2);
+                    proxima[n++] = w;
+                }
+            }
+            proximoTamanho = n;
+            return proxima;
+        }
+
+        private int[] montar() {
+            int[] rota = new int[melhor];
+            int sa = ida.slot(encontroA, false);
+            int ate = ida.custo[sa];
+            ida.caminhoAte(sa, rota, ate);
+
+            // a aresta do encontro e o lado da volta, percorridos de tras para frente
+            int atual = encontroA;
+            int proximo = encontroB;
+            for (int i = ate; i < rota.length; i++) {
+                rota[i] = direcaoPara(atual, proximo);
+                atual = proximo;
+                proximo = volta.pai[volta.slot(atual, false)];
+            }
+            return rota;
+        }
+
+        private int direcaoPara(int de, int para) {
+            for (int d = 0; d < grafo.totalDirecoes(); d++) {
+                if (grafo.vizinho(de, d) == para) return d;
+            }
+            throw new IllegalStateException("grafo nao e simetrico: " + para + " -> " + de);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // TABELA DE ESTADO
+    // -------------------------------------------------------------------------
+
+    /** Enderecamento aberto: local -> (custo, pai, direcao, fechado). */
+    private static final class Tabela {
+        int[] chaves = new int[256];   // local + 1; 0 = vazio
+        int[] custo = new int[256];
+        int[] pai = new int[256];
+        byte[] direcao = new byte[256];
+        boolean[] fechado = new boolean[256];
+        private int ocupados = 0;
+
+        /** Slot do local; com 'criar', insere (pai = -2 marca "sem custo ainda"). */
+        int slot(int local, boolean criar) {
+            int mascara = chaves.length - 1;
+            int h = espalhar(local) & mascara;
+            while (true) {
+                int k = chaves[h];
+                if (k == local + 1) return h;
+                if (k == 0) {
+                    if (!criar) throw new IllegalStateException("local fora da busca: " + local);
+                    if ((ocupados + 1) * 2 > chaves.length) {
+                        crescer();
+                        return slot(local, true);
+                    }
+                    chaves[h] = local + 1;
+                    pai[h] = -2;
+                    ocupados++;
+                    return h;
+                }
+                h = (h + 1) & mascara;
+            }
+        }
+
+        /** Slot de um local ja alcancado, ou -1. */
+        int buscar(int local) {
+            int mascara = chaves.length - 1;
+            int h = espalhar(local) & mascara;
+            while (true) {
+                int k = chaves[h];
+                if (k == local + 1) return pai[h] == -2 ? -1 : h;
+                if (k == 0) return -1;
+                h = (h + 1) & mascara;
+            }
+        }
+
+        /** Escreve em rota[0..ate) as direcoes da raiz ate o local do slot. */
+        void caminhoAte(int s, int[] rota, int ate) {
+            for (int i = ate - 1; i >= 0; i--) {
+                rota[i] = direcao[s];
+                s = slot(pai[s], false);
+            }
+        }
+
+        private void crescer() {
+            int[] velhasChaves = chaves, velhoCusto = custo, velhoPai = pai;
+            byte[] velhaDirecao = direcao;
+            boolean[] velhoFechado = fechado;
+            int capacidade = chaves.length * 2;
+            chaves = new int[capacidade];
+            custo = new int[capacidade];
+            pai = new int[capacidade];
+            direcao = new byte[capacidade];
+            fechado = new boolean[capacidade];
+            int mascara = capacidade - 1;
+            for (int i = 0; i < velhasChaves.length; i++) {
+                int k = velhasChaves[i];
+                if (k == 0) continue;
+                int h = espalhar(k - 1) & mascara;
+                while (chaves[h] != 0) h = (h + 1) & mascara;
+                chaves[h] = k;
+                custo[h] = velhoCusto[i];
+                pai[h] = velhoPai[i];
+                direcao[h] = velhaDirecao[i];
+                fechado[h] = velhoFechado[i];
+            }
+        }
+
+        private static int espalhar(int x) {
+            x *= 0x9E3779B1;
+            return x ^ (x >>> 16);
+        }
+    }
+}
@@ -0,0 +1,546 @@
+package com.gustavo.rpg.world;
+
+import com.gustavo.rpg.entities.NPC;
+import com.gustavo.rpg.items.Item;
+import com.gustavo.rpg.metrics.RegionCacheMXBean;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Mundo gerado lido de um arquivo ({@link WorldFile}) por regioes, para
+ * mundos maiores que o heap.
+ *
+ * Uma regiao e mapeada (FileChannel.map) na primeira vez que alguem consulta
+ * um local dela: jogador entrando, olhando as saidas, calculando rota. As
+ * regioes carregadas ficam num cache com orcamento de bytes; passando dele,
+ * sai a usada ha mais tempo (LRU) entre as que nao tem nenhuma sessao dentro.
+ *
+ * O que as partidas mudam (NPCs mortas, itens pegos ou largados) fica na
+ * regiao. Uma regiao alterada e gravada em &lt;arquivo&gt;.estado/r&lt;n&gt;.bin
+ * antes de sair do cache, e relida quando volta.
+ *
+ * Varias sessoes podem jogar no mesmo arquivo: quem altera um local segura
+ * trava(id), que e a mesma para a regiao inteira e nao muda quando ela sai
+ * e volta do cache. Gravar e despejar uma regiao tambem segura essa trava,
+ * entao nenhuma mudanca em andamento fica de fora do arquivo.
+ *
+ * Metricas em com.gustavo.rpg:type=Regioes,name=ARQUIVO.
+ */
+public final class RegionWorld implements GridWorld, RegionCacheMXBean, AutoCloseable {
+
+    /** Orcamento padrao do cache; -Drpg.regioes.bytes=N muda. */
+    public static final long ORCAMENTO_PADRAO = Long.getLong("rpg.regioes.bytes", 64L << 20);
+
+    private static final String[] DIRECOES = { "norte", "sul", "leste", "oeste", "cima", "baixo" };
+    private static final int TRAVAS = 64; // potencia de 2
+
+    private static final class Regiao {
+        final int numero;
+        final WorldFile.Celulas celulas;
+        final MappedByteBuffer dados;
+        final int[] inicio;  // primeiro destino de cada local (em ints, depois dos atributos)
+        final int base;      // onde comecam os destinos em 'dados'
+        final long bytes;
+
+        // protegidos pela propria regiao
+        final Map<Integer, ConteudoLocal> alterados = new HashMap<>();
+        boolean suja;
+
+        int presentes;       // protegido pelo RegionWorld
+        volatile long ultimoUso;
+
+        Regiao(int numero, WorldFile.Celulas celulas, MappedByteBuffer dados) {
+            this.numero = numero;
+            this.celulas = celulas;
+            this.dados = dados;
+            int n = celulas.tamanho();
+            this.base = n * WorldFile.BYTES_POR_LOCAL;
+            this.inicio = new int[n + 1];
+            for (int i = 0; i < n; i++) {
+                inicio[i + 1] = inicio[i] + Integer.bitCount(dados.get(i * WorldFile.BYTES_POR_LOCAL) & 0xFF);
+            }
+            this.bytes = dados.capacity() + 4L * inicio.length;
+        }
+
+        int atributo(int id, int campo) {
+            return dados.get(celulas.indice(id) * WorldFile.BYTES_POR_LOCAL + campo) & 0xFF;
+        }
+    }
+
+    /** Conteudo relido do arquivo de estado. */
+    private record Conteudo(List<NPC> npcs, List<Item> itens) implements ConteudoLocal {
+        @Override
+        public List<NPC> getNpcs() { return npcs; }
+
+        @Override
+        public List<Item> getGroundItems() { return itens; }
+    }
+
+    private final Path arquivo;
+    private final Path dirEstado;
+    private final FileChannel canal;
+    private final ObjectName nomeJmx;
+
+    private final int largura, altura, inicial, lado, regioesX;
+    private final String[] biomas, textos;
+    private final NPC[] npcs;
+    private final Item[] itens;
+    private final long[] inicioRegiao;
+    private final AtomicReferenceArray<Regiao> regioes;
+    private final Object[] travas = new Object[TRAVAS];
+
+    // protegidos por 'this'
+    private final List<Regiao> carregadas = new ArrayList<>();
+    private long bytesCarregados;
+    private long orcamento;
+    private long despejos, falhasGravacao;
+
+    private final LongAdder acertos = new LongAdder();
+    private final LongAdder faltas = new LongAdder();
+    private final LongAdder gravacoes = new LongAdder();
+    private long relogio; // sem sincronizar de proposito: so serve para ordenar o LRU
+
+    private RegionWorld(Path arquivo, long orcamento) throws IOException {
+        this.arquivo = arquivo;
+        this.dirEstado = arquivo.resolveSibling(arquivo.getFileName() + ".estado");
+        this.orcamento = orcamento;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(arquivo)))) {
+            byte[] magic = new byte[WorldFile.MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, WorldFile.MAGIC)) {
+                throw new IOException("Arquivo nao e um mundo: " + arquivo);
+            }
+            int versao = in.readUnsignedShort();
+            if (versao > WorldFile.VERSAO) {
+                throw new IOException("Versao de mundo nao suportada: " + versao);
+            }
+            largura = in.readInt();
+            altura = in.readInt();
+            inicial = in.readInt();
+            lado = in.readInt();
+            biomas = WorldFile.lerTextos(in);
+            textos = WorldFile.lerTextos(in);
+            npcs = new NPC[in.readUnsignedShort()];
+            for (int i = 0; i < npcs.length; i++) npcs[i] = WorldFile.lerNpc(in);
+            itens = new Item[in.readUnsignedShort()];
+            for (int i = 0; i < itens.length; i++) itens[i] = WorldFile.lerItem(in);
+
+            regioesX = (largura + lado - 1) / lado;
+            int total = regioesX * ((altura + lado - 1) / lado);
+            inicioRegiao = new long[total + 1];
+            for (int r = 0; r <= total; r++) inicioRegiao[r] = in.readLong();
+            regioes = new AtomicReferenceArray<>(total);
+        }
+
+        for (int i = 0; i < TRAVAS; i++) travas[i] = new Object();
+        this.canal = FileChannel.open(arquivo, StandardOpenOption.READ);
+        this.nomeJmx = registrarJmx();
+    }
+
+    /** Abre o mundo de 'arquivo' com o orcamento de cache dado (bytes). */
+    public static RegionWorld abrir(Path arquivo, long orcamentoBytes) throws IOException {
+        return new RegionWorld(arquivo, orcamentoBytes);
+    }
+
+    // -------------------------------------------------------------------------
+    // GRAFO E CONTEUDO
+    // -------------------------------------------------------------------------
+
+    @Override
+    public int tamanho() { return largura * altura; }
+    @Override
+    public int getLargura() { return largura; }
+    @Override
+    public int getAltura() { return altura; }
+    @Override
+    public int getInicial() { return inicial; }
+    public int getLadoRegiao() { return lado; }
+
+    @Override
+    public int totalDirecoes() { return DIRECOES.length; }
+
+    @Override
+    public String nomeDirecao(int direcao) { return DIRECOES[direcao]; }
+
+    @Override
+    public int vizinho(int id, int direcao) {
+        Regiao g = regiao(id);
+        int i = g.celulas.indice(id);
+        int mascara = g.dados.get(i * WorldFile.BYTES_POR_LOCAL) & 0xFF;
+        int bit = 1 << direcao;
+        if ((mascara & bit) == 0) return -1;
+        return g.dados.getInt(g.base + 4 * (g.inicio[i] + Integer.bitCount(mascara & (bit - 1))));
+    }
+
+    /** O arquivo vem de um CompactWorld: os dois sentidos sempre existem. */
+    @Override
+    public boolean simetrico() { return true; }
+
+    @Override
+    public long versao() { return 0; }
+
+    @Override
+    public String nome(int id) {
+        return biomas[regiao(id).atributo(id, 1)] + " (" + x(id) + "," + y(id) + ")";
+    }
+
+    @Override
+    public String descricao(int id) {
+        return textos[regiao(id).atributo(id, 2)];
+    }
+
+    @Override
+    public NPC npc(int id) {
+        int i = regiao(id).atributo(id, 3);
+        return i == 0 ? null : npcs[i - 1];
+    }
+
+    @Override
+    public Item loot(int id) {
+        int i = regiao(id).atributo(id, 4);
+        return i == 0 ? null : itens[i - 1];
+    }
+
+    @Override
+    public List<NPC> getPrototiposNpc() { return List.of(npcs); }
+
+    @Override
+    public List<Item> getPrototiposItem() { return List.of(itens); }
+
+    // -------------------------------------------------------------------------
+    // ESTADO ALTERADO E SESSOES
+    // -------------------------------------------------------------------------
+
+    /** Conteudo atual do local se alguma partida ja o mudou, ou null. */
+    public ConteudoLocal alterado(int id) {
+        Regiao g = regiao(id);
+        synchronized (g) {
+            return g.alterados.get(id);
+        }
+    }
+
+    /**
+     * Troca o conteudo do local por ajuste(atual) de uma vez so: atual e o
+     * guardado (ou null) e o que ajuste devolve fica guardado (null = nada).
+     * Duas sessoes nunca guardam objetos diferentes para o mesmo local. Com
+     * 'mudou' a regiao passa a ser gravada antes de sair do cache; quem
+     * altera o conteudo devolvido deve estar segurando trava(id).
+     */
+    public ConteudoLocal atualizar(int id, UnaryOperator<ConteudoLocal> ajuste, boolean mudou) {
+        Regiao g = regiao(id);
+        synchronized (g) {
+            ConteudoLocal atual = g.alterados.get(id);
+            ConteudoLocal novo = ajuste.apply(atual);
+            if (novo == null) return null;
+            if (novo != atual) g.alterados.put(id, novo);
+            g.suja |= mudou;
+            return novo;
+        }
+    }
+
+    /** Trava de quem altera o local (a mesma para a regiao toda, carregada ou nao). */
+    public Object trava(int id) {
+        return travas[numeroRegiao(id) & (TRAVAS - 1)];
+    }
+
+    /** Uma sessao entrou no local: a regiao fica no cache ate ela sair. */
+    public void entrar(int id) {
+        Regiao g = regiao(id);
+        synchronized (this) {
+            if (regioes.get(g.numero) == g) {
+                g.presentes++;
+                return;
+            }
+        }
+        entrar(id); // despejada entre regiao() e aqui: conta na que voltar
+    }
+
+    public void sair(int id) {
+        synchronized (this) {
+            Regiao g = regioes.get(numeroRegiao(id));
+            if (g == null || g.presentes == 0) return;
+            g.presentes--;
+        }
+        despejarExcesso(null);
+    }
+
+    /** Grava todas as regioes alteradas que estao no cache. */
+    public void salvarTudo() throws IOException {
+        List<Regiao> copia;
+        synchronized (this) {
+            copia = new ArrayList<>(carregadas);
+        }
+        for (Regiao g : copia) {
+            synchronized (travas[g.numero & (TRAVAS - 1)]) {
+                gravarEstado(g);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            salvarTudo();
+        } finally {
+            canal.close();
+            if (nomeJmx != null) {
+                try {
+                    ManagementFactory.getPlatformMBeanServer().unregisterMBean(nomeJmx);
+                } catch (JMException e) {
+                    // ja removido
+                }
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // CACHE
+    // -------------------------------------------------------------------------
+
+    private int numeroRegiao(int id) {
+        return (id / largura / lado) * regioesX + (id % largura) / lado;
+    }
+
+    private Regiao regiao(int id) {
+        Regiao g = regioes.get(numeroRegiao(id));
+        if (g != null) {
+            acertos.increment();
+            g.ultimoUso = relogio++;
+            return g;
+        }
+        g = carregar(numeroRegiao(id));
+        despejarExcesso(g);
+        return g;
+    }
+
+    private synchronized Regiao carregar(int numero) {
+        Regiao g = regioes.get(numero);
+        if (g != null) { // outra thread carregou enquanto esperavamos
+            acertos.increment();
+            return g;
+        }
+        faltas.increment();
+        try {
+            long posicao = inicioRegiao[numero];
+            MappedByteBuffer dados = canal.map(FileChannel.MapMode.READ_ONLY, posicao,
+                    inicioRegiao[numero + 1] - posicao);
+            g = new Regiao(numero, new WorldFile.Celulas(largura, altura, lado, numero), dados);
+            lerEstado(g);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao ler regiao " + numero + " de " + arquivo, e);
+        }
+        g.ultimoUso = relogio++;
+        regioes.set(numero, g);
+        carregadas.add(g);
+        bytesCarregados += g.bytes;
+        return g;
+    }
+
+    /**
+     * Tira regioes sem ninguem dentro (menos 'manter') ate caber no orcamento.
+     *
+     * Cada vitima e gravada e tirada segurando a trava dela, sempre antes da
+     * trava do RegionWorld (a mesma ordem de quem altera um local e carrega
+     * uma regiao). Quem ja segura uma trava de regiao nao despeja: pegaria
+     * uma segunda e poderia travar com outra thread fazendo o contrario; o
+     * excesso fica para o proximo sair() ou carregamento.
+     */
+    private void despejarExcesso(Regiao manter) {
+        while (true) {
+            Regiao vitima = null;
+            synchronized (this) {
+                if (bytesCarregados <= orcamento) return;
+                for (Regiao g : carregadas) {
+                    if (g != manter && g.presentes == 0 && (vitima == null || g.ultimoUso < vitima.ultimoUso)) {
+                        vitima = g;
+                    }
+                }
+            }
+            if (vitima == null || seguraTrava()) {
+                return; // todas ocupadas: fica acima do orcamento ate alguem sair
+            }
+            synchronized (travas[vitima.numero & (TRAVAS - 1)]) {
+                try {
+                    gravarEstado(vitima);
+                } catch (IOException e) {
+                    synchronized (this) { falhasGravacao++; }
+                    return; // nao perde as mudancas: a regiao fica no cache
+                }
+                synchronized (this) {
+                    if (regioes.get(vitima.numero) != vitima || vitima.presentes > 0) {
+                        continue; // alguem entrou enquanto gravava: fica (ja gravada)
+                    }
+                    regioes.set(vitima.numero, null);
+                    carregadas.remove(vitima);
+                    bytesCarregados -= vitima.bytes;
+                    despejos++;
+                }
+            }
+        }
+    }
+
+    private boolean seguraTrava() {
+        for (Object t : travas) {
+            if (Thread.holdsLock(t)) return true;
+        }
+        return false;
+    }
+
+    // -------------------------------------------------------------------------
+    // ARQUIVO DE ESTADO
+    // -------------------------------------------------------------------------
+
+    private Path arquivoEstado(int numero) {
+        return dirEstado.resolve("r" + numero + ".bin");
+    }
+
+    /** Chamado segurando a trava da regiao: ninguem esta mudando um local dela. */
+    private void gravarEstado(Regiao g) throws IOException {
+        synchronized (g) {
+            if (!g.suja) return;
+            Files.createDirectories(dirEstado);
+            Path destino = arquivoEstado(g.numero);
+            Path temp = dirEstado.resolve(destino.getFileName() + ".tmp");
+            try (FileChannel saida = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(Channels.newOutputStream(saida), 8192));
+                out.writeInt(g.alterados.size());
+                for (Map.Entry<Integer, ConteudoLocal> e : g.alterados.entrySet()) {
+                    out.writeInt(e.getKey());
+                    List<NPC> vivas = e.getValue().getNpcs();
+                    out.writeShort(vivas.size());
+                    for (NPC npc : vivas) WorldFile.escreverNpc(out, npc);
+                    List<Item> chao = e.getValue().getGroundItems();
+                    out.writeShort(chao.size());
+                    for (Item item : chao) WorldFile.escreverItem(out, item);
+                }
+                out.flush();
+                saida.force(true);
+            }
+            Files.move(temp, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            g.suja = false;
+            gravacoes.increment();
+        }
+    }
+
+    private void lerEstado(Regiao g) throws IOException {
+        Path origem = arquivoEstado(g.numero);
+        if (!Files.exists(origem)) return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(origem)))) {
+            int locais = in.readInt();
+            for (int i = 0; i < locais; i++) {
+                int id = in.readInt();
+                List<NPC> vivas = new ArrayList<>();
+                for (int n = in.readUnsignedShort(); n > 0; n--) vivas.add(daTabela(WorldFile.lerNpc(in)));
+                List<Item> chao = new ArrayList<>();
+                for (int n = in.readUnsignedShort(); n > 0; n--) chao.add(daTabela(WorldFile.lerItem(in)));
+                g.alterados.put(id, new Conteudo(vivas, chao));
+            }
+        }
+    }
+
+    /** Copia da NPC da tabela de mesmo nome e dano (mantem o prototipo, e o id), com o HP lido. */
+    private NPC daTabela(NPC lida) {
+        for (NPC original : npcs) {
+            if (original.getName().equals(lida.getName()) && original.getBaseDamage() == lida.getBaseDamage()) {
+                NPC copia = new NPC(original);
+                copia.takeDamage(copia.getHp() - lida.getHp());
+                return copia;
+            }
+        }
+        return lida;
+    }
+
+    /** O proprio item da tabela, se for igual ao lido (itens sao imutaveis). */
+    private Item daTabela(Item lido) {
+        for (Item original : itens) {
+            if (original.getClass() == lido.getClass() && original.getName().equals(lido.getName())) {
+                return original;
+            }
+        }
+        return lido;
+    }
+
+    // -------------------------------------------------------------------------
+    // METRICAS
+    // -------------------------------------------------------------------------
+
+    @Override
+    public String getArquivo() { return arquivo.toString(); }
+    @Override
+    public long getAcertos() { return acertos.sum(); }
+    @Override
+    public long getFaltas() { return faltas.sum(); }
+
+    @Override
+    public double getTaxaAcerto() {
+        long a = acertos.sum(), f = faltas.sum();
+        return a + f == 0 ? 0.0 : a / (double) (a + f);
+    }
+
+    @Override
+    public synchronized long getDespejos() { return despejos; }
+    @Override
+    public long getGravacoes() { return gravacoes.sum(); }
+    @Override
+    public synchronized long getFalhasGravacao() { return falhasGravacao; }
+    @Override
+    public synchronized int getRegioesCarregadas() { return carregadas.size(); }
+
+    @Override
+    public synchronized int getRegioesOcupadas() {
+        int n = 0;
+        for (Regiao g : carregadas) {
+            if (g.presentes > 0) n++;
+        }
+        return n;
+    }
+
+    @Override
+    public synchronized long getBytesCarregados() { return bytesCarregados; }
+    @Override
+    public synchronized long getOrcamentoBytes() { return orcamento; }
+
+    @Override
+    public void setOrcamentoBytes(long bytes) {
+        synchronized (this) {
+            orcamento = bytes;
+        }
+        despejarExcesso(null);
+    }
+
+    /** Linha de resumo (para o BatchRunner e benchmarks). */
+    public String relatorio() {
+        return String.format("regioes: %d carregadas (%.1f MB de %.1f MB), acertos %.2f%%, faltas %d, "
+                        + "despejos %d, gravacoes %d",
+                getRegioesCarregadas(), getBytesCarregados() / 1e6, getOrcamentoBytes() / 1e6,
+                100 * getTaxaAcerto(), getFaltas(), getDespejos(), getGravacoes());
+    }
+
+    private ObjectName registrarJmx() {
+        try {
+            ObjectName nome = new ObjectName("com.gustavo.rpg:type=Regioes,name="
+                    + ObjectName.quote(arquivo.getFileName().toString()));
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(nome)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(this, nome);
+                return nome;
+            }
+        } catch (JMException | SecurityException e) {
+            // sem JMX as metricas continuam disponiveis pelos getters
+        }
+        return null;
+    }
+}
@@ -0,0 +1,179 @@
+package com.gustavo.rpg.world;
+
+import com.gustavo.rpg.entities.NPC;
+import com.gustavo.rpg.items.Item;
+import com.gustavo.rpg.items.ItemCatalog;
+import com.gustavo.rpg.items.Potion;
+import com.gustavo.rpg.items.Weapon;
+
+import java.io.*;
+import java.nio.file.*;
+
+/**
+ * Formato do arquivo de mundo lido por {@link RegionWorld}.
+ *
+ * <pre>
+ * magic "RPGW" | versao (u16) | largura | altura | inicial | lado da regiao
+ * biomas | textos | npcs | itens            (tabelas pequenas)
+ * inicio de cada regiao (i64) ... fim (i64)
+ * regioes
+ * </pre>
+ *
+ * A grade e cortada em regioes de lado x lado locais (as da borda podem ser
+ * menores), numeradas linha a linha. Cada regiao guarda, para cada local em
+ * ordem (linha a linha dentro da regiao), 5 bytes: saidas, bioma,
+ * descricao, npc, loot; depois os destinos (i32, ids globais) na mesma
+ * ordem CSR do CompactWorld. Uma regiao pode ser mapeada e lida sozinha.
+ */
+public final class WorldFile {
+
+    static final byte[] MAGIC = { 'R', 'P', 'G', 'W' };
+    static final int VERSAO = 1;
+    static final int BYTES_POR_LOCAL = 5;
+
+    public static final int LADO_PADRAO = 64;
+
+    private static final int ARMA = 0;
+    private static final int POCAO = 1;
+
+    private WorldFile() {}
+
+    /** Grava o mundo em 'arquivo' (via .tmp + rename). */
+    public static void gravar(CompactWorld mundo, Path arquivo, int lado) throws IOException {
+        int largura = mundo.getLargura(), altura = mundo.getAltura();
+        int regioesX = (largura + lado - 1) / lado;
+        int regioesY = (altura + lado - 1) / lado;
+        int regioes = regioesX * regioesY;
+
+        ByteArrayOutputStream cabecalho = new ByteArrayOutputStream();
+        DataOutputStream cab = new DataOutputStream(cabecalho);
+        cab.write(MAGIC);
+        cab.writeShort(VERSAO);
+        cab.writeInt(largura);
+        cab.writeInt(altura);
+        cab.writeInt(mundo.getInicial());
+        cab.writeInt(lado);
+        escreverTextos(cab, mundo.biomas());
+        escreverTextos(cab, mundo.textos());
+        cab.writeShort(mundo.npcs().length);
+        for (NPC npc : mundo.npcs()) escreverNpc(cab, npc);
+        cab.writeShort(mundo.itens().length);
+        for (Item item : mundo.itens()) escreverItem(cab, item);
+        cab.flush();
+
+        // offsets: tamanho de cada regiao sai das mascaras de saida
+        long[] inicio = new long[regioes + 1];
+        inicio[0] = cabecalho.size() + 8L * (regioes + 1);
+        for (int r = 0; r < regioes; r++) {
+            Celulas celulas = new Celulas(largura, altura, lado, r);
+            long bytes = 0;
+            for (int i = 0; i < celulas.tamanho(); i++) {
+                bytes += BYTES_POR_LOCAL + 4L * Integer.bitCount(mundo.saidas(celulas.id(i)));
+            }
+            inicio[r + 1] = inicio[r] + bytes;
+        }
+
+        Path temp = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            cabecalho.writeTo(out);
+            for (long pos : inicio) out.writeLong(pos);
+            for (int r = 0; r < regioes; r++) {
+                Celulas celulas = new Celulas(largura, altura, lado, r);
+                for (int i = 0; i < celulas.tamanho(); i++) {
+                    int id = celulas.id(i);
+                    out.writeByte(mundo.saidas(id));
+                    out.writeByte(mundo.biomaIndice(id));
+                    out.writeByte(mundo.descricaoIndice(id));
+                    out.writeByte(mundo.npcIndice(id));
+                    out.writeByte(mundo.lootIndice(id));
+                }
+                for (int i = 0; i < celulas.tamanho(); i++) {
+                    int id = celulas.id(i);
+                    for (int d = 0; d < mundo.totalDirecoes(); d++) {
+                        int destino = mundo.vizinho(id, d);
+                        if (destino >= 0) out.writeInt(destino);
+                    }
+                }
+            }
+        }
+        Files.move(temp, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Retangulo da grade coberto por uma regiao; i = posicao no arquivo. */
+    static final class Celulas {
+        final int x0, y0, largura, altura, larguraMundo;
+
+        Celulas(int larguraMundo, int alturaMundo, int lado, int regiao) {
+            int regioesX = (larguraMundo + lado - 1) / lado;
+            this.x0 = (regiao % regioesX) * lado;
+            this.y0 = (regiao / regioesX) * lado;
+            this.largura = Math.min(lado, larguraMundo - x0);
+            this.altura = Math.min(lado, alturaMundo - y0);
+            this.larguraMundo = larguraMundo;
+        }
+
+        int tamanho() { return largura * altura; }
+
+        /** Posicao do local (id global) dentro da regiao. */
+        int indice(int id) {
+            return (id / larguraMundo - y0) * largura + (id % larguraMundo - x0);
+        }
+
+        /** Id global do i-esimo local da regiao. */
+        int id(int i) {
+            return (y0 + i / largura) * larguraMundo + x0 + i % largura;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // PRIMITIVAS (tambem usadas no estado das regioes)
+    // -------------------------------------------------------------------------
+
+    static void escreverTextos(DataOutputStream out, String[] textos) throws IOException {
+        out.writeShort(textos.length);
+        for (String t : textos) out.writeUTF(t);
+    }
+
+    static String[] lerTextos(DataInputStream in) throws IOException {
+        String[] textos = new String[in.readUnsignedShort()];
+        for (int i = 0; i < textos.length; i++) textos[i] = in.readUTF();
+        return textos;
+    }
+
+    static void escreverNpc(DataOutputStream out, NPC npc) throws IOException {
+        out.writeUTF(npc.getName());
+        out.writeInt(npc.getHp());
+        out.writeInt(npc.getBaseDamage());
+    }
+
+    static NPC lerNpc(DataInputStream in) throws IOException {
+        return new NPC(in.readUTF(), in.readInt(), in.readInt());
+    }
+
+    static void escreverItem(DataOutputStream out, Item item) throws IOException {
+        if (item instanceof Weapon w) {
+            out.writeByte(ARMA);
+            out.writeUTF(w.getName());
+            out.writeInt(w.getDamageBonus());
+        } else if (item instanceof Potion p) {
+            out.writeByte(POCAO);
+            out.writeUTF(p.getName());
+            out.writeInt(p.getHealAmount());
+        } else {
+            throw new IllegalArgumentException("Tipo de item sem formato: " + item.getClass().getSimpleName());
+        }
+    }
+
+    static Item lerItem(DataInputStream in) throws IOException {
+        int tipo = in.readUnsignedByte();
+        String nome = in.readUTF();
+        int valor = in.readInt();
+        Item item = switch (tipo) {
+            case ARMA -> new Weapon(nome, valor);
+            case POCAO -> new Potion(nome, valor);
+            default -> throw new IOException("Tipo de item desconhecido: " + tipo);
+        };
+        return ItemCatalog.padrao().canonico(item); // o mesmo objeto do catalogo, se existe
+    }
+}
@@ -0,0 +1,223 @@
+package com.gustavo.rpg.world;
+
+import com.gustavo.rpg.entities.NPC;
+import com.gustavo.rpg.items.Item;
+import com.gustavo.rpg.items.ItemCatalog;
+import com.gustavo.rpg.utils.RandomSource;
+
+/**
+ * Gera mundos grandes (100 mil a 10 milhoes de locais) a partir de uma
+ * semente: mesma semente e tamanho, mesmo mundo.
+ *
+ * A grade e ligada por uma arvore geradora ("binary tree maze": cada local
+ * se liga ao vizinho do norte ou do oeste), entao tudo e alcancavel; depois
+ * entram ligacoes extras para abrir caminhos e alguns portais cima/baixo
+ * entre pontos distantes. Biomas sao regioes de ~32x32 locais com bordas
+ * irregulares; NPCs e itens sao sorteados conforme o bioma.
+ *
+ * Tudo e gerado direto nos arrays do {@link CompactWorld}, sem objetos
+ * por local.
+ */
+public final class WorldGenerator {
+
+    /** Chance de uma ligacao extra (sul ou leste) por local. */
+    private static final double EXTRAS = 0.35;
+    private static final double CHANCE_NPC = 0.08;
+    private static final double CHANCE_LOOT = 0.05;
+    private static final double CHANCE_PORTAL = 0.0005;
+
+    private static final int REGIAO = 32;
+    private static final int VARIANTES = 3;
+
+    private static final String[] BIOMAS = { "Campo", "Bosque", "Pantano", "Montanha", "Ruinas", "Deserto" };
+
+    private static final String[] TEXTOS = {
+            // Campo
+            "Um campo aberto de grama alta balancando ao vento.",
+            "Uma estrada de terra corta plantacoes abandonadas.",
+            "Um moinho velho range sobre a colina.",
+            // Bosque
+            "Sons estranhos entre as arvores. A luz do sol mal chega ao chao.",
+            "Troncos caidos cobertos de musgo bloqueiam parte da trilha.",
+            "Uma clareira silenciosa, com cogumelos em circulo.",
+            // Pantano
+            "Agua parada e lama ate os joelhos. Algo se move sob a superficie.",
+            "Uma nevoa espessa esconde o caminho entre os juncos.",
+            "Arvores mortas se erguem de um lago escuro.",
+            // Montanha
+            "Um desfiladeiro estreito com pedras soltas.",
+            "O vento gelado assobia entre os picos.",
+            "A entrada de uma caverna escura se abre na rocha.",
+            // Ruinas
+            "Restos de uma antiga fortaleza, tomada pelo tempo.",
+            "Colunas quebradas marcam o que foi um templo.",
+            "Um salao sem teto, com estatuas sem rosto.",
+            // Deserto
+            "Dunas se estendem ate o horizonte.",
+            "Ossos de um animal enorme meio enterrados na areia.",
+            "Um oasis seco, cercado de palmeiras mortas.",
+    };
+
+    private static final NPC[] NPCS = {
+            new NPC("Lobo", 12, 3),
+            new NPC("Aranha gigante", 10, 3),
+            new NPC("Bandido", 15, 4),
+            new NPC("Esqueleto", 18, 4),
+            new NPC("Troll", 30, 6),
+            new NPC("Mago Sombrio", 22, 5),
+            new NPC("Escorpiao", 14, 4),
+    };
+
+    /** NPCs (indices em NPCS) que aparecem em cada bioma. */
+    private static final int[][] NPCS_POR_BIOMA = {
+            { 0, 2 },       // Campo
+            { 0, 1 },       // Bosque
+            { 1, 4 },       // Pantano
+            { 0, 4 },       // Montanha
+            { 3, 5 },       // Ruinas
+            { 2, 6 },       // Deserto
+    };
+
+    private static final Item[] ITENS = {
+            ItemCatalog.padrao().pocao("Pocao de cura"),
+            ItemCatalog.padrao().pocao("Pocao grande"),
+            ItemCatalog.padrao().arma("Espada curta"),
+            ItemCatalog.padrao().arma("Espada longa"),
+            ItemCatalog.padrao().arma("Machado de guerra"),
+            ItemCatalog.padrao().arma("Cajado arcano"),
+    };
+
+    private WorldGenerator() {}
+
+    public static CompactWorld gerar(int largura, int altura, long seed) {
+        if (largura <= 0 || altura <= 0 || (long) largura * altura > Integer.MAX_VALUE - 1) {
+            throw new IllegalArgumentException("Tamanho invalido: " + largura + "x" + altura);
+        }
+        int n = largura * altura;
+        RandomSource rng = new RandomSource(seed);
+
+        byte[] saidas = ligarGrade(largura, altura, rng);
+        int[] portais = sortearPortais(saidas, rng);
+
+        // CSR: offsets pela contagem de bits, depois os destinos na ordem das direcoes
+        int[] inicio = new int[n + 1];
+        for (int id = 0; id < n; id++) {
+            inicio[id + 1] = inicio[id] + Integer.bitCount(saidas[id]);
+        }
+        int[] destinos = new int[inicio[n]];
+        for (int id = 0; id < n; id++) {
+            int mascara = saidas[id];
+            int pos = inicio[id];
+            if ((mascara & (1 << CompactWorld.NORTE)) != 0) destinos[pos++] = id - largura;
+            if ((mascara & (1 << CompactWorld.SUL)) != 0) destinos[pos++] = id + largura;
+            if ((mascara & (1 << CompactWorld.LESTE)) != 0) destinos[pos++] = id + 1;
+            if ((mascara & (1 << CompactWorld.OESTE)) != 0) destinos[pos] = id - 1;
+        }
+        for (int i = 0; i < portais.length; i += 2) {
+            int alto = portais[i], baixo = portais[i + 1];
+            destinos[posicao(saidas, inicio, alto, CompactWorld.BAIXO)] = baixo;
+            destinos[posicao(saidas, inicio, baixo, CompactWorld.CIMA)] = alto;
+        }
+
+        // conteudo
+        byte[] bioma = new byte[n];
+        byte[] descricao = new byte[n];
+        byte[] npc = new byte[n];
+        byte[] loot = new byte[n];
+        for (int id = 0; id < n; id++) {
+            int b = biomaDe(id % largura, id / largura, seed);
+            bioma[id] = (byte) b;
+            descricao[id] = (byte) (b * VARIANTES + rng.nextInt(VARIANTES));
+            if (rng.nextDouble() < CHANCE_NPC) {
+                int[] opcoes = NPCS_POR_BIOMA[b];
+                npc[id] = (byte) (opcoes[rng.nextInt(opcoes.length)] + 1);
+            }
+            if (rng.nextDouble() < CHANCE_LOOT) {
+                loot[id] = (byte) (rng.nextInt(ITENS.length) + 1);
+            }
+        }
+
+        int inicial = (altura / 2) * largura + largura / 2; // centro
+        npc[inicial] = 0; // o jogador nao nasce em combate
+
+        return new CompactWorld(largura, altura, inicial, saidas, inicio, destinos,
+                bioma, descricao, npc, loot, BIOMAS, TEXTOS, NPCS, ITENS);
+    }
+
+    // -------------------------------------------------------------------------
+    // ETAPAS
+    // -------------------------------------------------------------------------
+
+    /** Mascara de saidas de cada local da grade (arvore geradora + extras). */
+    private static byte[] ligarGrade(int largura, int altura, RandomSource rng) {
+        int n = largura * altura;
+        byte[] saidas = new byte[n];
+        for (int y = 0; y < altura; y++) {
+            for (int x = 0; x < largura; x++) {
+                int id = y * largura + x;
+                // arvore: cada local (menos o primeiro) liga ao norte ou ao oeste
+                if (y > 0 && (x == 0 || rng.nextInt(2) == 0)) {
+                    ligar(saidas, id, CompactWorld.NORTE, id - largura, CompactWorld.SUL);
+                } else if (x > 0) {
+                    ligar(saidas, id, CompactWorld.OESTE, id - 1, CompactWorld.LESTE);
+                }
+                // extras: abre ciclos para o mapa nao ser um labirinto
+                if (rng.nextDouble() < EXTRAS) {
+                    if (rng.nextInt(2) == 0 && y + 1 < altura) {
+                        ligar(saidas, id, CompactWorld.SUL, id + largura, CompactWorld.NORTE);
+                    } else if (x + 1 < largura) {
+                        ligar(saidas, id, CompactWorld.LESTE, id + 1, CompactWorld.OESTE);
+                    }
+                }
+            }
+        }
+        return saidas;
+    }
+
+    /** Pares (alto, baixo) de portais; marca CIMA/BAIXO nas mascaras. */
+    private static int[] sortearPortais(byte[] saidas, RandomSource rng) {
+        int n = saidas.length;
+        int quantidade = (int) (n * CHANCE_PORTAL);
+        int[] pares = new int[quantidade * 2];
+        int feitos = 0;
+        for (int tentativa = 0; tentativa < quantidade * 4 && feitos < quantidade; tentativa++) {
+            int alto = rng.nextInt(n);
+            int baixo = rng.nextInt(n);
+            if (alto == baixo
+                    || (saidas[alto] & (1 << CompactWorld.BAIXO)) != 0
+                    || (saidas[baixo] & (1 << CompactWorld.CIMA)) != 0) {
+                continue;
+            }
+            ligar(saidas, alto, CompactWorld.BAIXO, baixo, CompactWorld.CIMA);
+            pares[feitos * 2] = alto;
+            pares[feitos * 2 + 1] = baixo;
+            feitos++;
+        }
+        return feitos == quantidade ? pares : java.util.Arrays.copyOf(pares, feitos * 2);
+    }
+
+    private static void ligar(byte[] saidas, int a, int direcaoA, int b, int direcaoB) {
+        saidas[a] |= (byte) (1 << direcaoA);
+        saidas[b] |= (byte) (1 << direcaoB);
+    }
+
+    private static int posicao(byte[] saidas, int[] inicio, int id, int direcao) {
+        int bit = 1 << direcao;
+        return inicio[id] + Integer.bitCount(saidas[id] & (bit - 1));
+    }
+
+    /** Bioma da regiao, com a borda deslocada por um ruido por local. */
+    private static int biomaDe(int x, int y, long seed) {
+        long h = mistura(seed ^ ((long) x << 32 | (y & 0xffffffffL)));
+        int rx = (x + (int) (h & 7) - 4) / REGIAO;
+        int ry = (y + (int) ((h >>> 3) & 7) - 4) / REGIAO;
+        return (int) Long.remainderUnsigned(mistura(seed + ((long) rx << 32 | (ry & 0xffffffffL))), BIOMAS.length);
+    }
+
+    /** Finalizador do SplitMix64: espalha bem bits de entradas parecidas. */
+    private static long mistura(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,29 @@
+package com.gustavo.rpg.world;
+
+/**
+ * Grafo de saidas de um mapa, com locais numerados 0..tamanho()-1 e
+ * direcoes numeradas 0..totalDirecoes()-1. E o que o {@link PathFinder}
+ * enxerga, seja o mapa gerado ou um feito a mao.
+ */
+public interface WorldGraph {
+
+    int tamanho();
+
+    int totalDirecoes();
+
+    String nomeDirecao(int direcao);
+
+    /** Destino saindo de id na direcao, ou -1. */
+    int vizinho(int id, int direcao);
+
+    /**
+     * Se toda saida tem volta (v -> w implica alguma direcao de w -> v).
+     * Com isso o PathFinder pode buscar a partir das duas pontas.
+     */
+    default boolean simetrico() {
+        return false;
+    }
+
+    /** Muda sempre que alguma conexao muda; rotas calculadas antes deixam de valer. */
+    long versao();
+}